@@ -0,0 +1,178 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.token.operations.Assignment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates postfix tokens over whole columns of variable values at
+ * once. Every operator is applied to entire columns through
+ * {@link Operator#computeBatch(double[][], double[], int)}, which keeps
+ * the inner loops free of dispatch. Conditionals and logical operators
+ * evaluate all their operands and combine them without branches, so
+ * domain errors in the branch that is not taken produce NaN in that
+ * branch only and never reach the result.
+ * <p>
+ * Impure operators, such as series functions, must only see the rows
+ * for which they are reached. So tokens with both an impure operator
+ * and a conditional or logical operator are compiled into a
+ * {@link Program} instead, and run one row at a time, which
+ * short-circuits as the other evaluators do.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.24
+ */
+class BatchEvaluator {
+
+    /**
+     * @param tokens   The tokens in postfix order.
+     * @param columns  The values of the variables, one column per variable
+     *                 name. Every column must have at least {@code rows}
+     *                 values. The columns are never modified.
+     * @param rows     The number of rows to evaluate.
+     * @param snapshot The bindings of the variables that have no column.
+     * @param depth    The stack depth the tokens need, or 0 if it is not
+     *                 known.
+     * @return A new column with the result for each row.
+     * @throws EvaluationException If a variable is uninitialized, or the
+     *                             tokens contain an assignment.
+     */
+    static double[] evaluate(final List<Token> tokens,
+                             final Map<String, double[]> columns,
+                             final int rows,
+                             final VariableSnapshot snapshot,
+                             final int depth) throws
+            ArityException,
+            EvaluationException {
+        if (tokens.isEmpty()) {
+            throw new EvaluationException("Cannot evaluate an empty expression.");
+        }
+        if (Postfix.hasShortCircuit(tokens) && !isPure(tokens)) {
+            return evaluateRows(tokens, columns, rows, snapshot);
+        }
+        final Deque<double[]> free = new ArrayDeque<>();
+        final int capacity = depth > 0 ? depth : tokens.size();
+        final double[][] stack = new double[capacity][];
+        // Whether the column on the stack was allocated here (and can be
+        // recycled) or is one of the caller's input columns
+        final boolean[] owned = new boolean[capacity];
+        int top = -1;
+        for (Token token : tokens) {
+            if (token instanceof Real) {
+                double[] column = allocate(free, rows);
+                Arrays.fill(column, 0, rows, ((Real) token).getValue());
+                stack[++top] = column;
+                owned[top] = true;
+            } else if (token instanceof Variable) {
+                Variable variable = (Variable) token;
+                double[] input = columns.get(variable.getSymbol());
+                if (input != null) {
+                    if (input.length < rows) {
+                        throw new EvaluationException("Column " + variable.getSymbol()
+                                + " has fewer than " + rows + " rows.");
+                    }
+                    stack[++top] = input;
+                    owned[top] = false;
+                } else {
+                    double[] column = allocate(free, rows);
+                    Arrays.fill(column, 0, rows, snapshot.getValue(variable));
+                    stack[++top] = column;
+                    owned[top] = true;
+                }
+            } else {
+                Operator operator = (Operator) token;
+                int arity = operator.getArity();
+                if (top + 1 < arity) {
+                    throw new ArityException(operator, arity, top + 1);
+                }
+                final double[][] operands = Arrays.copyOfRange(stack, top - arity + 1, top + 1);
+                final double[] result = allocate(free, rows);
+                operator.computeBatch(operands, result, rows);
+                for (int i = 0; i < arity; i++) {
+                    if (owned[top]) {
+                        free.push(stack[top]);
+                    }
+                    top--;
+                }
+                stack[++top] = result;
+                owned[top] = true;
+            }
+        }
+        if (top != 0) {
+            throw new EvaluationException("Too many operands. There might be an operator (or more) missing.");
+        }
+        return owned[0] ? stack[0] : Arrays.copyOf(stack[0], rows);
+    }
+
+    /**
+     * Evaluates the tokens one row at a time with a {@link Program}, whose
+     * slots hold the values of the variables that have a column.
+     */
+    private static double[] evaluateRows(final List<Token> tokens,
+                                         final Map<String, double[]> columns,
+                                         final int rows,
+                                         final VariableSnapshot snapshot) throws EvaluationException {
+        if (tokens.contains(Assignment.INSTANCE)) {
+            throw new EvaluationException("Expressions that assign cannot be evaluated in batches.");
+        }
+        final Program.Builder builder = new Program.Builder().allowImpure();
+        final Map<String, Integer> slots = new HashMap<>();
+        final List<double[]> inputs = new ArrayList<>();
+        for (Token token : tokens) {
+            if (!(token instanceof Variable)) {
+                continue;
+            }
+            final Variable variable = (Variable) token;
+            final double[] input = columns.get(variable.getSymbol());
+            if (input == null) {
+                // Fails now for an uninitialized variable, as the
+                // columnar path does, even if no row reaches it
+                snapshot.getValue(variable);
+            } else if (!slots.containsKey(variable.getSymbol())) {
+                if (input.length < rows) {
+                    throw new EvaluationException("Column " + variable.getSymbol()
+                            + " has fewer than " + rows + " rows.");
+                }
+                slots.put(variable.getSymbol(), builder.newSlot());
+                inputs.add(input);
+            }
+        }
+        builder.appendExpression(tokens, slots);
+        final Program program = builder.build();
+        final Program.Frame frame = program.newFrame();
+        final double[] result = new double[rows];
+        for (int row = 0; row < rows; row++) {
+            for (int i = 0; i < inputs.size(); i++) {
+                frame.slots[i] = inputs.get(i)[row];
+            }
+            result[row] = program.run(frame, snapshot);
+        }
+        return result;
+    }
+
+    private static boolean isPure(final List<Token> tokens) {
+        for (Token token : tokens) {
+            if (token instanceof Operator && !((Operator) token).isPure()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double[] allocate(final Deque<double[]> free, final int rows) {
+        return free.isEmpty() ? new double[rows] : free.pop();
+    }
+}
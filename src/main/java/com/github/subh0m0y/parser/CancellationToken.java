@@ -0,0 +1,26 @@
+package com.github.subh0m0y.parser;
+
+/**
+ * A flag that one thread raises to ask the evaluations that carry it
+ * to stop. Evaluations check it together with their
+ * {@link EvaluationBudget}, and stop with a
+ * {@link java.util.concurrent.CancellationException}.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.05
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled;
+
+    /**
+     * Asks every evaluation that carries this token to stop. This
+     * cannot be undone.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.LimitExceededException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A forward-only source of characters for the tokenizer. Sources backed
+ * by a Reader or a ByteBuffer decode a fixed size chunk at a time, so
+ * the input never has to be held in memory as a whole.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.27
+ */
+abstract class CharSource {
+    // The number of characters decoded at a time by buffered sources
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * @return The next character, or -1 at the end of the input.
+     * @throws UncheckedIOException If the underlying Reader fails, or
+     *                              the bytes are malformed.
+     */
+    abstract int read() throws UncheckedIOException;
+
+    /**
+     * @param source  The characters to read.
+     * @param maximum The most characters that may be read.
+     * @return A source that fails as soon as the given one turns out to
+     * hold more characters than allowed.
+     */
+    static CharSource limit(final CharSource source, final int maximum) {
+        if (maximum == Integer.MAX_VALUE) {
+            return source;
+        }
+        return new CharSource() {
+            private int count;
+
+            @Override
+            int read() throws UncheckedIOException, LimitExceededException {
+                final int ch = source.read();
+                if (ch >= 0 && ++count > maximum) {
+                    throw new LimitExceededException("The expression is longer than " + maximum + " characters.");
+                }
+                return ch;
+            }
+        };
+    }
+
+    static CharSource of(final CharSequence sequence) {
+        return new CharSource() {
+            private int index;
+
+            @Override
+            int read() {
+                return index < sequence.length() ? sequence.charAt(index++) : -1;
+            }
+        };
+    }
+
+    static CharSource of(final Reader reader) {
+        return new CharSource() {
+            private final char[] chunk = new char[CHUNK_SIZE];
+            private int index;
+            private int length;
+            private boolean ended;
+
+            @Override
+            int read() throws UncheckedIOException {
+                while (index == length) {
+                    if (ended) {
+                        return -1;
+                    }
+                    try {
+                        length = reader.read(chunk, 0, chunk.length);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    index = 0;
+                    if (length < 0) {
+                        length = 0;
+                        ended = true;
+                    }
+                }
+                return chunk[index++];
+            }
+        };
+    }
+
+    /**
+     * Decodes the remaining bytes of the buffer. The position of the
+     * buffer given is not changed.
+     */
+    static CharSource of(final ByteBuffer bytes, final Charset charset) {
+        final ByteBuffer input = bytes.duplicate();
+        final CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        return new CharSource() {
+            private final CharBuffer chunk = (CharBuffer) CharBuffer.allocate(CHUNK_SIZE).flip();
+            private boolean flushed;
+
+            @Override
+            int read() throws UncheckedIOException {
+                while (!chunk.hasRemaining()) {
+                    if (flushed) {
+                        return -1;
+                    }
+                    chunk.clear();
+                    // All the input is in the buffer, so every call
+                    // may treat it as the end of the input
+                    CoderResult result = decoder.decode(input, chunk, true);
+                    if (result.isUnderflow()) {
+                        result = decoder.flush(chunk);
+                        flushed = true;
+                    }
+                    check(result);
+                    chunk.flip();
+                }
+                return chunk.get();
+            }
+
+            private void check(final CoderResult result) {
+                if (result.isError()) {
+                    try {
+                        result.throwException();
+                    } catch (CharacterCodingException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,384 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.operands.Variable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates one Expression for many concurrent callers, by coalescing
+ * their requests into batches. A request waits until either the batch
+ * it joined holds the maximum number of rows, or the window that
+ * started with the first request of the batch has passed. The batch is
+ * then evaluated column by column, as by {@link Expression#evaluate(Map, int)},
+ * and the future of every request is completed with its row.
+ * <p>
+ * Rows that come out as NaN are evaluated again by the interpreter, so
+ * that domain errors and uninitialized variables complete the future
+ * exceptionally, just as {@link Expression#evaluate(VariableSnapshot)}
+ * would throw. Batches run on the given executor (the common fork-join
+ * pool by default); the windows are timed by one shared daemon thread.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.07
+ */
+public class CoalescingEvaluator {
+    /**
+     * The number of buckets of the batch size histogram; bucket i counts
+     * the batches of 2<sup>i</sup> to 2<sup>i+1</sup> - 1 rows, and the
+     * last one all the larger batches too.
+     */
+    public static final int HISTOGRAM_BUCKETS = 16;
+
+    private static final ScheduledExecutorService TIMER = newTimer();
+
+    private final Expression expression;
+    private final Variable[] variables;
+    private final int maximumBatchSize;
+    private final long windowNanos;
+    private final Executor executor;
+
+    private final Object lock = new Object();
+    private List<Request> pending = new ArrayList<>();
+    private long generation;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRows = new LongAdder();
+    private final LongAdder fullBatches = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private int maximumQueueDepth;
+
+    /**
+     * @param expression       The Expression to evaluate.
+     * @param maximumBatchSize The number of rows that completes a batch.
+     * @param window           The longest a request waits for others to join.
+     * @param unit             The unit of the window.
+     * @throws EvaluationException      If the Expression assigns to a
+     *                                  variable or keeps state, since
+     *                                  the rows of a batch would share
+     *                                  that state.
+     * @throws IllegalArgumentException If the batch size is not positive,
+     *                                  or the window is negative.
+     */
+    public CoalescingEvaluator(final Expression expression,
+                               final int maximumBatchSize,
+                               final long window,
+                               final TimeUnit unit) throws EvaluationException, IllegalArgumentException {
+        this(expression, maximumBatchSize, window, unit, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param expression       The Expression to evaluate.
+     * @param maximumBatchSize The number of rows that completes a batch.
+     * @param window           The longest a request waits for others to join.
+     * @param unit             The unit of the window.
+     * @param executor         The executor to evaluate the batches on.
+     * @throws EvaluationException      If the Expression assigns to a
+     *                                  variable or keeps state.
+     * @throws IllegalArgumentException If the batch size is not positive,
+     *                                  or the window is negative.
+     */
+    public CoalescingEvaluator(final Expression expression,
+                               final int maximumBatchSize,
+                               final long window,
+                               final TimeUnit unit,
+                               final Executor executor) throws EvaluationException, IllegalArgumentException {
+        if (!expression.isPure()) {
+            throw new EvaluationException("Expressions that assign or keep state cannot be coalesced.");
+        }
+        if (maximumBatchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive.");
+        }
+        if (window < 0) {
+            throw new IllegalArgumentException("The window must be non-negative.");
+        }
+        this.expression = expression;
+        this.maximumBatchSize = maximumBatchSize;
+        this.windowNanos = unit.toNanos(window);
+        this.executor = executor;
+        final List<String> names = new ArrayList<>(expression.getVariables());
+        this.variables = new Variable[names.size()];
+        for (int i = 0; i < variables.length; i++) {
+            variables[i] = new Variable(names.get(i));
+        }
+    }
+
+    /**
+     * Queues the evaluation of the Expression against the given bindings.
+     *
+     * @param bindings The bindings to read every variable from.
+     * @return A future that completes with the value, or exceptionally
+     * with the {@link EvaluationException} the interpreter would throw.
+     */
+    public CompletableFuture<Double> evaluateAsync(final VariableSnapshot bindings) {
+        final Request request = new Request(bindings);
+        requests.increment();
+        List<Request> full = null;
+        boolean first = false;
+        long current;
+        synchronized (lock) {
+            pending.add(request);
+            maximumQueueDepth = Math.max(maximumQueueDepth, pending.size());
+            current = generation;
+            if (pending.size() >= maximumBatchSize) {
+                full = takePending();
+            } else {
+                first = pending.size() == 1;
+            }
+        }
+        if (full != null) {
+            fullBatches.increment();
+            submit(full);
+        } else if (first) {
+            if (windowNanos == 0) {
+                flush(current);
+            } else {
+                TIMER.schedule(() -> flush(current), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        return request.future;
+    }
+
+    /**
+     * Evaluates the requests waiting right now, without waiting for the
+     * window to pass.
+     */
+    public void flush() {
+        final List<Request> batch;
+        synchronized (lock) {
+            batch = pending.isEmpty() ? null : takePending();
+        }
+        if (batch != null) {
+            submit(batch);
+        }
+    }
+
+    /**
+     * Flushes the batch of the given generation, if it is still waiting.
+     */
+    private void flush(final long expected) {
+        final List<Request> batch;
+        synchronized (lock) {
+            batch = generation == expected && !pending.isEmpty() ? takePending() : null;
+        }
+        if (batch != null) {
+            submit(batch);
+        }
+    }
+
+    private List<Request> takePending() {
+        final List<Request> batch = pending;
+        pending = new ArrayList<>();
+        generation++;
+        return batch;
+    }
+
+    private void submit(final List<Request> batch) {
+        try {
+            executor.execute(() -> evaluate(batch));
+        } catch (RejectedExecutionException e) {
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void evaluate(final List<Request> batch) {
+        batches.increment();
+        batchedRows.add(batch.size());
+        histogram.incrementAndGet(Math.min(31 - Integer.numberOfLeadingZeros(batch.size()), HISTOGRAM_BUCKETS - 1));
+
+        // Gather the columns; a row whose bindings are incomplete is
+        // left as NaN and reported by the interpreter below
+        final int rows = batch.size();
+        final Map<String, double[]> columns = new HashMap<>();
+        for (Variable variable : variables) {
+            final double[] column = new double[rows];
+            for (int row = 0; row < rows; row++) {
+                try {
+                    column[row] = batch.get(row).bindings.getValue(variable);
+                } catch (EvaluationException e) {
+                    column[row] = Double.NaN;
+                }
+            }
+            columns.put(variable.getSymbol(), column);
+        }
+        final double[] results;
+        try {
+            results = BatchEvaluator.evaluate(expression.getTokens(), columns, rows,
+                    batch.get(0).bindings, expression.getMaximumStackDepth());
+        } catch (RuntimeException e) {
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+            return;
+        }
+        for (int row = 0; row < rows; row++) {
+            final Request request = batch.get(row);
+            if (!Double.isNaN(results[row])) {
+                request.future.complete(results[row]);
+                continue;
+            }
+            fallbacks.increment();
+            try {
+                request.future.complete(expression.evaluate(request.bindings).getValue());
+            } catch (RuntimeException e) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * @return The current values of the counters of this evaluator.
+     */
+    public Metrics getMetrics() {
+        final int queueDepth;
+        final int maximumDepth;
+        synchronized (lock) {
+            queueDepth = pending.size();
+            maximumDepth = maximumQueueDepth;
+        }
+        final long[] sizes = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = histogram.get(i);
+        }
+        return new Metrics(queueDepth, maximumDepth, requests.sum(), batches.sum(),
+                batchedRows.sum(), fullBatches.sum(), fallbacks.sum(), sizes);
+    }
+
+    private static ScheduledExecutorService newTimer() {
+        final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "expression-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static final class Request {
+        private final VariableSnapshot bindings;
+        private final CompletableFuture<Double> future = new CompletableFuture<>();
+
+        Request(final VariableSnapshot bindings) {
+            this.bindings = bindings;
+        }
+    }
+
+    /**
+     * A snapshot of the counters of one evaluator.
+     */
+    public static final class Metrics {
+        private final int queueDepth;
+        private final int maximumQueueDepth;
+        private final long requests;
+        private final long batches;
+        private final long batchedRows;
+        private final long fullBatches;
+        private final long fallbacks;
+        private final long[] batchSizes;
+
+        Metrics(final int queueDepth,
+                final int maximumQueueDepth,
+                final long requests,
+                final long batches,
+                final long batchedRows,
+                final long fullBatches,
+                final long fallbacks,
+                final long[] batchSizes) {
+            this.queueDepth = queueDepth;
+            this.maximumQueueDepth = maximumQueueDepth;
+            this.requests = requests;
+            this.batches = batches;
+            this.batchedRows = batchedRows;
+            this.fullBatches = fullBatches;
+            this.fallbacks = fallbacks;
+            this.batchSizes = batchSizes;
+        }
+
+        /**
+         * @return The number of requests waiting for their batch.
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return The most requests that ever waited at once.
+         */
+        public int getMaximumQueueDepth() {
+            return maximumQueueDepth;
+        }
+
+        /**
+         * @return The number of requests received.
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return The number of batches evaluated.
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        /**
+         * @return The number of batches started because they were full,
+         * rather than because their window passed.
+         */
+        public long getFullBatches() {
+            return fullBatches;
+        }
+
+        /**
+         * @return The number of rows that produced NaN and were evaluated
+         * again by the interpreter.
+         */
+        public long getFallbacks() {
+            return fallbacks;
+        }
+
+        /**
+         * @return The batch size histogram: element i is the number of
+         * batches of 2<sup>i</sup> to 2<sup>i+1</sup> - 1 rows.
+         */
+        public long[] getBatchSizes() {
+            return batchSizes.clone();
+        }
+
+        /**
+         * @return The average number of rows per batch, or 0 if there
+         * were no batches.
+         */
+        public double getAverageBatchSize() {
+            return batches == 0 ? 0 : (double) batchedRows / batches;
+        }
+
+        @Override
+        public String toString() {
+            return "queueDepth=" + queueDepth
+                    + " maximumQueueDepth=" + maximumQueueDepth
+                    + " requests=" + requests
+                    + " batches=" + batches
+                    + " fullBatches=" + fullBatches
+                    + " fallbacks=" + fallbacks;
+        }
+    }
+}
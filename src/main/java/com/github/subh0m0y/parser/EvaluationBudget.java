@@ -0,0 +1,96 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.LimitExceededException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The work one request may spend on evaluations: a number of steps (one
+ * per token interpreted, or per instruction run), a deadline, and a
+ * token to cancel it. A budget may be spent over several evaluations,
+ * but by one thread at a time.
+ * <p>
+ * Evaluators charge steps as they go, in batches of up to
+ * {@value #CHECK_INTERVAL}. Only then do they compare the clock with the
+ * deadline and look at the cancellation token, so the checks cost next
+ * to nothing, and an evaluation stops at most that many steps late.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.05
+ */
+public final class EvaluationBudget {
+    /**
+     * The most steps evaluators take between two checks.
+     */
+    public static final int CHECK_INTERVAL = 1024;
+
+    private final long maximumSteps;
+    private final long deadline;
+    private final boolean hasDeadline;
+    private final CancellationToken token;
+    private long steps;
+
+    /**
+     * @param maximumSteps The most steps to take in all.
+     */
+    public EvaluationBudget(final long maximumSteps) {
+        this(maximumSteps, Long.MAX_VALUE, TimeUnit.NANOSECONDS, null);
+    }
+
+    /**
+     * @param maximumSteps The most steps to take in all, or
+     *                     {@link Long#MAX_VALUE} for no limit.
+     * @param timeout      The time allowed from now on, or
+     *                     {@link Long#MAX_VALUE} for no deadline.
+     * @param unit         The unit of the timeout.
+     * @param token        The token to cancel the evaluations, or null.
+     */
+    public EvaluationBudget(final long maximumSteps,
+                            final long timeout,
+                            final TimeUnit unit,
+                            final CancellationToken token) {
+        this.maximumSteps = maximumSteps;
+        this.hasDeadline = timeout != Long.MAX_VALUE;
+        this.deadline = hasDeadline ? System.nanoTime() + unit.toNanos(timeout) : 0;
+        this.token = token;
+    }
+
+    /**
+     * Spends the given number of steps, and checks the deadline and the
+     * cancellation token.
+     *
+     * @param count The number of steps taken since the last charge.
+     * @throws LimitExceededException If the steps or the time run out.
+     * @throws CancellationException  If the evaluation was cancelled.
+     */
+    void charge(final long count) throws LimitExceededException, CancellationException {
+        steps += count;
+        if (steps > maximumSteps) {
+            throw new LimitExceededException("The evaluation took more than " + maximumSteps + " steps.");
+        }
+        if (hasDeadline && System.nanoTime() - deadline > 0) {
+            throw new LimitExceededException("The evaluation ran past its deadline.");
+        }
+        if (token != null && token.isCancelled()) {
+            throw new CancellationException("The evaluation was cancelled.");
+        }
+    }
+
+    /**
+     * Gives back steps charged for work that is being redone, so that
+     * the work is only paid for once.
+     *
+     * @param count The number of steps to give back.
+     */
+    void refund(final long count) {
+        steps -= count;
+    }
+
+    /**
+     * @return The number of steps charged so far.
+     */
+    public long getSteps() {
+        return steps;
+    }
+}
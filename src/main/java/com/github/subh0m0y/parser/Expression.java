@@ -1,39 +1,493 @@
 package com.github.subh0m0y.parser;
 
-import com.github.subh0m0y.parser.ExpressionConverter.ConversionException;
+import com.github.subh0m0y.parser.ExpressionParser.ConversionException;
 import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
 import com.github.subh0m0y.parser.exceptions.ImproperParenthesesException;
+import com.github.subh0m0y.parser.exceptions.LimitExceededException;
 import com.github.subh0m0y.parser.ExpressionTokenizer.UnrecognizedCharacterException;
 import com.github.subh0m0y.parser.ExpressionTokenizer.UnrecognizedOperatorException;
 import com.github.subh0m0y.parser.token.Operand;
+import com.github.subh0m0y.parser.token.Operator;
 import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.token.operations.Assignment;
+import com.github.subh0m0y.parser.token.series.SeriesFunction;
+import com.github.subh0m0y.parser.optimizer.ConstantFolding;
+import com.github.subh0m0y.parser.optimizer.OptimizationLevel;
+import com.github.subh0m0y.parser.optimizer.PassManager;
+import com.github.subh0m0y.parser.optimizer.VariableSubstitution;
+import com.github.subh0m0y.parser.tree.Node;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Subhomoy Haldar
- * @version 2017.04.21
+ * @version 2017.06.08
  */
 public class Expression {
+    /**
+     * The ways in which an Expression can currently be evaluated.
+     */
+    public enum Tier {
+        /**
+         * Evaluated by the token based interpreter, and counting.
+         */
+        INTERPRETED,
+        /**
+         * Hot enough to be compiled; the compilation is in progress.
+         */
+        COMPILING,
+        /**
+         * Evaluated by compiled code.
+         */
+        COMPILED,
+        /**
+         * Always interpreted, because it assigns, is a single token or
+         * failed to compile.
+         */
+        INTERPRETED_ONLY
+    }
+
+    private static final PassManager DEFAULT_PASSES = PassManager.withDefaults(OptimizationLevel.getDefault());
+
     private final List<Token> tokens;
+    private final boolean assigns;
+    private final boolean lone;
+    private final int maximumDepth;
+    private final int maximumProgramSize;
+
+    private final AtomicInteger tier;
+    // Racy on purpose: a lost increment only delays promotion a little
+    private long invocations;
+    private volatile Compiled compiled;
 
     public Expression(final String expressionString) throws
             ConversionException,
             ImproperParenthesesException,
             UnrecognizedCharacterException,
             UnrecognizedOperatorException {
-        tokens = Collections.unmodifiableList(
-                ExpressionConverter.convert(
-                        ExpressionTokenizer.tokenize(expressionString)
-                )
-        );
+        this(expressionString, DEFAULT_PASSES);
+    }
+
+    /**
+     * Parses the expression and optimizes it with the given passes.
+     *
+     * @param expressionString The expression to parse.
+     * @param passes           The passes to optimize the expression with.
+     */
+    public Expression(final String expressionString, final PassManager passes) throws
+            ConversionException,
+            ImproperParenthesesException,
+            UnrecognizedCharacterException,
+            UnrecognizedOperatorException {
+        this(ExpressionParser.parse(CharSource.of(expressionString)), passes, ParseLimits.NONE);
+    }
+
+    /**
+     * Creates an Expression from a tree, such as one built by hand or
+     * rewritten by an optimizer.
+     *
+     * @param tree The root of the tree, or null for an empty Expression.
+     */
+    public Expression(final Node tree) {
+        this(tree == null ? Collections.<Token>emptyList() : tree.toPostfix(),
+                tree == null || tree.size() == 1, Integer.MAX_VALUE);
+    }
+
+    private Expression(final Node parsed, final PassManager passes, final ParseLimits limits) {
+        this(parsed == null ? Collections.<Token>emptyList() : passes.optimize(parsed).getTree().toPostfix(),
+                parsed == null || parsed.size() == 1, limits.getMaximumProgramSize());
+    }
+
+    /**
+     * Parses an Expression from a stream of characters, without reading
+     * it into memory as a whole first. This is meant for very large,
+     * generated expressions; the syntax is the same as for
+     * {@link #Expression(String)}.
+     *
+     * @param reader The source of the expression. It is read to the end,
+     *               but not closed.
+     * @return The parsed Expression.
+     * @throws IOException If the Reader fails.
+     */
+    public static Expression parse(final Reader reader) throws
+            IOException,
+            ConversionException,
+            ImproperParenthesesException,
+            UnrecognizedCharacterException,
+            UnrecognizedOperatorException {
+        return parse(reader, ParseLimits.NONE);
     }
 
+    /**
+     * Parses an Expression from a stream of characters, enforcing the
+     * given limits while reading. Reading stops as soon as a limit is
+     * exceeded.
+     *
+     * @param reader The source of the expression.
+     * @param limits The limits on the expression.
+     * @return The parsed Expression.
+     * @throws IOException            If the Reader fails.
+     * @throws LimitExceededException If the expression goes beyond
+     *                                the limits.
+     */
+    public static Expression parse(final Reader reader, final ParseLimits limits) throws
+            IOException,
+            ConversionException,
+            ImproperParenthesesException,
+            LimitExceededException,
+            UnrecognizedCharacterException,
+            UnrecognizedOperatorException {
+        try {
+            return new Expression(ExpressionParser.parse(CharSource.of(reader), limits), DEFAULT_PASSES, limits);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Parses an Expression from a sequence of characters in a single
+     * pass, without copying it.
+     *
+     * @param input The expression.
+     * @return The parsed Expression.
+     * @see #parse(Reader)
+     */
+    public static Expression parse(final CharSequence input) throws
+            ConversionException,
+            ImproperParenthesesException,
+            UnrecognizedCharacterException,
+            UnrecognizedOperatorException {
+        return parse(input, ParseLimits.NONE);
+    }
+
+    /**
+     * Parses an Expression that cannot be trusted, enforcing the given
+     * limits while reading it.
+     *
+     * @param input  The expression.
+     * @param limits The limits on the expression.
+     * @return The parsed Expression.
+     * @throws LimitExceededException If the expression goes beyond
+     *                                the limits.
+     * @see #parse(Reader, ParseLimits)
+     */
+    public static Expression parse(final CharSequence input, final ParseLimits limits) throws
+            ConversionException,
+            ImproperParenthesesException,
+            LimitExceededException,
+            UnrecognizedCharacterException,
+            UnrecognizedOperatorException {
+        return new Expression(ExpressionParser.parse(CharSource.of(input), limits), DEFAULT_PASSES, limits);
+    }
+
+    /**
+     * Parses an Expression from the remaining bytes of the buffer,
+     * decoding them as they are read. The buffer's position is not
+     * changed.
+     *
+     * @param bytes   The encoded expression.
+     * @param charset The encoding of the bytes.
+     * @return The parsed Expression.
+     * @throws CharacterCodingException If the bytes are not valid in
+     *                                  the given encoding.
+     * @see #parse(Reader)
+     */
+    public static Expression parse(final ByteBuffer bytes, final Charset charset) throws
+            CharacterCodingException,
+            ConversionException,
+            ImproperParenthesesException,
+            UnrecognizedCharacterException,
+            UnrecognizedOperatorException {
+        try {
+            return new Expression(ExpressionParser.parse(CharSource.of(bytes, charset)), DEFAULT_PASSES, ParseLimits.NONE);
+        } catch (UncheckedIOException e) {
+            throw (CharacterCodingException) e.getCause();
+        }
+    }
+
+    /**
+     * @return The passes that optimize Expressions parsed without
+     * choosing passes. Their level is set by the system property
+     * {@code expression.optimization.level} (O1 by default).
+     */
+    public static PassManager getDefaultPasses() {
+        return DEFAULT_PASSES;
+    }
+
+    /**
+     * @param postfix The tokens in postfix order.
+     * @param lone    {@code true} if the source was a single token, whose
+     *                identity is kept on evaluation. A single token left
+     *                by optimization is read like any other expression.
+     * @param maximumProgramSize The most instructions to compile to.
+     */
+    private Expression(final List<Token> postfix, final boolean lone, final int maximumProgramSize) {
+        tokens = Collections.unmodifiableList(postfix);
+        this.maximumProgramSize = maximumProgramSize;
+        this.lone = lone && postfix.size() == 1;
+        assigns = tokens.contains(Assignment.INSTANCE);
+        maximumDepth = Postfix.maximumDepth(tokens);
+        tier = new AtomicInteger(isPromotable() ? Tier.INTERPRETED.ordinal() : Tier.INTERPRETED_ONLY.ordinal());
+    }
+
+    private boolean isPromotable() {
+        return tokens.size() != 1 && isPure();
+    }
+
+    /**
+     * @return Whether every operator in this Expression is pure, so that
+     * its value depends only on the values of its variables.
+     */
+    boolean isPure() {
+        for (Token token : tokens) {
+            if (token instanceof Operator && !((Operator) token).isPure()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates this Expression. Unless it assigns to a variable, all
+     * the variables it reads come from a single snapshot of the
+     * {@link VariableMap}, so concurrent assignments elsewhere cannot
+     * be observed half-way.
+     * <p>
+     * Expressions that are evaluated often are compiled in the
+     * background; see {@link Tiering}.
+     *
+     * @return The result of evaluating this Expression.
+     */
     public Operand evaluate() throws
             ArityException,
             ConversionException {
-        return ExpressionEvaluator.evaluate(tokens);
+        if (assigns || lone) {
+            // A lone token is read at most once, and keeps its identity
+            // (a Variable prints its name along with its value).
+            return ExpressionEvaluator.evaluate(tokens);
+        }
+        return ExpressionEvaluator.evaluate(tokens, VariableMap.INSTANCE.snapshot(), maximumDepth);
+    }
+
+    /**
+     * Evaluates this Expression against the given immutable bindings.
+     *
+     * @param snapshot The bindings to read every variable from.
+     * @return The result of evaluating this Expression.
+     * @throws EvaluationException If this Expression contains an assignment.
+     */
+    public Operand evaluate(final VariableSnapshot snapshot) throws
+            ArityException,
+            ConversionException,
+            EvaluationException {
+        return evaluate(snapshot, null);
+    }
+
+    /**
+     * Evaluates this Expression against the given immutable bindings,
+     * within a budget of steps and time that can be cancelled.
+     *
+     * @param snapshot The bindings to read every variable from.
+     * @param budget   The budget to charge, or null for none.
+     * @return The result of evaluating this Expression.
+     * @throws EvaluationException    If this Expression contains an assignment.
+     * @throws LimitExceededException If the budget runs out.
+     * @throws CancellationException  If the budget's token is cancelled.
+     */
+    public Operand evaluate(final VariableSnapshot snapshot, final EvaluationBudget budget) throws
+            ArityException,
+            CancellationException,
+            ConversionException,
+            EvaluationException,
+            LimitExceededException {
+        final Compiled compiled = this.compiled;
+        if (compiled != null) {
+            final long before = budget == null ? 0 : budget.getSteps();
+            double value = compiled.run(snapshot, budget);
+            if (!Double.isNaN(value)) {
+                Tiering.recordCompiled();
+                return new Real(value);
+            }
+            // Compiled code turns domain errors into NaN; let the
+            // interpreter decide whether to throw or return NaN. It
+            // charges the budget for the evaluation all over again.
+            if (budget != null) {
+                budget.refund(budget.getSteps() - before);
+            }
+            Tiering.recordFallback();
+        } else if (++invocations >= Tiering.getThreshold()
+                && tier.compareAndSet(Tier.INTERPRETED.ordinal(), Tier.COMPILING.ordinal())) {
+            Tiering.promote(this::compile);
+        }
+        Tiering.recordInterpreted();
+        return ExpressionEvaluator.evaluate(tokens, snapshot, maximumDepth, budget);
+    }
+
+    /**
+     * Creates a new Expression in which the given variables are replaced
+     * by their values, and every part that depends only on them is
+     * computed in advance. Only the remaining variables are read when
+     * the new Expression is evaluated. It is compiled right away, without
+     * waiting to become hot.
+     * <p>
+     * Parts that cannot be computed in advance because of an error (such
+     * as the square root of a negative constant) are kept, so that the
+     * error is still reported on evaluation. Assignment targets are never
+     * replaced.
+     *
+     * @param fixed The values of the variables to fix, by name.
+     * @return The specialized Expression.
+     */
+    public Expression specialize(final Map<String, Double> fixed) throws
+            ArityException,
+            EvaluationException {
+        final PassManager passes = new PassManager(OptimizationLevel.O0)
+                .register(new VariableSubstitution(fixed), OptimizationLevel.O0)
+                .register(new ConstantFolding(), OptimizationLevel.O0);
+        final Expression specialized = new Expression(toTree(), passes,
+                ParseLimits.NONE.withMaximumProgramSize(maximumProgramSize));
+        if (specialized.tier.compareAndSet(Tier.INTERPRETED.ordinal(), Tier.COMPILING.ordinal())) {
+            try {
+                specialized.compile();
+            } catch (RuntimeException | StackOverflowError e) {
+                // Left to the interpreter, which reports the problem
+            }
+        }
+        return specialized;
+    }
+
+    /**
+     * @return The tier this Expression is currently evaluated in.
+     */
+    public Tier getTier() {
+        return Tier.values()[tier.get()];
+    }
+
+    /**
+     * @return The (approximate) number of times this Expression was
+     * interpreted before being compiled.
+     */
+    public long getInvocationCount() {
+        return invocations;
     }
 
+    private void compile() {
+        try {
+            Program.Builder builder = new Program.Builder(maximumProgramSize);
+            builder.appendExpression(tokens, new HashMap<>());
+            compiled = new Compiled(builder.build());
+            tier.set(Tier.COMPILED.ordinal());
+        } catch (RuntimeException | StackOverflowError e) {
+            tier.set(Tier.INTERPRETED_ONLY.ordinal());
+            throw e;
+        }
+    }
+
+    /**
+     * Evaluates this Expression for many rows of variable values at
+     * once. Variables without a column are read from a snapshot of the
+     * {@link VariableMap} and take the same value in every row.
+     * <p>
+     * Batch evaluation works on plain values: domain errors produce NaN
+     * rather than exceptions, and conditionals are computed branch-free
+     * by evaluating both branches and selecting per row. Expressions
+     * with state, such as series functions, that also have conditionals
+     * are evaluated row by row instead, so that state only advances in
+     * the rows that reach it.
+     *
+     * @param columns The values of the variables, keyed by name.
+     * @param rows    The number of rows to evaluate.
+     * @return The value of this Expression for each row.
+     * @throws EvaluationException If a variable without a column is
+     *                             uninitialized, or this Expression assigns.
+     */
+    public double[] evaluate(final Map<String, double[]> columns, final int rows) throws
+            ArityException,
+            EvaluationException {
+        return BatchEvaluator.evaluate(tokens, columns, rows, VariableMap.INSTANCE.snapshot(), maximumDepth);
+    }
+
+    /**
+     * @return The names of the variables this Expression reads (or
+     * assigns), in alphabetical order.
+     */
+    public SortedSet<String> getVariables() {
+        final SortedSet<String> variables = new TreeSet<>();
+        for (Token token : tokens) {
+            if (token instanceof Variable) {
+                variables.add(((Variable) token).getSymbol());
+            }
+        }
+        return Collections.unmodifiableSortedSet(variables);
+    }
+
+    /**
+     * @return The largest number of values on the evaluation stack at
+     * any point while evaluating this Expression, so that evaluators can
+     * size their stacks in advance.
+     */
+    public int getMaximumStackDepth() {
+        return maximumDepth;
+    }
+
+    /**
+     * Forgets the rows seen by the {@link SeriesFunction}s in this
+     * Expression, so that it can be evaluated over a new stream.
+     */
+    public void reset() {
+        for (Token token : tokens) {
+            if (token instanceof SeriesFunction) {
+                ((SeriesFunction) token).reset();
+            }
+        }
+    }
+
+    /**
+     * @return The tree of this Expression, or null if it is empty.
+     */
+    public Node toTree() {
+        return tokens.isEmpty() ? null : Node.fromPostfix(tokens);
+    }
+
+    /**
+     * @return The unmodifiable list of tokens in postfix order.
+     */
+    List<Token> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * A compiled Program along with a frame per thread to run it in.
+     */
+    private static final class Compiled {
+        private final Program program;
+        private final ThreadLocal<Program.Frame> frames;
+
+        Compiled(final Program program) {
+            this.program = program;
+            this.frames = ThreadLocal.withInitial(program::newFrame);
+        }
+
+        double run(final VariableSnapshot snapshot, final EvaluationBudget budget) {
+            return program.run(frames.get(), snapshot, budget);
+        }
+    }
 }
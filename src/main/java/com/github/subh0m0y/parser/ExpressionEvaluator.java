@@ -3,10 +3,18 @@ package com.github.subh0m0y.parser;
 import com.github.subh0m0y.parser.exceptions.ArityException;
 import com.github.subh0m0y.parser.exceptions.EvaluationException;
 import com.github.subh0m0y.parser.exceptions.ImproperParenthesesException;
+import com.github.subh0m0y.parser.exceptions.LimitExceededException;
 import com.github.subh0m0y.parser.token.Operand;
 import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.ShortCircuitOperator;
 import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.token.operations.Assignment;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Stack;
 
@@ -26,14 +34,86 @@ class ExpressionEvaluator {
             ImproperParenthesesException,
             UnrecognizedOperatorException,
             UnrecognizedCharacterException {
+        return evaluate(tokens, null);
+    }
+
+    /**
+     * Evaluates the postfix tokens, reading every variable from the given
+     * snapshot instead of the live {@link com.github.subh0m0y.parser.token.VariableMap}.
+     * Since a snapshot is immutable, assignments are not allowed.
+     *
+     * @param tokens   The tokens in postfix order.
+     * @param snapshot The bindings to read variables from, or null to
+     *                 read (and assign) the live variables.
+     * @return The result of the evaluation.
+     */
+    static Operand evaluate(final List<Token> tokens,
+                            final VariableSnapshot snapshot) throws
+            ArityException,
+            ImproperParenthesesException,
+            UnrecognizedOperatorException,
+            UnrecognizedCharacterException {
+        return evaluate(tokens, snapshot, 0);
+    }
+
+    /**
+     * @param tokens   The tokens in postfix order.
+     * @param snapshot The bindings to read variables from, or null to
+     *                 read (and assign) the live variables.
+     * @param depth    The stack depth the tokens need, to size the stack
+     *                 in advance, or 0 if it is not known.
+     * @return The result of the evaluation.
+     */
+    static Operand evaluate(final List<Token> tokens,
+                            final VariableSnapshot snapshot,
+                            final int depth) throws
+            ArityException,
+            ImproperParenthesesException,
+            UnrecognizedOperatorException,
+            UnrecognizedCharacterException {
+        return evaluate(tokens, snapshot, depth, null);
+    }
+
+    /**
+     * @param tokens   The tokens in postfix order.
+     * @param snapshot The bindings to read variables from, or null to
+     *                 read (and assign) the live variables.
+     * @param depth    The stack depth the tokens need, or 0.
+     * @param budget   The budget to charge a step per token to, or null.
+     *                 Expressions that short-circuit are charged for all
+     *                 their tokens up front.
+     * @return The result of the evaluation.
+     * @throws LimitExceededException If the budget runs out.
+     */
+    static Operand evaluate(final List<Token> tokens,
+                            final VariableSnapshot snapshot,
+                            final int depth,
+                            final EvaluationBudget budget) throws
+            ArityException,
+            ImproperParenthesesException,
+            LimitExceededException,
+            UnrecognizedOperatorException,
+            UnrecognizedCharacterException {
         Stack<Operand> stack = new Stack<>();
+        stack.ensureCapacity(depth);
 
         // For empty token lists
         if (tokens.isEmpty()) {
             return null;
         }
+        if (Postfix.hasShortCircuit(tokens)) {
+            if (budget != null) {
+                budget.charge(tokens.size());
+            }
+            return evaluateLazily(tokens, snapshot);
+        }
 
+        int steps = 0;
         for (Token token : tokens) {
+            if (budget != null && ++steps == EvaluationBudget.CHECK_INTERVAL) {
+                budget.charge(steps);
+                steps = 0;
+            }
             if (token instanceof Operand) {
                 stack.push((Operand) token);
             } else {
@@ -47,19 +127,124 @@ class ExpressionEvaluator {
                 // That is why the loop runs backwards.
                 Operand[] operands = new Operand[arity];
                 for (int i = arity - 1; i >= 0; i--) {
-                    operands[i] = stack.pop();
+                    operands[i] = resolve(stack.pop(), snapshot);
+                }
+                if (snapshot != null && operator == Assignment.INSTANCE) {
+                    throw new EvaluationException("Cannot assign while evaluating against a snapshot.");
                 }
                 Operand result = operator.evaluate(operands);
                 stack.push(result);
             }
         }
+        if (budget != null) {
+            budget.charge(steps);
+        }
         if (stack.size() > 1) {
             throw new EvaluationException("Too many operands. There might be an operator (or more) missing.");
         }
         if (stack.isEmpty()) {
             throw new EvaluationException("Internal error. No operands in stack.");
         }
-        return stack.pop();
+        return resolve(stack.pop(), snapshot);
+    }
+
+    /**
+     * Evaluates the tokens as a tree, so that short-circuiting operators
+     * can skip the operands they do not need. The tree is walked with an
+     * explicit stack of pending operators rather than by recursion, so
+     * that nesting of any depth can be evaluated.
+     */
+    private static Operand evaluateLazily(final List<Token> tokens,
+                                          final VariableSnapshot snapshot) {
+        final int[] starts = Postfix.subexpressionStarts(tokens);
+        final int last = tokens.size() - 1;
+        if (starts[last] != 0) {
+            throw new EvaluationException("Too many operands. There might be an operator (or more) missing.");
+        }
+        final Deque<Pending> pending = new ArrayDeque<>();
+        int index = last;
+        while (true) {
+            // Descend along first operands down to a leaf
+            Token token = tokens.get(index);
+            while (token instanceof Operator && ((Operator) token).getArity() > 0) {
+                Pending operator = new Pending((Operator) token, Postfix.operandEnds(tokens, starts, index));
+                pending.push(operator);
+                index = operator.ends[0];
+                token = tokens.get(index);
+            }
+            Operand value = token instanceof Operand
+                    ? (Operand) token
+                    : apply((Operator) token, new Operand[0], snapshot);
+            // Hand the value up until an operator needs another operand
+            index = -1;
+            while (index < 0) {
+                if (pending.isEmpty()) {
+                    return resolve(value, snapshot);
+                }
+                Pending operator = pending.peek();
+                index = operator.accept(resolve(value, snapshot));
+                if (index < 0) {
+                    pending.pop();
+                    value = operator.finish(snapshot);
+                }
+            }
+        }
+    }
+
+    private static Operand apply(final Operator operator,
+                                 final Operand[] operands,
+                                 final VariableSnapshot snapshot) {
+        if (snapshot != null && operator == Assignment.INSTANCE) {
+            throw new EvaluationException("Cannot assign while evaluating against a snapshot.");
+        }
+        return operator.evaluate(operands);
+    }
+
+    /**
+     * An operator of the tree whose operands are being evaluated.
+     */
+    private static final class Pending {
+        private final Operator operator;
+        private final int[] ends;
+        private final Operand[] operands;
+        private int position;
+
+        Pending(final Operator operator, final int[] ends) {
+            this.operator = operator;
+            this.ends = ends;
+            this.operands = new Operand[ends.length];
+        }
+
+        /**
+         * @param value The value of the operand evaluated last.
+         * @return The end index of the operand to evaluate next, or -1
+         * if every operand the operator needs is known.
+         */
+        int accept(final Operand value) {
+            operands[position] = value;
+            if (operator instanceof ShortCircuitOperator) {
+                if (position > 0) {
+                    return -1;
+                }
+                position = ((ShortCircuitOperator) operator).neededOperand(value);
+                return position == 0 ? -1 : ends[position];
+            }
+            return ++position < ends.length ? ends[position] : -1;
+        }
+
+        Operand finish(final VariableSnapshot snapshot) {
+            if (operator instanceof ShortCircuitOperator) {
+                return ((ShortCircuitOperator) operator).evaluate(operands[0], i -> operands[i]);
+            }
+            return apply(operator, operands, snapshot);
+        }
+    }
+
+    private static Operand resolve(final Operand operand, final VariableSnapshot snapshot) {
+        if (snapshot == null || !(operand instanceof Variable)) {
+            return operand;
+        }
+        return new Real(snapshot.getValue((Variable) operand));
     }
 
 }
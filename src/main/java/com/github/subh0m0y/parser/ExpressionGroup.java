@@ -0,0 +1,123 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A group of Expressions compiled together, to be evaluated against the
+ * same bindings. Subterms that the Expressions have in common (and
+ * subterms repeated within one of them) are computed once per
+ * evaluation of the whole group.
+ * <p>
+ * Like compiled Expressions, a group works on plain values: domain
+ * errors produce NaN rather than exceptions.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.31
+ */
+public class ExpressionGroup {
+    private final Program program;
+    private final int size;
+    private final int sharedCount;
+    private final ThreadLocal<Program.Frame> frames;
+
+    /**
+     * Compiles the given Expressions together.
+     *
+     * @param expressions The Expressions to evaluate together.
+     * @throws EvaluationException If an Expression is empty or assigns
+     *                             to a variable.
+     */
+    public ExpressionGroup(final Expression... expressions) throws
+            ArityException,
+            EvaluationException {
+        this(Arrays.asList(expressions));
+    }
+
+    /**
+     * Compiles the given Expressions together.
+     *
+     * @param expressions The Expressions to evaluate together.
+     * @throws EvaluationException If an Expression is empty or assigns
+     *                             to a variable.
+     */
+    public ExpressionGroup(final List<Expression> expressions) throws
+            ArityException,
+            EvaluationException {
+        final Program.Builder builder = new Program.Builder();
+        for (Expression expression : expressions) {
+            builder.number(expression.getTokens());
+        }
+        // The first slots receive the results
+        for (int i = 0; i < expressions.size(); i++) {
+            builder.newSlot();
+        }
+        final Map<String, Integer> noLocals = Collections.emptyMap();
+        for (int i = 0; i < expressions.size(); i++) {
+            builder.appendExpression(expressions.get(i).getTokens(), noLocals);
+            builder.output(i);
+        }
+        program = builder.build();
+        size = expressions.size();
+        sharedCount = builder.getSharedCount();
+        frames = ThreadLocal.withInitial(program::newFrame);
+    }
+
+    /**
+     * @return The number of Expressions in this group.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of distinct subterms whose value is computed
+     * once and reused in each evaluation.
+     */
+    public int getSharedCount() {
+        return sharedCount;
+    }
+
+    /**
+     * Evaluates every Expression against one snapshot of the
+     * {@link VariableMap}.
+     *
+     * @return The values of the Expressions, in order.
+     * @throws EvaluationException If a variable is uninitialized.
+     */
+    public double[] evaluate() throws EvaluationException {
+        return evaluate(VariableMap.INSTANCE.snapshot());
+    }
+
+    /**
+     * @param snapshot The bindings to read every variable from.
+     * @return The values of the Expressions, in order.
+     * @throws EvaluationException If a variable is uninitialized.
+     */
+    public double[] evaluate(final VariableSnapshot snapshot) throws EvaluationException {
+        final double[] results = new double[size];
+        evaluate(snapshot, results);
+        return results;
+    }
+
+    /**
+     * Evaluates every Expression without allocating.
+     *
+     * @param snapshot The bindings to read every variable from.
+     * @param results  Receives the values of the Expressions, in order.
+     *                 It must have room for {@link #size()} values.
+     * @throws EvaluationException If a variable is uninitialized.
+     */
+    public void evaluate(final VariableSnapshot snapshot, final double[] results) throws EvaluationException {
+        final Program.Frame frame = frames.get();
+        program.run(frame, snapshot);
+        System.arraycopy(frame.slots, 0, results, 0, size);
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.ExpressionParser.ConversionException;
+import com.github.subh0m0y.parser.ExpressionTokenizer.UnrecognizedCharacterException;
+import com.github.subh0m0y.parser.ExpressionTokenizer.UnrecognizedOperatorException;
+import com.github.subh0m0y.parser.exceptions.ImproperParenthesesException;
+import com.github.subh0m0y.parser.optimizer.Canonicalization;
+import com.github.subh0m0y.parser.optimizer.OptimizationLevel;
+import com.github.subh0m0y.parser.optimizer.PassManager;
+import com.github.subh0m0y.parser.tree.Node;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out one shared Expression for every set of formulas that are
+ * the same up to whitespace, parentheses and the order of the operands
+ * of {@code +} and {@code *}. Formulas are parsed, put into canonical
+ * form by {@link Canonicalization} and optimized as usual; the final
+ * tree is then looked up in a table of the Expressions handed out
+ * before. Since equal formulas get the same instance, they are
+ * compiled once, tiered once, and take a single entry in any cache
+ * keyed by Expression.
+ * <p>
+ * The table holds its Expressions weakly: an Expression that is no
+ * longer used anywhere else is dropped from it. Expressions that assign
+ * to variables or hold state (such as moving averages) are never
+ * shared; every call returns a new one.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.09
+ */
+public final class ExpressionInterner {
+    private static final ExpressionInterner GLOBAL = new ExpressionInterner(false);
+
+    private final PassManager passes;
+    private final ConcurrentHashMap<Node, Entry> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Expression> collected = new ReferenceQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param reassociate {@code true} to also treat formulas as equal if
+     *                    they differ in the grouping of sums and products,
+     *                    which may change their results in the last bits.
+     * @see Canonicalization#Canonicalization(boolean)
+     */
+    public ExpressionInterner(final boolean reassociate) {
+        passes = PassManager.withDefaults(OptimizationLevel.getDefault())
+                .registerBefore("constant-folding", new Canonicalization(reassociate), OptimizationLevel.O0);
+    }
+
+    /**
+     * @return The interner shared by the whole application, which keeps
+     * results the same, bit for bit.
+     */
+    public static ExpressionInterner getGlobal() {
+        return GLOBAL;
+    }
+
+    /**
+     * Parses the formula and returns the shared Expression for it.
+     *
+     * @param expressionString The formula to parse.
+     * @return The Expression equal to the formula, shared if possible.
+     */
+    public Expression intern(final String expressionString) throws
+            ConversionException,
+            ImproperParenthesesException,
+            UnrecognizedCharacterException,
+            UnrecognizedOperatorException {
+        return intern(new Expression(expressionString, passes));
+    }
+
+    /**
+     * Returns the shared Expression with the same tree as the given one,
+     * or the given one itself, which is then shared from now on. The
+     * Expression is not put into canonical form here, so only trees that
+     * are exactly equal match.
+     *
+     * @param expression The Expression to look up.
+     * @return The shared Expression with the same tree.
+     */
+    public Expression intern(final Expression expression) {
+        final Node tree = expression.toTree();
+        if (tree == null || !expression.isPure()) {
+            return expression;
+        }
+        purge();
+        while (true) {
+            final Entry entry = table.get(tree);
+            final Expression existing = entry == null ? null : entry.get();
+            if (existing != null) {
+                hits.increment();
+                return existing;
+            }
+            final Entry fresh = new Entry(tree, expression, collected);
+            if (entry == null ? table.putIfAbsent(tree, fresh) == null : table.replace(tree, entry, fresh)) {
+                misses.increment();
+                return expression;
+            }
+        }
+    }
+
+    /**
+     * @return The number of Expressions currently shared.
+     */
+    public int size() {
+        purge();
+        return table.size();
+    }
+
+    /**
+     * @return The number of lookups that found a shared Expression.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that added a new Expression.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void purge() {
+        for (Object reference; (reference = collected.poll()) != null; ) {
+            final Entry entry = (Entry) reference;
+            table.remove(entry.tree, entry);
+        }
+    }
+
+    /**
+     * A weak reference to a shared Expression, which remembers its key
+     * so that it can be removed once the Expression is collected.
+     */
+    private static final class Entry extends WeakReference<Expression> {
+        private final Node tree;
+
+        Entry(final Node tree, final Expression expression, final ReferenceQueue<Expression> queue) {
+            super(expression, queue);
+            this.tree = tree;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.subh0m0y.parser;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable collection of Expressions compiled in bulk by an
+ * {@link ExpressionLibraryLoader}. The Expressions are indexed in the
+ * same order as the sources they were compiled from. Sources that
+ * could not be compiled have no Expression (the index maps to
+ * {@code null}); the reason is available from {@link #getErrors()}.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.20
+ */
+public class ExpressionLibrary {
+    private final List<String> sources;
+    private final Expression[] expressions;
+    private final List<CompilationError> errors;
+    private final LoadMetrics metrics;
+
+    ExpressionLibrary(final List<String> sources,
+                      final Expression[] expressions,
+                      final List<CompilationError> errors,
+                      final LoadMetrics metrics) {
+        this.sources = Collections.unmodifiableList(sources);
+        this.expressions = expressions;
+        this.errors = Collections.unmodifiableList(errors);
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return The number of sources that were submitted, including
+     * the ones that failed to compile.
+     */
+    public int size() {
+        return expressions.length;
+    }
+
+    /**
+     * @param index The position of the source in the submitted sequence.
+     * @return The compiled Expression, or {@code null} if the source at
+     * the given index failed to compile.
+     */
+    public Expression get(final int index) {
+        return expressions[index];
+    }
+
+    /**
+     * @param index The position of the source in the submitted sequence.
+     * @return The original source String.
+     */
+    public String getSource(final int index) {
+        return sources.get(index);
+    }
+
+    /**
+     * @return The compilation errors, ordered by the index of the
+     * source that caused them.
+     */
+    public List<CompilationError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return The timing information gathered while this library was
+     * loaded and warmed up.
+     */
+    public LoadMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Describes a single source that could not be compiled.
+     */
+    public static class CompilationError {
+        private final int index;
+        private final String source;
+        private final String message;
+
+        CompilationError(final int index, final String source, final String message) {
+            this.index = index;
+            this.source = source;
+            this.message = message;
+        }
+
+        /**
+         * @return The position of the offending source.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return The offending source String.
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * @return The message of the exception raised while compiling.
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + index + "] " + source + " : " + message;
+        }
+    }
+
+    /**
+     * A snapshot of the numbers that describe how long a library took
+     * to become ready for traffic.
+     */
+    public static class LoadMetrics {
+        private final int compiledCount;
+        private final int failedCount;
+        private final long loadNanos;
+        private final long warmUpEvaluations;
+        private final long warmUpNanos;
+        private final double firstRoundNanosPerEvaluation;
+        private final double lastRoundNanosPerEvaluation;
+
+        LoadMetrics(final int compiledCount,
+                    final int failedCount,
+                    final long loadNanos,
+                    final long warmUpEvaluations,
+                    final long warmUpNanos,
+                    final double firstRoundNanosPerEvaluation,
+                    final double lastRoundNanosPerEvaluation) {
+            this.compiledCount = compiledCount;
+            this.failedCount = failedCount;
+            this.loadNanos = loadNanos;
+            this.warmUpEvaluations = warmUpEvaluations;
+            this.warmUpNanos = warmUpNanos;
+            this.firstRoundNanosPerEvaluation = firstRoundNanosPerEvaluation;
+            this.lastRoundNanosPerEvaluation = lastRoundNanosPerEvaluation;
+        }
+
+        /**
+         * @return The number of sources compiled successfully.
+         */
+        public int getCompiledCount() {
+            return compiledCount;
+        }
+
+        /**
+         * @return The number of sources that failed to compile.
+         */
+        public int getFailedCount() {
+            return failedCount;
+        }
+
+        /**
+         * @return The wall-clock time spent compiling all the sources.
+         */
+        public long getLoadNanos() {
+            return loadNanos;
+        }
+
+        /**
+         * @return The number of synthetic Expressions parsed and evaluated
+         * during warm-up.
+         */
+        public long getWarmUpEvaluations() {
+            return warmUpEvaluations;
+        }
+
+        /**
+         * @return The wall-clock time spent in the warm-up phase.
+         */
+        public long getWarmUpNanos() {
+            return warmUpNanos;
+        }
+
+        /**
+         * @return The mean time to parse and evaluate one synthetic
+         * Expression during the first warm-up round (mostly interpreted).
+         */
+        public double getFirstRoundNanosPerEvaluation() {
+            return firstRoundNanosPerEvaluation;
+        }
+
+        /**
+         * @return The mean time to parse and evaluate one synthetic
+         * Expression during the last warm-up round. The ratio with the
+         * first round indicates how much of the pipeline got compiled.
+         */
+        public double getLastRoundNanosPerEvaluation() {
+            return lastRoundNanosPerEvaluation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "compiled=%d failed=%d load=%.3fms warm-up=%d evaluations in %.3fms" +
+                            " (%.0fns -> %.0fns per evaluation)",
+                    compiledCount, failedCount, loadNanos / 1e6,
+                    warmUpEvaluations, warmUpNanos / 1e6,
+                    firstRoundNanosPerEvaluation, lastRoundNanosPerEvaluation
+            );
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.ExpressionLibrary.CompilationError;
+import com.github.subh0m0y.parser.ExpressionLibrary.LoadMetrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Compiles large sets of expression sources in parallel and then warms
+ * up the parsing and evaluation pipeline so that the JVM has compiled
+ * the hot paths of {@link ExpressionTokenizer}, {@link ExpressionParser}
+ * and {@link ExpressionEvaluator} before real traffic arrives.
+ * <p>
+ * A source that fails to compile does not stop the load, even if it
+ * fails with an Error such as a stack overflow rather than an exception:
+ * the failure is recorded in the resulting {@link ExpressionLibrary} and
+ * the loader moves on. The warm-up phase only parses and evaluates synthetic,
+ * literal-only Expressions, so it never reads or writes user variables.
+ * <p>
+ * {@link #isReady()} becomes {@code true} once a load (including its
+ * warm-up) has completed, which can be used to gate traffic.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.20
+ */
+public class ExpressionLibraryLoader {
+    // Sources are compiled in chunks of this size per task
+    private static final int CHUNK_SIZE = 256;
+    // The number of distinct synthetic expressions used for warm-up
+    private static final int CORPUS_SIZE = 512;
+    // Lines starting with this character are ignored in files
+    private static final String COMMENT_PREFIX = "#";
+
+    private static final String[] BINARY_OPERATORS = {"+", "-", "*", "/", "^"};
+    private static final String[] FUNCTIONS = {
+            "sin", "cos", "tan", "exp", "sqrt", "abs", "log"
+    };
+    private static final String[] CONSTANTS = {"pi", "e", "phi"};
+
+    private final int parallelism;
+    private final int warmUpRounds;
+    private final int evaluationsPerRound;
+    private final List<String> corpus;
+    private final Function<String, Expression> compiler;
+
+    private volatile boolean ready;
+    private volatile LoadMetrics lastMetrics;
+
+    /**
+     * Creates a loader that uses all available processors and a
+     * moderate warm-up of 10 rounds of 10,000 evaluations each.
+     */
+    public ExpressionLibraryLoader() {
+        this(Runtime.getRuntime().availableProcessors(), 10, 10_000);
+    }
+
+    /**
+     * Creates a loader with the desired degree of parallelism and
+     * warm-up intensity. Setting either warm-up parameter to zero
+     * skips the warm-up phase entirely.
+     *
+     * @param parallelism         The number of threads to compile and warm up with.
+     * @param warmUpRounds        The number of timed warm-up rounds.
+     * @param evaluationsPerRound The number of synthetic evaluations per round.
+     * @throws IllegalArgumentException If any argument is out of range.
+     */
+    public ExpressionLibraryLoader(final int parallelism,
+                                   final int warmUpRounds,
+                                   final int evaluationsPerRound)
+            throws IllegalArgumentException {
+        this(parallelism, warmUpRounds, evaluationsPerRound, Expression::new);
+    }
+
+    /**
+     * @param parallelism         The number of threads to compile and warm up with.
+     * @param warmUpRounds        The number of timed warm-up rounds.
+     * @param evaluationsPerRound The number of synthetic evaluations per round.
+     * @param compiler            Turns a source into an Expression.
+     * @throws IllegalArgumentException If any argument is out of range.
+     */
+    ExpressionLibraryLoader(final int parallelism,
+                            final int warmUpRounds,
+                            final int evaluationsPerRound,
+                            final Function<String, Expression> compiler)
+            throws IllegalArgumentException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        if (warmUpRounds < 0 || evaluationsPerRound < 0) {
+            throw new IllegalArgumentException("Warm-up parameters must be non-negative.");
+        }
+        this.parallelism = parallelism;
+        this.warmUpRounds = warmUpRounds;
+        this.evaluationsPerRound = evaluationsPerRound;
+        this.corpus = syntheticCorpus(new Random(parallelism * 31L + evaluationsPerRound));
+        this.compiler = compiler;
+    }
+
+    /**
+     * Loads every non-blank line of the given file that does not start
+     * with {@code #} as an expression source.
+     *
+     * @param file The file containing one expression per line.
+     * @return The loaded library.
+     * @throws IOException If the file cannot be read.
+     */
+    public ExpressionLibrary load(final Path file) throws IOException {
+        List<String> sources = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith(COMMENT_PREFIX)) {
+                    sources.add(trimmed);
+                }
+            }
+        }
+        return load(sources);
+    }
+
+    /**
+     * Compiles all the given sources in parallel and then runs the
+     * warm-up phase.
+     *
+     * @param sources The expression sources to compile.
+     * @return The loaded library.
+     */
+    public ExpressionLibrary load(final Iterable<String> sources) {
+        ready = false;
+        final List<String> sourceList = new ArrayList<>();
+        for (String source : sources) {
+            sourceList.add(source);
+        }
+        final Expression[] expressions = new Expression[sourceList.size()];
+        final ConcurrentLinkedQueue<CompilationError> errors = new ConcurrentLinkedQueue<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "expression-library-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Compilation phase
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int from = 0; from < expressions.length; from += CHUNK_SIZE) {
+                final int lower = from;
+                final int upper = Math.min(from + CHUNK_SIZE, expressions.length);
+                futures.add(executor.submit(() -> {
+                    for (int i = lower; i < upper; i++) {
+                        String source = sourceList.get(i);
+                        try {
+                            expressions[i] = compiler.apply(source);
+                        } catch (RuntimeException | Error e) {
+                            // Errors such as a stack overflow only doom this source
+                            String message = e.getMessage() == null ? e.toString() : e.getMessage();
+                            errors.add(new CompilationError(i, source, message));
+                        }
+                    }
+                }));
+            }
+            awaitAll(futures);
+            long loadNanos = System.nanoTime() - start;
+
+            // Warm-up phase
+            long warmUpStart = System.nanoTime();
+            double firstRound = 0;
+            double lastRound = 0;
+            long evaluations = 0;
+            if (evaluationsPerRound > 0) {
+                for (int round = 0; round < warmUpRounds; round++) {
+                    long roundStart = System.nanoTime();
+                    warmUpRound(executor);
+                    double perEvaluation = (System.nanoTime() - roundStart)
+                            / (double) evaluationsPerRound;
+                    if (round == 0) {
+                        firstRound = perEvaluation;
+                    }
+                    lastRound = perEvaluation;
+                    evaluations += evaluationsPerRound;
+                }
+            }
+            long warmUpNanos = System.nanoTime() - warmUpStart;
+
+            List<CompilationError> sortedErrors = new ArrayList<>(errors);
+            sortedErrors.sort(Comparator.comparingInt(CompilationError::getIndex));
+            LoadMetrics metrics = new LoadMetrics(
+                    expressions.length - sortedErrors.size(),
+                    sortedErrors.size(),
+                    loadNanos,
+                    evaluations,
+                    warmUpNanos,
+                    firstRound,
+                    lastRound
+            );
+            lastMetrics = metrics;
+            ready = true;
+            return new ExpressionLibrary(sourceList, expressions, sortedErrors, metrics);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return {@code true} once the most recent load has finished
+     * compiling and warming up.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return The metrics of the most recently completed load, or
+     * {@code null} if no load has completed yet.
+     */
+    public LoadMetrics getLastMetrics() {
+        return lastMetrics;
+    }
+
+    private void warmUpRound(final ExecutorService executor) {
+        final AtomicInteger remaining = new AtomicInteger(evaluationsPerRound);
+        List<Future<?>> futures = new ArrayList<>(parallelism);
+        for (int t = 0; t < parallelism; t++) {
+            final int offset = t;
+            futures.add(executor.submit(() -> {
+                int index = offset;
+                while (remaining.getAndDecrement() > 0) {
+                    String source = corpus.get(index % corpus.size());
+                    index += parallelism;
+                    try {
+                        new Expression(source).evaluate();
+                    } catch (RuntimeException ignored) {
+                        // Domain errors (e.g. sqrt of a negative number) are
+                        // part of the pipeline too, so they still count.
+                    }
+                }
+            }));
+        }
+        awaitAll(futures);
+    }
+
+    private static void awaitAll(final List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading expressions.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unexpected failure while loading expressions.",
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Generates literal-only expressions that cover every binary operator,
+     * every function, implicit multiplication and the predefined constants.
+     */
+    private static List<String> syntheticCorpus(final Random random) {
+        List<String> corpus = new ArrayList<>(CORPUS_SIZE);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            corpus.add(syntheticExpression(random, 3));
+        }
+        return corpus;
+    }
+
+    private static String syntheticExpression(final Random random, final int depth) {
+        if (depth == 0) {
+            return random.nextInt(4) == 0
+                    ? CONSTANTS[random.nextInt(CONSTANTS.length)]
+                    : String.valueOf((500 + random.nextInt(4000)) / 1000.0);
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                return FUNCTIONS[random.nextInt(FUNCTIONS.length)]
+                        + "(" + syntheticExpression(random, depth - 1) + ")";
+            case 1:
+                return (1 + random.nextInt(9))
+                        + "(" + syntheticExpression(random, depth - 1) + ")";
+            default:
+                return syntheticExpression(random, depth - 1)
+                        + BINARY_OPERATORS[random.nextInt(BINARY_OPERATORS.length)]
+                        + syntheticExpression(random, depth - 1);
+        }
+    }
+}
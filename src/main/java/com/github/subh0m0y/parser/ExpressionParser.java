@@ -0,0 +1,318 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.ExpressionTokenizer.UnrecognizedCharacterException;
+import com.github.subh0m0y.parser.ExpressionTokenizer.UnrecognizedOperatorException;
+import com.github.subh0m0y.parser.exceptions.ImproperParenthesesException;
+import com.github.subh0m0y.parser.exceptions.LimitExceededException;
+import com.github.subh0m0y.parser.token.ArgumentSeparator;
+import com.github.subh0m0y.parser.token.LeftParenthesis;
+import com.github.subh0m0y.parser.token.MinusSign;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.RightParenthesis;
+import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.token.operations.Multiplication;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Parses an expression straight into a tree, in a single pass over the
+ * tokens as the tokenizer produces them.
+ * <p>
+ * This is a precedence climbing (Pratt) parser, with the recursion
+ * replaced by an explicit stack of pending operators: it takes linear
+ * time, and expressions nested arbitrarily deep cannot overflow the call
+ * stack. Every operator has a binding power derived from its priority.
+ * Operators of the same priority group from the left unless they are
+ * {@link Operator#isRightAssociative() right associative}, so that
+ * {@code 8/2/2} is 2 while {@code 2^3^2} is 512.
+ * <p>
+ * The minus sign is handled here rather than by the tokenizer: in front
+ * of an operand it negates, binding tighter than multiplication but
+ * looser than exponentiation ({@code -x^2} is {@code -(x^2)} and
+ * {@code 2^-x} is {@code 2^(-x)}); between operands it subtracts. In the
+ * tree, {@code a - b} is {@code a + (-1 * b)}, and a negated literal
+ * is a negative constant. A plus sign in front of an operand is ignored.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.28
+ */
+final class ExpressionParser {
+    // Functions applied without parentheses (like "!x") take only the
+    // operand right after them
+    private static final int PREFIX_POWER = Integer.MAX_VALUE;
+    private static final int NEGATION_POWER = power(Multiplication.INSTANCE) + 1;
+
+    private final ExpressionTokenizer tokenizer;
+    private final ParseLimits limits;
+    private final Deque<Node> operands = new ArrayDeque<>();
+    private final Deque<Pending> operators = new ArrayDeque<>();
+
+    private ExpressionParser(final ExpressionTokenizer tokenizer, final ParseLimits limits) {
+        this.tokenizer = tokenizer;
+        this.limits = limits;
+    }
+
+    /**
+     * @param source The characters of the expression.
+     * @return The root of the expression tree, or null if the source
+     * holds no tokens at all.
+     */
+    static Node parse(final CharSource source) throws
+            ConversionException,
+            ImproperParenthesesException,
+            UnrecognizedCharacterException,
+            UnrecognizedOperatorException {
+        return parse(source, ParseLimits.NONE);
+    }
+
+    /**
+     * @param source The characters of the expression.
+     * @param limits The limits to enforce while reading.
+     * @return The root of the expression tree, or null if the source
+     * holds no tokens at all.
+     * @throws LimitExceededException If the expression is too long,
+     *                                has too many tokens or nests too deep.
+     */
+    static Node parse(final CharSource source, final ParseLimits limits) throws
+            ConversionException,
+            ImproperParenthesesException,
+            LimitExceededException,
+            UnrecognizedCharacterException,
+            UnrecognizedOperatorException {
+        final CharSource limited = CharSource.limit(source, limits.getMaximumLength());
+        return new ExpressionParser(new ExpressionTokenizer(limited), limits).parse();
+    }
+
+    private static int power(final Operator operator) {
+        return 2 * operator.getPriority();
+    }
+
+    private Node parse() {
+        final int maximumTokens = limits.getMaximumTokens();
+        final int maximumDepth = limits.getMaximumDepth();
+        boolean expectingOperand = true;
+        Token previous = null;
+        int count = 0;
+        for (Token token = tokenizer.nextToken(); token != null; token = tokenizer.nextToken()) {
+            if (++count > maximumTokens) {
+                throw new LimitExceededException("The expression has more than " + maximumTokens + " tokens.");
+            }
+            expectingOperand = expectingOperand
+                    ? acceptOperand(token, previous)
+                    : acceptOperator(token);
+            if (operators.size() > maximumDepth) {
+                throw new LimitExceededException("The expression nests deeper than " + maximumDepth + " levels.");
+            }
+            previous = token;
+        }
+        if (previous == null) {
+            return null;
+        }
+        if (expectingOperand) {
+            throw new ConversionException("The expression ends with " + previous + "; an operand is missing.");
+        }
+        while (!operators.isEmpty()) {
+            if (operators.peek().kind >= Pending.GROUP) {
+                throw new ImproperParenthesesException("Mismatched parentheses.");
+            }
+            apply(operators.pop());
+        }
+        return operands.pop();
+    }
+
+    /**
+     * Handles a token where an operand (or something that starts one) is
+     * expected.
+     *
+     * @return {@code true} if an operand is still expected.
+     */
+    private boolean acceptOperand(final Token token, final Token previous) {
+        if (token instanceof Real) {
+            operands.push(new Constant(((Real) token).getValue()));
+            return false;
+        }
+        if (token instanceof Variable) {
+            operands.push(new Reference((Variable) token));
+            return false;
+        }
+        if (token == MinusSign.INSTANCE) {
+            operators.push(new Pending(Pending.NEGATION, null, NEGATION_POWER));
+            return true;
+        }
+        if (token == Addition.INSTANCE) {
+            // A plus sign changes nothing
+            return true;
+        }
+        if (token instanceof LeftParenthesis) {
+            if (previous instanceof Operator && ((Operator) previous).isFunction()) {
+                // The arguments of the function just read
+                Pending function = operators.pop();
+                operators.push(new Pending(Pending.CALL, function.operator, 0));
+            } else {
+                operators.push(new Pending(Pending.GROUP, null, 0));
+            }
+            return true;
+        }
+        if (token instanceof Operator && ((Operator) token).isFunction()) {
+            operators.push(new Pending(Pending.PREFIX, (Operator) token, PREFIX_POWER));
+            return true;
+        }
+        if (token instanceof RightParenthesis && previous instanceof LeftParenthesis
+                && !operators.isEmpty() && operators.peek().kind == Pending.CALL) {
+            // The empty argument list of a function, as in "rand()"
+            call(operators.pop().operator, 0);
+            return false;
+        }
+        throw new ConversionException("An operand is missing before " + token + ".");
+    }
+
+    /**
+     * Handles a token where an operator (or the end of an operand list)
+     * is expected.
+     *
+     * @return {@code true} if an operand is expected next.
+     */
+    private boolean acceptOperator(final Token token) {
+        if (token == MinusSign.INSTANCE) {
+            reduce(power(Addition.INSTANCE), false);
+            operators.push(new Pending(Pending.SUBTRACTION, Addition.INSTANCE, power(Addition.INSTANCE)));
+            return true;
+        }
+        if (token instanceof Operator && !((Operator) token).isFunction()) {
+            Operator operator = (Operator) token;
+            reduce(power(operator), operator.isRightAssociative());
+            operators.push(new Pending(Pending.INFIX, operator, power(operator)));
+            return true;
+        }
+        if (token instanceof RightParenthesis) {
+            reduce(Integer.MIN_VALUE, false);
+            if (operators.isEmpty()) {
+                throw new ImproperParenthesesException(
+                        "Mismatched parentheses; missing opening parenthesis."
+                );
+            }
+            Pending parenthesis = operators.pop();
+            if (parenthesis.kind == Pending.CALL) {
+                call(parenthesis.operator, parenthesis.power + 1);
+            }
+            return false;
+        }
+        if (token instanceof ArgumentSeparator) {
+            reduce(Integer.MIN_VALUE, false);
+            if (operators.isEmpty() || operators.peek().kind != Pending.CALL) {
+                throw new ConversionException(
+                        "Either argument separator (,) is misplaced, or " +
+                                "parentheses are unbalanced."
+                );
+            }
+            // Count the argument just completed
+            Pending call = operators.pop();
+            operators.push(new Pending(Pending.CALL, call.operator, call.power + 1));
+            return true;
+        }
+        throw new ConversionException("An operator is missing before " + token + ".");
+    }
+
+    /**
+     * Applies the pending operators that bind tighter than an incoming
+     * operator with the given binding power, down to the innermost
+     * parenthesis.
+     */
+    private void reduce(final int power, final boolean rightAssociative) {
+        while (!operators.isEmpty()) {
+            Pending top = operators.peek();
+            if (top.kind >= Pending.GROUP
+                    || top.power < power
+                    || top.power == power && rightAssociative) {
+                return;
+            }
+            apply(operators.pop());
+        }
+    }
+
+    private void apply(final Pending pending) {
+        final Node right = operands.pop();
+        switch (pending.kind) {
+            case Pending.NEGATION:
+                operands.push(negate(right));
+                break;
+            case Pending.PREFIX:
+                if (pending.operator.getArity() != 1) {
+                    throw new ConversionException(
+                            "The arguments of " + pending.operator + " must be in parentheses."
+                    );
+                }
+                operands.push(new Application(pending.operator, right));
+                break;
+            case Pending.SUBTRACTION:
+                operands.push(new Application(pending.operator, operands.pop(), negate(right)));
+                break;
+            default:
+                operands.push(new Application(pending.operator, operands.pop(), right));
+                break;
+        }
+    }
+
+    private void call(final Operator function, final int argumentCount) {
+        if (argumentCount != function.getArity()) {
+            throw new ConversionException(String.format(
+                    "%s needs %d argument(s), but %d were given.",
+                    function, function.getArity(), argumentCount
+            ));
+        }
+        final Node[] arguments = new Node[argumentCount];
+        for (int i = argumentCount - 1; i >= 0; i--) {
+            arguments[i] = operands.pop();
+        }
+        operands.push(new Application(function, arguments));
+    }
+
+    private static Node negate(final Node node) {
+        if (node instanceof Constant) {
+            return new Constant(-((Constant) node).getValue());
+        }
+        return new Application(Multiplication.INSTANCE, new Constant(-1), node);
+    }
+
+    /**
+     * An operator or parenthesis waiting on the stack.
+     */
+    private static final class Pending {
+        static final int INFIX = 0;
+        static final int SUBTRACTION = 1;
+        static final int NEGATION = 2;
+        static final int PREFIX = 3;
+        // Kinds from here on are parentheses
+        static final int GROUP = 4;
+        static final int CALL = 5;
+
+        private final int kind;
+        private final Operator operator;
+        // The binding power; for a call, the number of arguments so far
+        private final int power;
+
+        Pending(final int kind, final Operator operator, final int power) {
+            this.kind = kind;
+            this.operator = operator;
+            this.power = power;
+        }
+    }
+
+    /**
+     * A custom exception class to encapsulate any errors that occur
+     * during parsing.
+     */
+    static class ConversionException extends RuntimeException {
+        ConversionException(String message) {
+            super(message);
+        }
+    }
+}
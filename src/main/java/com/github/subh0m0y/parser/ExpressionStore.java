@@ -0,0 +1,375 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operand;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.token.operations.Assignment;
+import com.github.subh0m0y.parser.token.random.RandomFunction;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact store for very large numbers of compiled Expressions.
+ * <p>
+ * Instead of keeping a List of token objects per Expression, every
+ * program is packed into a direct (off-heap) {@link ByteBuffer} arena
+ * as a sequence of one-byte opcodes. Symbols and numeric literals are
+ * interned in tables shared by every program in the store, so each
+ * distinct variable name and each distinct constant exists exactly once.
+ * A stored program is addressed by an {@code int} handle (the number of
+ * programs added before it) and can be evaluated directly from its
+ * packed form.
+ * <p>
+ * The layout of a program is:
+ * <pre>
+ *     int  maximum operand stack depth
+ *     int  length of the code in bytes
+ *     code opcode [int index]...
+ * </pre>
+ * where an opcode is either {@code CONSTANT} or {@code VARIABLE}
+ * followed by the index into the respective table, or an operator
+ * number (offset by {@code OPERATOR_BASE}) with no argument.
+ * <p>
+ * Adding programs is synchronized. Evaluation does not lock and may
+ * run concurrently with additions. Like {@link Operator#compute(double...)},
+ * evaluation works on plain values, so domain errors produce NaN
+ * instead of exceptions. Conditionals evaluate all their operands, so
+ * operators that keep state between evaluations, such as series
+ * functions, cannot be stored; assignments and random draws can.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.21
+ */
+public class ExpressionStore {
+    // The lower bits of a handle are the offset within an arena
+    private static final int OFFSET_BITS = 20;
+    private static final int OFFSET_MASK = (1 << OFFSET_BITS) - 1;
+    private static final int ARENA_CAPACITY = 1 << OFFSET_BITS;
+    private static final int MAXIMUM_ARENAS = 1 << (31 - OFFSET_BITS);
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final byte CONSTANT = 0;
+    private static final byte VARIABLE = 1;
+    private static final int OPERATOR_BASE = 2;
+    private static final int MAXIMUM_OPERATORS = 256 - OPERATOR_BASE;
+
+    // Per-thread evaluation stacks, grown on demand
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final List<ByteBuffer> arenaList = new ArrayList<>();
+    private final Map<String, Integer> symbolIndices = new HashMap<>();
+    private final Map<Long, Integer> constantIndices = new HashMap<>();
+    private final Map<Operator, Integer> operatorIndices = new IdentityHashMap<>();
+
+    // Read without locking by evaluate(), hence published through volatile fields
+    private volatile ByteBuffer[] arenas = new ByteBuffer[0];
+    private volatile Variable[] symbols = new Variable[0];
+    private volatile double[] constants = new double[0];
+    private volatile Operator[] operators = new Operator[0];
+    // The arena and offset of every program, by handle
+    private volatile int[] addresses = new int[16];
+    private volatile int count;
+
+    private int symbolCount;
+    private int constantCount;
+    private int operatorCount;
+    private ByteBuffer current;
+
+    /**
+     * Parses the given source and stores it without retaining any
+     * intermediate token objects.
+     *
+     * @param expressionString The expression to compile and store.
+     * @return The handle of the stored program.
+     * @throws EvaluationException If the expression keeps state.
+     */
+    public int add(final String expressionString) throws EvaluationException {
+        return add(new Expression(expressionString));
+    }
+
+    /**
+     * Packs the given Expression into the store. The Expression itself
+     * can be discarded afterwards.
+     *
+     * @param expression The expression to store.
+     * @return The handle of the stored program.
+     * @throws EvaluationException If the expression keeps state.
+     */
+    public int add(final Expression expression) throws EvaluationException {
+        return add(expression.getTokens());
+    }
+
+    private synchronized int add(final List<Token> tokens) {
+        if (tokens.isEmpty()) {
+            throw new EvaluationException("Cannot store an empty expression.");
+        }
+        // Validate the operand counts and find the stack depth up front,
+        // so that evaluation needs no checks.
+        int depth = 0;
+        int maximumDepth = 0;
+        int codeLength = 0;
+        for (Token token : tokens) {
+            if (token instanceof Operand) {
+                depth++;
+                codeLength += 1 + Integer.BYTES;
+            } else {
+                Operator operator = (Operator) token;
+                if (!operator.isPure()
+                        && operator != Assignment.INSTANCE
+                        && !(operator instanceof RandomFunction)) {
+                    throw new EvaluationException("Operator " + operator + " keeps state and cannot be stored.");
+                }
+                if (depth < operator.getArity()) {
+                    throw new ArityException(operator, operator.getArity(), depth);
+                }
+                depth -= operator.getArity() - 1;
+                codeLength++;
+            }
+            maximumDepth = Math.max(maximumDepth, depth);
+        }
+        if (depth != 1) {
+            throw new EvaluationException("Too many operands. There might be an operator (or more) missing.");
+        }
+        final int size = HEADER_SIZE + codeLength;
+        if (size > ARENA_CAPACITY) {
+            throw new EvaluationException("Expression is too large to be stored: " + size + " bytes.");
+        }
+        if (current == null || current.remaining() < size) {
+            newArena();
+        }
+
+        final int arena = arenaList.size() - 1;
+        final int offset = current.position();
+        current.putInt(maximumDepth);
+        current.putInt(codeLength);
+        for (Token token : tokens) {
+            if (token instanceof Real) {
+                current.put(CONSTANT);
+                current.putInt(constantIndex(((Real) token).getValue()));
+            } else if (token instanceof Variable) {
+                current.put(VARIABLE);
+                current.putInt(symbolIndex((Variable) token));
+            } else {
+                current.put((byte) (OPERATOR_BASE + operatorIndex((Operator) token)));
+            }
+        }
+        if (count == addresses.length) {
+            addresses = Arrays.copyOf(addresses, count * 2);
+        }
+        addresses[count] = arena << OFFSET_BITS | offset;
+        // Publishes the address along with the count
+        return count++;
+    }
+
+    /**
+     * Evaluates a stored program directly from its packed form.
+     *
+     * @param handle The handle returned when the program was added.
+     * @return The value of the expression.
+     * @throws EvaluationException If the handle does not belong to this
+     *                             store, a variable is uninitialized or
+     *                             an assignment target is not a variable.
+     */
+    public double evaluate(final int handle) throws EvaluationException {
+        if (handle < 0 || handle >= count) {
+            throw new EvaluationException("Invalid handle: " + handle);
+        }
+        final int address = addresses[handle];
+        final ByteBuffer arena = arenas[address >>> OFFSET_BITS];
+        final Variable[] symbols = this.symbols;
+        final double[] constants = this.constants;
+        final Operator[] operators = this.operators;
+
+        int position = address & OFFSET_MASK;
+        final Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(arena.getInt(position));
+        final int end = position + HEADER_SIZE + arena.getInt(position + Integer.BYTES);
+        position += HEADER_SIZE;
+
+        // Variables are pushed as symbol references and only resolved
+        // when consumed, so that they can be the target of an assignment.
+        final double[] values = scratch.values;
+        final int[] references = scratch.references;
+        int top = -1;
+        while (position < end) {
+            int opcode = arena.get(position++) & 0xFF;
+            if (opcode == CONSTANT) {
+                values[++top] = constants[arena.getInt(position)];
+                references[top] = -1;
+                position += Integer.BYTES;
+            } else if (opcode == VARIABLE) {
+                references[++top] = arena.getInt(position);
+                position += Integer.BYTES;
+            } else {
+                Operator operator = operators[opcode - OPERATOR_BASE];
+                int arity = operator.getArity();
+                int base = top - arity + 1;
+                double result;
+                if (operator == Assignment.INSTANCE) {
+                    result = assign(symbols, values, references, base);
+                } else {
+                    double[] arguments = scratch.arguments(arity);
+                    for (int i = 0; i < arity; i++) {
+                        arguments[i] = valueAt(symbols, values, references, base + i);
+                    }
+                    result = operator.compute(arguments);
+                }
+                top = base;
+                values[top] = result;
+                references[top] = -1;
+            }
+        }
+        return valueAt(symbols, values, references, top);
+    }
+
+    /**
+     * @return The number of programs in this store.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return The number of distinct variable names across all programs.
+     */
+    public synchronized int getSymbolCount() {
+        return symbolCount;
+    }
+
+    /**
+     * @return The number of distinct numeric literals across all programs.
+     */
+    public synchronized int getConstantCount() {
+        return constantCount;
+    }
+
+    /**
+     * @return The number of off-heap bytes occupied by stored programs.
+     */
+    public synchronized long getUsedBytes() {
+        if (current == null) {
+            return 0;
+        }
+        return (long) (arenaList.size() - 1) * ARENA_CAPACITY + current.position();
+    }
+
+    /**
+     * @return The number of off-heap bytes reserved by this store.
+     */
+    public synchronized long getReservedBytes() {
+        return (long) arenaList.size() * ARENA_CAPACITY;
+    }
+
+    private static double valueAt(final Variable[] symbols,
+                                  final double[] values,
+                                  final int[] references,
+                                  final int index) {
+        return references[index] < 0
+                ? values[index]
+                : symbols[references[index]].getValue();
+    }
+
+    private static double assign(final Variable[] symbols,
+                                 final double[] values,
+                                 final int[] references,
+                                 final int base) {
+        if (references[base] < 0) {
+            throw new EvaluationException("Assignment only works for variables.");
+        }
+        // Assigning one variable to another binds the variable itself,
+        // exactly as the token based evaluator does.
+        Operand value = references[base + 1] < 0
+                ? new Real(values[base + 1])
+                : symbols[references[base + 1]];
+        VariableMap.INSTANCE.bind(symbols[references[base]], value);
+        return value.getValue();
+    }
+
+    private void newArena() {
+        if (arenaList.size() == MAXIMUM_ARENAS) {
+            throw new EvaluationException("Expression store is full.");
+        }
+        current = ByteBuffer.allocateDirect(ARENA_CAPACITY);
+        arenaList.add(current);
+        arenas = arenaList.toArray(new ByteBuffer[arenaList.size()]);
+    }
+
+    private int symbolIndex(final Variable variable) {
+        final String name = variable.getSymbol();
+        Integer index = symbolIndices.get(name);
+        if (index == null) {
+            index = symbolCount++;
+            symbolIndices.put(name, index);
+            Variable[] grown = Arrays.copyOf(symbols, symbolCount);
+            grown[index] = new Variable(name);
+            symbols = grown;
+        }
+        return index;
+    }
+
+    private int constantIndex(final double value) {
+        Long key = Double.doubleToRawLongBits(value);
+        Integer index = constantIndices.get(key);
+        if (index == null) {
+            index = constantCount++;
+            constantIndices.put(key, index);
+            double[] grown = Arrays.copyOf(constants, constantCount);
+            grown[index] = value;
+            constants = grown;
+        }
+        return index;
+    }
+
+    private int operatorIndex(final Operator operator) {
+        Integer index = operatorIndices.get(operator);
+        if (index == null) {
+            if (operatorCount == MAXIMUM_OPERATORS) {
+                throw new EvaluationException("Too many distinct operators in the store.");
+            }
+            index = operatorCount++;
+            operatorIndices.put(operator, index);
+            Operator[] grown = Arrays.copyOf(operators, operatorCount);
+            grown[index] = operator;
+            operators = grown;
+        }
+        return index;
+    }
+
+    /**
+     * The working memory of an evaluation, reused across calls on the
+     * same thread.
+     */
+    private static class Scratch {
+        private double[] values = new double[16];
+        private int[] references = new int[16];
+        private final double[][] arguments = new double[4][];
+
+        void ensureCapacity(final int depth) {
+            if (values.length < depth) {
+                values = new double[depth];
+                references = new int[depth];
+            }
+        }
+
+        double[] arguments(final int arity) {
+            if (arity >= arguments.length) {
+                return new double[arity];
+            }
+            if (arguments[arity] == null) {
+                arguments[arity] = new double[arity];
+            }
+            return arguments[arity];
+        }
+    }
+}
@@ -5,189 +5,221 @@ import com.github.subh0m0y.parser.token.*;
 import com.github.subh0m0y.parser.token.operands.Real;
 import com.github.subh0m0y.parser.token.operands.Variable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 /**
- * This class processes an input String and returns a List
- * of tokens. A token is either an Operand or an Operator.
- * It must be noted that the List of Tokens cannot be evaluated
- * directly. Use an ExpressionConverter (like the {@link com.github.subh0m0y.parser.ExpressionConverter})
- * to obtain a list which can be evaluated efficiently and correctly.
- * correctly.
+ * This class processes input characters and returns a stream of
+ * tokens. A token is either an Operand or an Operator, a parenthesis,
+ * an argument separator or a {@link MinusSign}.
+ * It must be noted that the tokens cannot be evaluated directly. The
+ * {@link ExpressionParser} reads them into a tree, deciding what every
+ * minus sign stands for.
+ * <p>
+ * The following things are to be considered:
+ * <ol>
+ * <li>All whitespace is ignored.</li>
+ * <li>Variables with names longer than one character are
+ * supported. The valid characters for a variable include
+ * uppercase and lowercase letters, letters and underscore.
+ * The variable must not start with a digit.</li>
+ * <li>Functions are parsed in the same way and the way
+ * to distinguish the two is that functions are followed by
+ * a comma-separated list of arguments in parentheses.</li>
+ * <li>If numeric literals appear before a variable or a
+ * function, it will be multiplied. For example, "2x" will
+ * be equivalent to "2*x".</li>
+ * <li>If parentheses are unbalanced, or are empty (other than the
+ * argument list of a function without arguments, as in "rand()"),
+ * then exceptions will be thrown.</li>
+ * <li>Wherever applicable, the presence of opening parentheses or
+ * closing parentheses near literals and variables will be
+ * regarded as implicit multiplication.</li>
+ * </ol>
  *
  * @author Subhomoy Haldar
- * @version 2017.05.18
+ * @version 2017.05.27
  */
 class ExpressionTokenizer {
     // A short alias for the OperationMap's instance.
     private static final OperatorMap MAP = OperatorMap.INSTANCE;
     // Characters that are valid for operators
-    private static final String OP_CHARS = "+*/^=";
-    // Non-numeric characters that are needed to represent numbers
-    private static final String NUM_CHARS = "-.";
+    private static final String OP_CHARS = "+*/^=<>!&|";
     // Non-alphabetic characters that can be a part of variable names
     private static final String VAR_CHARS = "_";
+    // Marker for the character stream
+    private static final int NONE = -2;
+
+    private final CharSource source;
+
+    // A character that was peeked at, but not consumed
+    private int lookahead = NONE;
+
+    // Numeric literals are generated character by character
+    private final StringBuilder numericBuffer = new StringBuilder();
+    // So are variables and functions (basically prefix operators)
+    private final StringBuilder lettersBuffer = new StringBuilder();
+    // Tokens that are complete, but not yet taken
+    private final Deque<Token> pending = new ArrayDeque<>();
+    // The last token completed, and the one before it
+    private Token lastToken;
+    private Token tokenBeforeLast;
+    // Also keep track of parentheses. Illegal states occur when
+    // the count != 0 at the end of iteration, implying unbalanced
+    // parentheses, or count drops below zero during iteration,
+    // implying closing parenthesis occurs before opening parenthesis
+    private int parenthesesTally;
+    private boolean finished;
 
     /**
-     * This method is the the first step carried out in the expression
-     * evaluation process. Here, the raw input String is parsed and
-     * broken down into various types of Tokens, which include Operators
-     * and Operands like Numeric literals (Reals) and Variables.
-     * <p>
-     * The following things are to be considered before using this
-     * method:
-     * <ol>
-     * <li>All whitespace is ignored in the input String.</li>
-     * <li>Variables with names longer than one character are
-     * supported. The valid characters for a variable include
-     * uppercase and lowercase letters, letters and underscore.
-     * The variable must not start with a digit.</li>
-     * <li>Functions are parsed in the same way and the way
-     * to distinguish the two is that functions are followed by
-     * a comma-separated list of arguments in parentheses.</li>
-     * <li>If numeric literals appear before a variable or a
-     * function, it will be multiplied. For example, "2x" will
-     * be equivalent to "2*x".</li>
-     * <li>If parentheses are unbalanced, or are empty or the
-     * arguments are not properly provided, then exceptions will
-     * be thrown.</li>
-     * <li>Wherever applicable, the presence of opening parentheses or
-     * closing parentheses near literals and variables will be
-     * regarded as implicit multiplication.</li>
-     * </ol>
+     * Creates a tokenizer that reads the characters only as fast as
+     * its tokens are taken with {@link #nextToken()}. Only the token
+     * being read is buffered, so the memory used does not depend on the
+     * length of the input.
      *
-     * @param input The raw input String to parse and tokenize.
-     * @return A list of Tokens after the input String has been partially
-     * validated and fully parsed and tokenized.
-     * @throws UnrecognizedOperatorException  If the tokenizer encounters an
-     *                                        unrecognized character (as binary
-     *                                        operator) or unknown function.
+     * @param source The characters to tokenize.
+     */
+    ExpressionTokenizer(final CharSource source) {
+        this.source = source;
+    }
+
+    /**
+     * @return The next token, or null at the end of the input.
+     * @throws UnrecognizedOperatorException  If an unknown operator or
+     *                                        function is encountered.
      * @throws ImproperParenthesesException   If parentheses are improperly ordered,
      *                                        missing, unbalanced, etc.
      * @throws UnrecognizedCharacterException If an unrecognized character was
      *                                        encountered while parsing.
      */
-    static List<Token> tokenize(final String input) throws
+    Token nextToken() throws
             UnrecognizedOperatorException,
             ImproperParenthesesException,
             UnrecognizedCharacterException {
-        // Remove all whitespace
-        String modifiedInput = input.replaceAll("\\s+", "");
-        // Replace -variable or -literal with -1*(...)
-        modifiedInput = modifiedInput.replaceAll("-", "+-1*");
-        // If it was "(-x", it changed to "(+-1*x"
-        // Remove redundant "+" following "("
-        modifiedInput = modifiedInput.replaceAll("\\(\\+", "(");
-        // Same for leading plus signs
-        if (modifiedInput.startsWith("+")) {
-            modifiedInput = modifiedInput.substring(1);
+        while (pending.isEmpty() && !finished) {
+            step();
         }
-        return tokenize(modifiedInput.toCharArray());
+        return pending.poll();
     }
 
     /**
-     * After the input String has been modified to make parsing
-     * easier, the real action begins here.
+     * Processes the next character. The characters come from
+     * {@link #next()}, which skips whitespace; the real action begins
+     * here.
      */
-    private static List<Token> tokenize(final char[] chars) throws
+    private void step() throws
             UnrecognizedOperatorException,
             UnrecognizedCharacterException,
             ImproperParenthesesException {
-        // The final tokens are appended to this list
-        List<Token> tokenList = new ArrayList<>(chars.length);
-        // Numeric literals are generated character by character
-        StringBuilder numericBuffer = new StringBuilder(chars.length);
-        // So are variables and functions (basically prefix operators)
-        StringBuilder lettersBuffer = new StringBuilder(chars.length);
-
-        // Also keep track of parentheses. Illegal states occur when
-        // the count != 0 at the end of iteration, implying unbalanced
-        // parentheses, or count drops below zero during iteration,
-        // implying closing parenthesis occurs before opening parenthesis
-        int parenthesesTally = 0;
-
-        for (char ch : chars) {
-            if (lettersBuffer.length() == 0
-                    && Character.isDigit(ch)
-                    || NUM_CHARS.indexOf(ch) > -1) {
-                // The definition of a numeric literal is
-                // that it can have only have digits and - and .
-                numericBuffer.append(ch);
-            } else if (Character.isLetterOrDigit(ch) || VAR_CHARS.indexOf(ch) > -1) {
-                // Encountering a letter might be because of a variable
-                // or a function.
-                if (numericBuffer.length() > 0) {
-                    // A numeric literal precedes this. Process it.
-                    emptyNumericBufferAsLiteral(numericBuffer, tokenList);
-                    // 2x => 2 * x
-                    tokenList.add(MAP.getFor("*"));
-                }
-                lettersBuffer.append(ch);
-            } else if (OP_CHARS.indexOf(ch) > -1) {
-                // We have found a one-letter, binary operand
-                if (numericBuffer.length() > 0) {
-                    emptyNumericBufferAsLiteral(numericBuffer, tokenList);
-                } else if (lettersBuffer.length() > 0) {
-                    emptyLettersBufferAsVariable(lettersBuffer, tokenList);
-                }
-                tokenList.add(MAP.getFor(ch));
-            } else if (ch == '(') {
-                parenthesesTally++;
-                // If there were letters preceding it, then the following
-                // must be the list of arguments for that function.
-                // eg. sin(, cos(, tan(, exp(, ...
-                if (lettersBuffer.length() > 0) {
-                    emptyLettersBufferAsFunction(lettersBuffer, tokenList);
-                } else if (numericBuffer.length() > 0) {
-                    // There was a literal before it. It must be
-                    // multiplied to the part in parentheses
-                    // ... 3(... => ... 3 * (...
-                    emptyNumericBufferAsLiteral(numericBuffer, tokenList);
-                    tokenList.add(MAP.getFor("*"));
-                } else if (tokenList.size() > 0 &&
-                        tokenList.get(tokenList.size() - 1) // last element added
-                                instanceof RightParenthesis) {
-                    // "..)(.." => "...)*(..."
-                    tokenList.add(MAP.getFor("*"));
-                }
-                tokenList.add(new LeftParenthesis());
-            } else if (ch == ')') {
-                // Validate first
-                parenthesesTally--;
-                if (parenthesesTally < 0) {
-                    throw new ImproperParenthesesException(
-                            "Closing parenthesis occurs before opening parenthesis."
-                    );
-                }
-                // check if it closed abruptly, i.e. "()" appears
-                if (tokenList.size() > 0
-                        && tokenList.get(tokenList.size() - 1) // last element added
-                        instanceof LeftParenthesis
-                        && lettersBuffer.length() == 0
-                        && numericBuffer.length() == 0) {
-                    // i.e. "...()..." is NOT allowed
-                    throw new ImproperParenthesesException("Empty parentheses pair.");
-                }
-                if (lettersBuffer.length() > 0) {
-                    emptyLettersBufferAsVariable(lettersBuffer, tokenList);
-                } else if (numericBuffer.length() > 0) {
-                    emptyNumericBufferAsLiteral(numericBuffer, tokenList);
-                }
-                tokenList.add(new RightParenthesis());
-            } else if (ch == ',') {
-                // This is a separator for the arguments of a function
-                if (lettersBuffer.length() > 0) {
-                    emptyLettersBufferAsVariable(lettersBuffer, tokenList);
-                } else if (numericBuffer.length() > 0) {
-                    emptyNumericBufferAsLiteral(numericBuffer, tokenList);
-                }
-                tokenList.add(new ArgumentSeparator());
+        final int next = next();
+        if (next < 0) {
+            finish();
+            return;
+        }
+        final char ch = (char) next;
+        if (lettersBuffer.length() == 0
+                && Character.isDigit(ch)
+                || ch == '.') {
+            // The definition of a numeric literal is
+            // that it can have only have digits and .
+            numericBuffer.append(ch);
+        } else if (Character.isLetterOrDigit(ch) || VAR_CHARS.indexOf(ch) > -1) {
+            // Encountering a letter might be because of a variable
+            // or a function.
+            if (numericBuffer.length() > 0) {
+                // A numeric literal precedes this. Process it.
+                emptyNumericBufferAsLiteral();
+                // 2x => 2 * x
+                emit(MAP.getFor("*"));
+            }
+            lettersBuffer.append(ch);
+        } else if (ch == '-') {
+            // The parser decides whether it negates or subtracts
+            if (numericBuffer.length() > 0) {
+                emptyNumericBufferAsLiteral();
+            } else if (lettersBuffer.length() > 0) {
+                emptyLettersBufferAsVariable();
+            }
+            emit(MinusSign.INSTANCE);
+        } else if (OP_CHARS.indexOf(ch) > -1) {
+            // We have found an operator of one or two characters
+            if (numericBuffer.length() > 0) {
+                emptyNumericBufferAsLiteral();
+            } else if (lettersBuffer.length() > 0) {
+                emptyLettersBufferAsVariable();
+            }
+            Operator operator = null;
+            final int following = peek();
+            if (following >= 0) {
+                // Prefer the longest match: "<=" over "<", and so on
+                operator = MAP.getFor(new String(new char[]{ch, (char) following}));
+            }
+            if (operator != null) {
+                next();
             } else {
-                // Unrecognised character
-                throw new UnrecognizedCharacterException(ch);
+                operator = MAP.getFor(ch);
+            }
+            if (operator == null) {
+                throw new UnrecognizedOperatorException(String.valueOf(ch));
+            }
+            emit(operator);
+        } else if (ch == '(') {
+            parenthesesTally++;
+            // If there were letters preceding it, then the following
+            // must be the list of arguments for that function.
+            // eg. sin(, cos(, tan(, exp(, ...
+            if (lettersBuffer.length() > 0) {
+                emptyLettersBufferAsFunction();
+            } else if (numericBuffer.length() > 0) {
+                // There was a literal before it. It must be
+                // multiplied to the part in parentheses
+                // ... 3(... => ... 3 * (...
+                emptyNumericBufferAsLiteral();
+                emit(MAP.getFor("*"));
+            } else if (lastToken instanceof RightParenthesis) {
+                // "..)(.." => "...)*(..."
+                emit(MAP.getFor("*"));
+            }
+            emit(LeftParenthesis.INSTANCE);
+        } else if (ch == ')') {
+            // Validate first
+            parenthesesTally--;
+            if (parenthesesTally < 0) {
+                throw new ImproperParenthesesException(
+                        "Closing parenthesis occurs before opening parenthesis."
+                );
+            }
+            // check if it closed abruptly, i.e. "()" appears
+            if (lastToken instanceof LeftParenthesis
+                    && lettersBuffer.length() == 0
+                    && numericBuffer.length() == 0
+                    && !(tokenBeforeLast instanceof Operator && ((Operator) tokenBeforeLast).isFunction())) {
+                // i.e. "...()..." is NOT allowed, except as the empty
+                // argument list of a function, as in "rand()"
+                throw new ImproperParenthesesException("Empty parentheses pair.");
+            }
+            if (lettersBuffer.length() > 0) {
+                emptyLettersBufferAsVariable();
+            } else if (numericBuffer.length() > 0) {
+                emptyNumericBufferAsLiteral();
             }
+            emit(RightParenthesis.INSTANCE);
+        } else if (ch == ',') {
+            // This is a separator for the arguments of a function
+            if (lettersBuffer.length() > 0) {
+                emptyLettersBufferAsVariable();
+            } else if (numericBuffer.length() > 0) {
+                emptyNumericBufferAsLiteral();
+            }
+            emit(ArgumentSeparator.INSTANCE);
+        } else {
+            // Unrecognised character
+            throw new UnrecognizedCharacterException(ch);
         }
+    }
+
+    private void finish() throws ImproperParenthesesException {
+        finished = true;
         // The final check to see if the parentheses were balanced.
         if (parenthesesTally != 0) {
             throw new ImproperParenthesesException(
@@ -196,35 +228,68 @@ class ExpressionTokenizer {
         }
         // Empty the buffers
         if (numericBuffer.length() > 0) {
-            emptyNumericBufferAsLiteral(numericBuffer, tokenList);
+            emptyNumericBufferAsLiteral();
         }
         if (lettersBuffer.length() > 0) {
-            emptyLettersBufferAsVariable(lettersBuffer, tokenList);
+            emptyLettersBufferAsVariable();
         }
-        return tokenList;
     }
 
-    private static void emptyLettersBufferAsFunction(StringBuilder lettersBuffer,
-                                                     List<Token> tokenList)
-            throws UnrecognizedOperatorException {
+    /**
+     * @return The next character to tokenize, or -1 at the end.
+     */
+    private int next() {
+        final int ch = peek();
+        lookahead = NONE;
+        return ch;
+    }
+
+    /**
+     * @return The next character to tokenize (without consuming it),
+     * or -1 at the end. Whitespace is skipped.
+     */
+    private int peek() {
+        if (lookahead == NONE) {
+            int ch = source.read();
+            while (isWhitespace(ch)) {
+                ch = source.read();
+            }
+            lookahead = ch;
+        }
+        return lookahead;
+    }
+
+    /**
+     * @return {@code true} for the characters matched by the regular
+     * expression {@code \s}.
+     */
+    private static boolean isWhitespace(final int ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == 0x0B || ch == '\f' || ch == '\r';
+    }
+
+    private void emit(final Token token) {
+        tokenBeforeLast = lastToken;
+        lastToken = token;
+        pending.add(token);
+    }
+
+    private void emptyLettersBufferAsFunction() throws UnrecognizedOperatorException {
         final String bufferContents = lettersBuffer.toString();
         final Operator operator = MAP.getFor(bufferContents);
         if (operator == null) {
             throw new UnrecognizedOperatorException(bufferContents);
         }
-        tokenList.add(operator);
+        emit(operator);
         lettersBuffer.delete(0, lettersBuffer.length());
     }
 
-    private static void emptyLettersBufferAsVariable(StringBuilder lettersBuffer,
-                                                     List<Token> tokenList) {
-        tokenList.add(new Variable(lettersBuffer.toString()));
+    private void emptyLettersBufferAsVariable() {
+        emit(new Variable(lettersBuffer.toString()));
         lettersBuffer.delete(0, lettersBuffer.length());
     }
 
-    private static void emptyNumericBufferAsLiteral(StringBuilder numericBuffer,
-                                                    List<Token> tokenList) {
-        tokenList.add(new Real(numericBuffer.toString()));
+    private void emptyNumericBufferAsLiteral() {
+        emit(new Real(numericBuffer.toString()));
         numericBuffer.delete(0, numericBuffer.length());
     }
 
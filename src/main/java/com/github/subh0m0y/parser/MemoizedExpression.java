@@ -0,0 +1,261 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.operands.Variable;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the results of an expensive Expression for the inputs it
+ * was last evaluated with. The key is the exact bit pattern of the
+ * values of every variable the Expression reads, so -0 and 0 (or two
+ * different NaNs) are different inputs, and a result is only reused
+ * for inputs that are identical.
+ * <p>
+ * The cache holds at most the given number of results, in segments
+ * with a lock each; every segment evicts its least recently used
+ * result when it is full. Evaluations that throw are not remembered.
+ * <p>
+ * Hashing the inputs is not free, so memoization switches itself off
+ * (and drops the cache) when, after a warm-up of {@value #WARM_UP}
+ * lookups, less than the given fraction of them were hits. From then
+ * on, the Expression is evaluated directly.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.04
+ */
+public class MemoizedExpression {
+    /**
+     * The number of lookups after which the hit rate is judged.
+     */
+    public static final int WARM_UP = 1024;
+    /**
+     * The default lowest hit rate that keeps memoization on.
+     */
+    public static final double DEFAULT_MINIMUM_HIT_RATE = 0.1;
+
+    private static final int SEGMENTS = 16;
+
+    private final Expression expression;
+    private final Variable[] variables;
+    private final Segment[] segments;
+    private final double minimumHitRate;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean enabled = true;
+
+    /**
+     * @param expression The Expression to memoize.
+     * @param capacity   The most results to remember.
+     * @throws EvaluationException If the Expression assigns to a
+     *                             variable, keeps state or draws random
+     *                             numbers, so its result is not a
+     *                             function of its inputs.
+     */
+    public MemoizedExpression(final Expression expression, final int capacity) throws EvaluationException {
+        this(expression, capacity, DEFAULT_MINIMUM_HIT_RATE);
+    }
+
+    /**
+     * @param expression     The Expression to memoize.
+     * @param capacity       The most results to remember.
+     * @param minimumHitRate The lowest fraction of lookups that must be
+     *                       hits for memoization to stay on.
+     * @throws EvaluationException      If the Expression assigns to a
+     *                                  variable, keeps state or draws
+     *                                  random numbers, so its result is
+     *                                  not a function of its inputs.
+     * @throws IllegalArgumentException If the capacity is not positive.
+     */
+    public MemoizedExpression(final Expression expression,
+                              final int capacity,
+                              final double minimumHitRate) throws
+            EvaluationException,
+            IllegalArgumentException {
+        if (!expression.isPure()) {
+            throw new EvaluationException("Cannot memoize an expression whose result is not a function of its inputs.");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.expression = expression;
+        this.variables = new Variable[expression.getVariables().size()];
+        int index = 0;
+        for (String symbol : expression.getVariables()) {
+            variables[index++] = new Variable(symbol);
+        }
+        this.segments = new Segment[Math.min(SEGMENTS, capacity)];
+        for (int i = 0; i < segments.length; i++) {
+            // Spread the capacity, rounding up for the first segments
+            segments[i] = new Segment((capacity + segments.length - 1 - i) / segments.length);
+        }
+        this.minimumHitRate = minimumHitRate;
+    }
+
+    /**
+     * Evaluates the Expression against a snapshot of the {@link VariableMap}.
+     *
+     * @return The value of the Expression.
+     * @throws EvaluationException If a variable is uninitialized, or the
+     *                             evaluation fails.
+     */
+    public double evaluate() throws EvaluationException {
+        return evaluate(VariableMap.INSTANCE.snapshot());
+    }
+
+    /**
+     * @param snapshot The bindings to read every variable from.
+     * @return The value of the Expression, remembered or computed.
+     * @throws EvaluationException If a variable is uninitialized, or the
+     *                             evaluation fails.
+     */
+    public double evaluate(final VariableSnapshot snapshot) throws EvaluationException {
+        if (!enabled) {
+            return expression.evaluate(snapshot).getValue();
+        }
+        final long[] bits = new long[variables.length];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = Double.doubleToRawLongBits(snapshot.getValue(variables[i]));
+        }
+        final Key key = new Key(bits);
+        final Segment segment = segments[((key.hash ^ key.hash >>> 16) & Integer.MAX_VALUE) % segments.length];
+        final Double remembered = segment.get(key);
+        if (remembered != null) {
+            hits.increment();
+            return remembered;
+        }
+        misses.increment();
+        final double value = expression.evaluate(snapshot).getValue();
+        segment.put(key, value);
+        judge();
+        return value;
+    }
+
+    /**
+     * Switches memoization off if the warm-up is over and too few of the
+     * lookups were hits.
+     */
+    private void judge() {
+        final long misses = this.misses.sum();
+        final long lookups = misses + hits.sum();
+        if (lookups >= WARM_UP && lookups - misses < minimumHitRate * lookups) {
+            enabled = false;
+            for (Segment segment : segments) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return The Expression whose results are remembered.
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return {@code false} once memoization has switched itself off.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The number of lookups answered from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to evaluate the Expression.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The fraction of lookups that were hits, or 0 before the
+     * first lookup.
+     */
+    public double getHitRate() {
+        final long hits = this.hits.sum();
+        final long lookups = hits + misses.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return The number of results remembered right now.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * The bit patterns of the values of the variables, in the order of
+     * their names.
+     */
+    private static final class Key {
+        private final long[] bits;
+        private final int hash;
+
+        Key(final long[] bits) {
+            this.bits = bits;
+            this.hash = Arrays.hashCode(bits);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Key
+                    && hash == ((Key) o).hash
+                    && Arrays.equals(bits, ((Key) o).bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A part of the cache, guarded by its own lock.
+     */
+    private static final class Segment {
+        private final Map<Key, Double> results;
+
+        Segment(final int capacity) {
+            results = new LinkedHashMap<Key, Double>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Key, Double> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized Double get(final Key key) {
+            return results.get(key);
+        }
+
+        synchronized void put(final Key key, final double value) {
+            results.put(key, value);
+        }
+
+        synchronized int size() {
+            return results.size();
+        }
+
+        synchronized void clear() {
+            results.clear();
+        }
+    }
+}
@@ -3,27 +3,36 @@ package com.github.subh0m0y.parser;
 import com.github.subh0m0y.parser.token.Operator;
 import com.github.subh0m0y.parser.token.functions.*;
 import com.github.subh0m0y.parser.token.operations.*;
+import com.github.subh0m0y.parser.token.random.*;
+import com.github.subh0m0y.parser.token.series.*;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * This is the class that binds the symbols of various operators
  * with their functionality. This is possible by using a standard
  * hierarchy for defining and gluing the functionality of the operands
  * with the various Operators.
+ * <p>
+ * Most Operators are stateless singletons. The {@link SeriesFunction}s
+ * keep state, so they are bound to factories instead, and every lookup
+ * returns a fresh instance.
  *
  * @author Subhomoy Haldar
- * @version 2017.05.18
+ * @version 2017.06.13
  */
 class OperatorMap {
     static final OperatorMap INSTANCE = new OperatorMap();
 
     private final Map<String, Operator> operationMap;
+    private final Map<String, Supplier<Operator>> factoryMap;
 
     private OperatorMap() {
         operationMap = Collections.unmodifiableMap(initializedMap());
+        factoryMap = Collections.unmodifiableMap(initializedFactories());
     }
 
     /**
@@ -39,6 +48,18 @@ class OperatorMap {
         map.put(Division.INSTANCE.getSymbol(), Division.INSTANCE);
         map.put(RaisingToPower.INSTANCE.getSymbol(), RaisingToPower.INSTANCE);
 
+        // Comparisons and logical operators, also used in infix form
+        map.put(LessThan.INSTANCE.getSymbol(), LessThan.INSTANCE);
+        map.put(LessThanOrEqual.INSTANCE.getSymbol(), LessThanOrEqual.INSTANCE);
+        map.put(GreaterThan.INSTANCE.getSymbol(), GreaterThan.INSTANCE);
+        map.put(GreaterThanOrEqual.INSTANCE.getSymbol(), GreaterThanOrEqual.INSTANCE);
+        map.put(Equality.INSTANCE.getSymbol(), Equality.INSTANCE);
+        map.put(Inequality.INSTANCE.getSymbol(), Inequality.INSTANCE);
+        map.put(LogicalAnd.INSTANCE.getSymbol(), LogicalAnd.INSTANCE);
+        map.put(LogicalOr.INSTANCE.getSymbol(), LogicalOr.INSTANCE);
+        // Negation is a prefix operator, which behaves like a function
+        map.put(LogicalNot.INSTANCE.getSymbol(), LogicalNot.INSTANCE);
+
         // The functions, which are used in prefix form
         map.put(Absolute.INSTANCE.getSymbol(), Absolute.INSTANCE);
         map.put(SquareRoot.INSTANCE.getSymbol(), SquareRoot.INSTANCE);
@@ -47,10 +68,32 @@ class OperatorMap {
         map.put(Tangent.INSTANCE.getSymbol(), Tangent.INSTANCE);
         map.put(Exponential.INSTANCE.getSymbol(), Exponential.INSTANCE);
         map.put(Logarithm.INSTANCE.getSymbol(), Logarithm.INSTANCE);
+        map.put(Conditional.INSTANCE.getSymbol(), Conditional.INSTANCE);
+
+        // Random draws, which take no arguments or the parameters of
+        // their distribution
+        map.put(Uniform.STANDARD.getSymbol(), Uniform.STANDARD);
+        map.put(Uniform.RANGE.getSymbol(), Uniform.RANGE);
+        map.put(Normal.INSTANCE.getSymbol(), Normal.INSTANCE);
 
         return map;
     }
 
+    /**
+     * @return An initialized Map with the stateful functions bound to
+     * their symbols.
+     */
+    private static Map<String, Supplier<Operator>> initializedFactories() {
+        Map<String, Supplier<Operator>> map = new HashMap<>();
+        map.put("lag", Lag::new);
+        map.put("delta", Delta::new);
+        map.put("movavg", MovingAverage::new);
+        map.put("ema", ExponentialMovingAverage::new);
+        map.put("movmax", MovingExtremum::maximum);
+        map.put("movmin", MovingExtremum::minimum);
+        return map;
+    }
+
     /**
      * @param character The character which uniquely defines an infix operator.
      * @return The uniquely identified binary operator.
@@ -64,7 +107,8 @@ class OperatorMap {
      * @return The required operator (may be an infix operator or a function).
      */
     Operator getFor(final String symbol) {
-        return operationMap.get(symbol);
+        Supplier<Operator> factory = factoryMap.get(symbol);
+        return factory != null ? factory.get() : operationMap.get(symbol);
     }
 
 }
@@ -0,0 +1,100 @@
+package com.github.subh0m0y.parser;
+
+/**
+ * Limits on the size of an expression, for parsing input that cannot be
+ * trusted. The limits are checked while the input is read, so parsing
+ * stops as soon as one is exceeded, with a
+ * {@link com.github.subh0m0y.parser.exceptions.LimitExceededException}.
+ * <p>
+ * Instances are immutable; start from {@link #NONE} and set the limits
+ * that matter:
+ * <pre>
+ *     ParseLimits limits = ParseLimits.NONE.withMaximumLength(10_000).withMaximumDepth(64);
+ * </pre>
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.05
+ */
+public final class ParseLimits {
+    /**
+     * No limits at all.
+     */
+    public static final ParseLimits NONE = new ParseLimits(
+            Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE
+    );
+
+    private final int maximumLength;
+    private final int maximumTokens;
+    private final int maximumDepth;
+    private final int maximumProgramSize;
+
+    private ParseLimits(final int maximumLength,
+                        final int maximumTokens,
+                        final int maximumDepth,
+                        final int maximumProgramSize) {
+        this.maximumLength = maximumLength;
+        this.maximumTokens = maximumTokens;
+        this.maximumDepth = maximumDepth;
+        this.maximumProgramSize = maximumProgramSize;
+    }
+
+    /**
+     * @param maximumLength The most characters to read, whitespace included.
+     * @return A copy of these limits with the given maximum length.
+     */
+    public ParseLimits withMaximumLength(final int maximumLength) {
+        return new ParseLimits(positive(maximumLength), maximumTokens, maximumDepth, maximumProgramSize);
+    }
+
+    /**
+     * @param maximumTokens The most tokens to read.
+     * @return A copy of these limits with the given maximum number of tokens.
+     */
+    public ParseLimits withMaximumTokens(final int maximumTokens) {
+        return new ParseLimits(maximumLength, positive(maximumTokens), maximumDepth, maximumProgramSize);
+    }
+
+    /**
+     * @param maximumDepth The most operators and parentheses that may be
+     *                     open at once, as in {@code ((((x))))},
+     *                     {@code ----x} or {@code 2^2^2^2}.
+     * @return A copy of these limits with the given maximum nesting depth.
+     */
+    public ParseLimits withMaximumDepth(final int maximumDepth) {
+        return new ParseLimits(maximumLength, maximumTokens, positive(maximumDepth), maximumProgramSize);
+    }
+
+    /**
+     * @param maximumProgramSize The most instructions the expression may
+     *                           compile to. Expressions that exceed it
+     *                           are never compiled, and keep being
+     *                           interpreted.
+     * @return A copy of these limits with the given maximum program size.
+     */
+    public ParseLimits withMaximumProgramSize(final int maximumProgramSize) {
+        return new ParseLimits(maximumLength, maximumTokens, maximumDepth, positive(maximumProgramSize));
+    }
+
+    public int getMaximumLength() {
+        return maximumLength;
+    }
+
+    public int getMaximumTokens() {
+        return maximumTokens;
+    }
+
+    public int getMaximumDepth() {
+        return maximumDepth;
+    }
+
+    public int getMaximumProgramSize() {
+        return maximumProgramSize;
+    }
+
+    private static int positive(final int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("A limit must be positive: " + limit);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.ShortCircuitOperator;
+import com.github.subh0m0y.parser.token.Token;
+
+import java.util.List;
+
+/**
+ * Utilities to recover the tree structure of a postfix token list
+ * without building a tree.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.24
+ */
+final class Postfix {
+    private Postfix() {
+    }
+
+    /**
+     * Finds, for every token, the index of the first token of the
+     * subexpression that ends with it. An operand is a subexpression
+     * on its own; an operator's subexpression starts where the one of
+     * its first operand starts.
+     *
+     * @param tokens The tokens in postfix order.
+     * @return The start index of the subexpression ending at each index.
+     * @throws ArityException If an operator does not have enough operands.
+     */
+    static int[] subexpressionStarts(final List<Token> tokens) throws ArityException {
+        final int[] starts = new int[tokens.size()];
+        // The end indices of the subexpressions still waiting for an operator
+        final int[] pending = new int[tokens.size()];
+        int top = -1;
+        for (int i = 0; i < starts.length; i++) {
+            Token token = tokens.get(i);
+            starts[i] = i;
+            if (token instanceof Operator) {
+                int arity = ((Operator) token).getArity();
+                if (top + 1 < arity) {
+                    throw new ArityException((Operator) token, arity, top + 1);
+                }
+                top -= arity;
+                if (arity > 0) {
+                    starts[i] = starts[pending[top + 1]];
+                }
+            }
+            pending[++top] = i;
+        }
+        return starts;
+    }
+
+    /**
+     * Finds the end indices of the operands of the operator at the given
+     * index, in order.
+     *
+     * @param tokens The tokens in postfix order.
+     * @param starts The result of {@link #subexpressionStarts(List)}.
+     * @param index  The index of an operator.
+     * @return The index of the last token of each operand.
+     */
+    static int[] operandEnds(final List<Token> tokens, final int[] starts, final int index) {
+        final int arity = ((Operator) tokens.get(index)).getArity();
+        final int[] ends = new int[arity];
+        int end = index - 1;
+        for (int i = arity - 1; i >= 0; i--) {
+            ends[i] = end;
+            end = starts[end] - 1;
+        }
+        return ends;
+    }
+
+    /**
+     * @param tokens The tokens in postfix order.
+     * @return The largest number of operands on the stack at any point
+     * while evaluating the tokens.
+     */
+    static int maximumDepth(final List<Token> tokens) {
+        int depth = 0;
+        int maximum = 0;
+        for (Token token : tokens) {
+            depth = token instanceof Operator
+                    ? Math.max(0, depth - ((Operator) token).getArity()) + 1
+                    : depth + 1;
+            maximum = Math.max(maximum, depth);
+        }
+        return maximum;
+    }
+
+    /**
+     * @param tokens The tokens to inspect.
+     * @return {@code true} if any of the tokens only evaluates some of
+     * its operands.
+     */
+    static boolean hasShortCircuit(final List<Token> tokens) {
+        for (Token token : tokens) {
+            if (token instanceof ShortCircuitOperator) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
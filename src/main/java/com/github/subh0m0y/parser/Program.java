@@ -0,0 +1,727 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.exceptions.LimitExceededException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.token.functions.Conditional;
+import com.github.subh0m0y.parser.token.operations.Assignment;
+import com.github.subh0m0y.parser.token.operations.LogicalAnd;
+import com.github.subh0m0y.parser.token.operations.LogicalOr;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled, flat form of one or more postfix token lists that runs on
+ * a small stack machine. Unlike the token based evaluator, it works on
+ * plain {@code double} values and keeps named temporaries in numbered
+ * slots of a {@link Frame} instead of the {@link com.github.subh0m0y.parser.token.VariableMap}.
+ * <p>
+ * The code is a sequence of (opcode, argument) pairs. Operators are
+ * applied through {@link Operator#compute(double...)}, so domain errors
+ * produce NaN instead of exceptions. Conditionals and the logical
+ * operators are compiled into jumps, so they short-circuit.
+ * <p>
+ * Subterms that occur more than once are computed once: the first time
+ * a subterm is computed, its value is saved in a slot, and later
+ * occurrences load it from there. Subterms are told apart by value
+ * numbering, that is, by their operator (or literal) and the numbers of
+ * their operands, so the comparison never walks whole subtrees. A value
+ * computed inside a branch that may be skipped is only reused within
+ * that branch.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.31
+ */
+final class Program {
+    // Push constants[argument]
+    static final int CONSTANT = 0;
+    // Push the value of globals[argument], read from the bindings
+    static final int GLOBAL = 1;
+    // Push slots[argument]
+    static final int LOAD = 2;
+    // Pop into slots[argument]
+    static final int STORE = 3;
+    // Apply operators[argument] to the values on top of the stack
+    static final int APPLY = 4;
+    // Continue at code[argument]
+    static final int JUMP = 5;
+    // Pop a value, and continue at code[argument] if it is false
+    static final int JUMP_IF_FALSE = 6;
+    // Pop a value, and continue at code[argument] if it is true
+    static final int JUMP_IF_TRUE = 7;
+    // Copy the top of the stack into slots[argument]
+    static final int SAVE = 8;
+
+    private final int[] code;
+    private final double[] constants;
+    private final Variable[] globals;
+    private final Operator[] operators;
+    private final int slotCount;
+    private final int maximumDepth;
+
+    private Program(final Builder builder) {
+        this.code = Arrays.copyOf(builder.code, builder.length);
+        this.constants = builder.toDoubleArray();
+        this.globals = builder.globals.toArray(new Variable[builder.globals.size()]);
+        this.operators = builder.operators.toArray(new Operator[builder.operators.size()]);
+        this.slotCount = builder.slotCount;
+        this.maximumDepth = builder.maximumDepth;
+    }
+
+    /**
+     * @return A fresh frame large enough to run this program.
+     */
+    Frame newFrame() {
+        return new Frame(slotCount, maximumDepth);
+    }
+
+    /**
+     * @return The number of slots this program reads or writes.
+     */
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * @return The deepest the operand stack gets while running.
+     */
+    int getMaximumDepth() {
+        return maximumDepth;
+    }
+
+    /**
+     * @return The number of instructions in this program.
+     */
+    int size() {
+        return code.length / 2;
+    }
+
+    /**
+     * Runs the program and returns the value left on top of the stack,
+     * or NaN if the program leaves nothing on the stack.
+     *
+     * @param frame    The slots and stack to work with. The slots must be
+     *                 initialized by the caller, if the program reads them
+     *                 before writing.
+     * @param bindings The bindings to read global variables from, or null
+     *                 to read the live variables.
+     * @return The value of the program.
+     * @throws EvaluationException If a global variable is uninitialized.
+     */
+    double run(final Frame frame, final VariableSnapshot bindings) throws EvaluationException {
+        return run(frame, bindings, null);
+    }
+
+    /**
+     * Runs the program, charging every instruction to the budget.
+     *
+     * @param frame    The slots and stack to work with.
+     * @param bindings The bindings to read global variables from, or null
+     *                 to read the live variables.
+     * @param budget   The budget to charge, or null to run unchecked.
+     * @return The value of the program.
+     * @throws EvaluationException    If a global variable is uninitialized.
+     * @throws LimitExceededException If the budget runs out.
+     */
+    double run(final Frame frame,
+               final VariableSnapshot bindings,
+               final EvaluationBudget budget) throws EvaluationException, LimitExceededException {
+        final int[] code = this.code;
+        final double[] slots = frame.slots;
+        final double[] stack = frame.stack;
+        int top = -1;
+        int pc = 0;
+        int steps = 0;
+        while (pc < code.length) {
+            final int opcode = code[pc];
+            final int argument = code[pc + 1];
+            pc += 2;
+            if (budget != null && ++steps == EvaluationBudget.CHECK_INTERVAL) {
+                budget.charge(steps);
+                steps = 0;
+            }
+            switch (opcode) {
+                case CONSTANT:
+                    stack[++top] = constants[argument];
+                    break;
+                case GLOBAL:
+                    stack[++top] = bindings == null
+                            ? globals[argument].getValue()
+                            : bindings.getValue(globals[argument]);
+                    break;
+                case LOAD:
+                    stack[++top] = slots[argument];
+                    break;
+                case STORE:
+                    slots[argument] = stack[top--];
+                    break;
+                case SAVE:
+                    slots[argument] = stack[top];
+                    break;
+                case JUMP:
+                    pc = argument;
+                    break;
+                case JUMP_IF_FALSE:
+                    if (!Operator.isTrue(stack[top--])) {
+                        pc = argument;
+                    }
+                    break;
+                case JUMP_IF_TRUE:
+                    if (Operator.isTrue(stack[top--])) {
+                        pc = argument;
+                    }
+                    break;
+                default:
+                    final Operator operator = operators[argument];
+                    final int arity = operator.getArity();
+                    final double[] arguments = frame.arguments(arity);
+                    top -= arity;
+                    System.arraycopy(stack, top + 1, arguments, 0, arity);
+                    stack[++top] = operator.compute(arguments);
+                    break;
+            }
+        }
+        if (budget != null) {
+            budget.charge(steps);
+        }
+        return top < 0 ? Double.NaN : stack[top];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc += 2) {
+            final int argument = code[pc + 1];
+            builder.append(pc / 2).append(": ");
+            switch (code[pc]) {
+                case CONSTANT:
+                    builder.append("const ").append(constants[argument]);
+                    break;
+                case GLOBAL:
+                    builder.append("global ").append(globals[argument].getSymbol());
+                    break;
+                case LOAD:
+                    builder.append("load ").append(argument);
+                    break;
+                case STORE:
+                    builder.append("store ").append(argument);
+                    break;
+                case SAVE:
+                    builder.append("save ").append(argument);
+                    break;
+                case JUMP:
+                    builder.append("jump ").append(argument / 2);
+                    break;
+                case JUMP_IF_FALSE:
+                    builder.append("jump if false ").append(argument / 2);
+                    break;
+                case JUMP_IF_TRUE:
+                    builder.append("jump if true ").append(argument / 2);
+                    break;
+                default:
+                    builder.append("apply ").append(operators[argument]);
+                    break;
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The mutable working memory of a running program. A frame may be
+     * reused across runs, but not shared between threads.
+     */
+    static final class Frame {
+        final double[] slots;
+        final double[] stack;
+        private final double[][] arguments = new double[4][];
+
+        Frame(final int slotCount, final int maximumDepth) {
+            slots = new double[slotCount];
+            stack = new double[maximumDepth];
+        }
+
+        double[] arguments(final int arity) {
+            if (arity >= arguments.length) {
+                return new double[arity];
+            }
+            if (arguments[arity] == null) {
+                arguments[arity] = new double[arity];
+            }
+            return arguments[arity];
+        }
+    }
+
+    /**
+     * Assembles a Program, interning its constants, globals and operators
+     * and keeping track of the stack depth.
+     */
+    static final class Builder {
+        private final int maximumSize;
+        private int[] code = new int[32];
+        private int length;
+        private int depth;
+        private int maximumDepth;
+        private int slotCount;
+
+        private final Map<Long, Integer> constantIndices = new HashMap<>();
+        private final List<Double> constants = new ArrayList<>();
+        private final Map<Variable, Integer> globalIndices = new HashMap<>();
+        private final List<Variable> globals = new ArrayList<>();
+        private final Map<Operator, Integer> operatorIndices = new IdentityHashMap<>();
+        private final List<Operator> operators = new ArrayList<>();
+
+        // Value numbering: the number of every distinct subterm, how
+        // often each number occurs, and the numbers of the tokens of
+        // every expression numbered so far
+        private final Map<Subterm, Integer> valueNumbers = new HashMap<>();
+        private int[] occurrences = new int[16];
+        private final Map<List<Token>, int[]> numbered = new IdentityHashMap<>();
+        // The slots of the subterms computed so far, and the order in
+        // which they were computed, to forget them when a branch ends
+        private final Map<Integer, Integer> computed = new HashMap<>();
+        private final List<Integer> computedOrder = new ArrayList<>();
+        private int sharedCount;
+        private boolean impureAllowed;
+
+        Builder() {
+            this(Integer.MAX_VALUE);
+        }
+
+        /**
+         * @param maximumSize The most instructions the program may have.
+         */
+        Builder(final int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        /**
+         * Lets the program apply impure operators other than assignment,
+         * such as series functions and random draws. Each occurrence of
+         * one is applied every time it is reached, and only then.
+         *
+         * @return This Builder.
+         */
+        Builder allowImpure() {
+            impureAllowed = true;
+            return this;
+        }
+
+        /**
+         * Numbers the subterms of the given tokens ahead of appending
+         * them. Numbering all the expressions of a group first lets the
+         * builder save the subterms they share when appending the first
+         * one. Expressions not numbered in advance are numbered when
+         * they are appended.
+         *
+         * @param tokens The postfix tokens of an expression.
+         * @throws ArityException If an operator is missing operands.
+         */
+        void number(final List<Token> tokens) throws ArityException {
+            if (numbered.containsKey(tokens)) {
+                return;
+            }
+            final int[] numbers = new int[tokens.size()];
+            final int[] stack = new int[tokens.size()];
+            int top = -1;
+            for (int i = 0; i < numbers.length; i++) {
+                final Token token = tokens.get(i);
+                final Subterm subterm;
+                if (token instanceof Operator) {
+                    final Operator operator = (Operator) token;
+                    final int arity = operator.getArity();
+                    if (top + 1 < arity) {
+                        throw new ArityException(operator, arity, top + 1);
+                    }
+                    top -= arity;
+                    // Impure operators never match anything else
+                    subterm = new Subterm(operator.isPure() ? operator : new Object(),
+                            Arrays.copyOfRange(stack, top + 1, top + 1 + arity));
+                } else if (token instanceof Real) {
+                    subterm = new Subterm(Double.doubleToRawLongBits(((Real) token).getValue()), NO_OPERANDS);
+                } else {
+                    subterm = new Subterm(((Variable) token).getSymbol(), NO_OPERANDS);
+                }
+                Integer number = valueNumbers.get(subterm);
+                if (number == null) {
+                    number = valueNumbers.size();
+                    valueNumbers.put(subterm, number);
+                    if (number == occurrences.length) {
+                        occurrences = Arrays.copyOf(occurrences, number * 2);
+                    }
+                }
+                occurrences[number]++;
+                numbers[i] = number;
+                stack[++top] = number;
+            }
+            numbered.put(tokens, numbers);
+        }
+
+        /**
+         * @return The number of subterms whose value was saved to be
+         * reused, rather than computed again.
+         */
+        int getSharedCount() {
+            return sharedCount;
+        }
+
+        /**
+         * Appends the given postfix tokens. Variables that have a slot
+         * (according to the given map) are loaded from it; all others
+         * are read as globals.
+         *
+         * @param tokens The postfix tokens to append.
+         * @param slots  The slots of variables held locally.
+         * @throws EvaluationException If the tokens contain an assignment.
+         * @throws ArityException      If an operator is missing operands.
+         */
+        void appendExpression(final List<Token> tokens,
+                              final Map<String, Integer> slots)
+                throws EvaluationException, ArityException {
+            if (tokens.isEmpty()) {
+                throw new EvaluationException("Cannot compile an empty expression.");
+            }
+            final int[] starts = Postfix.subexpressionStarts(tokens);
+            if (starts[tokens.size() - 1] != 0) {
+                throw new EvaluationException("Too many operands. There might be an operator (or more) missing.");
+            }
+            number(tokens);
+            appendAt(tokens, starts, numbered.get(tokens), tokens.size() - 1, slots);
+        }
+
+        /**
+         * Appends the subexpression that ends at the given index. The tree
+         * is walked with an explicit stack of {@link Step}s rather than by
+         * recursion, so that nesting of any depth can be compiled.
+         */
+        private void appendAt(final List<Token> tokens,
+                              final int[] starts,
+                              final int[] numbers,
+                              final int root,
+                              final Map<String, Integer> slots) {
+            final Deque<Step> steps = new ArrayDeque<>();
+            steps.push(new Step(root));
+            while (!steps.isEmpty()) {
+                final Step step = steps.peek();
+                if (step.ends == null && !begin(tokens, starts, numbers, step, slots)) {
+                    // A leaf, or a subterm loaded from its slot
+                    steps.pop();
+                    continue;
+                }
+                final int next = advance(step);
+                if (next >= 0) {
+                    steps.push(new Step(next));
+                    continue;
+                }
+                steps.pop();
+                if (occurrences[step.number] > 1) {
+                    final int slot = newSlot();
+                    emit(SAVE, slot);
+                    computed.put(step.number, slot);
+                    computedOrder.add(step.number);
+                    sharedCount++;
+                }
+            }
+        }
+
+        /**
+         * Emits the code of a step that needs no operands, or prepares it
+         * to append its operands.
+         *
+         * @return {@code true} if the step has operands to append.
+         */
+        private boolean begin(final List<Token> tokens,
+                              final int[] starts,
+                              final int[] numbers,
+                              final Step step,
+                              final Map<String, Integer> slots) {
+            final Token token = tokens.get(step.index);
+            if (token instanceof Real) {
+                constant(((Real) token).getValue());
+                return false;
+            }
+            if (token instanceof Variable) {
+                Variable variable = (Variable) token;
+                Integer slot = slots.get(variable.getSymbol());
+                if (slot == null) {
+                    global(variable);
+                } else {
+                    load(slot);
+                }
+                return false;
+            }
+            final Operator operator = (Operator) token;
+            if (!operator.isPure() && !(impureAllowed && operator != Assignment.INSTANCE)) {
+                throw new EvaluationException(
+                        "Operator " + operator + " cannot be compiled into a program."
+                );
+            }
+            step.number = numbers[step.index];
+            final Integer saved = computed.get(step.number);
+            if (saved != null) {
+                load(saved);
+                return false;
+            }
+            step.operator = operator;
+            step.ends = Postfix.operandEnds(tokens, starts, step.index);
+            return true;
+        }
+
+        /**
+         * Emits the code of a step that goes before its next operand, or
+         * after its last one. An operand that may be skipped at run time
+         * is a branch: the values computed in it are forgotten when it
+         * ends, since they may not have been computed when the code after
+         * it runs.
+         *
+         * @return The index of the operand to append next, or -1 once the
+         * step is complete.
+         */
+        private int advance(final Step step) {
+            final int stage = step.stage++;
+            final int[] ends = step.ends;
+            if (step.operator == Conditional.INSTANCE) {
+                switch (stage) {
+                    case 0:
+                        return ends[0];
+                    case 1:
+                        step.jumps[0] = jump(JUMP_IF_FALSE);
+                        step.mark = computedOrder.size();
+                        return ends[1];
+                    case 2:
+                        forget(step.mark);
+                        step.jumps[1] = jump(JUMP);
+                        // Only one of the branches leaves its value on the stack
+                        depth--;
+                        patch(step.jumps[0]);
+                        step.mark = computedOrder.size();
+                        return ends[2];
+                    default:
+                        forget(step.mark);
+                        patch(step.jumps[1]);
+                        return -1;
+                }
+            }
+            if (step.operator == LogicalAnd.INSTANCE || step.operator == LogicalOr.INSTANCE) {
+                // Jump to the short answer as soon as an operand decides it
+                final int decisive = step.operator == LogicalAnd.INSTANCE ? JUMP_IF_FALSE : JUMP_IF_TRUE;
+                final double shortAnswer = step.operator == LogicalAnd.INSTANCE ? 0 : 1;
+                switch (stage) {
+                    case 0:
+                        return ends[0];
+                    case 1:
+                        step.jumps[0] = jump(decisive);
+                        step.mark = computedOrder.size();
+                        return ends[1];
+                    default:
+                        forget(step.mark);
+                        final int second = jump(decisive);
+                        constant(1 - shortAnswer);
+                        final int toEnd = jump(JUMP);
+                        depth--;
+                        patch(step.jumps[0]);
+                        patch(second);
+                        constant(shortAnswer);
+                        patch(toEnd);
+                        return -1;
+                }
+            }
+            if (stage < ends.length) {
+                return ends[stage];
+            }
+            apply(step.operator);
+            return -1;
+        }
+
+        private void forget(final int mark) {
+            for (int i = computedOrder.size() - 1; i >= mark; i--) {
+                computed.remove(computedOrder.remove(i));
+            }
+        }
+
+        /**
+         * Emits a jump whose target is not known yet.
+         *
+         * @return The position to {@link #patch(int)} later.
+         */
+        int jump(final int opcode) {
+            emit(opcode, -1);
+            return length - 1;
+        }
+
+        /**
+         * Makes the jump at the given position continue at the next
+         * instruction to be emitted.
+         */
+        void patch(final int position) {
+            code[position] = length;
+        }
+
+        void constant(final double value) {
+            Long key = Double.doubleToRawLongBits(value);
+            Integer index = constantIndices.get(key);
+            if (index == null) {
+                index = constants.size();
+                constantIndices.put(key, index);
+                constants.add(value);
+            }
+            emit(CONSTANT, index);
+        }
+
+        void global(final Variable variable) {
+            Integer index = globalIndices.get(variable);
+            if (index == null) {
+                index = globals.size();
+                globalIndices.put(variable, index);
+                globals.add(new Variable(variable.getSymbol()));
+            }
+            emit(GLOBAL, index);
+        }
+
+        void apply(final Operator operator) {
+            Integer index = operatorIndices.get(operator);
+            if (index == null) {
+                index = operators.size();
+                operatorIndices.put(operator, index);
+                operators.add(operator);
+            }
+            emit(APPLY, index);
+        }
+
+        void load(final int slot) {
+            emit(LOAD, slot);
+        }
+
+        /**
+         * Pops the top of the stack into a slot that the program never
+         * reads, such as one that holds a result for the caller.
+         */
+        void output(final int slot) {
+            emit(STORE, slot);
+        }
+
+        /**
+         * Pops the top of the stack into the slot. Saved subterms may
+         * read the slot, so they are all computed afresh afterwards.
+         */
+        void store(final int slot) {
+            emit(STORE, slot);
+            forget(0);
+        }
+
+        /**
+         * @return The number of the newly reserved slot.
+         */
+        int newSlot() {
+            return slotCount++;
+        }
+
+        Program build() {
+            return new Program(this);
+        }
+
+        private void emit(final int opcode, final int argument) {
+            if (length / 2 >= maximumSize) {
+                throw new LimitExceededException("The program is longer than " + maximumSize + " instructions.");
+            }
+            if (length + 2 > code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+            }
+            code[length++] = opcode;
+            code[length++] = argument;
+            switch (opcode) {
+                case CONSTANT:
+                case GLOBAL:
+                case LOAD:
+                    depth++;
+                    break;
+                case STORE:
+                case JUMP_IF_FALSE:
+                case JUMP_IF_TRUE:
+                    depth--;
+                    break;
+                case JUMP:
+                case SAVE:
+                    break;
+                default:
+                    depth -= operators.get(argument).getArity() - 1;
+                    break;
+            }
+            maximumDepth = Math.max(maximumDepth, depth);
+        }
+
+        private double[] toDoubleArray() {
+            double[] values = new double[constants.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = constants.get(i);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * A subexpression being appended by the {@link Builder}: the stage
+     * it has reached, and the jumps and mark it has to get back to once
+     * its next operand is appended.
+     */
+    private static final class Step {
+        private final int index;
+        private int number;
+        private Operator operator;
+        private int[] ends;
+        private int stage;
+        private int mark;
+        private final int[] jumps = new int[2];
+
+        Step(final int index) {
+            this.index = index;
+        }
+    }
+
+    private static final int[] NO_OPERANDS = new int[0];
+
+    /**
+     * The key of a subterm for value numbering: an operator (or the
+     * value of a literal, or the name of a variable) along with the
+     * value numbers of its operands.
+     */
+    private static final class Subterm {
+        private final Object label;
+        private final int[] operands;
+        private final int hash;
+
+        Subterm(final Object label, final int[] operands) {
+            this.label = label;
+            this.operands = operands;
+            this.hash = 31 * label.hashCode() + Arrays.hashCode(operands);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Subterm)) {
+                return false;
+            }
+            Subterm subterm = (Subterm) o;
+            return hash == subterm.hash
+                    && label.equals(subterm.label)
+                    && Arrays.equals(operands, subterm.operands);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.subh0m0y.parser;
 
+import com.github.subh0m0y.parser.ExpressionParser.ConversionException;
 import com.github.subh0m0y.parser.exceptions.EvaluationException;
 import com.github.subh0m0y.parser.exceptions.ArityException;
 import com.github.subh0m0y.parser.exceptions.ImproperParenthesesException;
@@ -8,7 +9,6 @@ import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.Scanner;
 
-import static com.github.subh0m0y.parser.ExpressionConverter.*;
 import static com.github.subh0m0y.parser.ExpressionTokenizer.*;
 
 /**
@@ -26,12 +26,15 @@ public class REPL {
             "\n Press Return to evaluate." +
             "\n" +
             "\n Supported operations are +, -, *, /, ^ (exponentiation)." +
+            "\n Comparisons are <, <=, >, >=, ==, != and evaluate to 1 or 0." +
+            "\n Logical operators are && (and), || (or) and ! (not)." +
             "\n Some more functions supported are:" +
             "\n 1. Sine - sin(x)" +
             "\n 2. Cosine - cos(x)" +
             "\n 3. Tangent - tan(x)" +
             "\n 4. Exponential - exp(x)" +
             "\n 5. Square root - sqrt(x)" +
+            "\n 6. Conditional - if(condition, then, otherwise)" +
             "\n\n To display this message again, type 'help'" +
             "\n in a new line. To exit, type 'exit' or 'quit'.";
 
@@ -0,0 +1,245 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.ExpressionParser.ConversionException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.token.operations.Assignment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A sequence of statements compiled together into a single program.
+ * <p>
+ * Statements are separated by semicolons or by line breaks (line breaks
+ * inside parentheses do not end a statement). A statement is either an
+ * assignment of the form {@code name = expression} or a bare expression.
+ * For example:
+ * <pre>
+ *     a = x * 2; b = a + y; c = sqrt(a * b)
+ * </pre>
+ * Names assigned in the script are local temporaries: they live in the
+ * slots of the compiled program and never touch the {@link VariableMap}.
+ * Any other name (and a local name read before its first assignment)
+ * is read from the variable bindings.
+ * <p>
+ * Statements whose result can never be observed are removed at compile
+ * time: assignments to names that are not read afterwards, and bare
+ * expressions other than the last. The value of a script is the value
+ * of its last statement.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.23
+ */
+public class Script {
+    private final Program program;
+    private final int statementCount;
+    private final int eliminatedCount;
+
+    /**
+     * Compiles the given script.
+     *
+     * @param source The statements, separated by {@code ;} or line breaks.
+     * @throws ConversionException If the script is empty, or a statement
+     *                             assigns anywhere except at its top level.
+     */
+    public Script(final String source) throws ConversionException {
+        final List<Statement> statements = new ArrayList<>();
+        for (String text : split(source)) {
+            statements.add(new Statement(text));
+        }
+        if (statements.isEmpty()) {
+            throw new ConversionException("A script needs at least one statement.");
+        }
+        final int last = statements.size() - 1;
+
+        // Backward liveness: a statement survives if it is the last one,
+        // or if it assigns a name that some surviving later statement
+        // reads before it is assigned again.
+        final boolean[] live = new boolean[statements.size()];
+        final Set<String> needed = new HashSet<>();
+        int eliminated = 0;
+        for (int i = last; i >= 0; i--) {
+            Statement statement = statements.get(i);
+            if (i == last || statement.target != null && needed.contains(statement.target)) {
+                live[i] = true;
+                if (statement.target != null) {
+                    needed.remove(statement.target);
+                }
+                needed.addAll(statement.reads);
+            } else {
+                eliminated++;
+            }
+        }
+
+        final Program.Builder builder = new Program.Builder();
+        final Map<String, Integer> slots = new HashMap<>();
+        for (int i = 0; i <= last; i++) {
+            if (!live[i]) {
+                continue;
+            }
+            Statement statement = statements.get(i);
+            builder.appendExpression(statement.expression, slots);
+            if (statement.target != null) {
+                // The slot is bound after compiling the right hand side,
+                // so that "a = a + 1" reads the global a the first time.
+                Integer slot = slots.get(statement.target);
+                if (slot == null) {
+                    slot = builder.newSlot();
+                    slots.put(statement.target, slot);
+                }
+                builder.store(slot);
+                if (i == last) {
+                    builder.load(slot);
+                }
+            }
+        }
+        this.program = builder.build();
+        this.statementCount = statements.size();
+        this.eliminatedCount = eliminated;
+    }
+
+    /**
+     * Runs the script, reading all the global variables from one
+     * consistent snapshot of the {@link VariableMap}.
+     *
+     * @return The value of the last statement.
+     * @throws EvaluationException If a global variable is uninitialized.
+     */
+    public double run() throws EvaluationException {
+        return run(VariableMap.INSTANCE.snapshot());
+    }
+
+    /**
+     * Runs the script against the given bindings.
+     *
+     * @param bindings The bindings to read global variables from.
+     * @return The value of the last statement.
+     * @throws EvaluationException If a global variable is uninitialized.
+     */
+    public double run(final VariableSnapshot bindings) throws EvaluationException {
+        return program.run(program.newFrame(), bindings);
+    }
+
+    /**
+     * @return The number of statements in the source.
+     */
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * @return The number of statements removed because their results
+     * were never used.
+     */
+    public int getEliminatedCount() {
+        return eliminatedCount;
+    }
+
+    /**
+     * @return The number of local slots used by the compiled program.
+     */
+    public int getSlotCount() {
+        return program.getSlotCount();
+    }
+
+    /**
+     * Splits the source on semicolons, and on line breaks that are not
+     * inside parentheses. Blank statements are dropped.
+     */
+    private static List<String> split(final String source) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < source.length(); i++) {
+            char ch = source.charAt(i);
+            if (ch == '(') {
+                depth++;
+            } else if (ch == ')') {
+                depth--;
+            }
+            if (ch == ';' || (ch == '\n' || ch == '\r') && depth <= 0) {
+                addIfNotBlank(parts, current);
+            } else {
+                current.append(ch);
+            }
+        }
+        addIfNotBlank(parts, current);
+        return parts;
+    }
+
+    private static void addIfNotBlank(final List<String> parts, final StringBuilder current) {
+        String part = current.toString().trim();
+        if (!part.isEmpty()) {
+            parts.add(part);
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * A single parsed statement: an optional target and the postfix
+     * tokens of the expression whose value it takes.
+     */
+    private static class Statement {
+        private final String target;
+        private final List<Token> expression;
+        private final Set<String> reads = new HashSet<>();
+
+        Statement(final String text) {
+            List<Token> tokens = new Expression(text).getTokens();
+            int assignments = 0;
+            for (Token token : tokens) {
+                if (token == Assignment.INSTANCE) {
+                    assignments++;
+                }
+            }
+            if (assignments == 0) {
+                target = null;
+                expression = tokens;
+            } else if (assignments == 1
+                    && tokens.get(tokens.size() - 1) == Assignment.INSTANCE
+                    && tokens.get(0) instanceof Variable
+                    && isSingleValue(tokens.subList(1, tokens.size() - 1))) {
+                target = ((Variable) tokens.get(0)).getSymbol();
+                expression = tokens.subList(1, tokens.size() - 1);
+            } else {
+                throw new ConversionException(
+                        "Only assignments of the form 'name = expression' are supported: " + text
+                );
+            }
+            for (Token token : expression) {
+                if (token instanceof Variable) {
+                    reads.add(((Variable) token).getSymbol());
+                }
+            }
+        }
+
+        /**
+         * @return {@code true} if the postfix tokens evaluate to exactly
+         * one value, without borrowing operands from before them.
+         */
+        private static boolean isSingleValue(final List<Token> tokens) {
+            int depth = 0;
+            for (Token token : tokens) {
+                if (token instanceof Operator) {
+                    int arity = ((Operator) token).getArity();
+                    if (depth < arity) {
+                        return false;
+                    }
+                    depth -= arity - 1;
+                } else {
+                    depth++;
+                }
+            }
+            return depth == 1;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.github.subh0m0y.parser;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controls the tiered execution of {@link Expression}s and publishes
+ * metrics about it.
+ * <p>
+ * Every Expression starts out interpreted by the token based evaluator
+ * and counts how often it is evaluated. Once the count reaches the
+ * promotion threshold, the Expression is compiled into a {@link Program}
+ * on a single background thread and the compiled form is swapped in
+ * atomically; evaluations in the meantime continue in the interpreter.
+ * Expressions that assign to variables (or use other impure operators)
+ * are never promoted.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.25
+ */
+public final class Tiering {
+    /**
+     * The default number of evaluations after which an Expression is
+     * compiled, unless overridden by the system property
+     * {@code expression.tiering.threshold}.
+     */
+    public static final long DEFAULT_THRESHOLD = 10_000;
+
+    private static volatile long threshold =
+            Long.getLong("expression.tiering.threshold", DEFAULT_THRESHOLD);
+
+    private static final ExecutorService COMPILER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expression-tier-compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final LongAdder INTERPRETED = new LongAdder();
+    private static final LongAdder COMPILED = new LongAdder();
+    private static final LongAdder FALLBACKS = new LongAdder();
+    private static final LongAdder PROMOTIONS = new LongAdder();
+    private static final LongAdder FAILURES = new LongAdder();
+    private static final LongAdder COMPILE_NANOS = new LongAdder();
+
+    private Tiering() {
+    }
+
+    /**
+     * @return The number of evaluations after which an Expression is
+     * promoted to the compiled tier.
+     */
+    public static long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Changes the promotion threshold for all Expressions. Use
+     * {@link Long#MAX_VALUE} to disable promotion.
+     *
+     * @param newThreshold The new threshold.
+     * @throws IllegalArgumentException If the threshold is negative.
+     */
+    public static void setThreshold(final long newThreshold) throws IllegalArgumentException {
+        if (newThreshold < 0) {
+            throw new IllegalArgumentException("The threshold must be non-negative.");
+        }
+        threshold = newThreshold;
+    }
+
+    /**
+     * @return The current values of all the tiering counters.
+     */
+    public static Metrics getMetrics() {
+        return new Metrics(
+                INTERPRETED.sum(),
+                COMPILED.sum(),
+                FALLBACKS.sum(),
+                PROMOTIONS.sum(),
+                FAILURES.sum(),
+                COMPILE_NANOS.sum()
+        );
+    }
+
+    static void recordInterpreted() {
+        INTERPRETED.increment();
+    }
+
+    static void recordCompiled() {
+        COMPILED.increment();
+    }
+
+    static void recordFallback() {
+        FALLBACKS.increment();
+    }
+
+    /**
+     * Compiles in the background and hands the result to the callback.
+     * A compilation that fails, even by overflowing the stack on a very
+     * deep Expression, only counts as a failed promotion.
+     */
+    static void promote(final Runnable compilation) {
+        COMPILER.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                compilation.run();
+                PROMOTIONS.increment();
+            } catch (RuntimeException | StackOverflowError e) {
+                FAILURES.increment();
+            } finally {
+                COMPILE_NANOS.add(System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * A snapshot of the tiering counters, accumulated over all
+     * Expressions since the JVM started.
+     */
+    public static final class Metrics {
+        private final long interpretedEvaluations;
+        private final long compiledEvaluations;
+        private final long fallbacks;
+        private final long promotions;
+        private final long failedPromotions;
+        private final long compileNanos;
+
+        Metrics(final long interpretedEvaluations,
+                final long compiledEvaluations,
+                final long fallbacks,
+                final long promotions,
+                final long failedPromotions,
+                final long compileNanos) {
+            this.interpretedEvaluations = interpretedEvaluations;
+            this.compiledEvaluations = compiledEvaluations;
+            this.fallbacks = fallbacks;
+            this.promotions = promotions;
+            this.failedPromotions = failedPromotions;
+            this.compileNanos = compileNanos;
+        }
+
+        /**
+         * @return The number of evaluations served by the interpreter.
+         */
+        public long getInterpretedEvaluations() {
+            return interpretedEvaluations;
+        }
+
+        /**
+         * @return The number of evaluations served by compiled code.
+         */
+        public long getCompiledEvaluations() {
+            return compiledEvaluations;
+        }
+
+        /**
+         * @return The number of compiled evaluations that produced NaN
+         * and were repeated in the interpreter, to report domain errors
+         * exactly as the interpreter does.
+         */
+        public long getFallbacks() {
+            return fallbacks;
+        }
+
+        /**
+         * @return The number of Expressions promoted to the compiled tier.
+         */
+        public long getPromotions() {
+            return promotions;
+        }
+
+        /**
+         * @return The number of promotions that failed to compile.
+         */
+        public long getFailedPromotions() {
+            return failedPromotions;
+        }
+
+        /**
+         * @return The total time spent compiling promoted Expressions.
+         */
+        public long getCompileNanos() {
+            return compileNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "interpreted=" + interpretedEvaluations
+                    + " compiled=" + compiledEvaluations
+                    + " fallbacks=" + fallbacks
+                    + " promotions=" + promotions
+                    + " failed=" + failedPromotions
+                    + " compileNanos=" + compileNanos;
+        }
+    }
+}
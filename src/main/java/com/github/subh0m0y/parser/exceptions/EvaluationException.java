@@ -14,4 +14,12 @@ public class EvaluationException extends RuntimeException {
     public EvaluationException(String message) {
         super(message);
     }
+
+    /**
+     * @param message The message in detail.
+     * @param cause   The exception that caused this one.
+     */
+    public EvaluationException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
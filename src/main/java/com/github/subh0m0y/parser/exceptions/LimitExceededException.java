@@ -0,0 +1,18 @@
+package com.github.subh0m0y.parser.exceptions;
+
+/**
+ * Thrown when parsing or evaluating an expression would go beyond one
+ * of the limits set for it, such as its length, its nesting depth, the
+ * number of steps or the time allowed.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.05
+ */
+public class LimitExceededException extends RuntimeException {
+    /**
+     * @param message Which limit was exceeded, and by what.
+     */
+    public LimitExceededException(final String message) {
+        super(message);
+    }
+}
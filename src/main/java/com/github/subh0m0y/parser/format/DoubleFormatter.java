@@ -0,0 +1,481 @@
+package com.github.subh0m0y.parser.format;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * Formats doubles as text without going through {@link java.util.Formatter}
+ * and without allocating intermediate objects. Output can be written
+ * straight into a caller's {@code char[]}, appended to an
+ * {@link Appendable}, or returned as a String.
+ * <p>
+ * All styles start from the shortest decimal that reads back as the same
+ * double, computed with the Schubfach algorithm (Raffaello Giulietti,
+ * "The Schubfach way to render doubles", 2020):
+ * <ul>
+ * <li>{@link Style#SHORTEST} prints those digits as {@link Double#toString(double)}
+ * lays them out: plainly for magnitudes from 10<sup>-3</sup> up to
+ * 10<sup>7</sup>, in computerized scientific notation otherwise.</li>
+ * <li>{@link Style#FIXED} prints a fixed number of digits after the
+ * decimal point.</li>
+ * <li>{@link Style#SCIENTIFIC} prints one digit before the point, a
+ * fixed number after it and then the exponent, like {@code 1.25E-7}.</li>
+ * </ul>
+ * Rounding to fewer digits is half-up on the shortest digits, which is
+ * what {@code String.format("%.2f", value)} does; unlike it, the decimal
+ * separator is always a point, whatever the default locale.
+ * <p>
+ * Formatters are immutable and can be shared between threads.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.30
+ */
+public final class DoubleFormatter {
+    /**
+     * The ways of laying out a number.
+     */
+    public enum Style {
+        SHORTEST, FIXED, SCIENTIFIC
+    }
+
+    /**
+     * The largest number of digits after the point a formatter accepts.
+     */
+    public static final int MAXIMUM_DIGITS = 400;
+
+    /**
+     * Formats like {@link Double#toString(double)}, but with the
+     * shortest digits that read back as the same double.
+     */
+    public static final DoubleFormatter SHORTEST = new DoubleFormatter(Style.SHORTEST, 0);
+
+    // Two digits after the point, like "%.2f"
+    private static final DoubleFormatter TWO_DECIMALS = new DoubleFormatter(Style.FIXED, 2);
+
+    // Binary64 parameters
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final long C_TINY = 3;
+    private static final long T_MASK = C_MIN - 1;
+    private static final long MASK_63 = Long.MAX_VALUE;
+
+    // The range of decimal exponents for which 10^-k is tabulated
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long[] G = tabulatePowersOfTen();
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+        }
+    }
+
+    private static final ThreadLocal<char[]> BUFFERS = new ThreadLocal<>();
+
+    private final Style style;
+    private final int digits;
+
+    /**
+     * @param style  How to lay out numbers.
+     * @param digits The number of digits after the decimal point; it is
+     *               ignored for {@link Style#SHORTEST}.
+     * @throws IllegalArgumentException If the number of digits is
+     *                                  negative or more than {@link #MAXIMUM_DIGITS}.
+     */
+    public DoubleFormatter(final Style style, final int digits) throws IllegalArgumentException {
+        if (digits < 0 || digits > MAXIMUM_DIGITS) {
+            throw new IllegalArgumentException("Unsupported number of digits: " + digits);
+        }
+        this.style = style;
+        this.digits = style == Style.SHORTEST ? 0 : digits;
+    }
+
+    /**
+     * @param digits The number of digits after the decimal point.
+     * @return A formatter for the {@link Style#FIXED} style.
+     */
+    public static DoubleFormatter fixed(final int digits) {
+        return digits == 2 ? TWO_DECIMALS : new DoubleFormatter(Style.FIXED, digits);
+    }
+
+    /**
+     * @param digits The number of digits after the decimal point.
+     * @return A formatter for the {@link Style#SCIENTIFIC} style.
+     */
+    public static DoubleFormatter scientific(final int digits) {
+        return new DoubleFormatter(Style.SCIENTIFIC, digits);
+    }
+
+    public Style getStyle() {
+        return style;
+    }
+
+    public int getDigits() {
+        return digits;
+    }
+
+    /**
+     * @return The most characters {@link #format(double, char[], int)}
+     * can write for a single value.
+     */
+    public int getMaximumLength() {
+        switch (style) {
+            case FIXED:
+                // Sign, 309 integer digits, point and the fraction
+                return 311 + digits;
+            case SCIENTIFIC:
+                // Sign, digit, point, the fraction and "E-324"
+                return 8 + digits;
+            default:
+                // As long as "-2.2250738585072014E-308"
+                return 24;
+        }
+    }
+
+    /**
+     * Writes the value into the buffer.
+     *
+     * @param value  The value to format.
+     * @param buffer The buffer to write into. It must have room for
+     *               {@link #getMaximumLength()} characters after the offset.
+     * @param offset The index to start writing at.
+     * @return The index after the last character written.
+     */
+    public int format(final double value, final char[] buffer, final int offset) {
+        final long bits = Double.doubleToRawLongBits(value);
+        final int biasedExponent = (int) (bits >>> (P - 1)) & 0x7FF;
+        final long fraction = bits & T_MASK;
+        int index = offset;
+        if (biasedExponent == 0x7FF) {
+            return fraction != 0
+                    ? append("NaN", buffer, index)
+                    : append(bits < 0 ? "-Infinity" : "Infinity", buffer, index);
+        }
+        if (bits < 0) {
+            buffer[index++] = '-';
+        }
+        if (biasedExponent != 0) {
+            final int mq = -Q_MIN + 1 - biasedExponent;
+            final long c = C_MIN | fraction;
+            if (0 < mq && mq < P) {
+                // Whole numbers below 2^53 are their own shortest form
+                final long f = c >> mq;
+                if (f << mq == c) {
+                    return layout(f, 0, buffer, index);
+                }
+            }
+            return toDecimal(-mq, c, 0, buffer, index);
+        }
+        if (fraction != 0) {
+            return fraction < C_TINY
+                    ? toDecimal(Q_MIN, 10 * fraction, -1, buffer, index)
+                    : toDecimal(Q_MIN, fraction, 0, buffer, index);
+        }
+        return layout(0, 0, buffer, index);
+    }
+
+    /**
+     * Appends the value to the Appendable, through a buffer that is
+     * reused by the calling thread.
+     *
+     * @param value      The value to format.
+     * @param appendable The destination.
+     * @param <A>        The type of the destination.
+     * @return The destination.
+     * @throws IOException If the Appendable fails.
+     */
+    public <A extends Appendable> A formatTo(final double value, final A appendable) throws IOException {
+        char[] buffer = BUFFERS.get();
+        if (buffer == null || buffer.length < getMaximumLength()) {
+            buffer = new char[Math.max(getMaximumLength(), 64)];
+            BUFFERS.set(buffer);
+        }
+        final int length = format(value, buffer, 0);
+        if (appendable instanceof StringBuilder) {
+            ((StringBuilder) appendable).append(buffer, 0, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                appendable.append(buffer[i]);
+            }
+        }
+        return appendable;
+    }
+
+    /**
+     * @param value The value to format.
+     * @return The formatted value.
+     */
+    public String format(final double value) {
+        final char[] buffer = new char[getMaximumLength()];
+        return new String(buffer, 0, format(value, buffer, 0));
+    }
+
+    /**
+     * Finds the shortest decimal in the rounding interval of c 2^q, and
+     * lays it out. This follows the reference implementation of the
+     * paper closely; see there for the proofs.
+     *
+     * @param dk Adjusts the exponent when c was scaled up by 10.
+     */
+    private int toDecimal(final int q, final long c, final int dk,
+                          final char[] buffer, final int index) {
+        final long out = c & 0x1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // The interval is asymmetric at powers of two
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 2;
+        final long g1 = G[2 * (k - K_MIN)];
+        final long g0 = G[2 * (k - K_MIN) + 1];
+
+        final long vb = rop(g1, g0, cb << h);
+        final long vbl = rop(g1, g0, cbl << h);
+        final long vbr = rop(g1, g0, cbr << h);
+
+        final long s = vb >> 2;
+        if (s >= 100) {
+            // Try one digit less first
+            final long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            final long tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return layout(upin ? sp10 : tp10, k, buffer, index);
+            }
+        }
+        final long t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return layout(uin ? s : t, k + dk, buffer, index);
+        }
+        // Both are in the interval: take the closer one, or the even one
+        final long cmp = vb - (s + t << 1);
+        return layout(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buffer, index);
+    }
+
+    /**
+     * Writes f 10^e (without its sign) in the style of this formatter.
+     */
+    private int layout(long f, int e, final char[] buffer, final int index) {
+        // Remove trailing zeros, so f holds only significant digits
+        if (f == 0) {
+            e = 0;
+        } else {
+            while (f % 10 == 0) {
+                f /= 10;
+                e++;
+            }
+        }
+        switch (style) {
+            case FIXED:
+                return fixed(f, e, buffer, index);
+            case SCIENTIFIC:
+                return scientific(f, e, digits, buffer, index);
+            default:
+                return shortest(f, e, buffer, index);
+        }
+    }
+
+    private int fixed(long f, int e, final char[] buffer, final int index) {
+        // Digits of weight below 10^-digits are rounded off
+        final int drop = -e - digits;
+        if (drop > 0) {
+            final int n = digitCount(f);
+            if (drop > n) {
+                f = 0;
+            } else {
+                final long divisor = POWERS_OF_TEN[drop];
+                final boolean up = f % divisor >= divisor / 2;
+                f = f / divisor + (up ? 1 : 0);
+            }
+            e = -digits;
+        }
+        return plain(f, e, digits, buffer, index);
+    }
+
+    private int shortest(final long f, final int e, final char[] buffer, final int index) {
+        final int n = f == 0 ? 1 : digitCount(f);
+        final int exponent = n - 1 + e;
+        if (f != 0 && (exponent < -3 || exponent >= 7)) {
+            return scientific(f, e, Math.max(1, n - 1), buffer, index);
+        }
+        return plain(f, e, Math.max(1, -e), buffer, index);
+    }
+
+    /**
+     * Writes f 10^e plainly with the given number of digits after the
+     * point; e must not be less than -fractionDigits.
+     */
+    private static int plain(final long f, final int e, final int fractionDigits,
+                             final char[] buffer, int index) {
+        final int n = f == 0 ? 1 : digitCount(f);
+        if (e >= 0) {
+            index = writeDigits(f, n, buffer, index);
+            index = fill('0', e, buffer, index);
+            if (fractionDigits > 0) {
+                buffer[index++] = '.';
+                index = fill('0', fractionDigits, buffer, index);
+            }
+            return index;
+        }
+        final int fractional = -e;
+        if (n > fractional) {
+            final long divisor = POWERS_OF_TEN[fractional];
+            index = writeDigits(f / divisor, n - fractional, buffer, index);
+            buffer[index++] = '.';
+            index = writeDigits(f % divisor, fractional, buffer, index);
+        } else {
+            buffer[index++] = '0';
+            buffer[index++] = '.';
+            index = fill('0', fractional - n, buffer, index);
+            index = writeDigits(f, n, buffer, index);
+        }
+        return fill('0', fractionDigits - fractional, buffer, index);
+    }
+
+    /**
+     * Writes f 10^e as d.ddd (with the given number of digits after the
+     * point) followed by E and the exponent.
+     */
+    private static int scientific(long f, final int e, final int fractionDigits,
+                                  final char[] buffer, int index) {
+        int n = f == 0 ? 1 : digitCount(f);
+        int exponent = f == 0 ? 0 : n - 1 + e;
+        final int drop = n - 1 - fractionDigits;
+        if (drop > 0) {
+            final long divisor = POWERS_OF_TEN[drop];
+            final boolean up = f % divisor >= divisor / 2;
+            f = f / divisor + (up ? 1 : 0);
+            n -= drop;
+            if (f == POWERS_OF_TEN[n]) {
+                // Rounded up to the next power of ten
+                f /= 10;
+                exponent++;
+            }
+        }
+        buffer[index++] = (char) ('0' + f / POWERS_OF_TEN[n - 1]);
+        if (fractionDigits > 0) {
+            buffer[index++] = '.';
+            index = writeDigits(f % POWERS_OF_TEN[n - 1], n - 1, buffer, index);
+            index = fill('0', fractionDigits - (n - 1), buffer, index);
+        }
+        buffer[index++] = 'E';
+        if (exponent < 0) {
+            buffer[index++] = '-';
+            exponent = -exponent;
+        }
+        return writeDigits(exponent, digitCount(exponent), buffer, index);
+    }
+
+    private static int digitCount(final long value) {
+        int count = 1;
+        while (count < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes exactly n digits of the value, with leading zeros if needed.
+     */
+    private static int writeDigits(long value, final int n, final char[] buffer, final int index) {
+        for (int i = index + n - 1; i >= index; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return index + n;
+    }
+
+    private static int fill(final char ch, final int count, final char[] buffer, int index) {
+        for (int i = 0; i < count; i++) {
+            buffer[index++] = ch;
+        }
+        return index;
+    }
+
+    private static int append(final String text, final char[] buffer, final int index) {
+        text.getChars(0, text.length(), buffer, index);
+        return index + text.length();
+    }
+
+    // floor(q log10(2))
+    private static int flog10pow2(final int q) {
+        return (int) (q * 661_971_961_083L >> 41);
+    }
+
+    // floor(log10(3/4 2^q))
+    private static int flog10threeQuartersPow2(final int q) {
+        return (int) (q * 661_971_961_083L - 274_743_187_321L >> 41);
+    }
+
+    // floor(e log2(10))
+    private static int flog2pow10(final int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * Rounds (g1 2^63 + g0) cp / 2^127 to odd, that is, sets the lowest
+     * bit if the discarded part is not zero.
+     */
+    private static long rop(final long g1, final long g0, final long cp) {
+        final long x1 = multiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = multiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /**
+     * The high 64 bits of the 128 bit product (Math.multiplyHigh is
+     * not available on Java 8).
+     */
+    static long multiplyHigh(final long x, final long y) {
+        final long x1 = x >> 32;
+        final long x2 = x & 0xFFFFFFFFL;
+        final long y1 = y >> 32;
+        final long y2 = y & 0xFFFFFFFFL;
+        final long z2 = x2 * y2;
+        final long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        final long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * For every k, g = floor(10^-k 2^(125 - floor(-k log2(10)))) + 1,
+     * which lies in [2^125, 2^126), split into its high and low 63 bits.
+     */
+    private static long[] tabulatePowersOfTen() {
+        final long[] table = new long[2 * (K_MAX - K_MIN + 1)];
+        final BigInteger mask = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            final int shift = 125 - flog2pow10(-k);
+            final BigInteger g;
+            if (k <= 0) {
+                final BigInteger power = BigInteger.TEN.pow(-k);
+                g = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+            } else {
+                g = BigInteger.ONE.shiftLeft(shift).divide(BigInteger.TEN.pow(k));
+            }
+            final BigInteger rounded = g.add(BigInteger.ONE);
+            table[2 * (k - K_MIN)] = rounded.shiftRight(63).longValue();
+            table[2 * (k - K_MIN) + 1] = rounded.and(mask).longValue();
+        }
+        return table;
+    }
+}
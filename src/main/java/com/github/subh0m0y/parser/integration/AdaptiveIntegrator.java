@@ -0,0 +1,224 @@
+package com.github.subh0m0y.parser.integration;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Integrates an Expression over an interval of one variable, with the
+ * adaptive 7-15 point Gauss-Kronrod rule. Every subinterval whose error
+ * estimate (the difference between the Kronrod and the embedded Gauss
+ * estimates) exceeds its share of the tolerance is halved, and the
+ * halves are refined as separate tasks of a {@link ForkJoinPool}. The
+ * 30 points of both halves are evaluated as one batch.
+ * <p>
+ * A subinterval stops being refined once it meets its share of the
+ * tolerance, after {@value #MAXIMUM_DEPTH} halvings, or when the
+ * evaluation budget runs out; the achieved error estimate of the
+ * result tells whether the tolerance was met. As long as the budget
+ * suffices, the result does not depend on the number of threads.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.12
+ */
+public final class AdaptiveIntegrator {
+    /**
+     * The most times a subinterval is halved.
+     */
+    public static final int MAXIMUM_DEPTH = 48;
+
+    private static final int POINTS = 15;
+    // The positive Kronrod nodes; those at odd indices and 0 are the Gauss nodes
+    private static final double[] NODES = {
+            0.991455371120812639206854697526329,
+            0.949107912342758524526189684047851,
+            0.864864423359769072789712788640926,
+            0.741531185599394439863864773280788,
+            0.586087235467691130294144845693013,
+            0.405845151377397166906606412076961,
+            0.207784955007898467600689403773245,
+    };
+    private static final double[] KRONROD_WEIGHTS = {
+            0.022935322010529224963732008058970,
+            0.063092092629978553290700663189204,
+            0.104790010322250183839876322541518,
+            0.140653259715525918745189590510238,
+            0.169004726639267902826583426598550,
+            0.190350578064785409913256402421014,
+            0.204432940075298892414161999234649,
+    };
+    private static final double KRONROD_CENTER_WEIGHT = 0.209482141084727828012999174891714;
+    private static final double[] GAUSS_WEIGHTS = {
+            0.129484966168869693270611432679082,
+            0.279705391489276667901467771423780,
+            0.381830050505118944950369775488975,
+    };
+    private static final double GAUSS_CENTER_WEIGHT = 0.417959183673469387755102040816327;
+
+    private final Integrand integrand;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param expression The Expression to integrate.
+     * @param variable   The variable of integration.
+     * @throws EvaluationException If the Expression is empty, is not
+     *                             pure, or reads any other variable.
+     */
+    public AdaptiveIntegrator(final Expression expression, final String variable) throws EvaluationException {
+        this(expression, variable, Collections.emptyMap(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param expression The Expression to integrate.
+     * @param variable   The variable of integration.
+     * @param fixed      The values of the other variables, by name.
+     * @param pool       The pool to refine subintervals in.
+     * @throws EvaluationException If the Expression is empty, is not
+     *                             pure, or reads a variable that is not
+     *                             fixed.
+     */
+    public AdaptiveIntegrator(final Expression expression,
+                              final String variable,
+                              final Map<String, Double> fixed,
+                              final ForkJoinPool pool) throws EvaluationException {
+        this.integrand = new Integrand(fixed.isEmpty() ? expression : expression.specialize(fixed),
+                Collections.singletonList(variable));
+        this.pool = pool;
+    }
+
+    /**
+     * Integrates from the lower to the upper limit. The target error is
+     * the larger of the absolute tolerance and the relative tolerance
+     * times a first estimate of the integral.
+     *
+     * @param lower              The lower limit.
+     * @param upper              The upper limit; if it is below the lower
+     *                           one, the integral is negated.
+     * @param absoluteTolerance  The absolute tolerance.
+     * @param relativeTolerance  The relative tolerance.
+     * @param maximumEvaluations The most points to evaluate.
+     * @return The integral, with its error estimate.
+     * @throws IllegalArgumentException If a limit is not finite, a
+     *                                  tolerance is negative, or the
+     *                                  budget is less than 15.
+     */
+    public Integral integrate(final double lower,
+                              final double upper,
+                              final double absoluteTolerance,
+                              final double relativeTolerance,
+                              final long maximumEvaluations) throws IllegalArgumentException {
+        if (!Double.isFinite(lower) || !Double.isFinite(upper)) {
+            throw new IllegalArgumentException("The limits must be finite.");
+        }
+        if (!(absoluteTolerance >= 0) || !(relativeTolerance >= 0)) {
+            throw new IllegalArgumentException("The tolerances must be non-negative.");
+        }
+        if (maximumEvaluations < POINTS) {
+            throw new IllegalArgumentException("At least " + POINTS + " evaluations are needed.");
+        }
+        if (upper < lower) {
+            final Integral reversed = integrate(upper, lower, absoluteTolerance, relativeTolerance,
+                    maximumEvaluations);
+            return new Integral(-reversed.getValue(), reversed.getErrorEstimate(), reversed.getEvaluations());
+        }
+        final double[] whole = estimate(lower, upper);
+        final double tolerance = Math.max(absoluteTolerance, relativeTolerance * Math.abs(whole[0]));
+        final AtomicLong budget = new AtomicLong(maximumEvaluations - POINTS);
+        final Integral refined = pool.invoke(new Segment(lower, upper, whole[0], whole[1], tolerance, 0, budget));
+        return new Integral(refined.getValue(), refined.getErrorEstimate(), refined.getEvaluations() + POINTS);
+    }
+
+    /**
+     * Applies the rule to every interval in one batch.
+     *
+     * @param ends The lower and upper end of each interval.
+     * @return The estimate and its error for each interval.
+     */
+    private double[] estimate(final double... ends) {
+        final int intervals = ends.length / 2;
+        final double[] points = new double[intervals * POINTS];
+        for (int i = 0; i < intervals; i++) {
+            final double center = ends[2 * i] / 2 + ends[2 * i + 1] / 2;
+            final double half = ends[2 * i + 1] / 2 - ends[2 * i] / 2;
+            final int first = i * POINTS;
+            points[first] = center;
+            for (int j = 0; j < NODES.length; j++) {
+                points[first + 1 + 2 * j] = center - half * NODES[j];
+                points[first + 2 + 2 * j] = center + half * NODES[j];
+            }
+        }
+        final double[] values = integrand.evaluate(new double[][]{points}, points.length);
+        final double[] estimates = new double[2 * intervals];
+        for (int i = 0; i < intervals; i++) {
+            final int first = i * POINTS;
+            double kronrod = KRONROD_CENTER_WEIGHT * values[first];
+            double gauss = GAUSS_CENTER_WEIGHT * values[first];
+            for (int j = 0; j < NODES.length; j++) {
+                final double pair = values[first + 1 + 2 * j] + values[first + 2 + 2 * j];
+                kronrod += KRONROD_WEIGHTS[j] * pair;
+                if (j % 2 == 1) {
+                    gauss += GAUSS_WEIGHTS[j / 2] * pair;
+                }
+            }
+            final double half = ends[2 * i + 1] / 2 - ends[2 * i] / 2;
+            estimates[2 * i] = kronrod * half;
+            estimates[2 * i + 1] = Math.abs(kronrod - gauss) * half;
+        }
+        return estimates;
+    }
+
+    /**
+     * A subinterval with its estimate, refined until it meets its share
+     * of the tolerance.
+     */
+    private final class Segment extends RecursiveTask<Integral> {
+        private final double lower;
+        private final double upper;
+        private final double value;
+        private final double error;
+        private final double tolerance;
+        private final int depth;
+        private final AtomicLong budget;
+
+        Segment(final double lower,
+                final double upper,
+                final double value,
+                final double error,
+                final double tolerance,
+                final int depth,
+                final AtomicLong budget) {
+            this.lower = lower;
+            this.upper = upper;
+            this.value = value;
+            this.error = error;
+            this.tolerance = tolerance;
+            this.depth = depth;
+            this.budget = budget;
+        }
+
+        @Override
+        protected Integral compute() {
+            final double middle = lower / 2 + upper / 2;
+            // A NaN error cannot be improved by refinement
+            if (!(error > tolerance) || depth >= MAXIMUM_DEPTH
+                    || !(middle > lower && middle < upper)
+                    || budget.addAndGet(-2 * POINTS) < 0) {
+                return new Integral(value, error, 0);
+            }
+            final double[] halves = estimate(lower, middle, middle, upper);
+            final Segment left = new Segment(lower, middle, halves[0], halves[1], tolerance / 2, depth + 1, budget);
+            final Segment right = new Segment(middle, upper, halves[2], halves[3], tolerance / 2, depth + 1, budget);
+            left.fork();
+            final Integral second = right.compute();
+            final Integral first = left.join();
+            return new Integral(first.getValue() + second.getValue(),
+                    first.getErrorEstimate() + second.getErrorEstimate(),
+                    first.getEvaluations() + second.getEvaluations() + 2 * POINTS);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.subh0m0y.parser.integration;
+
+/**
+ * The estimate of an integral, how far from the true value it may be,
+ * and the number of evaluations of the integrand it took.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.12
+ */
+public final class Integral {
+    private final double value;
+    private final double errorEstimate;
+    private final long evaluations;
+
+    Integral(final double value, final double errorEstimate, final long evaluations) {
+        this.value = value;
+        this.errorEstimate = errorEstimate;
+        this.evaluations = evaluations;
+    }
+
+    /**
+     * @return The estimate of the integral; NaN if the integrand is
+     * undefined somewhere it was evaluated.
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return The estimated absolute error of the value, as achieved,
+     * which may exceed the tolerance that was asked for.
+     */
+    public double getErrorEstimate() {
+        return errorEstimate;
+    }
+
+    /**
+     * @return The number of points the integrand was evaluated at.
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    @Override
+    public String toString() {
+        return value + " +/- " + errorEstimate + " after " + evaluations + " evaluations";
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.subh0m0y.parser.integration;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Node;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An Expression to integrate, evaluated a batch of points at a time by
+ * {@link Expression#evaluate(Map, int)}.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.12
+ */
+final class Integrand {
+    private final Expression expression;
+    private final String[] variables;
+
+    /**
+     * @param expression The Expression to integrate.
+     * @param variables  The variables of integration, which must be all
+     *                   the variables the Expression reads.
+     * @throws EvaluationException If the Expression is empty or not pure,
+     *                             or reads any other variable.
+     */
+    Integrand(final Expression expression, final List<String> variables) throws EvaluationException {
+        final Node tree = expression.toTree();
+        if (tree == null) {
+            throw new EvaluationException("Cannot integrate an empty expression.");
+        }
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            final Node node = iterator.next();
+            if (node instanceof Application && !((Application) node).getOperator().isPure()) {
+                throw new EvaluationException(
+                        "Operator " + ((Application) node).getOperator() + " cannot be integrated."
+                );
+            }
+        }
+        for (String name : expression.getVariables()) {
+            if (!variables.contains(name)) {
+                throw new EvaluationException("Variable " + name + " must be fixed.");
+            }
+        }
+        this.expression = expression;
+        this.variables = variables.toArray(new String[0]);
+    }
+
+    /**
+     * @param coordinates One column of coordinates per variable, in order.
+     * @param rows        The number of points.
+     * @return The value at each point; NaN where it is undefined.
+     */
+    double[] evaluate(final double[][] coordinates, final int rows) {
+        final Map<String, double[]> columns = new HashMap<>();
+        for (int i = 0; i < variables.length; i++) {
+            columns.put(variables[i], coordinates[i]);
+        }
+        return expression.evaluate(columns, rows);
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.subh0m0y.parser.integration;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import org.apache.commons.math3.random.SobolSequenceGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Integrates an Expression over a box of all its variables, with
+ * randomized quasi-Monte Carlo: the points of a Sobol sequence, shifted
+ * modulo 1 by a few independent random vectors. The mean over the
+ * shifts is the estimate, and their spread gives the error estimate,
+ * which shrinks nearly as 1/n for smooth integrands, rather than the
+ * 1/sqrt(n) of plain Monte Carlo.
+ * <p>
+ * The sequence is split into blocks of {@value #BLOCK_SIZE} points that
+ * are evaluated as batches, in tasks of a {@link ForkJoinPool}. The sums
+ * of the blocks are combined in a fixed order, so the result for a seed
+ * does not depend on the number of threads. The coordinates of a point
+ * are in the order of {@link #getVariables()}.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.12
+ */
+public final class QuasiMonteCarloIntegrator {
+    /**
+     * The most variables the Sobol sequence supports.
+     */
+    public static final int MAXIMUM_DIMENSION = 1000;
+    /**
+     * The number of points evaluated as one batch.
+     */
+    public static final int BLOCK_SIZE = 1024;
+
+    private final Integrand integrand;
+    private final List<String> variables;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param expression The Expression to integrate over all its variables.
+     * @throws EvaluationException If the Expression is empty or not pure,
+     *                             or has too many variables.
+     */
+    public QuasiMonteCarloIntegrator(final Expression expression) throws EvaluationException {
+        this(expression, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param expression The Expression to integrate over all its variables.
+     * @param pool       The pool to evaluate the blocks in.
+     * @throws EvaluationException If the Expression is empty or not pure,
+     *                             or has too many variables.
+     */
+    public QuasiMonteCarloIntegrator(final Expression expression, final ForkJoinPool pool) throws
+            EvaluationException {
+        this.variables = Collections.unmodifiableList(new ArrayList<>(expression.getVariables()));
+        if (variables.size() > MAXIMUM_DIMENSION) {
+            throw new EvaluationException("Cannot integrate over more than " + MAXIMUM_DIMENSION + " variables.");
+        }
+        this.integrand = new Integrand(expression, variables);
+        this.pool = pool;
+    }
+
+    /**
+     * @return The variables, in the order of the coordinates.
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @param lower    The lower corner of the box.
+     * @param upper    The upper corner of the box.
+     * @param points   The number of points per shift.
+     * @param replicas The number of random shifts, at least 2.
+     * @param seed     The seed of the shifts.
+     * @return The integral, with the standard error of the mean over
+     * the shifts as its error estimate.
+     * @throws IllegalArgumentException If the corners do not match the
+     *                                  variables or are not finite, or
+     *                                  the counts are too small.
+     */
+    public Integral integrate(final double[] lower,
+                              final double[] upper,
+                              final int points,
+                              final int replicas,
+                              final long seed) throws IllegalArgumentException {
+        final int dimension = variables.size();
+        if (lower.length != dimension || upper.length != dimension) {
+            throw new IllegalArgumentException("Expected corners of " + dimension + " coordinates.");
+        }
+        double volume = 1;
+        for (int i = 0; i < dimension; i++) {
+            if (!Double.isFinite(lower[i]) || !Double.isFinite(upper[i])) {
+                throw new IllegalArgumentException("The corners must be finite.");
+            }
+            volume *= upper[i] - lower[i];
+        }
+        if (points <= 0) {
+            throw new IllegalArgumentException("The number of points must be positive.");
+        }
+        if (replicas < 2) {
+            throw new IllegalArgumentException("At least 2 shifts are needed for an error estimate.");
+        }
+        final SplittableRandom random = new SplittableRandom(seed);
+        final double[][] shifts = new double[replicas][dimension];
+        for (double[] shift : shifts) {
+            for (int i = 0; i < dimension; i++) {
+                shift[i] = random.nextDouble();
+            }
+        }
+        final int blocks = (points - 1) / BLOCK_SIZE + 1;
+        final double[] sums = pool.invoke(new Blocks(0, blocks, points, lower.clone(), upper.clone(), shifts));
+
+        double mean = 0;
+        final double[] estimates = new double[replicas];
+        for (int r = 0; r < replicas; r++) {
+            estimates[r] = volume * sums[r] / points;
+            mean += estimates[r] / replicas;
+        }
+        double variance = 0;
+        for (double estimate : estimates) {
+            variance += (estimate - mean) * (estimate - mean);
+        }
+        variance /= replicas - 1;
+        return new Integral(mean, Math.sqrt(variance / replicas), (long) points * replicas);
+    }
+
+    /**
+     * Sums the integrand over a range of blocks, for every shift. Ranges
+     * are split in halves down to single blocks, so the order of the
+     * additions is fixed.
+     */
+    private final class Blocks extends RecursiveTask<double[]> {
+        private final int from;
+        private final int to;
+        private final int points;
+        private final double[] lower;
+        private final double[] upper;
+        private final double[][] shifts;
+
+        Blocks(final int from,
+               final int to,
+               final int points,
+               final double[] lower,
+               final double[] upper,
+               final double[][] shifts) {
+            this.from = from;
+            this.to = to;
+            this.points = points;
+            this.lower = lower;
+            this.upper = upper;
+            this.shifts = shifts;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from == 1) {
+                return sum(from);
+            }
+            final int middle = (from + to) >>> 1;
+            final Blocks left = new Blocks(from, middle, points, lower, upper, shifts);
+            left.fork();
+            final double[] second = new Blocks(middle, to, points, lower, upper, shifts).compute();
+            final double[] first = left.join();
+            for (int r = 0; r < first.length; r++) {
+                first[r] += second[r];
+            }
+            return first;
+        }
+
+        private double[] sum(final int block) {
+            final int dimension = lower.length;
+            final int start = block * BLOCK_SIZE;
+            final int count = Math.min(BLOCK_SIZE, points - start);
+            final int rows = count * shifts.length;
+            final double[][] coordinates = new double[dimension][rows];
+            final SobolSequenceGenerator sequence = new SobolSequenceGenerator(Math.max(1, dimension));
+            double[] point = sequence.skipTo(start);
+            for (int p = 0; p < count; p++) {
+                if (p > 0) {
+                    point = sequence.nextVector();
+                }
+                for (int r = 0; r < shifts.length; r++) {
+                    for (int i = 0; i < dimension; i++) {
+                        double u = point[i] + shifts[r][i];
+                        u = u >= 1 ? u - 1 : u;
+                        coordinates[i][r * count + p] = lower[i] + (upper[i] - lower[i]) * u;
+                    }
+                }
+            }
+            final double[] values = integrand.evaluate(coordinates, rows);
+            final double[] sums = new double[shifts.length];
+            for (int r = 0; r < shifts.length; r++) {
+                double sum = 0;
+                for (int p = 0; p < count; p++) {
+                    sum += values[r * count + p];
+                }
+                sums[r] = sum;
+            }
+            return sums;
+        }
+    }
+}
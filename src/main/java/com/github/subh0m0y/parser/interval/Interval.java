@@ -0,0 +1,397 @@
+package com.github.subh0m0y.parser.interval;
+
+/**
+ * A closed range of real numbers [lower, upper] that is known to contain
+ * a value, possibly along with NaN.
+ * <p>
+ * The arithmetic is sound: the result of every operation contains the
+ * result of the operation for every choice of values in the operands.
+ * Java has no directed rounding, so bounds are rounded outward instead:
+ * the lower bound is moved down and the upper bound up by one ulp after
+ * operations that are correctly rounded (+, *, /, sqrt), and by two ulps
+ * after the functions of {@link Math}, which are accurate to one ulp.
+ * Bounds may be infinite.
+ * <p>
+ * Points where an operation is undefined (the square root of a negative
+ * number, 0 / 0, and so on) do not widen the bounds; they only mark the
+ * result as {@link #mayBeNaN() possibly NaN}. The bounds then hold for
+ * the points where the result is defined.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.10
+ */
+public final class Interval {
+    /**
+     * Every real number.
+     */
+    public static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false);
+    /**
+     * Any value at all, including NaN.
+     */
+    public static final Interval UNKNOWN = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+    /**
+     * The result of a comparison that may or may not hold.
+     */
+    public static final Interval BOOLEAN = new Interval(0, 1, false);
+
+    private static final Interval FALSE = new Interval(0, 0, false);
+    private static final Interval TRUE = new Interval(1, 1, false);
+    private static final double TWO_PI = 2 * Math.PI;
+    // Arguments of sin, cos and tan beyond this are not reduced reliably
+    private static final double MAXIMUM_ARGUMENT = 1e9;
+
+    private final double lower;
+    private final double upper;
+    private final boolean nan;
+
+    private Interval(final double lower, final double upper, final boolean nan) {
+        this.lower = lower;
+        this.upper = upper;
+        this.nan = nan;
+    }
+
+    /**
+     * @param lower The lower bound.
+     * @param upper The upper bound.
+     * @return The interval [lower, upper].
+     * @throws IllegalArgumentException If a bound is NaN, or the lower
+     *                                  bound is above the upper one.
+     */
+    public static Interval of(final double lower, final double upper) throws IllegalArgumentException {
+        if (!(lower <= upper)) {
+            throw new IllegalArgumentException("Not an interval: [" + lower + ", " + upper + "]");
+        }
+        return new Interval(lower, upper, false);
+    }
+
+    /**
+     * @param value A value other than NaN.
+     * @return The interval that holds just the value.
+     */
+    public static Interval point(final double value) throws IllegalArgumentException {
+        return of(value, value);
+    }
+
+    /**
+     * @param value The truth of a comparison.
+     * @return [1, 1] for {@code true}, and [0, 0] for {@code false}.
+     */
+    public static Interval valueOf(final boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    public double getLower() {
+        return lower;
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+
+    /**
+     * @return {@code true} if the result may be NaN for some values of
+     * the operands.
+     */
+    public boolean mayBeNaN() {
+        return nan;
+    }
+
+    /**
+     * @return The upper bound minus the lower one, rounded up.
+     */
+    public double width() {
+        return up(upper - lower);
+    }
+
+    /**
+     * @return The midpoint, which lies inside this interval.
+     */
+    public double midpoint() {
+        if (lower == Double.NEGATIVE_INFINITY || upper == Double.POSITIVE_INFINITY) {
+            if (lower == Double.NEGATIVE_INFINITY && upper == Double.POSITIVE_INFINITY) {
+                return 0;
+            }
+            return lower == Double.NEGATIVE_INFINITY ? -Double.MAX_VALUE : Double.MAX_VALUE;
+        }
+        final double middle = lower / 2 + upper / 2;
+        return Math.min(Math.max(middle, lower), upper);
+    }
+
+    public boolean contains(final double value) {
+        return lower <= value && value <= upper;
+    }
+
+    /**
+     * @return {@code true} if this interval holds a single value, and
+     * cannot be NaN.
+     */
+    public boolean isPoint() {
+        return lower == upper && !nan;
+    }
+
+    /**
+     * @return The smallest interval that contains both intervals.
+     */
+    public Interval hull(final Interval other) {
+        return new Interval(Math.min(lower, other.lower), Math.max(upper, other.upper), nan || other.nan);
+    }
+
+    /**
+     * Combines two sound bounds on the same value into tighter ones.
+     *
+     * @return The values in both intervals, or this interval if they
+     * have none in common (which happens only if the value is always NaN).
+     */
+    public Interval intersect(final Interval other) {
+        final double from = Math.max(lower, other.lower);
+        final double to = Math.min(upper, other.upper);
+        return from <= to ? new Interval(from, to, nan && other.nan) : this;
+    }
+
+    public Interval add(final Interval other) {
+        // -inf + inf comes out as NaN, and becomes an unbounded end
+        return bounds(down(lower + other.lower), up(upper + other.upper), nan || other.nan);
+    }
+
+    public Interval multiply(final Interval other) {
+        if (isPoint() && Math.abs(lower) == 1) {
+            // Multiplying by 1 or -1 is exact
+            return lower == 1 ? other : other.negate();
+        }
+        if (other.isPoint() && Math.abs(other.lower) == 1) {
+            return other.lower == 1 ? this : negate();
+        }
+        final double[] products = {
+                lower * other.lower, lower * other.upper,
+                upper * other.lower, upper * other.upper
+        };
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        boolean undefined = false;
+        for (double product : products) {
+            if (Double.isNaN(product)) {
+                // 0 * inf: a bound that is not reached by any value
+                undefined = true;
+                product = 0;
+            }
+            min = Math.min(min, product);
+            max = Math.max(max, product);
+        }
+        return bounds(down(min), up(max), nan || other.nan || undefined);
+    }
+
+    public Interval negate() {
+        return new Interval(-upper, -lower, nan);
+    }
+
+    public Interval divide(final Interval other) {
+        if (other.lower > 0 || other.upper < 0) {
+            return multiply(other.reciprocal());
+        }
+        // The divisor contains zero
+        final boolean undefined = contains(0) || nan || other.nan;
+        if (other.lower == 0 && other.upper == 0) {
+            return bounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+        }
+        if (lower >= 0 && other.lower == 0) {
+            return bounds(down(lower / other.upper), Double.POSITIVE_INFINITY, undefined);
+        }
+        if (upper <= 0 && other.lower == 0) {
+            return bounds(Double.NEGATIVE_INFINITY, up(upper / other.upper), undefined);
+        }
+        if (lower >= 0 && other.upper == 0) {
+            return bounds(Double.NEGATIVE_INFINITY, up(lower / other.lower), undefined);
+        }
+        if (upper <= 0 && other.upper == 0) {
+            return bounds(down(upper / other.lower), Double.POSITIVE_INFINITY, undefined);
+        }
+        return bounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, undefined);
+    }
+
+    private Interval reciprocal() {
+        // Only called for intervals that do not contain zero
+        return bounds(down(1 / upper), up(1 / lower), nan);
+    }
+
+    public Interval power(final Interval exponent) {
+        if (exponent.isPoint() && exponent.lower == Math.rint(exponent.lower)
+                && Math.abs(exponent.lower) <= 1L << 53) {
+            return integerPower(exponent.lower);
+        }
+        // A negative base only has defined powers for whole exponents
+        if (lower < 0 && Math.ceil(exponent.lower) <= exponent.upper) {
+            return bounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+        }
+        if (upper < 0) {
+            return bounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+        }
+        final boolean undefined = nan || exponent.nan || lower < 0;
+        // For a non-negative base, pow is monotonic in each operand, so
+        // its extremes over the box are at the corners
+        final double base = Math.max(lower, 0);
+        final double[] corners = {
+                Math.pow(base, exponent.lower), Math.pow(base, exponent.upper),
+                Math.pow(upper, exponent.lower), Math.pow(upper, exponent.upper)
+        };
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double corner : corners) {
+            min = Math.min(min, corner);
+            max = Math.max(max, corner);
+        }
+        return bounds(Math.max(0, down(down(min))), up(up(max)), undefined);
+    }
+
+    private Interval integerPower(final double n) {
+        if (n == 0) {
+            // pow(x, 0) is 1 for every x, even NaN
+            return TRUE;
+        }
+        if (n < 0) {
+            return TRUE.divide(integerPower(-n));
+        }
+        final double atLower = Math.pow(lower, n);
+        final double atUpper = Math.pow(upper, n);
+        final boolean odd = n % 2 != 0;
+        if (odd || lower >= 0) {
+            return bounds(down(down(atLower)), up(up(atUpper)), nan);
+        }
+        if (upper <= 0) {
+            return bounds(Math.max(0, down(down(atUpper))), up(up(atLower)), nan);
+        }
+        return bounds(0, up(up(Math.max(atLower, atUpper))), nan);
+    }
+
+    public Interval sqrt() {
+        if (upper < 0) {
+            return bounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+        }
+        return bounds(Math.max(0, down(Math.sqrt(Math.max(lower, 0)))), up(Math.sqrt(upper)), nan || lower < 0);
+    }
+
+    public Interval exp() {
+        return bounds(Math.max(0, down(down(Math.exp(lower)))), up(up(Math.exp(upper))), nan);
+    }
+
+    public Interval log() {
+        if (upper < 0) {
+            return bounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+        }
+        final double from = lower <= 0 ? Double.NEGATIVE_INFINITY : down(down(Math.log(lower)));
+        return bounds(from, up(up(Math.log(upper))), nan || lower < 0);
+    }
+
+    public Interval abs() {
+        if (lower >= 0) {
+            return this;
+        }
+        if (upper <= 0) {
+            return negate();
+        }
+        return new Interval(0, Math.max(-lower, upper), nan);
+    }
+
+    public Interval sin() {
+        return periodic(Math.PI / 2, false);
+    }
+
+    public Interval cos() {
+        return periodic(0, true);
+    }
+
+    /**
+     * Bounds sin or cos, which is 1 at offset + 2k pi and -1 half a
+     * period later, and monotonic in between.
+     */
+    private Interval periodic(final double offset, final boolean cosine) {
+        if (Double.isInfinite(lower) || Double.isInfinite(upper)) {
+            return bounds(-1, 1, true);
+        }
+        if (Math.abs(lower) > MAXIMUM_ARGUMENT || Math.abs(upper) > MAXIMUM_ARGUMENT
+                || upper - lower >= TWO_PI) {
+            return bounds(-1, 1, nan);
+        }
+        final double atLower = cosine ? Math.cos(lower) : Math.sin(lower);
+        final double atUpper = cosine ? Math.cos(upper) : Math.sin(upper);
+        final double min = reaches(offset + Math.PI) ? -1 : Math.max(-1, down(down(Math.min(atLower, atUpper))));
+        final double max = reaches(offset) ? 1 : Math.min(1, up(up(Math.max(atLower, atUpper))));
+        return bounds(min, max, nan);
+    }
+
+    public Interval tan() {
+        if (Double.isInfinite(lower) || Double.isInfinite(upper)) {
+            return bounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+        }
+        if (Math.abs(lower) > MAXIMUM_ARGUMENT || Math.abs(upper) > MAXIMUM_ARGUMENT
+                || upper - lower >= Math.PI || reachesHalfPeriod(Math.PI / 2)) {
+            return bounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, nan);
+        }
+        return bounds(down(down(Math.tan(lower))), up(up(Math.tan(upper))), nan);
+    }
+
+    /**
+     * @return {@code true} if this interval may contain a point
+     * target + 2k pi. The points are computed in floating point, so the
+     * test is slightly generous.
+     */
+    private boolean reaches(final double target) {
+        final double k = Math.ceil((lower - target) / TWO_PI);
+        return mayReach(target + (k - 1) * TWO_PI) || mayReach(target + k * TWO_PI);
+    }
+
+    private boolean reachesHalfPeriod(final double target) {
+        final double k = Math.ceil((lower - target) / Math.PI);
+        return mayReach(target + (k - 1) * Math.PI) || mayReach(target + k * Math.PI);
+    }
+
+    private boolean mayReach(final double point) {
+        final double slack = 1e-12 * Math.max(1, Math.abs(point));
+        return point >= lower - slack && point <= upper + slack;
+    }
+
+    /**
+     * Makes an interval of computed bounds. A bound that came out as NaN
+     * (such as inf / inf) is replaced by the infinity on its side.
+     */
+    private static Interval bounds(final double lower, final double upper, final boolean nan) {
+        final boolean lowerIsNaN = Double.isNaN(lower);
+        final boolean upperIsNaN = Double.isNaN(upper);
+        return new Interval(
+                lowerIsNaN ? Double.NEGATIVE_INFINITY : lower,
+                upperIsNaN ? Double.POSITIVE_INFINITY : upper,
+                nan || lowerIsNaN || upperIsNaN
+        );
+    }
+
+    private static double down(final double value) {
+        return Math.nextDown(value);
+    }
+
+    private static double up(final double value) {
+        return Math.nextUp(value);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Interval)) {
+            return false;
+        }
+        final Interval interval = (Interval) other;
+        return Double.compare(lower, interval.lower) == 0
+                && Double.compare(upper, interval.upper) == 0
+                && nan == interval.nan;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Double.hashCode(lower) + Double.hashCode(upper)) + Boolean.hashCode(nan);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lower + ", " + upper + "]" + (nan ? " or NaN" : "");
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.subh0m0y.parser.interval;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Bounds the value of an Expression over ranges of its variables, in a
+ * single pass over its tree with {@link Operator#enclose(Interval...)}.
+ * The bounds are guaranteed: every value the Expression takes in the
+ * ranges lies inside them. They are not always tight, because every
+ * occurrence of a variable is treated as independent; {@code x - x}
+ * over [0, 1] is bounded by [-1, 1], not [0, 0].
+ * <p>
+ * Subdivision tightens the bounds: the ranges are split into boxes, and
+ * the box with the widest result is bisected along its widest variable,
+ * again and again, until the given number of boxes is reached. The
+ * result is the hull of the results of all the boxes.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.10
+ */
+public final class IntervalEvaluator {
+    private final Node tree;
+    private final List<String> variables;
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    /**
+     * @param expression The Expression to bound.
+     * @throws EvaluationException If the Expression is empty, or contains
+     *                             an operator that is not pure.
+     */
+    public IntervalEvaluator(final Expression expression) throws EvaluationException {
+        this.tree = expression.toTree();
+        if (tree == null) {
+            throw new EvaluationException("Cannot bound an empty expression.");
+        }
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            Node node = iterator.next();
+            if (node instanceof Application && !((Application) node).getOperator().isPure()) {
+                throw new EvaluationException("Operator " + ((Application) node).getOperator()
+                        + " cannot be evaluated over intervals.");
+            }
+        }
+        this.variables = Collections.unmodifiableList(new ArrayList<>(expression.getVariables()));
+        for (String variable : variables) {
+            slots.put(variable, slots.size());
+        }
+    }
+
+    /**
+     * @param ranges The range of every variable, by name.
+     * @return Bounds on the value of the Expression.
+     * @throws EvaluationException If a variable has no range.
+     */
+    public Interval evaluate(final Map<String, Interval> ranges) throws EvaluationException {
+        return evaluate(box(ranges));
+    }
+
+    /**
+     * @param ranges       The range of every variable, by name.
+     * @param maximumBoxes The most boxes to split the ranges into.
+     * @return Bounds on the value of the Expression, at least as tight
+     * as those without subdivision.
+     * @throws EvaluationException      If a variable has no range.
+     * @throws IllegalArgumentException If the number of boxes is not positive.
+     */
+    public Interval evaluate(final Map<String, Interval> ranges, final int maximumBoxes) throws
+            EvaluationException,
+            IllegalArgumentException {
+        if (maximumBoxes <= 0) {
+            throw new IllegalArgumentException("The number of boxes must be positive.");
+        }
+        final PriorityQueue<Box> boxes = new PriorityQueue<>();
+        final List<Box> finished = new ArrayList<>();
+        final Interval[] first = box(ranges);
+        final Interval whole = evaluate(first);
+        boxes.add(new Box(first, whole));
+        while (boxes.size() + finished.size() < maximumBoxes && !boxes.isEmpty()) {
+            final Box widest = boxes.poll();
+            final int variable = widestVariable(widest.ranges);
+            final Interval range = variable < 0 ? null : widest.ranges[variable];
+            final double middle = range == null ? 0 : range.midpoint();
+            if (range == null || middle <= range.getLower() || middle >= range.getUpper()) {
+                // Cannot be split any further
+                finished.add(widest);
+                continue;
+            }
+            for (Interval half : new Interval[]{
+                    Interval.of(range.getLower(), middle), Interval.of(middle, range.getUpper())}) {
+                final Interval[] split = widest.ranges.clone();
+                split[variable] = half;
+                boxes.add(new Box(split, evaluate(split)));
+            }
+        }
+        finished.addAll(boxes);
+        Interval hull = null;
+        for (Box box : finished) {
+            hull = hull == null ? box.result : hull.hull(box.result);
+        }
+        // A box where the result is always NaN has unbounded bounds
+        return hull.intersect(whole);
+    }
+
+    /**
+     * @return The names of the variables that need a range, in order.
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    private Interval[] box(final Map<String, Interval> ranges) {
+        final Interval[] box = new Interval[variables.size()];
+        for (int i = 0; i < box.length; i++) {
+            box[i] = ranges.get(variables.get(i));
+            if (box[i] == null) {
+                throw new EvaluationException("Variable " + variables.get(i) + " has no range.");
+            }
+        }
+        return box;
+    }
+
+    private static int widestVariable(final Interval[] ranges) {
+        int widest = -1;
+        for (int i = 0; i < ranges.length; i++) {
+            if (!ranges[i].isPoint() && (widest < 0 || ranges[i].width() > ranges[widest].width())) {
+                widest = i;
+            }
+        }
+        return widest;
+    }
+
+    private Interval evaluate(final Interval[] box) {
+        final Interval[] stack = new Interval[tree.size()];
+        int top = -1;
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            final Node node = iterator.next();
+            if (node instanceof Constant) {
+                final double value = ((Constant) node).getValue();
+                stack[++top] = Double.isNaN(value) ? Interval.UNKNOWN : Interval.point(value);
+            } else if (node instanceof Reference) {
+                stack[++top] = box[slots.get(((Reference) node).getSymbol())];
+            } else {
+                final Operator operator = ((Application) node).getOperator();
+                final int arity = operator.getArity();
+                final Interval[] operands = new Interval[arity];
+                top -= arity;
+                System.arraycopy(stack, top + 1, operands, 0, arity);
+                stack[++top] = operator.enclose(operands);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Ranges of the variables and the bounds of the result over them;
+     * the widest result comes first.
+     */
+    private static final class Box implements Comparable<Box> {
+        private final Interval[] ranges;
+        private final Interval result;
+
+        Box(final Interval[] ranges, final Interval result) {
+            this.ranges = ranges;
+            this.result = result;
+        }
+
+        @Override
+        public int compareTo(final Box other) {
+            return Double.compare(other.result.width(), result.width());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.github.subh0m0y.parser.montecarlo;
+
+/**
+ * Summary statistics of a stream of samples that can be merged with
+ * those of other streams: the count, mean and variance (by Welford's
+ * update, and Chan's formula to merge), the extremes, and quantiles.
+ * <p>
+ * Quantiles come from a histogram with logarithmic buckets, so every
+ * quantile is within the relative accuracy of a sample that has that
+ * rank. Merging histograms only adds counts, so it loses nothing.
+ * NaN samples are counted apart and left out of the statistics.
+ * <p>
+ * Accumulators are not thread-safe: give every thread its own, and
+ * merge them at the end.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.13
+ */
+public final class Accumulator {
+    private final double relativeAccuracy;
+    // Bucket i holds the magnitudes in (gamma^(i-1), gamma^i]
+    private final double logGamma;
+    private final Buckets positive = new Buckets();
+    private final Buckets negative = new Buckets();
+    private long zeros;
+
+    private long count;
+    private long nans;
+    private double mean;
+    private double squares;
+    private double minimum = Double.POSITIVE_INFINITY;
+    private double maximum = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param relativeAccuracy The relative accuracy of the quantiles,
+     *                         between 0 and 1 (exclusive).
+     * @throws IllegalArgumentException If the accuracy is out of range.
+     */
+    public Accumulator(final double relativeAccuracy) throws IllegalArgumentException {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("The relative accuracy must be between 0 and 1.");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    /**
+     * @param value The next sample.
+     */
+    public void add(final double value) {
+        if (Double.isNaN(value)) {
+            nans++;
+            return;
+        }
+        count++;
+        final double delta = value - mean;
+        mean += delta / count;
+        squares += delta * (value - mean);
+        minimum = Math.min(minimum, value);
+        maximum = Math.max(maximum, value);
+
+        final double magnitude = Math.abs(value);
+        if (magnitude < Double.MIN_NORMAL) {
+            zeros++;
+        } else {
+            (value > 0 ? positive : negative).add(index(Math.min(magnitude, Double.MAX_VALUE)), 1);
+        }
+    }
+
+    /**
+     * Adds the samples of another accumulator to this one.
+     *
+     * @param other An accumulator with the same relative accuracy.
+     * @throws IllegalArgumentException If the accuracies differ.
+     */
+    public void merge(final Accumulator other) throws IllegalArgumentException {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge accumulators of different accuracies.");
+        }
+        nans += other.nans;
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            mean = other.mean;
+            squares = other.squares;
+        } else {
+            final long total = count + other.count;
+            final double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            squares += other.squares + delta * delta * ((double) count * other.count / total);
+        }
+        count += other.count;
+        minimum = Math.min(minimum, other.minimum);
+        maximum = Math.max(maximum, other.maximum);
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeros += other.zeros;
+    }
+
+    private int index(final double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    private double value(final int index) {
+        // The point of the bucket with the least relative error
+        return 2 * Math.exp(index * logGamma) / (1 + Math.exp(logGamma));
+    }
+
+    /**
+     * @return The number of samples, other than NaN.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The number of samples that were NaN.
+     */
+    public long getNaNCount() {
+        return nans;
+    }
+
+    /**
+     * @return The mean, or NaN if there are no samples.
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return The sample variance, or NaN if there are fewer than two
+     * samples.
+     */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : squares / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return The standard error of the mean.
+     */
+    public double getStandardError() {
+        return Math.sqrt(getVariance() / count);
+    }
+
+    public double getMinimum() {
+        return count == 0 ? Double.NaN : minimum;
+    }
+
+    public double getMaximum() {
+        return count == 0 ? Double.NaN : maximum;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * @param quantile The quantile, from 0 (the minimum) to 1 (the maximum).
+     * @return The estimated value of the quantile, or NaN if there are no
+     * samples.
+     * @throws IllegalArgumentException If the quantile is out of range.
+     */
+    public double getQuantile(final double quantile) throws IllegalArgumentException {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1.");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final long rank = (long) Math.floor(quantile * (count - 1));
+        double estimate;
+        if (rank < negative.total) {
+            // The most negative values come first
+            estimate = -value(negative.indexOfRank(negative.total - 1 - rank));
+        } else if (rank < negative.total + zeros) {
+            estimate = 0;
+        } else {
+            estimate = value(positive.indexOfRank(rank - negative.total - zeros));
+        }
+        return Math.min(Math.max(estimate, minimum), maximum);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count
+                + " mean=" + getMean()
+                + " standardDeviation=" + getStandardDeviation()
+                + " minimum=" + getMinimum()
+                + " median=" + getQuantile(0.5)
+                + " maximum=" + getMaximum();
+    }
+
+    /**
+     * Counts per bucket index, over the range of indices seen so far.
+     */
+    private static final class Buckets {
+        private long[] counts = new long[0];
+        private int offset;
+        private long total;
+
+        void add(final int index, final long amount) {
+            if (counts.length == 0) {
+                counts = new long[8];
+                offset = index - 4;
+            } else if (index < offset || index >= offset + counts.length) {
+                final int from = Math.min(offset, index);
+                final int to = Math.max(offset + counts.length, index + 1);
+                final int size = Math.max(to - from, 2 * counts.length);
+                final long[] grown = new long[size];
+                // Grow towards the side that ran out
+                final int start = index < offset ? to - size : from;
+                System.arraycopy(counts, 0, grown, offset - start, counts.length);
+                counts = grown;
+                offset = start;
+            }
+            counts[index - offset] += amount;
+            total += amount;
+        }
+
+        void merge(final Buckets other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        /**
+         * @return The index of the bucket that holds the value of the
+         * given rank, counting from the smallest magnitude.
+         */
+        int indexOfRank(final long rank) {
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return offset + i;
+                }
+            }
+            return offset + counts.length - 1;
+        }
+    }
+}
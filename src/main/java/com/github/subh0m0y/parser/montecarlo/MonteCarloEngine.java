@@ -0,0 +1,189 @@
+package com.github.subh0m0y.parser.montecarlo;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.random.RandomFunction;
+import com.github.subh0m0y.parser.token.random.RandomSource;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Node;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Evaluates an Expression with random draws (such as {@code rand()} and
+ * {@code randn()}) many times, in parallel, and summarizes the samples
+ * in an {@link Accumulator}.
+ * <p>
+ * The samples are split into chunks of {@value #CHUNK_SIZE}, and every
+ * chunk is evaluated as one batch, with a {@link SplittableRandom}
+ * stream of its own installed in the {@link RandomSource} of the worker
+ * that runs it. The stream of a chunk only depends on the seed and the
+ * position of the chunk, and the accumulators of the chunks are merged
+ * in a fixed order, so a run gives the same results for the same seed
+ * on any number of threads.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.13
+ */
+public final class MonteCarloEngine {
+    /**
+     * The number of samples evaluated as one batch, from one stream.
+     */
+    public static final int CHUNK_SIZE = 4096;
+    /**
+     * The relative accuracy of the quantiles, unless another is given.
+     */
+    public static final double DEFAULT_ACCURACY = 0.01;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final Expression expression;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param expression The Expression to sample.
+     * @throws EvaluationException If the Expression is empty, reads a
+     *                             variable, or has state other than
+     *                             its random draws.
+     */
+    public MonteCarloEngine(final Expression expression) throws EvaluationException {
+        this(expression, Collections.emptyMap(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param expression The Expression to sample.
+     * @param fixed      The values of its variables, by name.
+     * @param pool       The pool to evaluate the chunks in.
+     * @throws EvaluationException If the Expression is empty, reads a
+     *                             variable that is not fixed, or has
+     *                             state other than its random draws.
+     */
+    public MonteCarloEngine(final Expression expression,
+                            final Map<String, Double> fixed,
+                            final ForkJoinPool pool) throws EvaluationException {
+        final Expression specialized = fixed.isEmpty() ? expression : expression.specialize(fixed);
+        final Node tree = specialized.toTree();
+        if (tree == null) {
+            throw new EvaluationException("Cannot sample an empty expression.");
+        }
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            final Node node = iterator.next();
+            if (!(node instanceof Application)) {
+                continue;
+            }
+            final Operator operator = ((Application) node).getOperator();
+            if (!operator.isPure() && !(operator instanceof RandomFunction)) {
+                throw new EvaluationException("Operator " + operator + " cannot be sampled in parallel.");
+            }
+        }
+        if (!specialized.getVariables().isEmpty()) {
+            throw new EvaluationException("Variable " + specialized.getVariables().first() + " must be fixed.");
+        }
+        this.expression = specialized;
+        this.pool = pool;
+    }
+
+    /**
+     * @param samples The number of samples.
+     * @param seed    The seed of the run.
+     * @return The statistics of the samples.
+     * @throws IllegalArgumentException If the number of samples is not
+     *                                  positive.
+     */
+    public Accumulator run(final long samples, final long seed) throws IllegalArgumentException {
+        return run(samples, seed, DEFAULT_ACCURACY);
+    }
+
+    /**
+     * @param samples          The number of samples.
+     * @param seed             The seed of the run.
+     * @param relativeAccuracy The relative accuracy of the quantiles.
+     * @return The statistics of the samples.
+     * @throws IllegalArgumentException If the number of samples is not
+     *                                  positive, or the accuracy is not
+     *                                  between 0 and 1.
+     */
+    public Accumulator run(final long samples,
+                           final long seed,
+                           final double relativeAccuracy) throws IllegalArgumentException {
+        if (samples <= 0) {
+            throw new IllegalArgumentException("The number of samples must be positive.");
+        }
+        // Checks the accuracy before any work is done
+        new Accumulator(relativeAccuracy);
+        final long chunks = (samples - 1) / CHUNK_SIZE + 1;
+        return pool.invoke(new Chunks(0, chunks, samples, seed, relativeAccuracy));
+    }
+
+    /**
+     * @return The seed of the stream of a chunk: the output of the
+     * mixing function of {@link SplittableRandom} for the chunk's point
+     * of the seed's sequence.
+     */
+    private static long seedOf(final long seed, final long chunk) {
+        long z = seed + (chunk + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Samples a range of chunks. Ranges are split in halves down to
+     * single chunks, so the order of the merges is fixed.
+     */
+    private final class Chunks extends RecursiveTask<Accumulator> {
+        private final long from;
+        private final long to;
+        private final long samples;
+        private final long seed;
+        private final double relativeAccuracy;
+
+        Chunks(final long from,
+               final long to,
+               final long samples,
+               final long seed,
+               final double relativeAccuracy) {
+            this.from = from;
+            this.to = to;
+            this.samples = samples;
+            this.seed = seed;
+            this.relativeAccuracy = relativeAccuracy;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (to - from == 1) {
+                return sample(from);
+            }
+            final long middle = (from + to) >>> 1;
+            final Chunks left = new Chunks(from, middle, samples, seed, relativeAccuracy);
+            left.fork();
+            final Accumulator second = new Chunks(middle, to, samples, seed, relativeAccuracy).compute();
+            final Accumulator first = left.join();
+            first.merge(second);
+            return first;
+        }
+
+        private Accumulator sample(final long chunk) {
+            final int rows = (int) Math.min(CHUNK_SIZE, samples - chunk * CHUNK_SIZE);
+            final SplittableRandom previous = RandomSource.install(new SplittableRandom(seedOf(seed, chunk)));
+            final double[] values;
+            try {
+                values = expression.evaluate(Collections.emptyMap(), rows);
+            } finally {
+                RandomSource.install(previous);
+            }
+            final Accumulator accumulator = new Accumulator(relativeAccuracy);
+            for (int row = 0; row < rows; row++) {
+                accumulator.add(values[row]);
+            }
+            return accumulator;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.github.subh0m0y.parser.nodes;
+
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.token.operations.Division;
+import com.github.subh0m0y.parser.token.operations.Equality;
+import com.github.subh0m0y.parser.token.operations.GreaterThan;
+import com.github.subh0m0y.parser.token.operations.GreaterThanOrEqual;
+import com.github.subh0m0y.parser.token.operations.Inequality;
+import com.github.subh0m0y.parser.token.operations.LessThan;
+import com.github.subh0m0y.parser.token.operations.LessThanOrEqual;
+import com.github.subh0m0y.parser.token.operations.LogicalAnd;
+import com.github.subh0m0y.parser.token.operations.LogicalOr;
+import com.github.subh0m0y.parser.token.operations.Multiplication;
+import com.github.subh0m0y.parser.token.operations.RaisingToPower;
+
+/**
+ * An operator applied to two operands. Each built in operator has a
+ * subclass of its own; the logical ones only execute their right
+ * operand when the left one does not decide the result.
+ * <p>
+ * Sums and products with a constant operand (the most common shapes,
+ * as in {@code 2 * x + 1}) get nodes that hold the constant in a field
+ * instead of executing a child for it.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.06
+ */
+abstract class BinaryNode extends ExecutableNode {
+    final ExecutableNode left;
+    final ExecutableNode right;
+
+    BinaryNode(final ExecutableNode left, final ExecutableNode right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * @return The node for the given operator, or null if it has no
+     * specialized node.
+     */
+    static ExecutableNode create(final Operator operator,
+                                 final ExecutableNode left,
+                                 final ExecutableNode right) {
+        if (operator == Addition.INSTANCE) {
+            if (right instanceof ConstantNode) {
+                return new AddConstantNode(left, ((ConstantNode) right).value);
+            } else if (left instanceof ConstantNode) {
+                return new AddConstantNode(right, ((ConstantNode) left).value);
+            }
+            return new AddNode(left, right);
+        } else if (operator == Multiplication.INSTANCE) {
+            if (right instanceof ConstantNode) {
+                return new MultiplyConstantNode(left, ((ConstantNode) right).value);
+            } else if (left instanceof ConstantNode) {
+                return new MultiplyConstantNode(right, ((ConstantNode) left).value);
+            }
+            return new MultiplyNode(left, right);
+        } else if (operator == Division.INSTANCE) {
+            return new DivideNode(left, right);
+        } else if (operator == RaisingToPower.INSTANCE) {
+            return new PowerNode(left, right);
+        } else if (operator == LessThan.INSTANCE) {
+            return new LessThanNode(left, right);
+        } else if (operator == LessThanOrEqual.INSTANCE) {
+            return new LessThanOrEqualNode(left, right);
+        } else if (operator == GreaterThan.INSTANCE) {
+            return new GreaterThanNode(left, right);
+        } else if (operator == GreaterThanOrEqual.INSTANCE) {
+            return new GreaterThanOrEqualNode(left, right);
+        } else if (operator == Equality.INSTANCE) {
+            return new EqualNode(left, right);
+        } else if (operator == Inequality.INSTANCE) {
+            return new NotEqualNode(left, right);
+        } else if (operator == LogicalAnd.INSTANCE) {
+            return new AndNode(left, right);
+        } else if (operator == LogicalOr.INSTANCE) {
+            return new OrNode(left, right);
+        }
+        return null;
+    }
+
+    static final class AddNode extends BinaryNode {
+        AddNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return left.execute(frame) + right.execute(frame);
+        }
+    }
+
+    static final class MultiplyNode extends BinaryNode {
+        MultiplyNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return left.execute(frame) * right.execute(frame);
+        }
+    }
+
+    static final class DivideNode extends BinaryNode {
+        DivideNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return left.execute(frame) / right.execute(frame);
+        }
+    }
+
+    static final class PowerNode extends BinaryNode {
+        PowerNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Math.pow(left.execute(frame), right.execute(frame));
+        }
+    }
+
+    static final class LessThanNode extends BinaryNode {
+        LessThanNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return left.execute(frame) < right.execute(frame) ? 1 : 0;
+        }
+    }
+
+    static final class LessThanOrEqualNode extends BinaryNode {
+        LessThanOrEqualNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return left.execute(frame) <= right.execute(frame) ? 1 : 0;
+        }
+    }
+
+    static final class GreaterThanNode extends BinaryNode {
+        GreaterThanNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return left.execute(frame) > right.execute(frame) ? 1 : 0;
+        }
+    }
+
+    static final class GreaterThanOrEqualNode extends BinaryNode {
+        GreaterThanOrEqualNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return left.execute(frame) >= right.execute(frame) ? 1 : 0;
+        }
+    }
+
+    static final class EqualNode extends BinaryNode {
+        EqualNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return left.execute(frame) == right.execute(frame) ? 1 : 0;
+        }
+    }
+
+    static final class NotEqualNode extends BinaryNode {
+        NotEqualNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return left.execute(frame) != right.execute(frame) ? 1 : 0;
+        }
+    }
+
+    static final class AndNode extends BinaryNode {
+        AndNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Operator.isTrue(left.execute(frame)) && Operator.isTrue(right.execute(frame)) ? 1 : 0;
+        }
+    }
+
+    static final class OrNode extends BinaryNode {
+        OrNode(final ExecutableNode left, final ExecutableNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Operator.isTrue(left.execute(frame)) || Operator.isTrue(right.execute(frame)) ? 1 : 0;
+        }
+    }
+
+    static final class AddConstantNode extends ExecutableNode {
+        private final ExecutableNode operand;
+        private final double constant;
+
+        AddConstantNode(final ExecutableNode operand, final double constant) {
+            this.operand = operand;
+            this.constant = constant;
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return operand.execute(frame) + constant;
+        }
+    }
+
+    static final class MultiplyConstantNode extends ExecutableNode {
+        private final ExecutableNode operand;
+        private final double constant;
+
+        MultiplyConstantNode(final ExecutableNode operand, final double constant) {
+            this.operand = operand;
+            this.constant = constant;
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return operand.execute(frame) * constant;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.subh0m0y.parser.nodes;
+
+import com.github.subh0m0y.parser.token.Operator;
+
+/**
+ * Executes one of two branches, depending on a condition. The other
+ * branch is not executed at all.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.06
+ */
+final class ConditionalNode extends ExecutableNode {
+    private final ExecutableNode condition;
+    private final ExecutableNode then;
+    private final ExecutableNode otherwise;
+
+    ConditionalNode(final ExecutableNode condition,
+                    final ExecutableNode then,
+                    final ExecutableNode otherwise) {
+        this.condition = condition;
+        this.then = then;
+        this.otherwise = otherwise;
+    }
+
+    @Override
+    double execute(final double[] frame) {
+        return Operator.isTrue(condition.execute(frame))
+                ? then.execute(frame)
+                : otherwise.execute(frame);
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.subh0m0y.parser.nodes;
+
+/**
+ * A literal value.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.06
+ */
+final class ConstantNode extends ExecutableNode {
+    final double value;
+
+    ConstantNode(final double value) {
+        this.value = value;
+    }
+
+    @Override
+    double execute(final double[] frame) {
+        return value;
+    }
+}
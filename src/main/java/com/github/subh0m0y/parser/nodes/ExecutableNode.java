@@ -0,0 +1,18 @@
+package com.github.subh0m0y.parser.nodes;
+
+/**
+ * A node of the tree that the {@link NodeInterpreter} runs. Every kind
+ * of node is its own final class, and computes its value by calling
+ * {@link #execute(double[])} on its (final) children directly, so the
+ * JIT sees a small, fixed set of receivers at every call site.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.06
+ */
+abstract class ExecutableNode {
+    /**
+     * @param frame The values of the variables, by slot.
+     * @return The value of this node. Domain errors produce NaN.
+     */
+    abstract double execute(double[] frame);
+}
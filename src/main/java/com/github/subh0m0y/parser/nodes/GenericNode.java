@@ -0,0 +1,30 @@
+package com.github.subh0m0y.parser.nodes;
+
+import com.github.subh0m0y.parser.token.Operator;
+
+/**
+ * Applies any other operator through {@link Operator#compute(double...)}.
+ * This is the slow path: the operator call cannot be inlined, and every
+ * execution allocates the array of operand values.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.06
+ */
+final class GenericNode extends ExecutableNode {
+    private final Operator operator;
+    private final ExecutableNode[] operands;
+
+    GenericNode(final Operator operator, final ExecutableNode[] operands) {
+        this.operator = operator;
+        this.operands = operands;
+    }
+
+    @Override
+    double execute(final double[] frame) {
+        final double[] values = new double[operands.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = operands[i].execute(frame);
+        }
+        return operator.compute(values);
+    }
+}
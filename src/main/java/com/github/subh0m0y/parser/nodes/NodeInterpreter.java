@@ -0,0 +1,194 @@
+package com.github.subh0m0y.parser.nodes;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.functions.Conditional;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Evaluates an expression by executing a tree of nodes, one final class
+ * per shape: constants, variable slots, each built in unary and binary
+ * operator, and conditionals. Every node calls its children directly,
+ * instead of going through the token stack and the virtual, varargs
+ * {@link Operator#evaluate} call that sees every operator. Once an
+ * expression is hot, the JIT can inline the calls across the whole
+ * tree and keep the intermediate values in registers.
+ * <p>
+ * The nodes work on plain values, like the compiled {@code Program}:
+ * domain errors produce NaN rather than exceptions, and conditionals
+ * and the logical operators short-circuit. Variables are read from
+ * numbered slots of a frame, in the order of {@link #getVariables()}.
+ * <p>
+ * Executing the tree recurses once per level, so trees higher than
+ * {@value #MAXIMUM_HEIGHT} levels are rejected; the {@link Expression}
+ * evaluators handle those without recursion. An interpreter is
+ * immutable and can be shared between threads.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.06
+ */
+public final class NodeInterpreter {
+    /**
+     * The highest tree the interpreter accepts.
+     */
+    public static final int MAXIMUM_HEIGHT = 2048;
+
+    private final ExecutableNode root;
+    private final Variable[] variables;
+
+    /**
+     * @param expression The expression to interpret.
+     * @throws EvaluationException If the expression is empty, assigns,
+     *                             or is nested too deeply.
+     */
+    public NodeInterpreter(final Expression expression) throws EvaluationException {
+        this(expression.toTree());
+    }
+
+    /**
+     * @param tree The tree to interpret.
+     * @throws EvaluationException If the tree is null, contains an
+     *                             impure operator, or is nested too deeply.
+     */
+    public NodeInterpreter(final Node tree) throws EvaluationException {
+        if (tree == null) {
+            throw new EvaluationException("Cannot interpret an empty expression.");
+        }
+        final TreeMap<String, Integer> slots = new TreeMap<>();
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            Node node = iterator.next();
+            if (node instanceof Reference) {
+                slots.put(((Reference) node).getSymbol(), 0);
+            }
+        }
+        this.variables = new Variable[slots.size()];
+        int slot = 0;
+        for (String symbol : slots.keySet()) {
+            slots.put(symbol, slot);
+            variables[slot++] = new Variable(symbol);
+        }
+        this.root = build(tree, slots);
+    }
+
+    /**
+     * Builds the executable nodes bottom up, in post-order, so that deep
+     * trees are rejected cleanly instead of overflowing the stack here.
+     */
+    private static ExecutableNode build(final Node tree, final TreeMap<String, Integer> slots) {
+        final ExecutableNode[] stack = new ExecutableNode[tree.size()];
+        final int[] heights = new int[tree.size()];
+        int top = -1;
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            final Node node = iterator.next();
+            if (node instanceof Constant) {
+                stack[++top] = new ConstantNode(((Constant) node).getValue());
+                heights[top] = 1;
+                continue;
+            }
+            if (node instanceof Reference) {
+                stack[++top] = new SlotNode(slots.get(((Reference) node).getSymbol()));
+                heights[top] = 1;
+                continue;
+            }
+            final Operator operator = ((Application) node).getOperator();
+            if (!operator.isPure()) {
+                throw new EvaluationException("Operator " + operator + " cannot be interpreted as a tree.");
+            }
+            final int arity = operator.getArity();
+            top -= arity;
+            final ExecutableNode[] operands = Arrays.copyOfRange(stack, top + 1, top + 1 + arity);
+            int height = 0;
+            for (int i = 1; i <= arity; i++) {
+                height = Math.max(height, heights[top + i]);
+            }
+            if (++height > MAXIMUM_HEIGHT) {
+                throw new EvaluationException(
+                        "The expression is nested more than " + MAXIMUM_HEIGHT + " levels deep."
+                );
+            }
+            stack[++top] = create(operator, operands);
+            heights[top] = height;
+        }
+        return stack[0];
+    }
+
+    private static ExecutableNode create(final Operator operator, final ExecutableNode[] operands) {
+        ExecutableNode node = null;
+        if (operands.length == 1) {
+            node = UnaryNode.create(operator, operands[0]);
+        } else if (operands.length == 2) {
+            node = BinaryNode.create(operator, operands[0], operands[1]);
+        } else if (operator == Conditional.INSTANCE) {
+            node = new ConditionalNode(operands[0], operands[1], operands[2]);
+        }
+        return node != null ? node : new GenericNode(operator, operands);
+    }
+
+    /**
+     * @return The names of the variables read, in the order of their
+     * slots (alphabetical).
+     */
+    public List<String> getVariables() {
+        final List<String> names = new ArrayList<>(variables.length);
+        for (Variable variable : variables) {
+            names.add(variable.getSymbol());
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Executes the tree with the given values of the variables. This is
+     * the fast path: it neither allocates nor looks anything up.
+     *
+     * @param frame The values of the variables, by slot.
+     * @return The value of the expression.
+     * @throws IllegalArgumentException If the frame does not have a value
+     *                                  for every variable.
+     */
+    public double execute(final double... frame) throws IllegalArgumentException {
+        if (frame.length < variables.length) {
+            throw new IllegalArgumentException(
+                    "Expected " + variables.length + " values, but got " + frame.length + "."
+            );
+        }
+        return root.execute(frame);
+    }
+
+    /**
+     * Reads the variables from one consistent snapshot of the
+     * {@link VariableMap} and executes the tree.
+     *
+     * @return The value of the expression.
+     * @throws EvaluationException If a variable is uninitialized.
+     */
+    public double evaluate() throws EvaluationException {
+        return evaluate(VariableMap.INSTANCE.snapshot());
+    }
+
+    /**
+     * @param snapshot The bindings to read the variables from.
+     * @return The value of the expression.
+     * @throws EvaluationException If a variable is uninitialized.
+     */
+    public double evaluate(final VariableSnapshot snapshot) throws EvaluationException {
+        final double[] frame = new double[variables.length];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = snapshot.getValue(variables[i]);
+        }
+        return root.execute(frame);
+    }
+}
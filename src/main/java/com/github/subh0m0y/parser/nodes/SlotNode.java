@@ -0,0 +1,20 @@
+package com.github.subh0m0y.parser.nodes;
+
+/**
+ * Reads a variable from its slot in the frame.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.06
+ */
+final class SlotNode extends ExecutableNode {
+    private final int slot;
+
+    SlotNode(final int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    double execute(final double[] frame) {
+        return frame[slot];
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.subh0m0y.parser.nodes;
+
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.functions.Absolute;
+import com.github.subh0m0y.parser.token.functions.Cosine;
+import com.github.subh0m0y.parser.token.functions.Exponential;
+import com.github.subh0m0y.parser.token.functions.Logarithm;
+import com.github.subh0m0y.parser.token.functions.Sine;
+import com.github.subh0m0y.parser.token.functions.SquareRoot;
+import com.github.subh0m0y.parser.token.functions.Tangent;
+import com.github.subh0m0y.parser.token.operations.LogicalNot;
+
+/**
+ * An operator applied to one operand. Each built in operator has a
+ * subclass of its own that computes the result inline, rather than
+ * through {@link Operator#compute(double...)}.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.06
+ */
+abstract class UnaryNode extends ExecutableNode {
+    final ExecutableNode operand;
+
+    UnaryNode(final ExecutableNode operand) {
+        this.operand = operand;
+    }
+
+    /**
+     * @return The node for the given operator, or null if it has no
+     * specialized node.
+     */
+    static ExecutableNode create(final Operator operator, final ExecutableNode operand) {
+        if (operator == Sine.INSTANCE) {
+            return new SineNode(operand);
+        } else if (operator == Cosine.INSTANCE) {
+            return new CosineNode(operand);
+        } else if (operator == Tangent.INSTANCE) {
+            return new TangentNode(operand);
+        } else if (operator == Exponential.INSTANCE) {
+            return new ExponentialNode(operand);
+        } else if (operator == Logarithm.INSTANCE) {
+            return new LogarithmNode(operand);
+        } else if (operator == SquareRoot.INSTANCE) {
+            return new SquareRootNode(operand);
+        } else if (operator == Absolute.INSTANCE) {
+            return new AbsoluteNode(operand);
+        } else if (operator == LogicalNot.INSTANCE) {
+            return new NotNode(operand);
+        }
+        return null;
+    }
+
+    static final class SineNode extends UnaryNode {
+        SineNode(final ExecutableNode operand) {
+            super(operand);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Math.sin(operand.execute(frame));
+        }
+    }
+
+    static final class CosineNode extends UnaryNode {
+        CosineNode(final ExecutableNode operand) {
+            super(operand);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Math.cos(operand.execute(frame));
+        }
+    }
+
+    static final class TangentNode extends UnaryNode {
+        TangentNode(final ExecutableNode operand) {
+            super(operand);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Math.tan(operand.execute(frame));
+        }
+    }
+
+    static final class ExponentialNode extends UnaryNode {
+        ExponentialNode(final ExecutableNode operand) {
+            super(operand);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Math.exp(operand.execute(frame));
+        }
+    }
+
+    static final class LogarithmNode extends UnaryNode {
+        LogarithmNode(final ExecutableNode operand) {
+            super(operand);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Math.log(operand.execute(frame));
+        }
+    }
+
+    static final class SquareRootNode extends UnaryNode {
+        SquareRootNode(final ExecutableNode operand) {
+            super(operand);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Math.sqrt(operand.execute(frame));
+        }
+    }
+
+    static final class AbsoluteNode extends UnaryNode {
+        AbsoluteNode(final ExecutableNode operand) {
+            super(operand);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Math.abs(operand.execute(frame));
+        }
+    }
+
+    static final class NotNode extends UnaryNode {
+        NotNode(final ExecutableNode operand) {
+            super(operand);
+        }
+
+        @Override
+        double execute(final double[] frame) {
+            return Operator.isTrue(operand.execute(frame)) ? 0 : 1;
+        }
+    }
+}
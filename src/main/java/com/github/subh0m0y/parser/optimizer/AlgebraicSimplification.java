@@ -0,0 +1,81 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.token.operations.Division;
+import com.github.subh0m0y.parser.token.operations.Multiplication;
+import com.github.subh0m0y.parser.token.operations.RaisingToPower;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+
+/**
+ * Removes operations that cannot change their operand in IEEE 754
+ * arithmetic: multiplying or dividing by one, raising to the first
+ * power, adding negative zero and negating twice. Identities that fail
+ * for some values (such as {@code x + 0}, which turns -0 into 0, or
+ * {@code x * 0}, which turns infinity into NaN) are deliberately left
+ * alone.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public class AlgebraicSimplification extends BottomUpPass {
+
+    @Override
+    public String getName() {
+        return "algebraic-simplification";
+    }
+
+    @Override
+    protected Node rewrite(final Application application, final PassContext context) {
+        final Operator operator = application.getOperator();
+        if (application.getChildren().size() != 2) {
+            return application;
+        }
+        final Node left = application.getChild(0);
+        final Node right = application.getChild(1);
+        Node result = application;
+        if (operator == Multiplication.INSTANCE) {
+            if (is(right, 1)) {
+                result = left;
+            } else if (is(left, 1)) {
+                result = right;
+            } else if (is(left, -1) && isNegation(right)) {
+                result = ((Application) right).getChild(1);
+            }
+        } else if (operator == Division.INSTANCE || operator == RaisingToPower.INSTANCE) {
+            if (is(right, 1)) {
+                result = left;
+            }
+        } else if (operator == Addition.INSTANCE) {
+            if (isNegativeZero(right)) {
+                result = left;
+            } else if (isNegativeZero(left)) {
+                result = right;
+            }
+        }
+        if (result != application) {
+            context.rewrote();
+        }
+        return result;
+    }
+
+    private static boolean is(final Node node, final double value) {
+        return node instanceof Constant && ((Constant) node).getValue() == value;
+    }
+
+    private static boolean isNegativeZero(final Node node) {
+        return node instanceof Constant
+                && Double.doubleToRawLongBits(((Constant) node).getValue()) == Double.doubleToRawLongBits(-0.0);
+    }
+
+    /**
+     * @return {@code true} if the node is -1 * something.
+     */
+    private static boolean isNegation(final Node node) {
+        return node instanceof Application
+                && ((Application) node).getOperator() == Multiplication.INSTANCE
+                && is(((Application) node).getChild(0), -1);
+    }
+}
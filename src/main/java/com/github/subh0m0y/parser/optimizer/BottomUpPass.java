@@ -0,0 +1,60 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Node;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * A pass that rewrites every node after its children have been
+ * rewritten. The traversal is iterative, so it works on trees of any
+ * depth; subtrees that do not change are shared with the input.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public abstract class BottomUpPass implements Pass {
+
+    @Override
+    public Node apply(final Node tree, final PassContext context) {
+        final Deque<Node> results = new ArrayDeque<>();
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            final Node node = iterator.next();
+            if (!(node instanceof Application)) {
+                results.push(rewriteLeaf(node, context));
+                continue;
+            }
+            final Application application = (Application) node;
+            final Node[] children = new Node[application.getChildren().size()];
+            boolean changed = false;
+            for (int i = children.length - 1; i >= 0; i--) {
+                children[i] = results.pop();
+                changed |= children[i] != application.getChild(i);
+            }
+            results.push(rewrite(
+                    changed ? new Application(application.getOperator(), children) : application,
+                    context
+            ));
+        }
+        return results.pop();
+    }
+
+    /**
+     * @param leaf    A constant or variable reference.
+     * @param context Collects the statistics of this run.
+     * @return The replacement for the leaf (by default, the leaf itself).
+     */
+    protected Node rewriteLeaf(final Node leaf, final PassContext context) {
+        return leaf;
+    }
+
+    /**
+     * @param application An application whose children have already
+     *                    been rewritten.
+     * @param context     Collects the statistics of this run.
+     * @return The replacement for the application.
+     */
+    protected abstract Node rewrite(Application application, PassContext context);
+}
@@ -0,0 +1,289 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.token.operations.Multiplication;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Rewrites trees into a canonical form, so that formulas that differ
+ * only in the order of the operands of {@code +} and {@code *} become
+ * equal trees:
+ * <ul>
+ * <li>The two operands of every sum and product are put in
+ * {@link #ORDER}: variables first, then applications, then constants,
+ * so {@code 2 * x} becomes {@code x * 2}.</li>
+ * <li>Pairs of negations, {@code -1 * (-1 * x)}, are removed.</li>
+ * <li>If enabled, chains of sums and products are flattened and all of
+ * their operands sorted, so {@code (b + a) + c} and {@code a + (c + b)}
+ * both become {@code (a + b) + c}. Floating point addition and
+ * multiplication are not associative, so this can change results in
+ * the last bits, and is off by default.</li>
+ * </ul>
+ * Without reassociation, every rewrite gives the same result as the
+ * input, bit for bit. Operands that are not pure are never moved.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.09
+ */
+public class Canonicalization implements Pass {
+    /**
+     * The canonical order of operands: variables (by name), then
+     * applications (by operator symbol, then operands), then constants
+     * (by value). Trees are compared label by label in pre-order,
+     * without recursion.
+     */
+    public static final Comparator<Node> ORDER = Canonicalization::compare;
+
+    private final boolean reassociate;
+
+    /**
+     * Creates a pass that keeps results the same, bit for bit.
+     */
+    public Canonicalization() {
+        this(false);
+    }
+
+    /**
+     * @param reassociate {@code true} to flatten and sort whole chains of
+     *                    sums and products.
+     */
+    public Canonicalization(final boolean reassociate) {
+        this.reassociate = reassociate;
+    }
+
+    @Override
+    public String getName() {
+        return "canonicalization";
+    }
+
+    @Override
+    public Node apply(final Node tree, final PassContext context) {
+        // The results so far, each a Node or (while reassociating) an
+        // unfinished Chain, and whether they are pure
+        final Object[] results = new Object[tree.size()];
+        final boolean[] pure = new boolean[tree.size()];
+        int top = -1;
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            final Node node = iterator.next();
+            if (!(node instanceof Application)) {
+                results[++top] = node;
+                pure[top] = true;
+                continue;
+            }
+            final Application application = (Application) node;
+            final Operator operator = application.getOperator();
+            final int arity = application.getChildren().size();
+            final int first = top - arity + 1;
+            boolean allPure = operator.isPure();
+            for (int i = first; i <= top; i++) {
+                allPure &= pure[i];
+            }
+            final boolean chainable = operator == Addition.INSTANCE || operator == Multiplication.INSTANCE;
+            Object result;
+            if (reassociate && chainable && allPure) {
+                result = Chain.join(operator, results[first], results[top]);
+            } else {
+                final Node[] children = new Node[arity];
+                for (int i = 0; i < arity; i++) {
+                    children[i] = finish(results[first + i], context);
+                }
+                result = chainable && allPure
+                        ? order(application, children[0], children[1], context)
+                        : rebuild(application, children);
+            }
+            top = first;
+            results[top] = result;
+            pure[top] = allPure;
+        }
+        return finish(results[0], context);
+    }
+
+    private static Node rebuild(final Application application, final Node[] children) {
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] != application.getChild(i)) {
+                return new Application(application.getOperator(), children);
+            }
+        }
+        return application;
+    }
+
+    /**
+     * Orders the operands of a single sum or product, and removes a
+     * pair of negations.
+     */
+    private static Node order(final Application application,
+                              Node left,
+                              Node right,
+                              final PassContext context) {
+        if (application.getOperator() == Multiplication.INSTANCE) {
+            final Node negated = isMinusOne(right) ? left : isMinusOne(left) ? right : null;
+            final Node inner = negated == null ? null : negatedOperand(negated);
+            if (inner != null) {
+                context.rewrote();
+                return inner;
+            }
+        }
+        if (compare(left, right) > 0) {
+            final Node swap = left;
+            left = right;
+            right = swap;
+        }
+        if (left == application.getChild(0) && right == application.getChild(1)) {
+            return application;
+        }
+        if (left == application.getChild(1) && right == application.getChild(0)) {
+            context.rewrote();
+        }
+        return new Application(application.getOperator(), left, right);
+    }
+
+    /**
+     * @return x if the node is {@code -1 * x} or {@code x * -1}, or null.
+     */
+    private static Node negatedOperand(final Node node) {
+        if (!(node instanceof Application) || ((Application) node).getOperator() != Multiplication.INSTANCE) {
+            return null;
+        }
+        final Application product = (Application) node;
+        if (isMinusOne(product.getChild(1))) {
+            return product.getChild(0);
+        }
+        return isMinusOne(product.getChild(0)) ? product.getChild(1) : null;
+    }
+
+    private static boolean isMinusOne(final Node node) {
+        return node instanceof Constant && ((Constant) node).getValue() == -1;
+    }
+
+    private static Node finish(final Object result, final PassContext context) {
+        return result instanceof Chain ? ((Chain) result).build(context) : (Node) result;
+    }
+
+    private static int rank(final Node node) {
+        return node instanceof Reference ? 0 : node instanceof Application ? 1 : 2;
+    }
+
+    private static int compare(final Node a, final Node b) {
+        final Deque<Node> left = new ArrayDeque<>();
+        final Deque<Node> right = new ArrayDeque<>();
+        left.push(a);
+        right.push(b);
+        while (!left.isEmpty()) {
+            final Node x = left.pop();
+            final Node y = right.pop();
+            if (x == y) {
+                continue;
+            }
+            int comparison = Integer.compare(rank(x), rank(y));
+            if (comparison != 0) {
+                return comparison;
+            }
+            if (x instanceof Reference) {
+                comparison = ((Reference) x).getSymbol().compareTo(((Reference) y).getSymbol());
+            } else if (x instanceof Constant) {
+                comparison = Double.compare(((Constant) x).getValue(), ((Constant) y).getValue());
+            } else {
+                final Application p = (Application) x;
+                final Application q = (Application) y;
+                comparison = p.getOperator().getSymbol().compareTo(q.getOperator().getSymbol());
+                if (comparison == 0) {
+                    comparison = Integer.compare(p.getChildren().size(), q.getChildren().size());
+                }
+                if (comparison == 0) {
+                    for (int i = p.getChildren().size() - 1; i >= 0; i--) {
+                        left.push(p.getChild(i));
+                        right.push(q.getChild(i));
+                    }
+                }
+            }
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The operands of a chain of sums or products that is still being
+     * collected. Joining appends the smaller list to the larger one, so
+     * collecting a chain of n operands takes O(n log n) time however it
+     * is nested.
+     */
+    private static final class Chain {
+        private final Operator operator;
+        private final List<Node> operands;
+
+        private Chain(final Operator operator, final List<Node> operands) {
+            this.operator = operator;
+            this.operands = operands;
+        }
+
+        static Chain join(final Operator operator, final Object left, final Object right) {
+            final List<Node> a = operandsOf(operator, left);
+            final List<Node> b = operandsOf(operator, right);
+            if (a.size() >= b.size()) {
+                a.addAll(b);
+                return new Chain(operator, a);
+            }
+            b.addAll(a);
+            return new Chain(operator, b);
+        }
+
+        private static List<Node> operandsOf(final Operator operator, final Object result) {
+            if (result instanceof Chain && ((Chain) result).operator == operator) {
+                return ((Chain) result).operands;
+            }
+            final List<Node> operands = new ArrayList<>();
+            operands.add(result instanceof Chain ? ((Chain) result).build(null) : (Node) result);
+            return operands;
+        }
+
+        Node build(final PassContext context) {
+            List<Node> sorted = new ArrayList<>(operands);
+            if (operator == Multiplication.INSTANCE) {
+                // Negations cancel in pairs
+                int negations = 0;
+                for (Node operand : sorted) {
+                    if (isMinusOne(operand)) {
+                        negations++;
+                    }
+                }
+                if (negations >= 2) {
+                    final List<Node> kept = new ArrayList<>();
+                    int remove = negations - negations % 2;
+                    for (Node operand : sorted) {
+                        if (remove > 0 && isMinusOne(operand)) {
+                            remove--;
+                        } else {
+                            kept.add(operand);
+                        }
+                    }
+                    if (kept.isEmpty()) {
+                        kept.add(new Constant(1));
+                    }
+                    sorted = kept;
+                }
+            }
+            sorted.sort(ORDER);
+            if (context != null && !sorted.equals(operands)) {
+                context.rewrote();
+            }
+            Node result = sorted.get(0);
+            for (int i = 1; i < sorted.size(); i++) {
+                result = new Application(operator, result, sorted.get(i));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operand;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.functions.Conditional;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operations.LogicalAnd;
+import com.github.subh0m0y.parser.token.operations.LogicalOr;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+
+import java.util.List;
+
+/**
+ * Computes every pure operator whose operands are all constant, and
+ * removes the branches that can never be taken: a conditional with a
+ * constant condition becomes the branch it takes, and {@code &&} and
+ * {@code ||} with a constant first operand that decides the result
+ * become that result.
+ * <p>
+ * Subexpressions that fail to evaluate (such as {@code sqrt(-1)}) are
+ * left as they are, so that the error is still reported when the
+ * expression is evaluated.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public class ConstantFolding extends BottomUpPass {
+
+    @Override
+    public String getName() {
+        return "constant-folding";
+    }
+
+    @Override
+    protected Node rewrite(final Application application, final PassContext context) {
+        final Operator operator = application.getOperator();
+        final List<Node> children = application.getChildren();
+        if (!children.isEmpty() && children.get(0) instanceof Constant) {
+            final boolean condition = Operator.isTrue(((Constant) children.get(0)).getValue());
+            if (operator == Conditional.INSTANCE) {
+                context.rewrote();
+                return children.get(condition ? 1 : 2);
+            }
+            if (operator == LogicalAnd.INSTANCE && !condition
+                    || operator == LogicalOr.INSTANCE && condition) {
+                context.rewrote();
+                return new Constant(condition ? 1 : 0);
+            }
+        }
+        if (!operator.isPure()) {
+            return application;
+        }
+        final Operand[] operands = new Operand[children.size()];
+        for (int i = 0; i < operands.length; i++) {
+            if (!(children.get(i) instanceof Constant)) {
+                return application;
+            }
+            operands[i] = new Real(((Constant) children.get(i)).getValue());
+        }
+        try {
+            double value = operator.evaluate(operands).getValue();
+            context.rewrote();
+            return new Constant(value);
+        } catch (EvaluationException e) {
+            return application;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Node;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Swaps the operands of commutative operators so that the operand that
+ * needs the deeper stack is evaluated first, which keeps the peak depth
+ * of the evaluation stack as low as possible (Sethi and Ullman, 1970).
+ * <p>
+ * The need of a leaf is one slot. An operator evaluates its operands in
+ * order while the earlier results wait on the stack, so the need of an
+ * application is the largest of i + (the need of operand i), counting
+ * from zero. For two operands with needs a &gt; b, evaluating the heavier
+ * first needs a slots instead of b + 1. Operands that assign to a
+ * variable are never swapped, since their order can be observed.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.03
+ */
+public class OperandOrdering implements Pass {
+
+    @Override
+    public String getName() {
+        return "operand-ordering";
+    }
+
+    @Override
+    public Node apply(final Node tree, final PassContext context) {
+        // Three parallel stacks of the rewritten nodes, their needs, and
+        // whether they are pure
+        final int size = tree.size();
+        final Node[] results = new Node[size];
+        final int[] needs = new int[size];
+        final boolean[] pure = new boolean[size];
+        int top = -1;
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            final Node node = iterator.next();
+            if (!(node instanceof Application)) {
+                results[++top] = node;
+                needs[top] = 1;
+                pure[top] = true;
+                continue;
+            }
+            final Application application = (Application) node;
+            final Operator operator = application.getOperator();
+            final int arity = application.getChildren().size();
+            final int first = top - arity + 1;
+            boolean allPure = operator.isPure();
+            for (int i = first; i <= top; i++) {
+                allPure &= pure[i];
+            }
+            Node result = application;
+            if (arity == 2 && operator.isCommutative()
+                    && pure[first] && pure[top] && needs[top] > needs[first]) {
+                result = new Application(operator, results[top], results[first]);
+                swap(results, needs, first, top);
+                context.rewrote();
+            } else {
+                for (int i = 0; i < arity; i++) {
+                    if (results[first + i] != application.getChild(i)) {
+                        result = new Application(operator, Arrays.copyOfRange(results, first, top + 1));
+                        break;
+                    }
+                }
+            }
+            int need = 1;
+            for (int i = 0; i < arity; i++) {
+                need = Math.max(need, i + needs[first + i]);
+            }
+            top = first;
+            results[top] = result;
+            needs[top] = need;
+            pure[top] = allPure;
+        }
+        return results[0];
+    }
+
+    private static void swap(final Node[] results, final int[] needs, final int i, final int j) {
+        final Node node = results[i];
+        results[i] = results[j];
+        results[j] = node;
+        final int need = needs[i];
+        needs[i] = needs[j];
+        needs[j] = need;
+    }
+}
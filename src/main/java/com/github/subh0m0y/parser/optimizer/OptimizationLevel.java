@@ -0,0 +1,33 @@
+package com.github.subh0m0y.parser.optimizer;
+
+/**
+ * How much effort to spend on optimizing an expression before it is
+ * evaluated. Every pass is registered with the lowest level that
+ * enables it.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public enum OptimizationLevel {
+    /**
+     * No passes at all: the fastest to compile.
+     */
+    O0,
+    /**
+     * Cheap passes that only remove work, such as constant folding.
+     */
+    O1,
+    /**
+     * All passes, including algebraic rewrites.
+     */
+    O2;
+
+    /**
+     * @return The level named by the system property
+     * {@code expression.optimization.level}, or {@link #O1} if it is not set.
+     * @throws IllegalArgumentException If the property names no level.
+     */
+    public static OptimizationLevel getDefault() throws IllegalArgumentException {
+        return valueOf(System.getProperty("expression.optimization.level", O1.name()));
+    }
+}
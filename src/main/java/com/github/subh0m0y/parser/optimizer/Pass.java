@@ -0,0 +1,27 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.tree.Node;
+
+/**
+ * A rewrite of an expression tree that keeps its value unchanged.
+ * Passes are run in order by a {@link PassManager}.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public interface Pass {
+    /**
+     * @return A short name that identifies this pass in reports.
+     */
+    String getName();
+
+    /**
+     * Rewrites the tree. Trees are immutable, so an unchanged tree (or
+     * subtree) may be returned as it is.
+     *
+     * @param tree    The tree to rewrite.
+     * @param context Collects the statistics of this run of the pass.
+     * @return The rewritten tree.
+     */
+    Node apply(Node tree, PassContext context);
+}
@@ -0,0 +1,30 @@
+package com.github.subh0m0y.parser.optimizer;
+
+/**
+ * Collects what a single run of a {@link Pass} did. The number of nodes
+ * removed is worked out by the {@link PassManager} from the sizes of
+ * the trees; passes only count their rewrites.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public final class PassContext {
+    private int rewritten;
+
+    PassContext() {
+    }
+
+    /**
+     * Counts one rewritten node.
+     */
+    public void rewrote() {
+        rewritten++;
+    }
+
+    /**
+     * @return The number of nodes rewritten so far.
+     */
+    public int getRewritten() {
+        return rewritten;
+    }
+}
@@ -0,0 +1,209 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.tree.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a sequence of {@link Pass}es over expression trees.
+ * <p>
+ * Every pass is registered with the lowest {@link OptimizationLevel}
+ * that enables it; a manager runs, in order of registration, only the
+ * passes enabled at its own level. Each run is timed, and the time, the
+ * number of nodes removed and the number rewritten are reported both
+ * for the single run and accumulated per pass, so that the compile time
+ * spent can be weighed against the work saved.
+ * <p>
+ * A manager can be shared between threads. Passes are expected to be
+ * stateless, as one pass object may run on several trees at once.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public final class PassManager {
+    private final OptimizationLevel level;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a manager with no passes.
+     *
+     * @param level The level that decides which registered passes run.
+     */
+    public PassManager(final OptimizationLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Creates a manager with the built-in passes: constant folding and
+     * operand ordering at {@link OptimizationLevel#O1}, and algebraic
+     * simplification, polynomial rewriting and strength reduction
+     * followed by another round of folding at {@link OptimizationLevel#O2}.
+     *
+     * @param level The level that decides which passes run.
+     * @return The new manager.
+     */
+    public static PassManager withDefaults(final OptimizationLevel level) {
+        return new PassManager(level)
+                .register(new ConstantFolding(), OptimizationLevel.O1)
+                .register(new OperandOrdering(), OptimizationLevel.O1)
+                .register(new AlgebraicSimplification(), OptimizationLevel.O2)
+                .register(new PolynomialRewriting(), OptimizationLevel.O2)
+                .register(new StrengthReduction(), OptimizationLevel.O2)
+                .register(new ConstantFolding(), OptimizationLevel.O2);
+    }
+
+    /**
+     * Adds a pass after all the registered ones.
+     *
+     * @param pass    The pass to add.
+     * @param minimum The lowest level at which the pass runs.
+     * @return This manager.
+     */
+    public synchronized PassManager register(final Pass pass, final OptimizationLevel minimum) {
+        registrations.add(new Registration(pass, minimum));
+        return this;
+    }
+
+    /**
+     * Adds a pass right before the first registered pass with the
+     * given name.
+     *
+     * @param name    The name of the pass to run after the new one.
+     * @param pass    The pass to add.
+     * @param minimum The lowest level at which the pass runs.
+     * @return This manager.
+     * @throws IllegalArgumentException If no pass has the given name.
+     */
+    public synchronized PassManager registerBefore(final String name,
+                                                   final Pass pass,
+                                                   final OptimizationLevel minimum)
+            throws IllegalArgumentException {
+        for (int i = 0; i < registrations.size(); i++) {
+            if (registrations.get(i).pass.getName().equals(name)) {
+                registrations.add(i, new Registration(pass, minimum));
+                return this;
+            }
+        }
+        throw new IllegalArgumentException("No pass is named " + name);
+    }
+
+    /**
+     * @return The level of this manager.
+     */
+    public OptimizationLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * @return The names of the passes that run at this manager's level,
+     * in order.
+     */
+    public List<String> getEnabledPasses() {
+        List<String> names = new ArrayList<>();
+        for (Registration registration : registrations) {
+            if (registration.isEnabledAt(level)) {
+                names.add(registration.pass.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Runs the enabled passes over the tree, in order.
+     *
+     * @param tree The tree to optimize.
+     * @return The optimized tree, along with a report for each pass.
+     */
+    public Result optimize(final Node tree) {
+        Node current = tree;
+        List<PassReport> reports = new ArrayList<>();
+        for (Registration registration : registrations) {
+            if (!registration.isEnabledAt(level)) {
+                continue;
+            }
+            PassContext context = new PassContext();
+            int before = current.size();
+            long start = System.nanoTime();
+            current = registration.pass.apply(current, context);
+            long nanos = System.nanoTime() - start;
+            PassReport report = new PassReport(
+                    registration.pass.getName(), 1, nanos, before - current.size(), context.getRewritten()
+            );
+            registration.record(report);
+            reports.add(report);
+        }
+        return new Result(current, reports);
+    }
+
+    /**
+     * @return The totals for every registered pass, over all the runs
+     * of this manager, in order of registration.
+     */
+    public List<PassReport> getStatistics() {
+        List<PassReport> statistics = new ArrayList<>();
+        for (Registration registration : registrations) {
+            statistics.add(registration.total());
+        }
+        return statistics;
+    }
+
+    /**
+     * The outcome of {@link #optimize(Node)}.
+     */
+    public static final class Result {
+        private final Node tree;
+        private final List<PassReport> reports;
+
+        Result(final Node tree, final List<PassReport> reports) {
+            this.tree = tree;
+            this.reports = Collections.unmodifiableList(reports);
+        }
+
+        /**
+         * @return The optimized tree.
+         */
+        public Node getTree() {
+            return tree;
+        }
+
+        /**
+         * @return A report for every pass that ran, in order.
+         */
+        public List<PassReport> getReports() {
+            return reports;
+        }
+    }
+
+    private static final class Registration {
+        private final Pass pass;
+        private final OptimizationLevel minimum;
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder removed = new LongAdder();
+        private final LongAdder rewritten = new LongAdder();
+
+        Registration(final Pass pass, final OptimizationLevel minimum) {
+            this.pass = pass;
+            this.minimum = minimum;
+        }
+
+        boolean isEnabledAt(final OptimizationLevel level) {
+            return level.compareTo(minimum) >= 0;
+        }
+
+        void record(final PassReport report) {
+            runs.increment();
+            nanos.add(report.getNanos());
+            removed.add(report.getRemoved());
+            rewritten.add(report.getRewritten());
+        }
+
+        PassReport total() {
+            return new PassReport(pass.getName(), runs.sum(), nanos.sum(), removed.sum(), rewritten.sum());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.subh0m0y.parser.optimizer;
+
+/**
+ * What one pass did: either in a single run, or summed over all the
+ * runs of a {@link PassManager}.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public final class PassReport {
+    private final String name;
+    private final long runs;
+    private final long nanos;
+    private final long removed;
+    private final long rewritten;
+
+    PassReport(final String name,
+               final long runs,
+               final long nanos,
+               final long removed,
+               final long rewritten) {
+        this.name = name;
+        this.runs = runs;
+        this.nanos = nanos;
+        this.removed = removed;
+        this.rewritten = rewritten;
+    }
+
+    /**
+     * @return The name of the pass.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of times the pass ran.
+     */
+    public long getRuns() {
+        return runs;
+    }
+
+    /**
+     * @return The time spent in the pass.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return The number of nodes by which the pass shrank the trees.
+     * It is negative if the pass grew them.
+     */
+    public long getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return The number of nodes the pass rewrote.
+     */
+    public long getRewritten() {
+        return rewritten;
+    }
+
+    @Override
+    public String toString() {
+        return name
+                + ": runs=" + runs
+                + " nanos=" + nanos
+                + " removed=" + removed
+                + " rewritten=" + rewritten;
+    }
+}
@@ -0,0 +1,286 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.token.operations.Multiplication;
+import com.github.subh0m0y.parser.token.operations.RaisingToPower;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds polynomials in a single variable written out term by term, like
+ * {@code a + b*x + c*x^2 + d*x^3}, and rewrites them into a form that
+ * needs the fewest operations: Horner's form
+ * {@code a + x*(b + x*(c + x*d))}, or for degrees from
+ * {@value #ESTRIN_DEGREE} up, Estrin's form, which splits the polynomial
+ * into halves in x<sup>2</sup>, x<sup>4</sup>, ... that can be computed
+ * independently.
+ * <p>
+ * A polynomial is any subtree made of constants, one variable, sums,
+ * products and whole, constant powers, up to degree
+ * {@value #MAXIMUM_DEGREE}. Like terms are collected, so the result
+ * may round differently: it differs from the original by a few units in
+ * the last place of the largest term, and it may differ when a term
+ * overflows or is not finite. Subtrees are only rewritten when that
+ * saves a power or a multiplication.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.02
+ */
+public class PolynomialRewriting implements Pass {
+    /**
+     * The highest degree of a polynomial that is recognized.
+     */
+    public static final int MAXIMUM_DEGREE = 32;
+    /**
+     * The lowest degree evaluated in Estrin's form rather than Horner's.
+     */
+    public static final int ESTRIN_DEGREE = 8;
+
+    @Override
+    public String getName() {
+        return "polynomial-rewriting";
+    }
+
+    @Override
+    public Node apply(final Node tree, final PassContext context) {
+        final Map<Node, Polynomial> polynomials = new IdentityHashMap<>();
+        // The polynomials that are not part of a larger one
+        final Set<Node> outermost = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            final Node node = iterator.next();
+            final Polynomial polynomial = analyze(node, polynomials);
+            if (polynomial != null) {
+                polynomials.put(node, polynomial);
+            } else {
+                for (Node child : node.getChildren()) {
+                    if (polynomials.containsKey(child)) {
+                        outermost.add(child);
+                    }
+                }
+            }
+        }
+        if (polynomials.containsKey(tree)) {
+            outermost.add(tree);
+        }
+
+        final Deque<Node> results = new ArrayDeque<>();
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); ) {
+            final Node node = iterator.next();
+            Node result = node;
+            if (node instanceof Application) {
+                final Application application = (Application) node;
+                final Node[] children = new Node[application.getChildren().size()];
+                boolean changed = false;
+                for (int i = children.length - 1; i >= 0; i--) {
+                    children[i] = results.pop();
+                    changed |= children[i] != application.getChild(i);
+                }
+                if (changed) {
+                    result = new Application(application.getOperator(), children);
+                }
+            }
+            final Polynomial polynomial = polynomials.get(node);
+            if (outermost.contains(node) && polynomial.isWorthRewriting()) {
+                result = polynomial.degree() >= ESTRIN_DEGREE
+                        ? polynomial.toEstrin()
+                        : polynomial.toHorner();
+                context.rewrote();
+            }
+            results.push(result);
+        }
+        return results.pop();
+    }
+
+    /**
+     * @return The polynomial the node computes, or null if it is not a
+     * polynomial in a single variable.
+     */
+    private static Polynomial analyze(final Node node, final Map<Node, Polynomial> polynomials) {
+        if (node instanceof Constant) {
+            return new Polynomial(null, new double[]{((Constant) node).getValue()}, 0, 0);
+        }
+        if (node instanceof Reference) {
+            return new Polynomial(((Reference) node).getSymbol(), new double[]{0, 1}, 0, 0);
+        }
+        final Application application = (Application) node;
+        final Operator operator = application.getOperator();
+        if (operator != Addition.INSTANCE
+                && operator != Multiplication.INSTANCE
+                && operator != RaisingToPower.INSTANCE) {
+            return null;
+        }
+        final Polynomial left = polynomials.get(application.getChild(0));
+        final Polynomial right = polynomials.get(application.getChild(1));
+        if (left == null || right == null
+                || left.variable != null && right.variable != null && !left.variable.equals(right.variable)) {
+            return null;
+        }
+        if (operator == Addition.INSTANCE) {
+            return left.plus(right);
+        }
+        if (operator == Multiplication.INSTANCE) {
+            return left.times(right);
+        }
+        // A power, whose exponent must be a small whole number. The
+        // exponent is bounded on its own, since a constant base has
+        // degree 0 whatever the exponent, and NaN fails every comparison.
+        if (!(application.getChild(1) instanceof Constant)) {
+            return null;
+        }
+        final double exponent = ((Constant) application.getChild(1)).getValue();
+        if (!(exponent >= 0 && exponent <= MAXIMUM_DEGREE)
+                || exponent != Math.rint(exponent)
+                || left.degree() * exponent > MAXIMUM_DEGREE) {
+            return null;
+        }
+        Polynomial power = new Polynomial(left.variable, new double[]{1}, 0, 0);
+        for (int i = 0; i < exponent; i++) {
+            power = power.times(left);
+        }
+        return new Polynomial(left.variable, power.coefficients,
+                left.powers + 1, left.multiplications);
+    }
+
+    /**
+     * The coefficients of a polynomial, along with the number of powers
+     * and multiplications in the subtree it was read from.
+     */
+    private static final class Polynomial {
+        // Null while no variable has been seen
+        private final String variable;
+        private final double[] coefficients;
+        private final int powers;
+        private final int multiplications;
+
+        Polynomial(final String variable, final double[] coefficients,
+                   final int powers, final int multiplications) {
+            this.variable = variable;
+            this.coefficients = coefficients;
+            this.powers = powers;
+            this.multiplications = multiplications;
+        }
+
+        int degree() {
+            return coefficients.length - 1;
+        }
+
+        private String variable(final Polynomial other) {
+            return variable != null ? variable : other.variable;
+        }
+
+        Polynomial plus(final Polynomial other) {
+            final double[] sum = Arrays.copyOf(coefficients, Math.max(coefficients.length, other.coefficients.length));
+            for (int i = 0; i < other.coefficients.length; i++) {
+                sum[i] += other.coefficients[i];
+            }
+            return new Polynomial(variable(other), sum,
+                    powers + other.powers, multiplications + other.multiplications);
+        }
+
+        Polynomial times(final Polynomial other) {
+            if (degree() + other.degree() > MAXIMUM_DEGREE) {
+                return null;
+            }
+            final double[] product = new double[coefficients.length + other.coefficients.length - 1];
+            for (int i = 0; i < coefficients.length; i++) {
+                for (int j = 0; j < other.coefficients.length; j++) {
+                    product[i + j] += coefficients[i] * other.coefficients[j];
+                }
+            }
+            return new Polynomial(variable(other), product,
+                    powers + other.powers, multiplications + other.multiplications + 1);
+        }
+
+        /**
+         * @return {@code true} if this is not a constant or a line, and
+         * the original computes a power or more multiplications than
+         * Horner's form would.
+         */
+        boolean isWorthRewriting() {
+            return variable != null
+                    && coefficients[degree()] != 0
+                    && degree() >= 2
+                    && (powers > 0 || multiplications > degree());
+        }
+
+        Node toHorner() {
+            final Node x = new Reference(variable);
+            return horner(x, 0, coefficients.length);
+        }
+
+        /**
+         * Evaluates the coefficients from..(to - 1) in Horner's form.
+         */
+        private Node horner(final Node x, final int from, final int to) {
+            int last = to - 1;
+            while (last > from && coefficients[last] == 0) {
+                last--;
+            }
+            Node result = new Constant(coefficients[last]);
+            for (int i = last - 1; i >= from; i--) {
+                result = result instanceof Constant && ((Constant) result).getValue() == 1
+                        ? x
+                        : new Application(Multiplication.INSTANCE, result, x);
+                if (coefficients[i] != 0) {
+                    result = new Application(Addition.INSTANCE, result, new Constant(coefficients[i]));
+                }
+            }
+            return result;
+        }
+
+        Node toEstrin() {
+            // x, x^2, x^4, ... shared between all the parts that use them
+            final Node[] squares = new Node[32 - Integer.numberOfLeadingZeros(degree())];
+            squares[0] = new Reference(variable);
+            for (int i = 1; i < squares.length; i++) {
+                squares[i] = new Application(Multiplication.INSTANCE, squares[i - 1], squares[i - 1]);
+            }
+            return estrin(squares, 0, coefficients.length);
+        }
+
+        /**
+         * Evaluates the coefficients from..(to - 1) as low + high x^m,
+         * where m is the largest power of two below the count.
+         */
+        private Node estrin(final Node[] squares, final int from, final int to) {
+            final int count = to - from;
+            if (count <= 2) {
+                return isZero(from, to) ? new Constant(0) : horner(squares[0], from, to);
+            }
+            final int log = 31 - Integer.numberOfLeadingZeros(count - 1);
+            final int middle = from + (1 << log);
+            if (isZero(middle, to)) {
+                return estrin(squares, from, middle);
+            }
+            Node high = estrin(squares, middle, to);
+            high = high instanceof Constant && ((Constant) high).getValue() == 1
+                    ? squares[log]
+                    : new Application(Multiplication.INSTANCE, high, squares[log]);
+            return isZero(from, middle)
+                    ? high
+                    : new Application(Addition.INSTANCE, estrin(squares, from, middle), high);
+        }
+
+        private boolean isZero(final int from, final int to) {
+            for (int i = from; i < to; i++) {
+                if (coefficients[i] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
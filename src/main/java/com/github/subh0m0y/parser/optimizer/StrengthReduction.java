@@ -0,0 +1,125 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.functions.SquareRoot;
+import com.github.subh0m0y.parser.token.operations.Division;
+import com.github.subh0m0y.parser.token.operations.Multiplication;
+import com.github.subh0m0y.parser.token.operations.RaisingToPower;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+
+/**
+ * Replaces powers and divisions by cheaper operations:
+ * <ul>
+ * <li>{@code x ^ n} for a whole number n from 2 to {@value #MAXIMUM_EXPONENT}
+ * becomes a chain of multiplications, by repeated squaring. This takes
+ * at most 6 multiplications instead of a call to {@link Math#pow(double, double)}.
+ * Each multiplication rounds once, so the relative error of the result
+ * is at most (n - 1) 2<sup>-53</sup> (n = 2 is exact), against half an
+ * ulp for pow, as long as the result is in the normal range. Only
+ * variables and constants are rewritten, because the chain repeats x:
+ * a compound x would be computed again, and an impure one would draw
+ * twice, advance its state twice or assign twice.</li>
+ * <li>{@code x ^ -1} becomes {@code 1 / x}, which is correctly rounded.</li>
+ * <li>{@code x / c} becomes {@code x * (1 / c)} when c is a power of
+ * two whose reciprocal is a normal number. Both are the same real
+ * number rounded once, so the result is identical for every x.</li>
+ * <li>If enabled, {@code x ^ 0.5} becomes {@code sqrt(x)}. The two are
+ * equal for positive x, but differ for negative x (sqrt reports a domain
+ * error instead of returning NaN), for -0 and for negative infinity, so
+ * this rewrite is off by default.</li>
+ * </ul>
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.01
+ */
+public class StrengthReduction extends BottomUpPass {
+    /**
+     * The largest exponent turned into multiplications.
+     */
+    public static final int MAXIMUM_EXPONENT = 16;
+
+    private final boolean squareRoots;
+
+    /**
+     * Creates a pass that only makes rewrites that keep the result
+     * within the bounds documented above.
+     */
+    public StrengthReduction() {
+        this(false);
+    }
+
+    /**
+     * @param squareRoots {@code true} to rewrite {@code x ^ 0.5} into
+     *                    {@code sqrt(x)} as well.
+     */
+    public StrengthReduction(final boolean squareRoots) {
+        this.squareRoots = squareRoots;
+    }
+
+    @Override
+    public String getName() {
+        return "strength-reduction";
+    }
+
+    @Override
+    protected Node rewrite(final Application application, final PassContext context) {
+        final Operator operator = application.getOperator();
+        if (application.getChildren().size() != 2 || !(application.getChild(1) instanceof Constant)) {
+            return application;
+        }
+        final Node left = application.getChild(0);
+        final double right = ((Constant) application.getChild(1)).getValue();
+        Node result = application;
+        if (operator == RaisingToPower.INSTANCE) {
+            final boolean repeatable = left instanceof Reference || left instanceof Constant;
+            if (repeatable && right >= 2 && right <= MAXIMUM_EXPONENT && right == Math.rint(right)) {
+                result = power(left, (int) right);
+            } else if (right == -1) {
+                result = new Application(Division.INSTANCE, new Constant(1), left);
+            } else if (right == 0.5 && squareRoots) {
+                result = new Application(SquareRoot.INSTANCE, left);
+            }
+        } else if (operator == Division.INSTANCE && hasExactReciprocal(right)) {
+            result = new Application(Multiplication.INSTANCE, left, new Constant(1 / right));
+        }
+        if (result != application) {
+            context.rewrote();
+        }
+        return result;
+    }
+
+    /**
+     * Builds base ^ exponent by repeated squaring. The squares are
+     * shared nodes, so the tree grows only with the number of
+     * multiplications.
+     */
+    private static Node power(final Node base, int exponent) {
+        Node result = null;
+        Node square = base;
+        while (true) {
+            if ((exponent & 1) != 0) {
+                result = result == null ? square : new Application(Multiplication.INSTANCE, result, square);
+            }
+            exponent >>= 1;
+            if (exponent == 0) {
+                return result;
+            }
+            square = new Application(Multiplication.INSTANCE, square, square);
+        }
+    }
+
+    /**
+     * @return {@code true} if the value is plus or minus a power of two
+     * whose reciprocal is a normal number.
+     */
+    private static boolean hasExactReciprocal(final double value) {
+        final long bits = Double.doubleToRawLongBits(value);
+        final int exponent = Math.getExponent(value);
+        return (bits & 0x000FFFFFFFFFFFFFL) == 0
+                && exponent >= Double.MIN_EXPONENT
+                && exponent < Double.MAX_EXPONENT;
+    }
+}
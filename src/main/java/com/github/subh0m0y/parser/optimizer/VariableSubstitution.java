@@ -0,0 +1,65 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.token.operations.Assignment;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replaces references to the given variables by their values. The
+ * targets of assignments keep their names.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public class VariableSubstitution extends BottomUpPass {
+    private final Map<String, Double> values;
+
+    /**
+     * @param values The values of the variables to replace, by name.
+     */
+    public VariableSubstitution(final Map<String, Double> values) {
+        this.values = new HashMap<>(values);
+    }
+
+    @Override
+    public String getName() {
+        return "variable-substitution";
+    }
+
+    @Override
+    public Node apply(final Node tree, final PassContext context) {
+        // A lone reference has no parent to replace it
+        return tree instanceof Reference
+                ? substitute(tree, context)
+                : super.apply(tree, context);
+    }
+
+    @Override
+    protected Node rewrite(final Application application, final PassContext context) {
+        final Node[] children = application.getChildren().toArray(new Node[0]);
+        boolean changed = false;
+        final int first = application.getOperator() == Assignment.INSTANCE ? 1 : 0;
+        for (int i = first; i < children.length; i++) {
+            Node child = substitute(children[i], context);
+            changed |= child != children[i];
+            children[i] = child;
+        }
+        return changed ? new Application(application.getOperator(), children) : application;
+    }
+
+    private Node substitute(final Node node, final PassContext context) {
+        if (node instanceof Reference) {
+            Double value = values.get(((Reference) node).getSymbol());
+            if (value != null) {
+                context.rewrote();
+                return new Constant(value);
+            }
+        }
+        return node;
+    }
+}
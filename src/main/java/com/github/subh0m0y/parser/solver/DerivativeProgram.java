@@ -0,0 +1,214 @@
+package com.github.subh0m0y.parser.solver;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.functions.Absolute;
+import com.github.subh0m0y.parser.token.functions.Conditional;
+import com.github.subh0m0y.parser.token.functions.Cosine;
+import com.github.subh0m0y.parser.token.functions.Exponential;
+import com.github.subh0m0y.parser.token.functions.Logarithm;
+import com.github.subh0m0y.parser.token.functions.Sine;
+import com.github.subh0m0y.parser.token.functions.SquareRoot;
+import com.github.subh0m0y.parser.token.functions.Tangent;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.token.operations.Comparison;
+import com.github.subh0m0y.parser.token.operations.Division;
+import com.github.subh0m0y.parser.token.operations.LogicalAnd;
+import com.github.subh0m0y.parser.token.operations.LogicalNot;
+import com.github.subh0m0y.parser.token.operations.LogicalOr;
+import com.github.subh0m0y.parser.token.operations.Multiplication;
+import com.github.subh0m0y.parser.token.operations.RaisingToPower;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+import org.apache.commons.math3.analysis.differentiation.DerivativeStructure;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Evaluates a tree over {@link DerivativeStructure}s, which carries the
+ * derivatives along with every value (forward mode automatic
+ * differentiation). The tree is flattened into post-order arrays once,
+ * so evaluation neither recurses nor looks up names.
+ * <p>
+ * Comparisons and the logical operators are piecewise constant, so
+ * their derivatives are zero; a conditional takes the derivatives of
+ * the branch it chooses. Any other operator has no known derivative.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.11
+ */
+final class DerivativeProgram {
+    private final Operator[] operators;
+    private final int[] slots;
+    private final double[] constants;
+    private final int maximumDepth;
+    private final Operator underivable;
+
+    /**
+     * @param tree      The tree to evaluate.
+     * @param variables The variables, in the order they are passed in.
+     * @throws EvaluationException If the tree reads another variable.
+     */
+    DerivativeProgram(final Node tree, final List<String> variables) throws EvaluationException {
+        final int size = tree.size();
+        operators = new Operator[size];
+        slots = new int[size];
+        constants = new double[size];
+        Operator missing = null;
+        int depth = 0;
+        int maximum = 0;
+        int index = 0;
+        for (Iterator<Node> iterator = tree.postOrder(); iterator.hasNext(); index++) {
+            final Node node = iterator.next();
+            slots[index] = -1;
+            if (node instanceof Constant) {
+                constants[index] = ((Constant) node).getValue();
+                depth++;
+            } else if (node instanceof Reference) {
+                final String symbol = ((Reference) node).getSymbol();
+                slots[index] = variables.indexOf(symbol);
+                if (slots[index] < 0) {
+                    throw new EvaluationException("Variable " + symbol + " is not a parameter of the function.");
+                }
+                depth++;
+            } else {
+                final Operator operator = ((Application) node).getOperator();
+                operators[index] = operator;
+                if (missing == null && !hasDerivative(operator)) {
+                    missing = operator;
+                }
+                depth += 1 - operator.getArity();
+            }
+            maximum = Math.max(maximum, depth);
+        }
+        maximumDepth = maximum;
+        underivable = missing;
+    }
+
+    private static boolean hasDerivative(final Operator operator) {
+        return operator == Addition.INSTANCE
+                || operator == Multiplication.INSTANCE
+                || operator == Division.INSTANCE
+                || operator == RaisingToPower.INSTANCE
+                || operator == Sine.INSTANCE
+                || operator == Cosine.INSTANCE
+                || operator == Tangent.INSTANCE
+                || operator == Exponential.INSTANCE
+                || operator == Logarithm.INSTANCE
+                || operator == SquareRoot.INSTANCE
+                || operator == Absolute.INSTANCE
+                || operator == Conditional.INSTANCE
+                || isPiecewiseConstant(operator);
+    }
+
+    private static boolean isPiecewiseConstant(final Operator operator) {
+        return operator instanceof Comparison
+                || operator == LogicalAnd.INSTANCE
+                || operator == LogicalOr.INSTANCE
+                || operator == LogicalNot.INSTANCE;
+    }
+
+    /**
+     * @return {@code true} if every operator of the tree has a derivative.
+     */
+    boolean isDifferentiable() {
+        return underivable == null;
+    }
+
+    /**
+     * @throws EvaluationException If an operator has no derivative.
+     */
+    void checkDifferentiable() throws EvaluationException {
+        if (underivable != null) {
+            throw new EvaluationException("Operator " + underivable + " has no derivative.");
+        }
+    }
+
+    /**
+     * @param variables The values of the variables, with their derivatives.
+     * @param template  The structure to make constants like.
+     * @return The value of the tree, with its derivatives.
+     * @throws EvaluationException If an operator has no derivative.
+     */
+    DerivativeStructure evaluate(final DerivativeStructure[] variables,
+                                 final DerivativeStructure template) throws EvaluationException {
+        checkDifferentiable();
+        final DerivativeStructure[] stack = new DerivativeStructure[maximumDepth];
+        int top = -1;
+        for (int i = 0; i < operators.length; i++) {
+            final Operator operator = operators[i];
+            if (operator == null) {
+                stack[++top] = slots[i] >= 0
+                        ? variables[slots[i]]
+                        : new DerivativeStructure(template.getFreeParameters(), template.getOrder(), constants[i]);
+                continue;
+            }
+            top -= operator.getArity() - 1;
+            stack[top] = apply(operator, stack, top, template);
+        }
+        return stack[0];
+    }
+
+    private static DerivativeStructure apply(final Operator operator,
+                                             final DerivativeStructure[] stack,
+                                             final int first,
+                                             final DerivativeStructure template) {
+        final DerivativeStructure a = stack[first];
+        if (operator == Addition.INSTANCE) {
+            return a.add(stack[first + 1]);
+        } else if (operator == Multiplication.INSTANCE) {
+            return a.multiply(stack[first + 1]);
+        } else if (operator == Division.INSTANCE) {
+            return a.divide(stack[first + 1]);
+        } else if (operator == RaisingToPower.INSTANCE) {
+            return power(a, stack[first + 1]);
+        } else if (operator == Sine.INSTANCE) {
+            return a.sin();
+        } else if (operator == Cosine.INSTANCE) {
+            return a.cos();
+        } else if (operator == Tangent.INSTANCE) {
+            return a.tan();
+        } else if (operator == Exponential.INSTANCE) {
+            return a.exp();
+        } else if (operator == Logarithm.INSTANCE) {
+            return a.log();
+        } else if (operator == SquareRoot.INSTANCE) {
+            return a.sqrt();
+        } else if (operator == Absolute.INSTANCE) {
+            return a.abs();
+        } else if (operator == Conditional.INSTANCE) {
+            return Operator.isTrue(a.getValue()) ? stack[first + 1] : stack[first + 2];
+        }
+        final double[] values = new double[operator.getArity()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = stack[first + i].getValue();
+        }
+        return new DerivativeStructure(template.getFreeParameters(), template.getOrder(), operator.compute(values));
+    }
+
+    private static DerivativeStructure power(final DerivativeStructure base, final DerivativeStructure exponent) {
+        if (isConstant(exponent)) {
+            // Integer powers stay defined for negative bases, as in Math.pow
+            final double value = exponent.getValue();
+            final int integer = (int) value;
+            return integer == value ? base.pow(integer) : base.pow(value);
+        }
+        if (isConstant(base)) {
+            return DerivativeStructure.pow(base.getValue(), exponent);
+        }
+        return base.pow(exponent);
+    }
+
+    private static boolean isConstant(final DerivativeStructure structure) {
+        final double[] all = structure.getAllDerivatives();
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.subh0m0y.parser.solver;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.NelderMeadSimplex;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.SimplexOptimizer;
+import org.apache.commons.math3.optim.univariate.BrentOptimizer;
+import org.apache.commons.math3.optim.univariate.SearchInterval;
+import org.apache.commons.math3.optim.univariate.UnivariateObjectiveFunction;
+import org.apache.commons.math3.optim.univariate.UnivariatePointValuePair;
+
+/**
+ * Finds minima of functions. Searches stop once an iteration improves the
+ * point or the value by less than the relative threshold times the
+ * magnitude plus the absolute threshold. A new optimizer of commons-math
+ * is made for every search, so a Minimizer can be shared between threads.
+ * To find a maximum, minimize the negated Expression.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.11
+ */
+public final class Minimizer {
+    private final double relativeThreshold;
+    private final double absoluteThreshold;
+    private final int maximumEvaluations;
+
+    /**
+     * @param relativeThreshold  The relative tolerance of convergence.
+     * @param absoluteThreshold  The absolute tolerance of convergence.
+     * @param maximumEvaluations The most evaluations a search may take.
+     * @throws IllegalArgumentException If a threshold or the number of
+     *                                  evaluations is not positive.
+     */
+    public Minimizer(final double relativeThreshold,
+                     final double absoluteThreshold,
+                     final int maximumEvaluations) throws IllegalArgumentException {
+        if (!(relativeThreshold > 0) || !(absoluteThreshold > 0)) {
+            throw new IllegalArgumentException("The thresholds must be positive.");
+        }
+        if (maximumEvaluations <= 0) {
+            throw new IllegalArgumentException("The number of evaluations must be positive.");
+        }
+        this.relativeThreshold = relativeThreshold;
+        this.absoluteThreshold = absoluteThreshold;
+        this.maximumEvaluations = maximumEvaluations;
+    }
+
+    /**
+     * Finds a minimum within an interval with Brent's method, which
+     * combines golden section search and parabolic interpolation, and
+     * needs no derivatives.
+     * <p>
+     * Brent's method cannot locate a minimum more finely than twice the
+     * machine epsilon, {@code 2 * Math.ulp(1d)}, relative to its
+     * position. A smaller relative threshold is raised to that for this
+     * search only; Nelder-Mead still uses it as given.
+     *
+     * @param function The function.
+     * @param lower    The lower end of the interval.
+     * @param upper    The upper end of the interval.
+     * @return A local minimum within the interval.
+     * @throws EvaluationException If the search takes too many evaluations.
+     */
+    public Solution brent(final UnivariateExpressionFunction function,
+                          final double lower,
+                          final double upper) throws EvaluationException {
+        final BrentOptimizer optimizer = new BrentOptimizer(
+                Math.max(relativeThreshold, 2 * Math.ulp(1d)), absoluteThreshold);
+        try {
+            final UnivariatePointValuePair pair = optimizer.optimize(
+                    new MaxEval(maximumEvaluations),
+                    new UnivariateObjectiveFunction(function),
+                    GoalType.MINIMIZE,
+                    new SearchInterval(lower, upper)
+            );
+            return new Solution(new double[]{pair.getPoint()}, pair.getValue(),
+                    optimizer.getIterations(), optimizer.getEvaluations());
+        } catch (MathIllegalArgumentException | MathIllegalStateException e) {
+            throw new EvaluationException("Brent's method failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Finds a minimum with the Nelder-Mead simplex method, which needs
+     * no derivatives and copes with functions that are not smooth.
+     *
+     * @param function The function.
+     * @param start    The point to start from.
+     * @param steps    The size of the initial simplex along each axis.
+     * @return A local minimum.
+     * @throws EvaluationException If the search takes too many evaluations,
+     *                             or the start or steps do not match the
+     *                             number of variables.
+     */
+    public Solution nelderMead(final MultivariateExpressionFunction function,
+                               final double[] start,
+                               final double[] steps) throws EvaluationException {
+        if (start.length != function.getDimension() || steps.length != function.getDimension()) {
+            throw new EvaluationException("Expected points of " + function.getDimension() + " coordinates.");
+        }
+        final SimplexOptimizer optimizer = new SimplexOptimizer(relativeThreshold, absoluteThreshold);
+        try {
+            final PointValuePair pair = optimizer.optimize(
+                    new MaxEval(maximumEvaluations),
+                    new ObjectiveFunction(function),
+                    GoalType.MINIMIZE,
+                    new InitialGuess(start),
+                    new NelderMeadSimplex(steps)
+            );
+            return new Solution(pair.getPoint(), pair.getValue(),
+                    optimizer.getIterations(), optimizer.getEvaluations());
+        } catch (MathIllegalArgumentException | MathIllegalStateException e) {
+            throw new EvaluationException("The Nelder-Mead method failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.subh0m0y.parser.solver;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.nodes.NodeInterpreter;
+import com.github.subh0m0y.parser.tree.Node;
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.analysis.differentiation.DerivativeStructure;
+import org.apache.commons.math3.analysis.differentiation.MultivariateDifferentiableFunction;
+
+import java.util.List;
+
+/**
+ * An Expression of all its variables, as a {@link MultivariateFunction}.
+ * The coordinates of a point are the values of the variables in the
+ * order of {@link #getVariables()} (alphabetical), and are read straight
+ * from the point, without copying or looking up names. Functions are
+ * immutable and can be shared between threads.
+ * <p>
+ * If every operator of the Expression has a derivative, partial
+ * derivatives are available through
+ * {@link #value(DerivativeStructure[])}, and the {@link #gradient()}.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.11
+ */
+public final class MultivariateExpressionFunction implements MultivariateDifferentiableFunction {
+    private final NodeInterpreter interpreter;
+    private final DerivativeProgram derivatives;
+
+    /**
+     * @param expression The Expression to adapt.
+     * @throws EvaluationException If the Expression is empty or not pure.
+     */
+    public MultivariateExpressionFunction(final Expression expression) throws EvaluationException {
+        final Node tree = expression.toTree();
+        this.interpreter = new NodeInterpreter(tree);
+        this.derivatives = new DerivativeProgram(tree, interpreter.getVariables());
+    }
+
+    /**
+     * @return The variables, in the order of the coordinates.
+     */
+    public List<String> getVariables() {
+        return interpreter.getVariables();
+    }
+
+    /**
+     * @return The number of coordinates of a point.
+     */
+    public int getDimension() {
+        return interpreter.getVariables().size();
+    }
+
+    /**
+     * @return {@code true} if derivatives are available.
+     */
+    public boolean isDifferentiable() {
+        return derivatives.isDifferentiable();
+    }
+
+    /**
+     * @throws IllegalArgumentException If the point has too few coordinates.
+     */
+    @Override
+    public double value(final double[] point) throws IllegalArgumentException {
+        return interpreter.execute(point);
+    }
+
+    /**
+     * @throws EvaluationException If an operator has no derivative.
+     */
+    @Override
+    public DerivativeStructure value(final DerivativeStructure[] point) throws EvaluationException {
+        final DerivativeStructure template = point.length > 0 ? point[0] : new DerivativeStructure(0, 0, 0);
+        return derivatives.evaluate(point, template);
+    }
+
+    /**
+     * @return The gradient of this function, with one partial derivative
+     * per variable.
+     * @throws EvaluationException If an operator has no derivative.
+     */
+    public MultivariateVectorFunction gradient() throws EvaluationException {
+        derivatives.checkDifferentiable();
+        return point -> {
+            final DerivativeStructure[] variables = new DerivativeStructure[getDimension()];
+            for (int i = 0; i < variables.length; i++) {
+                variables[i] = new DerivativeStructure(variables.length, 1, i, point[i]);
+            }
+            final DerivativeStructure value = value(variables);
+            final double[] gradient = new double[variables.length];
+            final int[] orders = new int[variables.length];
+            for (int i = 0; i < gradient.length; i++) {
+                orders[i] = 1;
+                gradient[i] = value.getPartialDerivative(orders);
+                orders[i] = 0;
+            }
+            return gradient;
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.subh0m0y.parser.solver;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import org.apache.commons.math3.analysis.solvers.BaseAbstractUnivariateSolver;
+import org.apache.commons.math3.analysis.solvers.BrentSolver;
+import org.apache.commons.math3.analysis.solvers.NewtonRaphsonSolver;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+
+/**
+ * Finds zeros of functions of one variable. The solvers of commons-math
+ * keep state, so a new one is made for every search and a RootFinder can
+ * be shared between threads.
+ * <p>
+ * These solvers evaluate the function once per iteration, and only
+ * count evaluations; the iteration count of their solutions is the
+ * number of evaluations.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.11
+ */
+public final class RootFinder {
+    private final double absoluteAccuracy;
+    private final int maximumEvaluations;
+
+    /**
+     * @param absoluteAccuracy   How close to the zero the result must be.
+     * @param maximumEvaluations The most evaluations a search may take.
+     * @throws IllegalArgumentException If the accuracy or the number of
+     *                                  evaluations is not positive.
+     */
+    public RootFinder(final double absoluteAccuracy, final int maximumEvaluations) throws
+            IllegalArgumentException {
+        if (!(absoluteAccuracy > 0)) {
+            throw new IllegalArgumentException("The accuracy must be positive.");
+        }
+        if (maximumEvaluations <= 0) {
+            throw new IllegalArgumentException("The number of evaluations must be positive.");
+        }
+        this.absoluteAccuracy = absoluteAccuracy;
+        this.maximumEvaluations = maximumEvaluations;
+    }
+
+    /**
+     * Finds a zero with Brent's method, which needs no derivatives and
+     * always converges.
+     *
+     * @param function The function.
+     * @param lower    The lower end of the search interval.
+     * @param upper    The upper end of the search interval.
+     * @return A zero within the interval.
+     * @throws EvaluationException If the values at the ends have the same
+     *                             sign, or the search takes too many
+     *                             evaluations.
+     */
+    public Solution brent(final UnivariateExpressionFunction function,
+                          final double lower,
+                          final double upper) throws EvaluationException {
+        final BrentSolver solver = new BrentSolver(absoluteAccuracy);
+        try {
+            return solution(solver, function, solver.solve(maximumEvaluations, function, lower, upper));
+        } catch (MathIllegalArgumentException | MathIllegalStateException e) {
+            throw new EvaluationException("Brent's method failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Finds a zero with Newton's method, which converges quadratically
+     * near a simple zero, but may diverge from a poor start.
+     *
+     * @param function The function, which must be differentiable.
+     * @param start    The point to start from.
+     * @return A zero near the start.
+     * @throws EvaluationException If the function is not differentiable,
+     *                             or the search takes too many evaluations.
+     */
+    public Solution newton(final UnivariateExpressionFunction function,
+                           final double start) throws EvaluationException {
+        if (!function.isDifferentiable()) {
+            throw new EvaluationException("Newton's method needs a differentiable function.");
+        }
+        final NewtonRaphsonSolver solver = new NewtonRaphsonSolver(absoluteAccuracy);
+        try {
+            return solution(solver, function, solver.solve(maximumEvaluations, function, start));
+        } catch (MathIllegalArgumentException | MathIllegalStateException e) {
+            throw new EvaluationException("Newton's method failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static Solution solution(final BaseAbstractUnivariateSolver<?> solver,
+                                     final UnivariateExpressionFunction function,
+                                     final double root) {
+        return new Solution(new double[]{root}, function.value(root),
+                solver.getEvaluations(), solver.getEvaluations());
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.subh0m0y.parser.solver;
+
+import java.util.Arrays;
+
+/**
+ * The point a solver found, the value of the function there, and what
+ * it cost to find.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.11
+ */
+public final class Solution {
+    private final double[] point;
+    private final double value;
+    private final int iterations;
+    private final int evaluations;
+
+    Solution(final double[] point, final double value, final int iterations, final int evaluations) {
+        this.point = point;
+        this.value = value;
+        this.iterations = iterations;
+        this.evaluations = evaluations;
+    }
+
+    /**
+     * @return The coordinates of the point, in the order of the variables
+     * of the function.
+     */
+    public double[] getPoint() {
+        return point.clone();
+    }
+
+    /**
+     * @return The first coordinate of the point; the whole point for a
+     * function of one variable.
+     */
+    public double getArgument() {
+        return point[0];
+    }
+
+    /**
+     * @return The value of the function at the point.
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return The number of iterations the solver took.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return The number of times the solver evaluated the function.
+     */
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    @Override
+    public String toString() {
+        return "f(" + Arrays.toString(point) + ") = " + value
+                + " after " + iterations + " iterations and " + evaluations + " evaluations";
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.subh0m0y.parser.solver;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.nodes.NodeInterpreter;
+import com.github.subh0m0y.parser.tree.Node;
+import org.apache.commons.math3.analysis.UnivariateFunction;
+import org.apache.commons.math3.analysis.differentiation.DerivativeStructure;
+import org.apache.commons.math3.analysis.differentiation.UnivariateDifferentiableFunction;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An Expression of one variable, as a {@link UnivariateFunction} for the
+ * solvers and integrators of commons-math. Values are computed by a
+ * {@link NodeInterpreter} in a frame that belongs to the calling thread,
+ * so a call neither allocates nor looks up the variable by name, and a
+ * function can be shared between threads.
+ * <p>
+ * If every operator of the Expression has a derivative, derivatives of
+ * any order are available through {@link #value(DerivativeStructure)}.
+ * Domain errors produce NaN, as in compiled evaluation.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.11
+ */
+public final class UnivariateExpressionFunction implements UnivariateDifferentiableFunction {
+    private final String variable;
+    private final NodeInterpreter interpreter;
+    private final DerivativeProgram derivatives;
+    private final ThreadLocal<double[]> frames = ThreadLocal.withInitial(() -> new double[1]);
+
+    /**
+     * @param expression The Expression to adapt.
+     * @param variable   The variable the function is of.
+     * @throws EvaluationException If the Expression is empty, is not
+     *                             pure, or reads any other variable.
+     */
+    public UnivariateExpressionFunction(final Expression expression, final String variable) throws
+            EvaluationException {
+        this(expression, variable, Collections.emptyMap());
+    }
+
+    /**
+     * @param expression The Expression to adapt.
+     * @param variable   The variable the function is of.
+     * @param fixed      The values of the other variables, by name. They
+     *                   are substituted in advance, as by
+     *                   {@link Expression#specialize(Map)}.
+     * @throws EvaluationException If the Expression is empty, is not
+     *                             pure, or reads a variable that is not
+     *                             fixed.
+     */
+    public UnivariateExpressionFunction(final Expression expression,
+                                        final String variable,
+                                        final Map<String, Double> fixed) throws EvaluationException {
+        final Node tree = (fixed.isEmpty() ? expression : expression.specialize(fixed)).toTree();
+        this.variable = variable;
+        this.interpreter = new NodeInterpreter(tree);
+        for (String name : interpreter.getVariables()) {
+            if (!name.equals(variable)) {
+                throw new EvaluationException("Variable " + name + " must be fixed.");
+            }
+        }
+        this.derivatives = new DerivativeProgram(tree, Collections.singletonList(variable));
+    }
+
+    /**
+     * @return The variable the function is of.
+     */
+    public String getVariable() {
+        return variable;
+    }
+
+    /**
+     * @return {@code true} if {@link #value(DerivativeStructure)} is
+     * available.
+     */
+    public boolean isDifferentiable() {
+        return derivatives.isDifferentiable();
+    }
+
+    @Override
+    public double value(final double x) {
+        final double[] frame = frames.get();
+        frame[0] = x;
+        return interpreter.execute(frame);
+    }
+
+    /**
+     * @throws EvaluationException If an operator has no derivative.
+     */
+    @Override
+    public DerivativeStructure value(final DerivativeStructure t) throws EvaluationException {
+        return derivatives.evaluate(new DerivativeStructure[]{t}, t);
+    }
+}
@@ -8,6 +8,9 @@ package com.github.subh0m0y.parser.token;
  * @version 1.0
  */
 public class ArgumentSeparator implements Token {
+    // Separators are stateless, so one instance serves every occurrence
+    public static final ArgumentSeparator INSTANCE = new ArgumentSeparator();
+
     @Override
     public String toString() {
         return ",";
@@ -0,0 +1,300 @@
+package com.github.subh0m0y.parser.token;
+
+import com.github.subh0m0y.parser.token.operands.Variable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable map from variables to operands, stored as a hash array
+ * mapped trie. Every level of the trie uses five more bits of the hash,
+ * and keeps only the slots in use, so a binding is at most seven small
+ * arrays deep. Adding a binding copies just the arrays on the path to
+ * it and shares the rest with the previous version: a write costs the
+ * same however many variables there are, and every earlier version
+ * stays valid.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.22
+ */
+final class Bindings {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * The map with no bindings.
+     */
+    static final Bindings EMPTY = new Bindings(Trie.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+    private Map<Variable, Operand> view;
+
+    private Bindings(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    private static int hash(final Object key) {
+        final int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @param variable The variable whose binding is sought.
+     * @return The operand bound to the variable, or null if it is unbound.
+     */
+    Operand get(final Variable variable) {
+        return root.get(0, hash(variable), variable);
+    }
+
+    /**
+     * @param variable The variable to bind.
+     * @param operand  The operand to bind it to.
+     * @return A map with the binding added or replaced. This map is
+     * left unchanged.
+     */
+    Bindings with(final Variable variable, final Operand operand) {
+        final boolean[] added = new boolean[1];
+        final Node next = root.with(0, hash(variable), variable, operand, added);
+        return next == root ? this : new Bindings(next, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @param updates The bindings to add or replace.
+     * @return A map with all the bindings applied.
+     */
+    Bindings withAll(final Map<Variable, ? extends Operand> updates) {
+        Bindings result = this;
+        for (Map.Entry<Variable, ? extends Operand> entry : updates.entrySet()) {
+            result = result.with(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return An unmodifiable Map view of these bindings. Lookups go
+     * through the trie; iteration lists the bindings in hash order.
+     */
+    Map<Variable, Operand> asMap() {
+        Map<Variable, Operand> map = view;
+        if (map == null) {
+            map = new View();
+            view = map;
+        }
+        return map;
+    }
+
+    private abstract static class Node {
+        abstract Operand get(int shift, int hash, Variable key);
+
+        abstract Node with(int shift, int hash, Variable key, Operand value, boolean[] added);
+
+        /**
+         * Appends the bindings of this node to the list, and its children
+         * to the stack of nodes still to visit.
+         */
+        abstract void collect(List<Map.Entry<Variable, Operand>> entries, Deque<Node> pending);
+    }
+
+    /**
+     * A level of the trie. The bitmap marks which of the 32 slots are in
+     * use; the array holds two elements for each, in slot order: either
+     * a key and its value, or null and the child trie for that slot.
+     */
+    private static final class Trie extends Node {
+        static final Trie EMPTY = new Trie(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] array;
+
+        Trie(final int bitmap, final Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        Operand get(final int shift, final int hash, final Variable key) {
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            final int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            final Object stored = array[index];
+            if (stored == null) {
+                return ((Node) array[index + 1]).get(shift + BITS, hash, key);
+            }
+            return key.equals(stored) ? (Operand) array[index + 1] : null;
+        }
+
+        @Override
+        Node with(final int shift, final int hash, final Variable key, final Operand value, final boolean[] added) {
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            final int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                final Object[] grown = new Object[array.length + 2];
+                System.arraycopy(array, 0, grown, 0, index);
+                grown[index] = key;
+                grown[index + 1] = value;
+                System.arraycopy(array, index, grown, index + 2, array.length - index);
+                added[0] = true;
+                return new Trie(bitmap | bit, grown);
+            }
+            final Object stored = array[index];
+            final Object replacement;
+            if (stored == null) {
+                final Node child = (Node) array[index + 1];
+                replacement = child.with(shift + BITS, hash, key, value, added);
+                if (replacement == child) {
+                    return this;
+                }
+            } else if (key.equals(stored)) {
+                if (array[index + 1] == value) {
+                    return this;
+                }
+                replacement = value;
+            } else {
+                added[0] = true;
+                replacement = pair(shift + BITS, (Variable) stored, (Operand) array[index + 1], hash, key, value);
+            }
+            final Object[] copy = array.clone();
+            if (stored != null && replacement instanceof Node) {
+                copy[index] = null;
+            }
+            copy[index + 1] = replacement;
+            return new Trie(bitmap, copy);
+        }
+
+        /**
+         * @return A node with two bindings whose keys agree in the hash
+         * bits used above the given shift.
+         */
+        private static Node pair(final int shift,
+                                 final Variable first, final Operand firstValue,
+                                 final int hash, final Variable second, final Operand secondValue) {
+            final int firstHash = hash(first);
+            if (firstHash == hash) {
+                return new Collision(hash, new Object[]{first, firstValue, second, secondValue});
+            }
+            final boolean[] ignored = new boolean[1];
+            return EMPTY.with(shift, firstHash, first, firstValue, ignored)
+                    .with(shift, hash, second, secondValue, ignored);
+        }
+
+        @Override
+        void collect(final List<Map.Entry<Variable, Operand>> entries, final Deque<Node> pending) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    pending.push((Node) array[i + 1]);
+                } else {
+                    entries.add(new AbstractMap.SimpleImmutableEntry<>((Variable) array[i], (Operand) array[i + 1]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Bindings whose keys have the same hash, as keys and values in turn.
+     */
+    private static final class Collision extends Node {
+        private final int hash;
+        private final Object[] array;
+
+        Collision(final int hash, final Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Operand get(final int shift, final int hash, final Variable key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return (Operand) array[i + 1];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node with(final int shift, final int hash, final Variable key, final Operand value, final boolean[] added) {
+            if (hash != this.hash) {
+                // Moves this node one level down, where the hashes can differ
+                final Trie parent = new Trie(1 << ((this.hash >>> shift) & MASK), new Object[]{null, this});
+                return parent.with(shift, hash, key, value, added);
+            }
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    if (array[i + 1] == value) {
+                        return this;
+                    }
+                    final Object[] copy = array.clone();
+                    copy[i + 1] = value;
+                    return new Collision(hash, copy);
+                }
+            }
+            added[0] = true;
+            final Object[] grown = new Object[array.length + 2];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            grown[array.length] = key;
+            grown[array.length + 1] = value;
+            return new Collision(hash, grown);
+        }
+
+        @Override
+        void collect(final List<Map.Entry<Variable, Operand>> entries, final Deque<Node> pending) {
+            for (int i = 0; i < array.length; i += 2) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>((Variable) array[i], (Operand) array[i + 1]));
+            }
+        }
+    }
+
+    private final class View extends AbstractMap<Variable, Operand> {
+        @Override
+        public Operand get(final Object key) {
+            return key instanceof Variable ? Bindings.this.get((Variable) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<Variable, Operand>> entrySet() {
+            return new AbstractSet<Entry<Variable, Operand>>() {
+                @Override
+                public Iterator<Entry<Variable, Operand>> iterator() {
+                    final List<Entry<Variable, Operand>> entries = new ArrayList<>(size);
+                    final Deque<Node> pending = new ArrayDeque<>();
+                    pending.push(root);
+                    while (!pending.isEmpty()) {
+                        pending.pop().collect(entries, pending);
+                    }
+                    return Collections.unmodifiableList(entries).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+}
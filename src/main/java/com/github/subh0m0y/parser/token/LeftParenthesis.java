@@ -5,6 +5,12 @@ package com.github.subh0m0y.parser.token;
  * @version 1.0
  */
 public class LeftParenthesis implements Token {
+    /**
+     * This token carries no state, so a single instance can be shared
+     * by every occurrence.
+     */
+    public static final LeftParenthesis INSTANCE = new LeftParenthesis();
+
     @Override
     public String toString() {
         return "(";
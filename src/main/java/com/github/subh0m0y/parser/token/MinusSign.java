@@ -0,0 +1,18 @@
+package com.github.subh0m0y.parser.token;
+
+/**
+ * Represents a minus sign, as read by a parser that tells negation
+ * ({@code -x}) and subtraction ({@code a - x}) apart from the context.
+ * It never appears in postfix order.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.28
+ */
+public class MinusSign implements Token {
+    public static final MinusSign INSTANCE = new MinusSign();
+
+    @Override
+    public String toString() {
+        return "-";
+    }
+}
@@ -2,6 +2,8 @@ package com.github.subh0m0y.parser.token;
 
 import com.github.subh0m0y.parser.exceptions.EvaluationException;
 import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.interval.Interval;
+import com.github.subh0m0y.parser.token.operands.Real;
 
 import java.util.StringJoiner;
 
@@ -11,10 +13,14 @@ import java.util.StringJoiner;
  */
 public abstract class Operator implements Token {
     protected static final int ASSIGNMENT = 0;
-    protected static final int ADDITIVE = 1;
-    protected static final int MULTIPLICATIVE = 2;
-    protected static final int EXPONENTIAL = 3;
-    protected static final int FUNCTIONAL = 4;
+    protected static final int DISJUNCTIVE = 1;
+    protected static final int CONJUNCTIVE = 2;
+    protected static final int EQUALITY = 3;
+    protected static final int RELATIONAL = 4;
+    protected static final int ADDITIVE = 5;
+    protected static final int MULTIPLICATIVE = 6;
+    protected static final int EXPONENTIAL = 7;
+    protected static final int FUNCTIONAL = 8;
 
     private final int arity;
     private final int priority;
@@ -35,6 +41,34 @@ public abstract class Operator implements Token {
     public abstract Operand evaluate(final Operand... operands)
             throws ArityException, EvaluationException;
 
+    /**
+     * Applies this Operator directly to primitive values, without
+     * wrapping them in Operands. This is what compact and compiled
+     * representations use to avoid allocating a {@link Real} for every
+     * intermediate result.
+     * <p>
+     * The default implementation falls back to {@link #evaluate(Operand...)},
+     * so it is correct for every Operator. Subclasses override it with
+     * the direct computation. Unlike the Operand methods, the overridden
+     * versions follow IEEE 754 and produce NaN for arguments outside the
+     * domain (for example, the square root of a negative number) instead
+     * of throwing an {@link EvaluationException}.
+     *
+     * @param values The values of the operands, in order.
+     * @return The result of applying this Operator.
+     * @throws ArityException      If the number of values is incorrect.
+     * @throws EvaluationException If this Operator cannot work on plain values.
+     */
+    public double compute(final double... values)
+            throws ArityException, EvaluationException {
+        check(values.length);
+        Operand[] operands = new Operand[values.length];
+        for (int i = 0; i < values.length; i++) {
+            operands[i] = new Real(values[i]);
+        }
+        return evaluate(operands).getValue();
+    }
+
     private String formatAsPrefix(final Operand... operands) {
         StringJoiner joiner = new StringJoiner(" ", "(", ")");
         joiner.add(symbol);
@@ -53,6 +87,128 @@ public abstract class Operator implements Token {
         return formatAsPrefix(operands);
     }
 
+    /**
+     * Applies this Operator row by row to whole columns of values.
+     * The default implementation calls {@link #compute(double...)} for
+     * every row; subclasses override it with plain array loops that the
+     * JIT can vectorize.
+     *
+     * @param columns The operand columns, one per operand, in order.
+     * @param result  The column to write the results to.
+     * @param length  The number of rows to process.
+     * @throws ArityException      If the number of columns is incorrect.
+     * @throws EvaluationException If this Operator cannot work on plain values.
+     */
+    public void computeBatch(final double[][] columns, final double[] result, final int length)
+            throws ArityException, EvaluationException {
+        check(columns.length);
+        final double[] values = new double[columns.length];
+        for (int row = 0; row < length; row++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = columns[i][row];
+            }
+            result[row] = compute(values);
+        }
+    }
+
+    /**
+     * Bounds the result of this Operator over ranges of operands: the
+     * result contains the value of the Operator for every choice of
+     * values from the operands. Like {@link #compute(double...)}, points
+     * outside the domain produce NaN rather than an exception; the
+     * result is then marked as {@link Interval#mayBeNaN() possibly NaN}.
+     * <p>
+     * The default implementation throws, since bounds cannot be derived
+     * from plain values. Every pure built in Operator overrides it.
+     *
+     * @param operands The ranges of the operands, in order.
+     * @return An interval that contains every possible result.
+     * @throws ArityException      If the number of operands is incorrect.
+     * @throws EvaluationException If this Operator has no interval form.
+     */
+    public Interval enclose(final Interval... operands)
+            throws ArityException, EvaluationException {
+        check(operands.length);
+        throw new EvaluationException("Operator " + symbol + " cannot be evaluated over intervals.");
+    }
+
+    /**
+     * The truth of a range of values, as {@link #isTrue(double)} sees it.
+     *
+     * @param interval The range of values.
+     * @return [1, 1] if every value is true (zero is not in the range),
+     * [0, 0] if the range is just zero, and [0, 1] otherwise.
+     */
+    protected static Interval truthOf(final Interval interval) {
+        if (!interval.contains(0)) {
+            return Interval.valueOf(true);
+        }
+        return interval.isPoint() ? Interval.valueOf(false) : Interval.BOOLEAN;
+    }
+
+    /**
+     * Interprets a value as a boolean: zero is false, everything else
+     * (including NaN) is true.
+     *
+     * @param value The value to interpret.
+     * @return {@code true} if the value is not zero.
+     */
+    public static boolean isTrue(final double value) {
+        return value != 0;
+    }
+
+    /**
+     * A branch-free version of {@link #isTrue(double)}, for batch loops.
+     *
+     * @param value The value to interpret.
+     * @return 1 if the value is not zero (or NaN), 0 otherwise.
+     */
+    protected static long truth(final double value) {
+        // Clear the sign, so that -0.0 counts as zero too. For a
+        // non-negative x, (x | -x) has its sign bit set iff x != 0.
+        final long magnitude = Double.doubleToRawLongBits(value) & Long.MAX_VALUE;
+        return (magnitude | -magnitude) >>> 63;
+    }
+
+    /**
+     * @param value A boolean result.
+     * @return 1.0 for {@code true} and 0.0 for {@code false}.
+     */
+    protected static double valueOf(final boolean value) {
+        return value ? 1 : 0;
+    }
+
+    /**
+     * A pure Operator always produces the same result for the same
+     * operands and has no side effects. Only pure Operators may be
+     * folded, reordered, shared or removed by the compiler.
+     *
+     * @return {@code true} unless a subclass says otherwise.
+     */
+    public boolean isPure() {
+        return true;
+    }
+
+    /**
+     * Decides how a chain of operators of the same priority groups:
+     * {@code a ^ b ^ c} is {@code a ^ (b ^ c)}, while {@code a / b / c}
+     * is {@code (a / b) / c}.
+     *
+     * @return {@code true} if operators of this priority group from the
+     * right; {@code false} (the default) if they group from the left.
+     */
+    public boolean isRightAssociative() {
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the operands of this binary operator can
+     * be swapped without changing the result, bit for bit.
+     */
+    public boolean isCommutative() {
+        return false;
+    }
+
     public boolean isFunction() {
         return priority == FUNCTIONAL;
     }
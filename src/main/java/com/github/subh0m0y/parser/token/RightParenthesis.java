@@ -5,6 +5,8 @@ package com.github.subh0m0y.parser.token;
  * @version 1.0
  */
 public class RightParenthesis implements Token {
+    public static final RightParenthesis INSTANCE = new RightParenthesis();
+
     @Override
     public String toString() {
         return ")";
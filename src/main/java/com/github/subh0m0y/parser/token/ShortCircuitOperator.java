@@ -0,0 +1,55 @@
+package com.github.subh0m0y.parser.token;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+
+import java.util.function.IntFunction;
+
+/**
+ * An Operator whose result may be decided by its first operand alone,
+ * so that the remaining operands need not be evaluated at all. Scalar
+ * evaluators call {@link #evaluate(Operand, IntFunction)} and supply
+ * the remaining operands lazily; those that walk the operands without
+ * recursion ask {@link #neededOperand(Operand)} which one to evaluate
+ * first. Batch evaluators still compute every operand and combine them
+ * without branches.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.24
+ */
+public abstract class ShortCircuitOperator extends Operator {
+
+    protected ShortCircuitOperator(final String symbol, final int arity, final int priority) {
+        super(symbol, arity, priority);
+    }
+
+    /**
+     * Evaluates this Operator, asking for the operands after the first
+     * one only if they are needed.
+     *
+     * @param first     The value of the first operand.
+     * @param remaining Evaluates the operand at the given index (starting
+     *                  from 1) on demand.
+     * @return The result of applying this Operator.
+     */
+    public abstract Operand evaluate(Operand first, IntFunction<Operand> remaining)
+            throws ArityException, EvaluationException;
+
+    /**
+     * Tells which of the remaining operands the result depends on. At
+     * most one of them is ever needed.
+     *
+     * @param first The value of the first operand.
+     * @return The index of the operand that
+     * {@link #evaluate(Operand, IntFunction)} asks for, or 0 if it asks
+     * for none.
+     */
+    public abstract int neededOperand(Operand first);
+
+    @Override
+    public Operand evaluate(final Operand... operands)
+            throws ArityException, EvaluationException {
+        check(operands.length);
+        return evaluate(operands[0], index -> operands[index]);
+    }
+}
@@ -10,9 +10,13 @@ import java.util.Map;
  * This is the class that provides the ability of assigning real values to
  * variables (with valid names) and accessing or reassigning the values
  * freely.
+ * <p>
+ * The bindings are kept in a {@link VariableStore}, so concurrent
+ * assignments never corrupt the map and readers never block. Use
+ * {@link #snapshot()} to evaluate several variables consistently.
  *
  * @author Subhomoy Haldar
- * @version 2017.04.21
+ * @version 2017.05.22
  */
 public class VariableMap {
     /**
@@ -20,14 +24,15 @@ public class VariableMap {
      */
     public static final VariableMap INSTANCE = new VariableMap();
 
-    private final Map<Variable, Operand> map;
+    private final VariableStore store;
 
     private VariableMap() {
-        map = new HashMap<>();
+        Map<Variable, Operand> map = new HashMap<>();
         // Bind constants
         map.put(new Variable("pi"), new Real(Math.PI));
         map.put(new Variable("e"), new Real(Math.E));
         map.put(new Variable("phi"), new Real((1 + Math.sqrt(5)) / 2));
+        store = new VariableStore(map);
     }
 
     /**
@@ -39,7 +44,17 @@ public class VariableMap {
      * @param operand  The value to be assiged.
      */
     public void bind(final Variable variable, final Operand operand) {
-        map.put(variable, operand);
+        store.bind(variable, operand);
+    }
+
+    /**
+     * Assigns all the given values at once. Readers observe either none
+     * or all of the assignments.
+     *
+     * @param bindings The variables to assign, with their values.
+     */
+    public void bindAll(final Map<Variable, ? extends Operand> bindings) {
+        store.bindAll(bindings);
     }
 
     /**
@@ -47,6 +62,13 @@ public class VariableMap {
      * @return The variable's value (if it is initialized) or null.
      */
     public Operand get(final Variable variable) {
-        return map.get(variable);
+        return store.get(variable);
+    }
+
+    /**
+     * @return An immutable view of all the current bindings.
+     */
+    public VariableSnapshot snapshot() {
+        return store.snapshot();
     }
 }
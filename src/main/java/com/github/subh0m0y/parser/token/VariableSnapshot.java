@@ -0,0 +1,83 @@
+package com.github.subh0m0y.parser.token;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.operands.Variable;
+
+import java.util.Map;
+
+/**
+ * An immutable, consistent view of all variable bindings in a
+ * {@link VariableStore} at one point in time. Every write to the store
+ * publishes a new snapshot with a higher version; existing snapshots
+ * never change, so an evaluation that reads all its variables from one
+ * snapshot can never observe a half-applied update.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.22
+ */
+public final class VariableSnapshot {
+    // Guards against cycles such as x = y followed by y = x
+    private static final int MAXIMUM_ALIAS_DEPTH = 64;
+
+    private final long version;
+    private final Bindings bindings;
+
+    VariableSnapshot(final long version, final Bindings bindings) {
+        this.version = version;
+        this.bindings = bindings;
+    }
+
+    /**
+     * @return The version of the store this snapshot was taken at.
+     * Later snapshots of the same store have higher versions.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param variable The variable whose bound operand is sought.
+     * @return The operand bound to the variable (may be another Variable),
+     * or null if it is not initialized in this snapshot.
+     */
+    public Operand get(final Variable variable) {
+        return bindings.get(variable);
+    }
+
+    /**
+     * Resolves the value of a variable entirely within this snapshot.
+     * If the variable was bound to another variable, that binding is
+     * followed in this snapshot too, rather than in the live store.
+     *
+     * @param variable The variable whose value is sought.
+     * @return The value of the variable in this snapshot.
+     * @throws EvaluationException If the variable (or one it refers to)
+     *                             is uninitialized, or the bindings are
+     *                             circular.
+     */
+    public double getValue(final Variable variable) throws EvaluationException {
+        Variable current = variable;
+        for (int depth = 0; depth < MAXIMUM_ALIAS_DEPTH; depth++) {
+            Operand operand = bindings.get(current);
+            if (operand == null) {
+                throw new EvaluationException("Variable " + current.getSymbol() + " is not initialized.");
+            }
+            if (!(operand instanceof Variable)) {
+                return operand.getValue();
+            }
+            current = (Variable) operand;
+        }
+        throw new EvaluationException("Variable " + variable.getSymbol() + " has circular bindings.");
+    }
+
+    /**
+     * @return An unmodifiable view of every binding in this snapshot.
+     */
+    public Map<Variable, Operand> asMap() {
+        return bindings.asMap();
+    }
+
+    Bindings getBindings() {
+        return bindings;
+    }
+}
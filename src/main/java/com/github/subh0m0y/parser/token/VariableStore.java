@@ -0,0 +1,93 @@
+package com.github.subh0m0y.parser.token;
+
+import com.github.subh0m0y.parser.token.operands.Variable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A multi-version store of variable bindings.
+ * <p>
+ * The current state is a single immutable {@link VariableSnapshot}
+ * held in an {@link AtomicReference}. Readers never lock: they read the
+ * reference once and work against that snapshot for as long as they
+ * like. Writers derive new bindings from the current ones, apply their
+ * change and publish the result with a compare-and-set, retrying if
+ * another writer got there first. A batch of assignments is published
+ * as one version, so readers see either none or all of it.
+ * <p>
+ * The bindings are a persistent hash trie, so a new version shares all
+ * but a few small arrays with the previous one. A write costs time in
+ * proportion to the number of variables it binds, not the number in
+ * the store, while reads stay a single volatile load.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.22
+ */
+public class VariableStore {
+    private final AtomicReference<VariableSnapshot> current;
+
+    /**
+     * Creates an empty store at version zero.
+     */
+    public VariableStore() {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * Creates a store whose first version contains the given bindings.
+     *
+     * @param initial The bindings to start with.
+     */
+    public VariableStore(final Map<Variable, Operand> initial) {
+        current = new AtomicReference<>(new VariableSnapshot(0, Bindings.EMPTY.withAll(initial)));
+    }
+
+    /**
+     * Atomically publishes a new version with the given variable bound
+     * to the operand.
+     *
+     * @param variable The variable to bind.
+     * @param operand  The value (may be another Variable) to bind it to.
+     * @return The snapshot that was published.
+     */
+    public VariableSnapshot bind(final Variable variable, final Operand operand) {
+        return bindAll(Collections.singletonMap(variable, operand));
+    }
+
+    /**
+     * Atomically publishes a new version with all the given bindings
+     * applied. Readers observe either none or all of them.
+     *
+     * @param updates The bindings to apply.
+     * @return The snapshot that was published.
+     */
+    public VariableSnapshot bindAll(final Map<Variable, ? extends Operand> updates) {
+        while (true) {
+            VariableSnapshot previous = current.get();
+            Bindings next = previous.getBindings().withAll(updates);
+            VariableSnapshot snapshot = new VariableSnapshot(previous.getVersion() + 1, next);
+            if (current.compareAndSet(previous, snapshot)) {
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * @param variable The variable whose value is sought.
+     * @return The operand bound to the variable in the latest version,
+     * or null if it is not initialized.
+     */
+    public Operand get(final Variable variable) {
+        return current.get().get(variable);
+    }
+
+    /**
+     * @return The latest published version. It never changes, however
+     * many writes follow.
+     */
+    public VariableSnapshot snapshot() {
+        return current.get();
+    }
+}
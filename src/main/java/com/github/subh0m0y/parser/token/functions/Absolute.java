@@ -2,6 +2,7 @@ package com.github.subh0m0y.parser.token.functions;
 
 import com.github.subh0m0y.parser.exceptions.ArityException;
 import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.interval.Interval;
 import com.github.subh0m0y.parser.token.Operand;
 import com.github.subh0m0y.parser.token.Operator;
 
@@ -23,4 +24,16 @@ public class Absolute extends Operator {
         check(operands.length);
         return operands[0].abs();
     }
+
+    @Override
+    public double compute(double... values) throws ArityException {
+        check(values.length);
+        return Math.abs(values[0]);
+    }
+
+    @Override
+    public Interval enclose(Interval... operands) throws ArityException {
+        check(operands.length);
+        return operands[0].abs();
+    }
 }
@@ -0,0 +1,71 @@
+package com.github.subh0m0y.parser.token.functions;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.interval.Interval;
+import com.github.subh0m0y.parser.token.Operand;
+import com.github.subh0m0y.parser.token.ShortCircuitOperator;
+
+import java.util.function.IntFunction;
+
+/**
+ * The conditional function: {@code if(condition, then, otherwise)}.
+ * Scalar evaluation only evaluates the chosen branch. Batch evaluation
+ * computes both branches and selects between them with bit masks, so
+ * the loop has no branches and piecewise formulas stay vectorizable.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.24
+ */
+public class Conditional extends ShortCircuitOperator {
+    public static final Conditional INSTANCE = new Conditional();
+
+    private Conditional() {
+        super("if", 3, FUNCTIONAL);
+    }
+
+    @Override
+    public Operand evaluate(Operand first, IntFunction<Operand> remaining) {
+        return remaining.apply(isTrue(first.getValue()) ? 1 : 2);
+    }
+
+    @Override
+    public int neededOperand(Operand first) {
+        return isTrue(first.getValue()) ? 1 : 2;
+    }
+
+    @Override
+    public double compute(double... values) throws ArityException {
+        check(values.length);
+        return isTrue(values[0]) ? values[1] : values[2];
+    }
+
+    @Override
+    public void computeBatch(double[][] columns, double[] result, int length) throws ArityException {
+        check(columns.length);
+        final double[] condition = columns[0];
+        final double[] then = columns[1];
+        final double[] otherwise = columns[2];
+        for (int row = 0; row < length; row++) {
+            // All ones if the condition holds, all zeros otherwise
+            final long mask = -truth(condition[row]);
+            result[row] = Double.longBitsToDouble(
+                    Double.doubleToRawLongBits(then[row]) & mask
+                            | Double.doubleToRawLongBits(otherwise[row]) & ~mask
+            );
+        }
+    }
+
+    /**
+     * Takes the branch the condition decides, or the hull of both
+     * branches if it may go either way.
+     */
+    @Override
+    public Interval enclose(Interval... operands) throws ArityException {
+        check(operands.length);
+        final Interval truth = truthOf(operands[0]);
+        if (truth.isPoint()) {
+            return operands[truth.getLower() == 1 ? 1 : 2];
+        }
+        return operands[1].hull(operands[2]);
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.subh0m0y.parser.token.functions;
 
 import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.interval.Interval;
 import com.github.subh0m0y.parser.token.Operand;
 import com.github.subh0m0y.parser.token.Operator;
 
@@ -20,4 +21,16 @@ public class Logarithm extends Operator {
         check(operands.length);
         return operands[0].log();
     }
+
+    @Override
+    public double compute(double... values) throws ArityException {
+        check(values.length);
+        return Math.log(values[0]);
+    }
+
+    @Override
+    public Interval enclose(Interval... operands) throws ArityException {
+        check(operands.length);
+        return operands[0].log();
+    }
 }
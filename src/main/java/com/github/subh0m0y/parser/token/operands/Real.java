@@ -1,6 +1,7 @@
 package com.github.subh0m0y.parser.token.operands;
 
 import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.format.DoubleFormatter;
 import com.github.subh0m0y.parser.token.Operand;
 
 /**
@@ -189,6 +190,6 @@ public class Real implements Operand {
      */
     @Override
     public String toString() {
-        return String.format("%.2f", value);
+        return DoubleFormatter.fixed(2).format(value);
     }
 }
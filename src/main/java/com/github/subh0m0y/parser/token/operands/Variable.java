@@ -1,6 +1,7 @@
 package com.github.subh0m0y.parser.token.operands;
 
 import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.format.DoubleFormatter;
 import com.github.subh0m0y.parser.token.Operand;
 import com.github.subh0m0y.parser.token.VariableMap;
 
@@ -32,6 +33,13 @@ public class Variable implements Operand {
         this.symbol = symbol;
     }
 
+    /**
+     * @return The symbol that uniquely identifies this Variable.
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
     /**
      * @return The value that has been assigned to this Variable.
      * @throws EvaluationException If this variable is uninitialized.
@@ -210,7 +218,7 @@ public class Variable implements Operand {
     @Override
     public String toString() {
         return symbol + (isInitialized()
-                ? " = " + String.format("%.2f", getValue())
+                ? " = " + DoubleFormatter.fixed(2).format(getValue())
                 : "");
     }
 
@@ -31,4 +31,30 @@ public class Assignment extends Operator {
         VariableMap.INSTANCE.bind((Variable) operands[0], operands[1]);
         return operands[1];
     }
+
+    /**
+     * Assignment changes the VariableMap.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+
+    /**
+     * Assignment needs the Variable itself, which is lost once operands
+     * are reduced to plain values.
+     *
+     * @throws EvaluationException Always.
+     */
+    @Override
+    public double compute(double... values) throws EvaluationException {
+        throw new EvaluationException("Assignment only works for variables.");
+    }
+
+    @Override
+    public boolean isRightAssociative() {
+        return true;
+    }
 }
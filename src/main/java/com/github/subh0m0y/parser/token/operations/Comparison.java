@@ -0,0 +1,69 @@
+package com.github.subh0m0y.parser.token.operations;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.interval.Interval;
+import com.github.subh0m0y.parser.token.Operand;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.operands.Real;
+
+/**
+ * The common skeleton of the binary relational and equality operators.
+ * A comparison evaluates to 1 if it holds and 0 otherwise. As in IEEE
+ * 754, every comparison involving NaN is false, except "not equal".
+ * Subclasses override {@link #computeBatch(double[][], double[], int)}
+ * with their own loop, so that each loop contains a single comparison.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.24
+ */
+public abstract class Comparison extends Operator {
+
+    protected Comparison(final String symbol, final int priority) {
+        super(symbol, 2, priority);
+    }
+
+    /**
+     * @param left  The value of the left operand.
+     * @param right The value of the right operand.
+     * @return {@code true} if the comparison holds.
+     */
+    protected abstract boolean test(double left, double right);
+
+    @Override
+    public Operand evaluate(Operand... operands) throws ArityException, EvaluationException {
+        check(operands.length);
+        return new Real(valueOf(test(operands[0].getValue(), operands[1].getValue())));
+    }
+
+    @Override
+    public double compute(double... values) throws ArityException {
+        check(values.length);
+        return valueOf(test(values[0], values[1]));
+    }
+
+    /**
+     * The relations {@literal <, <=, > and >=} hold on a half plane, so
+     * they hold (or fail) for every pair of values in two intervals if
+     * they hold (or fail) at the four corners. Equality and inequality
+     * override this.
+     */
+    @Override
+    public Interval enclose(Interval... operands) throws ArityException {
+        check(operands.length);
+        final Interval left = operands[0];
+        final Interval right = operands[1];
+        if (left.mayBeNaN() || right.mayBeNaN()) {
+            return Interval.BOOLEAN;
+        }
+        int holds = 0;
+        for (double x : new double[]{left.getLower(), left.getUpper()}) {
+            for (double y : new double[]{right.getLower(), right.getUpper()}) {
+                if (test(x, y)) {
+                    holds++;
+                }
+            }
+        }
+        return holds == 4 ? Interval.valueOf(true) : holds == 0 ? Interval.valueOf(false) : Interval.BOOLEAN;
+    }
+}
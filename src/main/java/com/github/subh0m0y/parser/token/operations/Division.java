@@ -3,6 +3,7 @@ package com.github.subh0m0y.parser.token.operations;
 import com.github.subh0m0y.parser.token.Operand;
 import com.github.subh0m0y.parser.token.Operator;
 import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.interval.Interval;
 
 /**
  * @author Subhomoy Haldar
@@ -20,4 +21,26 @@ public class Division extends Operator {
         check(operands.length);
         return operands[0].divide(operands[1]);
     }
+
+    @Override
+    public double compute(double... values) throws ArityException {
+        check(values.length);
+        return values[0] / values[1];
+    }
+
+    @Override
+    public void computeBatch(double[][] columns, double[] result, int length) throws ArityException {
+        check(columns.length);
+        final double[] left = columns[0];
+        final double[] right = columns[1];
+        for (int row = 0; row < length; row++) {
+            result[row] = left[row] / right[row];
+        }
+    }
+
+    @Override
+    public Interval enclose(Interval... operands) throws ArityException {
+        check(operands.length);
+        return operands[0].divide(operands[1]);
+    }
 }
@@ -0,0 +1,48 @@
+package com.github.subh0m0y.parser.token.operations;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.interval.Interval;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.24
+ */
+public class Equality extends Comparison {
+    public static final Equality INSTANCE = new Equality();
+
+    private Equality() {
+        super("==", EQUALITY);
+    }
+
+    @Override
+    protected boolean test(double left, double right) {
+        return left == right;
+    }
+
+    @Override
+    public void computeBatch(double[][] columns, double[] result, int length) throws ArityException {
+        check(columns.length);
+        final double[] left = columns[0];
+        final double[] right = columns[1];
+        for (int row = 0; row < length; row++) {
+            result[row] = left[row] == right[row] ? 1 : 0;
+        }
+    }
+
+    @Override
+    public Interval enclose(Interval... operands) throws ArityException {
+        check(operands.length);
+        final Interval left = operands[0];
+        final Interval right = operands[1];
+        if (left.mayBeNaN() || right.mayBeNaN()) {
+            return Interval.BOOLEAN;
+        }
+        if (left.getUpper() < right.getLower() || right.getUpper() < left.getLower()) {
+            return Interval.valueOf(false);
+        }
+        if (left.isPoint() && right.isPoint()) {
+            return Interval.valueOf(true);
+        }
+        return Interval.BOOLEAN;
+    }
+}
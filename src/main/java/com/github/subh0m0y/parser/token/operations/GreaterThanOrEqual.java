@@ -0,0 +1,30 @@
+package com.github.subh0m0y.parser.token.operations;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.24
+ */
+public class GreaterThanOrEqual extends Comparison {
+    public static final GreaterThanOrEqual INSTANCE = new GreaterThanOrEqual();
+
+    private GreaterThanOrEqual() {
+        super(">=", RELATIONAL);
+    }
+
+    @Override
+    protected boolean test(double left, double right) {
+        return left >= right;
+    }
+
+    @Override
+    public void computeBatch(double[][] columns, double[] result, int length) throws ArityException {
+        check(columns.length);
+        final double[] left = columns[0];
+        final double[] right = columns[1];
+        for (int row = 0; row < length; row++) {
+            result[row] = left[row] >= right[row] ? 1 : 0;
+        }
+    }
+}
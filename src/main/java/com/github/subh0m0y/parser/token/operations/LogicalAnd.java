@@ -0,0 +1,62 @@
+package com.github.subh0m0y.parser.token.operations;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.interval.Interval;
+import com.github.subh0m0y.parser.token.Operand;
+import com.github.subh0m0y.parser.token.ShortCircuitOperator;
+import com.github.subh0m0y.parser.token.operands.Real;
+
+import java.util.function.IntFunction;
+
+/**
+ * Logical conjunction (&amp;&amp;). The right operand is only evaluated
+ * if the left one is true.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.24
+ */
+public class LogicalAnd extends ShortCircuitOperator {
+    public static final LogicalAnd INSTANCE = new LogicalAnd();
+
+    private LogicalAnd() {
+        super("&&", 2, CONJUNCTIVE);
+    }
+
+    @Override
+    public Operand evaluate(Operand first, IntFunction<Operand> remaining) {
+        return new Real(valueOf(isTrue(first.getValue())
+                && isTrue(remaining.apply(1).getValue())));
+    }
+
+    @Override
+    public int neededOperand(Operand first) {
+        return isTrue(first.getValue()) ? 1 : 0;
+    }
+
+    @Override
+    public double compute(double... values) throws ArityException {
+        check(values.length);
+        return valueOf(isTrue(values[0]) && isTrue(values[1]));
+    }
+
+    @Override
+    public void computeBatch(double[][] columns, double[] result, int length) throws ArityException {
+        check(columns.length);
+        final double[] left = columns[0];
+        final double[] right = columns[1];
+        for (int row = 0; row < length; row++) {
+            result[row] = truth(left[row]) & truth(right[row]);
+        }
+    }
+
+    @Override
+    public Interval enclose(Interval... operands) throws ArityException {
+        check(operands.length);
+        final Interval left = truthOf(operands[0]);
+        final Interval right = truthOf(operands[1]);
+        if (left.getUpper() == 0 || right.getUpper() == 0) {
+            return Interval.valueOf(false);
+        }
+        return left.getLower() == 1 && right.getLower() == 1 ? Interval.valueOf(true) : Interval.BOOLEAN;
+    }
+}
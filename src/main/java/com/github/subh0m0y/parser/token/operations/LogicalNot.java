@@ -0,0 +1,50 @@
+package com.github.subh0m0y.parser.token.operations;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.interval.Interval;
+import com.github.subh0m0y.parser.token.Operand;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.operands.Real;
+
+/**
+ * Logical negation (!). It is a prefix operator that binds as tightly
+ * as a function, so {@code !a && b} means {@code (!a) && b}.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.24
+ */
+public class LogicalNot extends Operator {
+    public static final LogicalNot INSTANCE = new LogicalNot();
+
+    private LogicalNot() {
+        super("!", 1, FUNCTIONAL);
+    }
+
+    @Override
+    public Operand evaluate(Operand... operands) throws ArityException {
+        check(operands.length);
+        return new Real(valueOf(!isTrue(operands[0].getValue())));
+    }
+
+    @Override
+    public double compute(double... values) throws ArityException {
+        check(values.length);
+        return valueOf(!isTrue(values[0]));
+    }
+
+    @Override
+    public void computeBatch(double[][] columns, double[] result, int length) throws ArityException {
+        check(columns.length);
+        final double[] operand = columns[0];
+        for (int row = 0; row < length; row++) {
+            result[row] = 1 - truth(operand[row]);
+        }
+    }
+
+    @Override
+    public Interval enclose(Interval... operands) throws ArityException {
+        check(operands.length);
+        final Interval truth = truthOf(operands[0]);
+        return truth.isPoint() ? Interval.valueOf(truth.getLower() == 0) : truth;
+    }
+}
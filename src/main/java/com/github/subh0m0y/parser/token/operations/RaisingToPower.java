@@ -3,6 +3,7 @@ package com.github.subh0m0y.parser.token.operations;
 import com.github.subh0m0y.parser.token.Operand;
 import com.github.subh0m0y.parser.token.Operator;
 import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.interval.Interval;
 
 /**
  * @author Subhomoy Haldar
@@ -20,4 +21,21 @@ public class RaisingToPower extends Operator {
         check(operands.length);
         return operands[0].pow(operands[1]);
     }
+
+    @Override
+    public double compute(double... values) throws ArityException {
+        check(values.length);
+        return Math.pow(values[0], values[1]);
+    }
+
+    @Override
+    public boolean isRightAssociative() {
+        return true;
+    }
+
+    @Override
+    public Interval enclose(Interval... operands) throws ArityException {
+        check(operands.length);
+        return operands[0].power(operands[1]);
+    }
 }
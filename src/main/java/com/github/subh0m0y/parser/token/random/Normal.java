@@ -0,0 +1,28 @@
+package com.github.subh0m0y.parser.token.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * {@code randn()}: a draw from the standard normal distribution. Every
+ * draw takes two uniform draws (by the Box-Muller transform) and keeps
+ * no spare, so the draws only depend on the stream.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.13
+ */
+public class Normal extends RandomFunction {
+    public static final Normal INSTANCE = new Normal();
+
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private Normal() {
+        super("randn", 0);
+    }
+
+    @Override
+    protected double draw(final SplittableRandom random, final double[] values) {
+        // 1 - u lies in (0, 1], so the logarithm is finite
+        final double radius = Math.sqrt(-2 * Math.log(1 - random.nextDouble()));
+        return radius * Math.cos(TWO_PI * random.nextDouble());
+    }
+}
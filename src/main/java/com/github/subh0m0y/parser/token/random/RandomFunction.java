@@ -0,0 +1,71 @@
+package com.github.subh0m0y.parser.token.random;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operand;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.operands.Real;
+
+import java.util.SplittableRandom;
+
+/**
+ * A function that returns a new random draw every time it is evaluated,
+ * from the stream of the evaluating thread in {@link RandomSource}.
+ * Random functions are never pure, so {@code rand() - rand()} is not
+ * folded to 0, and two calls are never shared as one.
+ * <p>
+ * Batch evaluation draws a whole column, row by row, before moving on
+ * to the next operator, so it consumes the stream in a different order
+ * than evaluating the rows one at a time does.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.13
+ */
+public abstract class RandomFunction extends Operator {
+
+    protected RandomFunction(final String symbol, final int arity) {
+        super(symbol, arity, FUNCTIONAL);
+    }
+
+    @Override
+    public Operand evaluate(final Operand... operands) throws ArityException, EvaluationException {
+        check(operands.length);
+        final double[] values = new double[operands.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = operands[i].getValue();
+        }
+        return new Real(draw(RandomSource.current(), values));
+    }
+
+    @Override
+    public final double compute(final double... values) throws ArityException {
+        check(values.length);
+        return draw(RandomSource.current(), values);
+    }
+
+    @Override
+    public void computeBatch(final double[][] columns, final double[] result, final int length)
+            throws ArityException {
+        check(columns.length);
+        final SplittableRandom random = RandomSource.current();
+        final double[] values = new double[columns.length];
+        for (int row = 0; row < length; row++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = columns[i][row];
+            }
+            result[row] = draw(random, values);
+        }
+    }
+
+    /**
+     * @param random The stream to draw from.
+     * @param values The values of the operands.
+     * @return The next draw.
+     */
+    protected abstract double draw(SplittableRandom random, double[] values);
+
+    @Override
+    public final boolean isPure() {
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.subh0m0y.parser.token.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * The streams of random numbers that the {@link RandomFunction}s draw
+ * from: one {@link SplittableRandom} per thread, so that drawing needs
+ * no locks. By default, every thread gets a stream split off a common
+ * root stream the first time it draws.
+ * <p>
+ * Reproducible runs install a stream of their own on the thread that
+ * evaluates, as the Monte Carlo engine does for every chunk of samples,
+ * and restore the previous one afterwards.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.13
+ */
+public final class RandomSource {
+    private static final SplittableRandom ROOT = new SplittableRandom();
+    private static final ThreadLocal<SplittableRandom> CURRENT = ThreadLocal.withInitial(RandomSource::split);
+
+    private RandomSource() {
+    }
+
+    private static SplittableRandom split() {
+        synchronized (ROOT) {
+            return ROOT.split();
+        }
+    }
+
+    /**
+     * @return The stream of the current thread.
+     */
+    public static SplittableRandom current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the given stream the stream of the current thread.
+     *
+     * @param stream The stream to draw from.
+     * @return The stream it replaces.
+     */
+    public static SplittableRandom install(final SplittableRandom stream) {
+        final SplittableRandom previous = CURRENT.get();
+        CURRENT.set(stream);
+        return previous;
+    }
+
+    /**
+     * Restarts the stream of the current thread from the given seed, so
+     * that the draws that follow on this thread are reproducible.
+     *
+     * @param seed The seed.
+     */
+    public static void setSeed(final long seed) {
+        CURRENT.set(new SplittableRandom(seed));
+    }
+}
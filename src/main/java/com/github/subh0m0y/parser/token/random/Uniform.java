@@ -0,0 +1,25 @@
+package com.github.subh0m0y.parser.token.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * {@code rand()}: a draw from the uniform distribution over [0, 1), and
+ * {@code uniform(a, b)}: a draw from the uniform distribution over [a, b).
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.13
+ */
+public class Uniform extends RandomFunction {
+    public static final Uniform STANDARD = new Uniform("rand", 0);
+    public static final Uniform RANGE = new Uniform("uniform", 2);
+
+    private Uniform(final String symbol, final int arity) {
+        super(symbol, arity);
+    }
+
+    @Override
+    protected double draw(final SplittableRandom random, final double[] values) {
+        final double u = random.nextDouble();
+        return values.length == 0 ? u : values[0] + (values[1] - values[0]) * u;
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.subh0m0y.parser.token.series;
+
+/**
+ * {@code delta(x)}: the change of x since the previous row, or NaN for
+ * the first row.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.08
+ */
+public class Delta extends SeriesFunction {
+    private double previous = Double.NaN;
+
+    public Delta() {
+        super("delta", 1);
+    }
+
+    @Override
+    protected double push(final double[] values) {
+        final double result = values[0] - previous;
+        previous = values[0];
+        return result;
+    }
+
+    @Override
+    public synchronized void reset() {
+        previous = Double.NaN;
+    }
+}
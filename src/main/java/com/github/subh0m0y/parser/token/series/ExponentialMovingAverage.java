@@ -0,0 +1,41 @@
+package com.github.subh0m0y.parser.token.series;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+
+/**
+ * {@code ema(x, alpha)}: the exponentially weighted moving average of x,
+ * which moves the fraction alpha of the way towards every new value.
+ * It starts out at the first value.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.08
+ */
+public class ExponentialMovingAverage extends SeriesFunction {
+    private double average;
+    private boolean started;
+
+    public ExponentialMovingAverage() {
+        super("ema", 2);
+    }
+
+    @Override
+    protected double push(final double[] values) throws EvaluationException {
+        final double alpha = values[1];
+        if (!(alpha > 0 && alpha <= 1)) {
+            throw new EvaluationException("The smoothing factor of ema must be in (0, 1], not " + alpha + ".");
+        }
+        if (started) {
+            average += alpha * (values[0] - average);
+        } else {
+            average = values[0];
+            started = true;
+        }
+        return average;
+    }
+
+    @Override
+    public synchronized void reset() {
+        average = 0;
+        started = false;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.subh0m0y.parser.token.series;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+
+/**
+ * {@code lag(x, n)}: the value x had n rows ago, or NaN for the first
+ * n rows.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.08
+ */
+public class Lag extends SeriesFunction {
+    private double[] ring;
+    private int position;
+    private long count;
+
+    public Lag() {
+        super("lag", 2);
+    }
+
+    @Override
+    protected double push(final double[] values) throws EvaluationException {
+        final int lag = window(values[1], ring == null ? 0 : ring.length);
+        if (ring == null) {
+            ring = new double[lag];
+        }
+        final double result = count >= lag ? ring[position] : Double.NaN;
+        ring[position] = values[0];
+        position = position + 1 == lag ? 0 : position + 1;
+        count++;
+        return result;
+    }
+
+    @Override
+    public synchronized void reset() {
+        ring = null;
+        position = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.subh0m0y.parser.token.series;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+
+/**
+ * {@code movavg(x, n)}: the mean of the last n values of x, or of all
+ * of them while there are fewer than n.
+ * <p>
+ * The sum is kept up to date by adding the newest value and subtracting
+ * the one that leaves the window. To keep rounding errors from piling
+ * up, it is summed afresh from the window once every n rows, which
+ * still costs constant time per row on average.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.08
+ */
+public class MovingAverage extends SeriesFunction {
+    private double[] ring;
+    private int position;
+    private int filled;
+    private double sum;
+
+    public MovingAverage() {
+        super("movavg", 2);
+    }
+
+    @Override
+    protected double push(final double[] values) throws EvaluationException {
+        final int width = window(values[1], ring == null ? 0 : ring.length);
+        if (ring == null) {
+            ring = new double[width];
+        }
+        if (filled == width) {
+            sum -= ring[position];
+        } else {
+            filled++;
+        }
+        ring[position] = values[0];
+        sum += values[0];
+        position++;
+        if (position == width) {
+            position = 0;
+            if (filled == width) {
+                sum = 0;
+                for (double value : ring) {
+                    sum += value;
+                }
+            }
+        }
+        return sum / filled;
+    }
+
+    @Override
+    public synchronized void reset() {
+        ring = null;
+        position = 0;
+        filled = 0;
+        sum = 0;
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.subh0m0y.parser.token.series;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+
+/**
+ * {@code movmax(x, n)} and {@code movmin(x, n)}: the largest (or
+ * smallest) of the last n values of x.
+ * <p>
+ * The candidates are kept in a monotonic deque: a value is dropped as
+ * soon as a newer value at least as large (or small) arrives, since it
+ * can never be the answer again. The front of the deque is the answer,
+ * and every value enters and leaves the deque once, so each row costs
+ * constant time on average.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.08
+ */
+public class MovingExtremum extends SeriesFunction {
+    private final boolean maximum;
+    // A circular deque of the candidates and the rows they came in
+    private double[] values;
+    private long[] rows;
+    private int head;
+    private int size;
+    private long row;
+
+    private MovingExtremum(final String symbol, final boolean maximum) {
+        super(symbol, 2);
+        this.maximum = maximum;
+    }
+
+    /**
+     * @return A new {@code movmax} function.
+     */
+    public static MovingExtremum maximum() {
+        return new MovingExtremum("movmax", true);
+    }
+
+    /**
+     * @return A new {@code movmin} function.
+     */
+    public static MovingExtremum minimum() {
+        return new MovingExtremum("movmin", false);
+    }
+
+    @Override
+    protected double push(final double[] operands) throws EvaluationException {
+        final int width = window(operands[1], values == null ? 0 : values.length);
+        if (values == null) {
+            values = new double[width];
+            rows = new long[width];
+        }
+        final double value = operands[0];
+        // Drop the candidate that left the window, then the ones the new
+        // value beats
+        if (size > 0 && rows[head] <= row - width) {
+            head = head + 1 == width ? 0 : head + 1;
+            size--;
+        }
+        while (size > 0) {
+            int last = head + size - 1;
+            if (last >= width) {
+                last -= width;
+            }
+            if (maximum ? values[last] > value : values[last] < value) {
+                break;
+            }
+            size--;
+        }
+        int tail = head + size;
+        if (tail >= width) {
+            tail -= width;
+        }
+        values[tail] = value;
+        rows[tail] = row++;
+        size++;
+        return values[head];
+    }
+
+    @Override
+    public synchronized void reset() {
+        values = null;
+        rows = null;
+        head = 0;
+        size = 0;
+        row = 0;
+    }
+}
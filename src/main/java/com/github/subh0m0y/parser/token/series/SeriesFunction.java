@@ -0,0 +1,95 @@
+package com.github.subh0m0y.parser.token.series;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operand;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.operands.Real;
+
+/**
+ * A function over a stream of values, such as a moving average. Every
+ * evaluation pushes the current value of the first operand as the
+ * newest row of the stream, and returns the function of the rows seen
+ * so far. Each function keeps just enough state (a ring buffer or a
+ * monotonic deque) to take constant time per row, however wide its
+ * window is.
+ * <p>
+ * The state belongs to one occurrence of the function in one
+ * Expression: the parser creates a fresh instance for every occurrence,
+ * so {@code movavg(x, 5) - movavg(y, 5)} tracks two streams. For the
+ * same reason, series functions are never pure: they are not folded,
+ * shared or compiled. A function inside a branch of {@code if} only sees
+ * the rows for which that branch is taken.
+ * <p>
+ * Widths of windows must be positive integers, and may not change from
+ * one row to the next.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.06.08
+ */
+public abstract class SeriesFunction extends Operator {
+    /**
+     * The widest window allowed.
+     */
+    public static final int MAXIMUM_WINDOW = 1 << 24;
+
+    protected SeriesFunction(final String symbol, final int arity) {
+        super(symbol, arity, FUNCTIONAL);
+    }
+
+    @Override
+    public Operand evaluate(final Operand... operands) throws ArityException, EvaluationException {
+        check(operands.length);
+        final double[] values = new double[operands.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = operands[i].getValue();
+        }
+        return new Real(compute(values));
+    }
+
+    @Override
+    public final synchronized double compute(final double... values) throws ArityException, EvaluationException {
+        check(values.length);
+        return push(values);
+    }
+
+    /**
+     * Takes in the next row of the stream.
+     *
+     * @param values The values of the operands for this row.
+     * @return The value of the function after the row.
+     * @throws EvaluationException If the operands are not valid.
+     */
+    protected abstract double push(double[] values) throws EvaluationException;
+
+    /**
+     * Forgets every row seen so far, as if the stream started over.
+     */
+    public abstract void reset();
+
+    @Override
+    public final boolean isPure() {
+        return false;
+    }
+
+    /**
+     * Checks the width of a window.
+     *
+     * @param value   The width asked for.
+     * @param current The width in use, or 0 before the first row.
+     * @return The width as an integer.
+     * @throws EvaluationException If the width is not a positive integer,
+     *                             or differs from the one in use.
+     */
+    protected int window(final double value, final int current) throws EvaluationException {
+        if (!(value >= 1 && value <= MAXIMUM_WINDOW && value == Math.rint(value))) {
+            throw new EvaluationException("The window of " + getSymbol()
+                    + " must be a whole number from 1 to " + MAXIMUM_WINDOW + ", not " + value + ".");
+        }
+        if (current != 0 && current != (int) value) {
+            throw new EvaluationException("The window of " + getSymbol()
+                    + " cannot change from " + current + " to " + (int) value + ".");
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.subh0m0y.parser.tree;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.Token;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An operator (or function) applied to as many child nodes as its arity.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.28
+ */
+public final class Application extends Node {
+    private final Operator operator;
+    private final List<Node> children;
+
+    /**
+     * @param operator The operator to apply.
+     * @param children Its operands, in order.
+     * @throws ArityException If the number of children does not match
+     *                        the arity of the operator.
+     */
+    public Application(final Operator operator, final Node... children) throws ArityException {
+        super(sizeOf(children), hashOf(operator, children));
+        if (children.length != operator.getArity()) {
+            throw new ArityException(operator, operator.getArity(), children.length);
+        }
+        this.operator = operator;
+        this.children = Collections.unmodifiableList(Arrays.asList(children.clone()));
+    }
+
+    /**
+     * @param operator The operator to apply.
+     * @param children Its operands, in order.
+     * @throws ArityException If the number of children does not match
+     *                        the arity of the operator.
+     */
+    public Application(final Operator operator, final List<Node> children) throws ArityException {
+        this(operator, children.toArray(new Node[children.size()]));
+    }
+
+    private static int sizeOf(final Node[] children) {
+        int size = 1;
+        for (Node child : children) {
+            size += child.size();
+        }
+        return size;
+    }
+
+    private static int hashOf(final Operator operator, final Node[] children) {
+        int hash = operator.getSymbol().hashCode();
+        for (Node child : children) {
+            hash = 31 * hash + child.hashCode();
+        }
+        return hash;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public Node getChild(final int index) {
+        return children.get(index);
+    }
+
+    @Override
+    public List<Node> getChildren() {
+        return children;
+    }
+
+    @Override
+    Token toToken() {
+        return operator;
+    }
+
+    @Override
+    boolean sameLabel(final Node other) {
+        return other instanceof Application && operator == ((Application) other).operator;
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.subh0m0y.parser.tree;
+
+import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.operands.Real;
+
+import java.util.List;
+
+/**
+ * A leaf holding a numeric literal.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.28
+ */
+public final class Constant extends Node {
+    private final double value;
+
+    public Constant(final double value) {
+        super(1, Double.hashCode(value));
+        this.value = value;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public List<Node> getChildren() {
+        return noChildren();
+    }
+
+    @Override
+    Token toToken() {
+        return new Real(value);
+    }
+
+    /**
+     * Constants are compared by their bits, so that NaN equals NaN and
+     * 0.0 does not equal -0.0.
+     */
+    @Override
+    boolean sameLabel(final Node other) {
+        return other instanceof Constant
+                && Double.doubleToLongBits(value) == Double.doubleToLongBits(((Constant) other).value);
+    }
+}
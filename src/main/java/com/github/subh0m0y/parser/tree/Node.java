@@ -0,0 +1,230 @@
+package com.github.subh0m0y.parser.tree;
+
+import com.github.subh0m0y.parser.exceptions.ArityException;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A node of an expression tree: a {@link Constant}, a {@link Reference}
+ * to a variable, or the {@link Application} of an operator to child
+ * nodes. Trees are immutable.
+ * <p>
+ * Generated expressions can be nested hundreds of thousands of levels
+ * deep, so nothing here recurses: traversals use an explicit stack, and
+ * the size and hash code of a node are computed from those of its
+ * children when it is created. Two trees are equal if they have the same
+ * shape and the same constants, variables and operators.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.28
+ */
+public abstract class Node {
+    private final int size;
+    private final int hash;
+
+    Node(final int size, final int hash) {
+        this.size = size;
+        this.hash = hash;
+    }
+
+    /**
+     * @return The child nodes, in order. Leaves have none.
+     */
+    public abstract List<Node> getChildren();
+
+    /**
+     * @return The number of nodes in this tree, including this one.
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * @return The token this node stands for in postfix order.
+     */
+    abstract Token toToken();
+
+    /**
+     * @return {@code true} if this node and the other one hold the same
+     * constant, variable or operator (ignoring their children).
+     */
+    abstract boolean sameLabel(Node other);
+
+    /**
+     * @return The tokens of this tree in postfix order, ready for the
+     * evaluator.
+     */
+    public final List<Token> toPostfix() {
+        final List<Token> tokens = new ArrayList<>(size);
+        for (Iterator<Node> iterator = postOrder(); iterator.hasNext(); ) {
+            tokens.add(iterator.next().toToken());
+        }
+        return tokens;
+    }
+
+    /**
+     * @return An iterator over the nodes of this tree in post-order:
+     * the children of every node come before it.
+     */
+    public final Iterator<Node> postOrder() {
+        return new PostOrder(this);
+    }
+
+    /**
+     * Rebuilds the tree from tokens in postfix order.
+     *
+     * @param tokens The tokens in postfix order.
+     * @return The root of the tree.
+     * @throws ArityException      If an operator does not have enough operands.
+     * @throws EvaluationException If there are too many operands, or a
+     *                             token is not an operand or operator.
+     */
+    public static Node fromPostfix(final List<Token> tokens) throws
+            ArityException,
+            EvaluationException {
+        final Deque<Node> stack = new ArrayDeque<>();
+        for (Token token : tokens) {
+            if (token instanceof Real) {
+                stack.push(new Constant(((Real) token).getValue()));
+            } else if (token instanceof Variable) {
+                stack.push(new Reference((Variable) token));
+            } else if (token instanceof Operator) {
+                Operator operator = (Operator) token;
+                int arity = operator.getArity();
+                if (stack.size() < arity) {
+                    throw new ArityException(operator, arity, stack.size());
+                }
+                Node[] children = new Node[arity];
+                for (int i = arity - 1; i >= 0; i--) {
+                    children[i] = stack.pop();
+                }
+                stack.push(new Application(operator, children));
+            } else {
+                throw new EvaluationException("Unexpected token in postfix order: " + token);
+            }
+        }
+        if (stack.size() != 1) {
+            throw new EvaluationException("Too many operands. There might be an operator (or more) missing.");
+        }
+        return stack.pop();
+    }
+
+    @Override
+    public final boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Node)) {
+            return false;
+        }
+        final Node other = (Node) obj;
+        if (hash != other.hash || size != other.size) {
+            return false;
+        }
+        // The arities are fixed, so equal post-order sequences of labels
+        // mean equal trees.
+        final Iterator<Node> mine = postOrder();
+        final Iterator<Node> theirs = other.postOrder();
+        while (mine.hasNext()) {
+            if (!mine.next().sameLabel(theirs.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public final int hashCode() {
+        return hash;
+    }
+
+    /**
+     * @return The fully parenthesized infix form of this tree.
+     */
+    @Override
+    public final String toString() {
+        final Deque<String> parts = new ArrayDeque<>();
+        for (Iterator<Node> iterator = postOrder(); iterator.hasNext(); ) {
+            Node node = iterator.next();
+            if (node instanceof Constant) {
+                parts.push(format(((Constant) node).getValue()));
+                continue;
+            }
+            if (node instanceof Reference) {
+                parts.push(((Reference) node).getSymbol());
+                continue;
+            }
+            Operator operator = ((Application) node).getOperator();
+            String[] operands = new String[operator.getArity()];
+            for (int i = operands.length - 1; i >= 0; i--) {
+                operands[i] = parts.pop();
+            }
+            if (operands.length == 2 && !operator.isFunction()) {
+                parts.push("(" + operands[0] + " " + operator.getSymbol() + " " + operands[1] + ")");
+            } else {
+                parts.push(operator.getSymbol() + "(" + String.join(", ", (CharSequence[]) operands) + ")");
+            }
+        }
+        return parts.pop();
+    }
+
+    private static String format(final double value) {
+        // Whole numbers print without a fraction, like in the source
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * An iterative post-order traversal.
+     */
+    private static final class PostOrder implements Iterator<Node> {
+        private final Deque<Node> nodes = new ArrayDeque<>();
+        private final Deque<Integer> visited = new ArrayDeque<>();
+
+        PostOrder(final Node root) {
+            nodes.push(root);
+            visited.push(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !nodes.isEmpty();
+        }
+
+        @Override
+        public Node next() {
+            if (nodes.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            while (true) {
+                final Node node = nodes.peek();
+                final List<Node> children = node.getChildren();
+                final int next = visited.pop();
+                if (next == children.size()) {
+                    nodes.pop();
+                    return node;
+                }
+                visited.push(next + 1);
+                nodes.push(children.get(next));
+                visited.push(0);
+            }
+        }
+    }
+
+    static List<Node> noChildren() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.subh0m0y.parser.tree;
+
+import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.operands.Variable;
+
+import java.util.List;
+
+/**
+ * A leaf referring to a variable by its symbol.
+ *
+ * @author Subhomoy Haldar
+ * @version 2017.05.28
+ */
+public final class Reference extends Node {
+    private final Variable variable;
+
+    public Reference(final Variable variable) {
+        super(1, variable.getSymbol().hashCode());
+        this.variable = variable;
+    }
+
+    public Reference(final String symbol) {
+        this(new Variable(symbol));
+    }
+
+    public Variable getVariable() {
+        return variable;
+    }
+
+    public String getSymbol() {
+        return variable.getSymbol();
+    }
+
+    @Override
+    public List<Node> getChildren() {
+        return noChildren();
+    }
+
+    @Override
+    Token toToken() {
+        return variable;
+    }
+
+    @Override
+    boolean sameLabel(final Node other) {
+        return other instanceof Reference && variable.equals(((Reference) other).variable);
+    }
+}
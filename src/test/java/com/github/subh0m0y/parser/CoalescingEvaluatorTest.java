@@ -0,0 +1,130 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.VariableStore;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.subh0m0y.parser.SnapshotTestHelper.bindings;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.07
+ */
+public class CoalescingEvaluatorTest {
+
+    @Test
+    public void testFullBatches() throws Exception {
+        CoalescingEvaluator evaluator = new CoalescingEvaluator(
+                new Expression("x * y + 1"), 4, 1, TimeUnit.HOURS);
+        List<CompletableFuture<Double>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(evaluator.evaluateAsync(bindings(i, 2)));
+        }
+        for (int i = 0; i < 8; i++) {
+            assertEquals(futures.get(i).get(10, TimeUnit.SECONDS), 2.0 * i + 1);
+        }
+        CoalescingEvaluator.Metrics metrics = evaluator.getMetrics();
+        assertEquals(metrics.getRequests(), 8);
+        assertEquals(metrics.getBatches(), 2);
+        assertEquals(metrics.getFullBatches(), 2);
+        assertEquals(metrics.getQueueDepth(), 0);
+        assertEquals(metrics.getMaximumQueueDepth(), 4);
+        assertEquals(metrics.getBatchSizes()[2], 2);
+        assertEquals(metrics.getAverageBatchSize(), 4.0);
+    }
+
+    @Test
+    public void testWindow() throws Exception {
+        CoalescingEvaluator evaluator = new CoalescingEvaluator(
+                new Expression("x - y"), 1000, 20, TimeUnit.MILLISECONDS);
+        CompletableFuture<Double> first = evaluator.evaluateAsync(bindings(5, 3));
+        CompletableFuture<Double> second = evaluator.evaluateAsync(bindings(1, 3));
+        assertEquals(first.get(10, TimeUnit.SECONDS), 2.0);
+        assertEquals(second.get(10, TimeUnit.SECONDS), -2.0);
+        assertEquals(evaluator.getMetrics().getFullBatches(), 0);
+
+        // Flushing early does not wait for the window
+        CoalescingEvaluator slow = new CoalescingEvaluator(new Expression("x"), 1000, 1, TimeUnit.HOURS);
+        CompletableFuture<Double> future = slow.evaluateAsync(bindings(7, 0));
+        assertEquals(slow.getMetrics().getQueueDepth(), 1);
+        slow.flush();
+        assertEquals(future.get(10, TimeUnit.SECONDS), 7.0);
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        CoalescingEvaluator evaluator = new CoalescingEvaluator(
+                new Expression("sqrt(x^2 + y^2)"), 64, 1, TimeUnit.MILLISECONDS);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<CompletableFuture<Double>>>> submissions = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int offset = thread * 1000;
+                submissions.add(callers.submit(() -> {
+                    List<CompletableFuture<Double>> futures = new ArrayList<>();
+                    for (int i = 0; i < 500; i++) {
+                        futures.add(evaluator.evaluateAsync(bindings(3 * (offset + i), 4 * (offset + i))));
+                    }
+                    return futures;
+                }));
+            }
+            for (int thread = 0; thread < 8; thread++) {
+                List<CompletableFuture<Double>> futures = submissions.get(thread).get();
+                for (int i = 0; i < futures.size(); i++) {
+                    assertEquals(futures.get(i).get(10, TimeUnit.SECONDS), 5.0 * (thread * 1000 + i), 1e-9);
+                }
+            }
+        } finally {
+            callers.shutdown();
+        }
+        CoalescingEvaluator.Metrics metrics = evaluator.getMetrics();
+        assertEquals(metrics.getRequests(), 4000);
+        long batches = 0;
+        for (long count : metrics.getBatchSizes()) {
+            batches += count;
+        }
+        assertEquals(batches, metrics.getBatches());
+        assertTrue(metrics.getAverageBatchSize() > 1);
+    }
+
+    @Test
+    public void testErrorsAreReportedPerRow() throws Exception {
+        CoalescingEvaluator evaluator = new CoalescingEvaluator(
+                new Expression("sqrt(x) + y"), 3, 1, TimeUnit.HOURS);
+        CompletableFuture<Double> valid = evaluator.evaluateAsync(bindings(4, 1));
+        CompletableFuture<Double> invalid = evaluator.evaluateAsync(bindings(-4, 1));
+        CompletableFuture<Double> unbound = evaluator.evaluateAsync(new VariableStore().snapshot());
+        assertEquals(valid.get(10, TimeUnit.SECONDS), 3.0);
+        for (CompletableFuture<Double> future : Arrays.asList(invalid, unbound)) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("The row should fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof EvaluationException);
+            }
+        }
+        assertEquals(evaluator.getMetrics().getFallbacks(), 2);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testAssignmentIsRejected() throws Exception {
+        new CoalescingEvaluator(new Expression("y = x"), 10, 1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testSeriesIsRejected() throws Exception {
+        // The rows of concurrent callers would share one lag
+        new CoalescingEvaluator(new Expression("lag(x, 1)"), 10, 1, TimeUnit.MILLISECONDS);
+    }
+}
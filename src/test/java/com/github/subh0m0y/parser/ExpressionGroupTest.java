@@ -0,0 +1,110 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+
+import static com.github.subh0m0y.parser.SnapshotTestHelper.bindings;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.31
+ */
+public class ExpressionGroupTest {
+    private static final double EPS = 1e-12;
+
+    private static Program compile(final String expression) throws Exception {
+        Program.Builder builder = new Program.Builder();
+        builder.appendExpression(new Expression(expression).getTokens(), new HashMap<>());
+        return builder.build();
+    }
+
+    private static int count(final String text, final String part) {
+        return text.split(part, -1).length - 1;
+    }
+
+    @Test
+    public void testRepeatedSubterms() throws Exception {
+        Program program = compile("sin(x*y) + 2*sin(x*y) + cos(sin(x*y)) / sin(x*y)");
+        String code = program.toString();
+        assertEquals(count(code, "apply sin"), 1, code);
+        assertEquals(count(code, "apply \\*"), 2, code);
+
+        double s = Math.sin(3 * 0.25);
+        double expected = s + 2 * s + Math.cos(s) / s;
+        assertEquals(program.run(program.newFrame(), bindings(3, 0.25)), expected, EPS);
+    }
+
+    @Test
+    public void testSkippedBranches() throws Exception {
+        // The first sqrt(a*b) is skipped when a is not positive, so the
+        // second one must compute it again
+        Program program = compile("if(x > 0, sqrt(x*y), 1) + sqrt(x*y)");
+        assertEquals(program.run(program.newFrame(), bindings(-2, -8)), 5, EPS);
+        assertEquals(program.run(program.newFrame(), bindings(2, 8)), 8, EPS);
+
+        program = compile("x > 1 && sqrt(y) > 1 || sqrt(y) < 1");
+        assertEquals(program.run(program.newFrame(), bindings(0, 0.25)), 1, EPS);
+        assertEquals(program.run(program.newFrame(), bindings(2, 4)), 1, EPS);
+        assertEquals(program.run(program.newFrame(), bindings(2, 1)), 0, EPS);
+    }
+
+    @Test
+    public void testDeepNesting() throws Exception {
+        final int depth = 50_000;
+        StringBuilder sum = new StringBuilder();
+        StringBuilder branches = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sum.append("x+(");
+            branches.append("if(x > ").append(i).append(", ");
+        }
+        sum.append('y');
+        branches.append('y');
+        for (int i = 0; i < depth; i++) {
+            sum.append(')');
+            branches.append(", ").append(depth - 1 - i).append(')');
+        }
+        Program program = compile(sum.toString());
+        assertEquals(program.run(program.newFrame(), bindings(1, 2)), depth + 2, EPS);
+        program = compile(branches.toString());
+        assertEquals(program.run(program.newFrame(), bindings(40, 2)), 40, EPS);
+        assertEquals(program.run(program.newFrame(), bindings(depth, 2)), 2, EPS);
+    }
+
+    @Test
+    public void testGroup() throws Exception {
+        String[] sources = {
+                "(x + y)^2 * sin(x*y)",
+                "sqrt((x + y)^2 + 1)",
+                "cos(x*y) + sin(x*y)",
+                "x",
+        };
+        Expression[] expressions = new Expression[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            expressions[i] = new Expression(sources[i]);
+        }
+        ExpressionGroup group = new ExpressionGroup(expressions);
+        assertEquals(group.size(), sources.length);
+        // a + b, (a + b)^2, a*b and sin(a*b)
+        assertEquals(group.getSharedCount(), 4);
+
+        VariableSnapshot snapshot = bindings(1.5, -0.5);
+        double[] results = group.evaluate(snapshot);
+        for (int i = 0; i < sources.length; i++) {
+            assertEquals(results[i], expressions[i].evaluate(snapshot).getValue(), EPS, sources[i]);
+        }
+
+        double[] reused = new double[sources.length];
+        group.evaluate(bindings(2, 3), reused);
+        assertEquals(reused[1], Math.sqrt(26), EPS);
+        assertEquals(reused[3], 2, EPS);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testAssignmentsCannotBeGrouped() throws Exception {
+        new ExpressionGroup(new Expression("x + 1"), new Expression("group_c = x * 2"));
+    }
+}
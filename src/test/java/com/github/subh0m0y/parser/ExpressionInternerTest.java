@@ -0,0 +1,59 @@
+package com.github.subh0m0y.parser;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.09
+ */
+public class ExpressionInternerTest {
+
+    @Test
+    public void testEquivalentFormulasAreShared() throws Exception {
+        ExpressionInterner interner = new ExpressionInterner(false);
+        Expression first = interner.intern("x * 2 + sin(y)");
+        assertSame(interner.intern("sin( y ) + (2 * x)"), first);
+        assertSame(interner.intern("((sin(y))) + x*2"), first);
+        Expression other = interner.intern("x * 3 + sin(y)");
+        assertNotSame(other, first);
+        // The grouping of a sum is kept unless reassociation is enabled
+        Expression left = interner.intern("(a + b) + c");
+        Expression right = interner.intern("a + (b + c)");
+        assertNotSame(left, right);
+        assertEquals(interner.size(), 4);
+        assertEquals(interner.getHits(), 2);
+        assertEquals(interner.getMisses(), 4);
+
+        ExpressionInterner reassociating = new ExpressionInterner(true);
+        assertSame(reassociating.intern("(a + b) + c"), reassociating.intern("c + (b + a)"));
+        assertSame(ExpressionInterner.getGlobal().intern("x * y"), ExpressionInterner.getGlobal().intern("y*x"));
+    }
+
+    @Test
+    public void testStatefulFormulasAreNotShared() throws Exception {
+        ExpressionInterner interner = new ExpressionInterner(false);
+        assertNotSame(interner.intern("movavg(x, 3)"), interner.intern("movavg(x, 3)"));
+        assertNotSame(interner.intern("y = x + 1"), interner.intern("y = 1 + x"));
+        assertEquals(interner.size(), 0);
+    }
+
+    @Test
+    public void testUnusedExpressionsAreDropped() throws Exception {
+        ExpressionInterner interner = new ExpressionInterner(false);
+        for (int i = 0; i < 100; i++) {
+            interner.intern("x * " + i);
+        }
+        List<byte[]> pressure = new ArrayList<>();
+        for (int attempt = 0; attempt < 50 && interner.size() > 0; attempt++) {
+            System.gc();
+            pressure.add(new byte[1 << 16]);
+            Thread.sleep(10);
+        }
+        assertEquals(interner.size(), 0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.subh0m0y.parser;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.20
+ */
+public class ExpressionLibraryLoaderTest {
+    private static final double EPS = 1e-12;
+
+    @Test
+    public void testLoadReportsErrorsWithoutStopping() throws Exception {
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sources.add(i % 100 == 7 ? "sin(" + i : i + " * 2 + 1");
+        }
+        ExpressionLibraryLoader loader = new ExpressionLibraryLoader(4, 2, 500);
+        assertFalse(loader.isReady());
+        ExpressionLibrary library = loader.load(sources);
+        assertTrue(loader.isReady());
+
+        assertEquals(library.size(), 1000);
+        assertEquals(library.getErrors().size(), 10);
+        assertEquals(library.getMetrics().getFailedCount(), 10);
+        assertEquals(library.getMetrics().getCompiledCount(), 990);
+        assertEquals(library.getMetrics().getWarmUpEvaluations(), 1000);
+        for (int i = 0; i < library.getErrors().size(); i++) {
+            assertEquals(library.getErrors().get(i).getIndex(), i * 100 + 7);
+        }
+        for (int i = 0; i < library.size(); i++) {
+            if (i % 100 == 7) {
+                assertNull(library.get(i));
+            } else {
+                assertEquals(library.get(i).evaluate().getValue(), i * 2 + 1, EPS);
+            }
+        }
+    }
+
+    @Test
+    public void testErrorsOnlyFailTheirSource() throws Exception {
+        ExpressionLibraryLoader loader = new ExpressionLibraryLoader(2, 0, 0, source -> {
+            if (source.startsWith("overflow")) {
+                throw new StackOverflowError();
+            }
+            if (source.startsWith("exhausted")) {
+                throw new OutOfMemoryError("Formula too large");
+            }
+            return new Expression(source);
+        });
+        ExpressionLibrary library = loader.load(Arrays.asList("1 + 1", "overflow", "2 * 3", "exhausted", "sin("));
+        assertTrue(loader.isReady());
+        assertEquals(library.getMetrics().getCompiledCount(), 2);
+        assertEquals(library.getErrors().size(), 3);
+        assertEquals(library.getErrors().get(0).getIndex(), 1);
+        assertEquals(library.getErrors().get(0).getMessage(), StackOverflowError.class.getName());
+        assertEquals(library.getErrors().get(1).getMessage(), "Formula too large");
+        assertEquals(library.get(2).evaluate().getValue(), 6, EPS);
+    }
+
+    @Test
+    public void testLoadFromFile() throws Exception {
+        Path file = Files.createTempFile("library", ".txt");
+        try {
+            Files.write(file, Arrays.asList("# comment", "", "2^10", "  sqrt(16)  "),
+                    StandardCharsets.UTF_8);
+            ExpressionLibrary library = new ExpressionLibraryLoader(2, 0, 0).load(file);
+            assertEquals(library.size(), 2);
+            assertEquals(library.getSource(1), "sqrt(16)");
+            assertEquals(library.get(0).evaluate().getValue(), 1024, EPS);
+            assertEquals(library.get(1).evaluate().getValue(), 4, EPS);
+            assertEquals(library.getMetrics().getWarmUpEvaluations(), 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.ImproperParenthesesException;
+import com.github.subh0m0y.parser.token.Operator;
+import com.github.subh0m0y.parser.token.Token;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.VariableStore;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.27
+ */
+public class ExpressionParseTest {
+    private static final String[] EXPRESSIONS = {
+            "1 + 2 * 3",
+            "-parse_x + -2.5 * (parse_y - -3)",
+            "2parse_x * (3 + parse_y)(parse_y - 1)",
+            "sin(parse_x) ^ 2 + cos ( parse_x ) ^ 2",
+            "if(parse_x <= 1 && !(parse_y == 2) || parse_x != parse_y, -1, parse_z = 3)",
+            "parse_a=parse_b=-(4)",
+            "+3 - (+2)",
+            "parse_x>=-1",
+            "2^-parse_x/3",
+    };
+    // The values of the expressions above, computed independently
+    private static final DoubleBinaryOperator[] VALUES = {
+            (x, y) -> 1 + 2 * 3,
+            (x, y) -> -x + -2.5 * (y - -3),
+            (x, y) -> 2 * x * (3 + y) * (y - 1),
+            (x, y) -> Math.pow(Math.sin(x), 2) + Math.pow(Math.cos(x), 2),
+            (x, y) -> x <= 1 && !(y == 2) || x != y ? -1 : 3,
+            (x, y) -> -4,
+            (x, y) -> 3 - 2,
+            (x, y) -> x >= -1 ? 1 : 0,
+            (x, y) -> Math.pow(2, -x) / 3,
+    };
+    private static final double[][] BINDINGS = {{0, 0}, {1, 2}, {-1.5, 0.25}, {3, 3}};
+    private static final double EPS = 1e-12;
+
+    private static String describe(final List<Token> tokens) {
+        StringBuilder builder = new StringBuilder();
+        for (Token token : tokens) {
+            if (token instanceof Real) {
+                builder.append(((Real) token).getValue());
+            } else if (token instanceof Variable) {
+                builder.append('$').append(((Variable) token).getSymbol());
+            } else {
+                builder.append(((Operator) token).getSymbol());
+            }
+            builder.append(' ');
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testSameTokensAsString() throws Exception {
+        for (int i = 0; i < EXPRESSIONS.length; i++) {
+            String expression = EXPRESSIONS[i];
+            Expression parsed = new Expression(expression);
+            for (double[] binding : BINDINGS) {
+                VariableMap.INSTANCE.bind(new Variable("parse_x"), new Real(binding[0]));
+                VariableMap.INSTANCE.bind(new Variable("parse_y"), new Real(binding[1]));
+                assertEquals(parsed.evaluate().getValue(), VALUES[i].applyAsDouble(binding[0], binding[1]),
+                        EPS, expression);
+            }
+
+            String expected = describe(parsed.getTokens());
+            assertEquals(describe(Expression.parse(expression).getTokens()), expected, expression);
+            assertEquals(describe(Expression.parse(new StringReader(expression)).getTokens()), expected, expression);
+            ByteBuffer bytes = ByteBuffer.wrap(expression.getBytes(StandardCharsets.UTF_8));
+            assertEquals(describe(Expression.parse(bytes, StandardCharsets.UTF_8).getTokens()), expected, expression);
+            assertEquals(bytes.position(), 0);
+        }
+    }
+
+    @Test(expectedExceptions = ImproperParenthesesException.class)
+    public void testUnbalancedParentheses() throws Exception {
+        Expression.parse(new StringReader("(1 + (2 * 3)"));
+    }
+
+    @Test(expectedExceptions = ExpressionTokenizer.UnrecognizedCharacterException.class)
+    public void testUnrecognizedCharacter() throws Exception {
+        Expression.parse("1 + 2 $ 3");
+    }
+
+    @Test(timeOut = 60_000)
+    public void testMillionTokens() throws Exception {
+        // Every term "x*2+" is four tokens
+        final int terms = 250_000;
+        StringBuilder builder = new StringBuilder(terms * 6);
+        for (int i = 0; i < terms; i++) {
+            builder.append("x*2 + ");
+        }
+        builder.append('1');
+        Expression expression = Expression.parse(new StringReader(builder.toString()));
+        assertEquals(expression.getTokens().size(), 4 * terms + 1);
+
+        VariableSnapshot x = new VariableStore().bind(new Variable("x"), new Real(0.5));
+        assertEquals(expression.evaluate(x).getValue(), terms + 1.0);
+    }
+
+    @Test(timeOut = 60_000)
+    public void testDeepNesting() throws Exception {
+        final int depth = 200_000;
+        StringBuilder builder = new StringBuilder(depth * 4);
+        for (int i = 0; i < depth; i++) {
+            builder.append('(');
+        }
+        builder.append('x');
+        for (int i = 0; i < depth; i++) {
+            builder.append("+1)");
+        }
+        byte[] bytes = builder.toString().getBytes(StandardCharsets.US_ASCII);
+        Expression expression = Expression.parse(ByteBuffer.wrap(bytes), StandardCharsets.US_ASCII);
+        assertEquals(expression.getTokens().size(), 2 * depth + 1);
+
+        VariableSnapshot x = new VariableStore().bind(new Variable("x"), new Real(1));
+        assertEquals(expression.evaluate(x).getValue(), depth + 1.0);
+    }
+
+    @Test(timeOut = 120_000)
+    public void testLinearScaling() throws Exception {
+        // 10^5 and 10^6 tokens, both flat and nested. Ten times the
+        // input should take about ten times as long; a parser that is
+        // quadratic anywhere would take about a hundred times as long.
+        String[][] shapes = {
+                {"", "x*2 + ", "1", ""},
+                {"(", "", "x", "+1)"},
+        };
+        int[][] repetitions = {{25_000, 250_000}, {50_000, 500_000}};
+        for (int shape = 0; shape < shapes.length; shape++) {
+            long small = fastestParse(repeat(shapes[shape], repetitions[shape][0]));
+            long large = fastestParse(repeat(shapes[shape], repetitions[shape][1]));
+            assertTrue(large < 40 * small, "shape " + shape + ": " + small + " ns, then " + large + " ns");
+        }
+    }
+
+    private static String repeat(final String[] shape, final int count) {
+        StringBuilder builder = new StringBuilder(count * 8);
+        for (int i = 0; i < count; i++) {
+            builder.append(shape[0]).append(shape[1]);
+        }
+        builder.append(shape[2]);
+        for (int i = 0; i < count; i++) {
+            builder.append(shape[3]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return The least time, in nanoseconds, that parsing the input
+     * from a Reader took over a few runs, the first of which also warms
+     * up the parser.
+     */
+    private static long fastestParse(final String input) {
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            ExpressionParser.parse(CharSource.of(new StringReader(input)));
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.ExpressionParser.ConversionException;
+import com.github.subh0m0y.parser.exceptions.ImproperParenthesesException;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.token.operations.RaisingToPower;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.28
+ */
+public class ExpressionParserTest {
+    private static final double EPS = 1e-12;
+
+    private static Node parse(final String expression) {
+        return ExpressionParser.parse(CharSource.of(expression));
+    }
+
+    private static double evaluate(final String expression) {
+        return new Expression(expression).evaluate().getValue();
+    }
+
+    @Test
+    public void testAssociativity() throws Exception {
+        assertEquals(evaluate("8 / 2 / 2"), 2, EPS);
+        assertEquals(evaluate("10 - 4 - 3"), 3, EPS);
+        assertEquals(evaluate("2 ^ 3 ^ 2"), 512, EPS);
+        assertEquals(parse("a ^ b ^ c"), new Application(RaisingToPower.INSTANCE,
+                new Reference("a"),
+                new Application(RaisingToPower.INSTANCE, new Reference("b"), new Reference("c"))));
+    }
+
+    @Test
+    public void testMinusSign() throws Exception {
+        assertEquals(evaluate("-2 ^ 2"), -4, EPS);
+        assertEquals(evaluate("2 ^ -1"), 0.5, EPS);
+        assertEquals(evaluate("2 ^ -1 * 4"), 2, EPS);
+        assertEquals(evaluate("3 - -2"), 5, EPS);
+        assertEquals(evaluate("-(1 + 2) * -3"), 9, EPS);
+        assertEquals(evaluate("+3 - (+2)"), 1, EPS);
+        assertEquals(parse("x - 2"), new Application(Addition.INSTANCE, new Reference("x"), new Constant(-2)));
+    }
+
+    @Test
+    public void testFunctionsAndImplicitMultiplication() throws Exception {
+        VariableMap.INSTANCE.bind(new Variable("parser_x"), new Real(0.5));
+        assertEquals(evaluate("2parser_x * (3 + 1)(2)"), 8, EPS);
+        assertEquals(evaluate("sin(parser_x)^2 + cos(parser_x)^2"), 1, EPS);
+        assertEquals(evaluate("if(parser_x > 1, 10, -10)"), -10, EPS);
+        assertEquals(evaluate("!(parser_x < 1) || 2 >= 2"), 1, EPS);
+        assertEquals(evaluate("parser_y = parser_z = 7"), 7, EPS);
+        assertEquals(VariableMap.INSTANCE.get(new Variable("parser_y")).getValue(), 7, EPS);
+    }
+
+    @Test
+    public void testTree() throws Exception {
+        Node tree = parse("sqrt(x^2 + y^2) * 2");
+        assertEquals(tree.size(), 10);
+        assertEquals(tree.toString(), "(sqrt(((x ^ 2) + (y ^ 2))) * 2)");
+        assertEquals(Node.fromPostfix(tree.toPostfix()), tree);
+        assertEquals(new Expression(tree).toTree(), tree);
+        assertEquals(tree.hashCode(), parse("sqrt(x ^ 2 + y ^ 2) * 2").hashCode());
+        assertNotEquals(tree, parse("sqrt(x^2 + y^2) * 3"));
+        assertNotEquals(new Constant(0.0), new Constant(-0.0));
+        assertNull(parse("  "));
+    }
+
+    @Test(expectedExceptions = ConversionException.class)
+    public void testWrongArgumentCount() throws Exception {
+        parse("sin(1, 2)");
+    }
+
+    @Test(expectedExceptions = ConversionException.class)
+    public void testMissingOperand() throws Exception {
+        parse("1 + 2 *");
+    }
+
+    @Test(expectedExceptions = ConversionException.class)
+    public void testMisplacedSeparator() throws Exception {
+        parse("(1, 2)");
+    }
+
+    @Test(expectedExceptions = ImproperParenthesesException.class)
+    public void testUnbalancedParentheses() throws Exception {
+        parse("(1 + 2))");
+    }
+
+    @Test
+    public void testEmptyArgumentList() throws Exception {
+        assertEquals(parse("rand()").toString(), "rand()");
+        assertEquals(parse("2 * randn() + uniform(1, 3)").toString(), "((2 * randn()) + uniform(1, 3))");
+    }
+
+    @Test(expectedExceptions = ConversionException.class)
+    public void testMissingArguments() throws Exception {
+        parse("sin()");
+    }
+
+    @Test(expectedExceptions = ImproperParenthesesException.class)
+    public void testEmptyParentheses() throws Exception {
+        parse("2 * ()");
+    }
+}
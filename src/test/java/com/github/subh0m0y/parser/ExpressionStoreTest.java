@@ -0,0 +1,114 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.21
+ */
+public class ExpressionStoreTest {
+    private static final double EPS = 1e-12;
+    private final Random random = new Random();
+
+    @Test
+    public void testEvaluateMatchesExpression() throws Exception {
+        VariableMap.INSTANCE.bind(new Variable("store_x"), new Real(1.25));
+        VariableMap.INSTANCE.bind(new Variable("store_y"), new Real(-3.5));
+        String[] sources = {
+                "1 + 2 * 3",
+                "2store_x + sin(store_y) / 4",
+                "(store_x - store_y)^2 + sqrt(abs(store_y))",
+                "exp(log(7)) * cos(pi) - tan(e)",
+                "3(store_x)(store_y)"
+        };
+        ExpressionStore store = new ExpressionStore();
+        int[] handles = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            handles[i] = store.add(sources[i]);
+        }
+        for (int i = 0; i < sources.length; i++) {
+            double expected = new Expression(sources[i]).evaluate().getValue();
+            assertEquals(store.evaluate(handles[i]), expected, EPS, sources[i]);
+        }
+        assertEquals(store.size(), sources.length);
+    }
+
+    @Test
+    public void testSymbolsAndConstantsAreShared() throws Exception {
+        ExpressionStore store = new ExpressionStore();
+        for (int i = 0; i < 10_000; i++) {
+            store.add("2 * store_a + 3 * store_b - " + (i % 10));
+        }
+        assertEquals(store.getSymbolCount(), 2);
+        // 2, 3 and the subtracted digits, negated: -0 to -9
+        assertEquals(store.getConstantCount(), 12);
+    }
+
+    @Test
+    public void testManyArenas() throws Exception {
+        ExpressionStore store = new ExpressionStore();
+        VariableMap.INSTANCE.bind(new Variable("store_z"), new Real(2));
+        int[] handles = new int[100_000];
+        double[] expected = new double[handles.length];
+        for (int i = 0; i < handles.length; i++) {
+            int a = random.nextInt(1000);
+            int b = random.nextInt(1000) + 1;
+            handles[i] = store.add("(" + a + " + store_z) / " + b + " + store_z^3");
+            expected[i] = (a + 2.0) / b + 8;
+        }
+        assertTrue(store.getReservedBytes() > 1 << 20);
+        for (int i = 0; i < handles.length; i++) {
+            assertEquals(store.evaluate(handles[i]), expected[i], EPS);
+        }
+    }
+
+    @Test
+    public void testAssignment() throws Exception {
+        ExpressionStore store = new ExpressionStore();
+        int handle = store.add("store_w = 4 * 5");
+        assertEquals(store.evaluate(handle), 20, EPS);
+        assertEquals(VariableMap.INSTANCE.get(new Variable("store_w")).getValue(), 20, EPS);
+    }
+
+    @Test
+    public void testInvalidHandles() throws Exception {
+        ExpressionStore store = new ExpressionStore();
+        assertEquals(store.add("1 + 2"), 0);
+        assertEquals(store.add("3 * 4"), 1);
+        assertEquals(store.evaluate(1), 12, EPS);
+        for (int handle : new int[]{-1, 2, 1 << 20}) {
+            try {
+                store.evaluate(handle);
+                fail("Handle " + handle + " was accepted.");
+            } catch (EvaluationException e) {
+                assertTrue(e.getMessage().contains(String.valueOf(handle)), e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testStatefulOperatorsAreRejected() throws Exception {
+        ExpressionStore store = new ExpressionStore();
+        String[] stateful = {"lag(x, 1)", "if(x > 0, lag(x, 1), -1)", "1 + movavg(x, 3)"};
+        for (String expression : stateful) {
+            try {
+                store.add(expression);
+                fail(expression + " was stored.");
+            } catch (EvaluationException e) {
+                assertTrue(e.getMessage().contains("state"), e.getMessage());
+            }
+        }
+        assertEquals(store.size(), 0);
+        // Random draws keep no state of their own
+        double draw = store.evaluate(store.add("rand()"));
+        assertTrue(draw >= 0 && draw < 1);
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.22
+ */
+public class ExpressionTest {
+    private static final double EPS = 1e-12;
+
+    @Test
+    public void testEvaluateAgainstSnapshot() throws Exception {
+        Variable a = new Variable("snapshot_a");
+        Variable b = new Variable("snapshot_b");
+        VariableMap.INSTANCE.bind(a, new Real(2));
+        VariableMap.INSTANCE.bind(b, new Real(5));
+        VariableSnapshot snapshot = VariableMap.INSTANCE.snapshot();
+        VariableMap.INSTANCE.bind(a, new Real(100));
+
+        Expression expression = new Expression("snapshot_a * snapshot_b + 1");
+        assertEquals(expression.evaluate(snapshot).getValue(), 11, EPS);
+        assertEquals(expression.evaluate().getValue(), 501, EPS);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testSnapshotRejectsAssignment() throws Exception {
+        new Expression("snapshot_c = 3").evaluate(VariableMap.INSTANCE.snapshot());
+    }
+
+    @Test
+    public void testComparisonsAndLogic() throws Exception {
+        String[][] cases = {
+                {"1 < 2", "1"}, {"2 <= 2", "1"}, {"3 > 4", "0"}, {"4 >= 5", "0"},
+                {"2 == 2", "1"}, {"2 != 2", "0"}, {"1 + 1 == 2", "1"},
+                {"1 < 2 && 3 < 2", "0"}, {"1 < 2 || 3 < 2", "1"},
+                {"!0", "1"}, {"!(1 < 2)", "0"}, {"!0 && 0", "0"},
+                {"0 || 0 && 1", "0"}, {"1 || 0 && 0", "1"},
+                {"-1 < 0", "1"}, {"3 > -2", "1"}, {"2 == -2", "0"},
+                {"if(1 < 2, 10, 20)", "10"}, {"if(0, 10, -20)", "-20"},
+                {"if(2 > 1, if(0, 1, 2), 3) * 5", "10"}
+        };
+        for (String[] testCase : cases) {
+            assertEquals(new Expression(testCase[0]).evaluate().getValue(),
+                    Double.parseDouble(testCase[1]), EPS, testCase[0]);
+        }
+    }
+
+    @Test
+    public void testScalarEvaluationShortCircuits() throws Exception {
+        // The variable is never bound, so evaluating it would throw
+        assertEquals(new Expression("0 && never_bound").evaluate().getValue(), 0, EPS);
+        assertEquals(new Expression("1 || never_bound").evaluate().getValue(), 1, EPS);
+        assertEquals(new Expression("if(1, 7, never_bound)").evaluate().getValue(), 7, EPS);
+        assertEquals(new Script("if(0, never_bound, 8)").run(), 8, EPS);
+        assertEquals(new Script("1 || never_bound").run(), 1, EPS);
+    }
+
+    @Test
+    public void testDeepShortCircuits() throws Exception {
+        final int depth = 20_000;
+        StringBuilder conjunction = new StringBuilder();
+        StringBuilder conditional = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            conjunction.append("deep_x > ").append(i).append(" && (");
+            conditional.append("if(deep_x > ").append(i).append(", ");
+        }
+        conjunction.append("never_bound");
+        conditional.append("never_bound");
+        for (int i = 0; i < depth; i++) {
+            conjunction.append(')');
+            conditional.append(", ").append(depth - 1 - i).append(')');
+        }
+        Expression and = new Expression(conjunction.toString());
+        Expression branches = new Expression(conditional.toString());
+
+        VariableMap.INSTANCE.bind(new Variable("deep_x"), new Real(50));
+        VariableSnapshot snapshot = VariableMap.INSTANCE.snapshot();
+        assertEquals(and.evaluate(snapshot).getValue(), 0, EPS);
+        assertEquals(branches.evaluate(snapshot).getValue(), 50, EPS);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testTakenBranchIsEvaluated() throws Exception {
+        new Expression("if(0, 7, never_bound)").evaluate();
+    }
+
+    @Test
+    public void testBatchMatchesScalar() throws Exception {
+        String[] sources = {
+                "if(batch_x < 0, -batch_x, sqrt(batch_x))",
+                "batch_x * batch_y + 3 / batch_y - batch_x^2",
+                "(batch_x > batch_y && batch_x != 0) || !(batch_y <= 1)",
+                "if(batch_x >= batch_y, sin(batch_x), cos(batch_y)) + abs(batch_y)"
+        };
+        Random random = new Random(42);
+        int rows = 257;
+        double[] xs = new double[rows];
+        double[] ys = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            xs[i] = random.nextDouble() * 20 - 10;
+            ys[i] = random.nextDouble() * 4 - 2;
+        }
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("batch_x", xs);
+        columns.put("batch_y", ys);
+        for (String source : sources) {
+            Expression expression = new Expression(source);
+            double[] results = expression.evaluate(columns, rows);
+            Script script = new Script(source);
+            for (int i = 0; i < rows; i++) {
+                VariableMap.INSTANCE.bind(new Variable("batch_x"), new Real(xs[i]));
+                VariableMap.INSTANCE.bind(new Variable("batch_y"), new Real(ys[i]));
+                double expected = expression.evaluate().getValue();
+                assertEquals(results[i], expected, EPS, source);
+                assertEquals(script.run(), expected, EPS, source);
+            }
+        }
+    }
+
+    @Test
+    public void testSpecialize() throws Exception {
+        Expression expression = new Expression("spec_a * spec_x^2 + sqrt(spec_b) * spec_x + if(spec_a > 1, 10, spec_x)");
+        Map<String, Double> fixed = new HashMap<>();
+        fixed.put("spec_a", 3.0);
+        fixed.put("spec_b", 16.0);
+        Expression specialized = expression.specialize(fixed);
+        // sqrt(spec_b) and the conditional are folded away
+        assertTrue(specialized.getTokens().size() < expression.getTokens().size());
+        assertEquals(specialized.getTier(), Expression.Tier.COMPILED);
+
+        VariableMap.INSTANCE.bind(new Variable("spec_a"), new Real(3));
+        VariableMap.INSTANCE.bind(new Variable("spec_b"), new Real(16));
+        for (int i = -5; i <= 5; i++) {
+            VariableMap.INSTANCE.bind(new Variable("spec_x"), new Real(i));
+            assertEquals(specialized.evaluate().getValue(), expression.evaluate().getValue(), EPS);
+        }
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testSpecializeKeepsErrors() throws Exception {
+        Map<String, Double> fixed = new HashMap<>();
+        fixed.put("spec_c", -1.0);
+        Expression specialized = new Expression("sqrt(spec_c) + spec_y").specialize(fixed);
+        VariableMap.INSTANCE.bind(new Variable("spec_y"), new Real(1));
+        specialized.evaluate();
+    }
+}
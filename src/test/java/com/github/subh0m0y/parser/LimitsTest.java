@@ -0,0 +1,123 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.LimitExceededException;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.VariableStore;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.05
+ */
+public class LimitsTest {
+    private static final ParseLimits LIMITS = ParseLimits.NONE
+            .withMaximumLength(1000)
+            .withMaximumTokens(100)
+            .withMaximumDepth(20);
+
+    private static String repeat(final String text, final int times) {
+        return String.join("", Collections.nCopies(times, text));
+    }
+
+    private static void assertRejected(final String expression) {
+        try {
+            Expression.parse(expression, LIMITS);
+            fail("Accepted " + expression);
+        } catch (LimitExceededException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testParseLimits() throws Exception {
+        Expression accepted = Expression.parse("sin(x)^2 + (((1 + 2) * 3) - -4)", LIMITS);
+        assertEquals(accepted.toTree(), new Expression("sin(x)^2 + (((1 + 2) * 3) - -4)").toTree());
+
+        assertRejected(repeat(" ", 1001) + "1");
+        assertRejected(repeat("1+", 50) + "1");
+        assertRejected(repeat("(", 21) + "1" + repeat(")", 21));
+        assertRejected(repeat("2^", 21) + "2");
+        assertRejected(repeat("-", 21) + "2");
+        assertRejected(repeat("sin(", 21) + "1" + repeat(")", 21));
+    }
+
+    @Test(expectedExceptions = LimitExceededException.class)
+    public void testReaderStopsEarly() throws Exception {
+        // Far longer than the limit, and never read to the end
+        Expression.parse(new StringReader(repeat("x + ", 1_000_000) + "1"), LIMITS);
+    }
+
+    @Test
+    public void testProgramSize() throws Exception {
+        ParseLimits limits = ParseLimits.NONE.withMaximumProgramSize(5);
+        Expression small = Expression.parse("x * 2 + 1", limits).specialize(Collections.emptyMap());
+        assertEquals(small.getTier(), Expression.Tier.COMPILED);
+        Expression large = Expression.parse("x * 2 + x * 3", limits).specialize(Collections.emptyMap());
+        assertEquals(large.getTier(), Expression.Tier.INTERPRETED_ONLY);
+        VariableSnapshot x = new VariableStore().bind(new Variable("x"), new Real(1));
+        assertEquals(large.evaluate(x).getValue(), 5.0);
+    }
+
+    @Test
+    public void testStepBudget() throws Exception {
+        VariableSnapshot x = new VariableStore().bind(new Variable("x"), new Real(1));
+        Expression expression = new Expression(repeat("x * 2 + ", 1000) + "1");
+        Expression compiled = expression.specialize(Collections.emptyMap());
+        for (Expression each : new Expression[]{expression, compiled}) {
+            EvaluationBudget budget = new EvaluationBudget(10_000);
+            assertEquals(each.evaluate(x, budget).getValue(), 2001.0);
+            // The compiled program shares x * 2, so it takes fewer steps
+            assertTrue(budget.getSteps() > 2000, "steps = " + budget.getSteps());
+            try {
+                for (int i = 0; i < 5; i++) {
+                    each.evaluate(x, budget);
+                }
+                fail("The budget should run out");
+            } catch (LimitExceededException e) {
+                assertTrue(budget.getSteps() > 10_000);
+            }
+        }
+    }
+
+    @Test
+    public void testFallbackIsChargedOnce() throws Exception {
+        VariableSnapshot nan = new VariableStore().bind(new Variable("x"), new Real(Double.NaN));
+        Expression expression = new Expression(repeat("x * 3 + ", 100) + "1");
+        EvaluationBudget interpreted = new EvaluationBudget(Long.MAX_VALUE);
+        assertTrue(Double.isNaN(expression.evaluate(nan, interpreted).getValue()));
+
+        // Compiled code returns NaN, and the interpreter evaluates it again
+        Expression compiled = expression.specialize(Collections.emptyMap());
+        assertEquals(compiled.getTier(), Expression.Tier.COMPILED);
+        EvaluationBudget budget = new EvaluationBudget(interpreted.getSteps());
+        assertTrue(Double.isNaN(compiled.evaluate(nan, budget).getValue()));
+        assertEquals(budget.getSteps(), interpreted.getSteps());
+    }
+
+    @Test(expectedExceptions = LimitExceededException.class)
+    public void testDeadline() throws Exception {
+        VariableSnapshot x = new VariableStore().bind(new Variable("x"), new Real(1));
+        EvaluationBudget budget = new EvaluationBudget(Long.MAX_VALUE, 0, TimeUnit.NANOSECONDS, null);
+        new Expression("x + 1").evaluate(x, budget);
+    }
+
+    @Test(expectedExceptions = CancellationException.class)
+    public void testCancellation() throws Exception {
+        VariableSnapshot x = new VariableStore().bind(new Variable("x"), new Real(1));
+        CancellationToken token = new CancellationToken();
+        EvaluationBudget budget = new EvaluationBudget(Long.MAX_VALUE, 1, TimeUnit.HOURS, token);
+        Expression expression = new Expression("if(x > 0, x, -x)");
+        assertEquals(expression.evaluate(x, budget).getValue(), 1.0);
+        token.cancel();
+        expression.evaluate(x, budget);
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static com.github.subh0m0y.parser.SnapshotTestHelper.bindings;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.04
+ */
+public class MemoizedExpressionTest {
+    private static final double EPS = 1e-12;
+
+    @Test
+    public void testHits() throws Exception {
+        Expression expression = new Expression("exp(log(x + 1) * y) + sqrt(x)");
+        assertEquals(expression.getVariables(), Arrays.asList("x", "y"));
+        MemoizedExpression memoized = new MemoizedExpression(expression, 100);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(memoized.evaluate(bindings(i, 0.5)), Math.exp(Math.log(i + 1) * 0.5) + Math.sqrt(i), EPS);
+            }
+        }
+        assertEquals(memoized.getMisses(), 10);
+        assertEquals(memoized.getHits(), 20);
+        assertEquals(memoized.getHitRate(), 2.0 / 3, EPS);
+        assertEquals(memoized.size(), 10);
+    }
+
+    @Test
+    public void testExactBits() throws Exception {
+        MemoizedExpression memoized = new MemoizedExpression(new Expression("1 / x"), 10);
+        assertEquals(memoized.evaluate(bindings(0.0, 0)), Double.POSITIVE_INFINITY);
+        assertEquals(memoized.evaluate(bindings(-0.0, 0)), Double.NEGATIVE_INFINITY);
+        assertEquals(memoized.getHits(), 0);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        MemoizedExpression memoized = new MemoizedExpression(new Expression("x * y"), 32, 0);
+        for (int i = 0; i < 1000; i++) {
+            memoized.evaluate(bindings(i, 2));
+        }
+        assertTrue(memoized.size() <= 32, "size = " + memoized.size());
+        assertTrue(memoized.isEnabled());
+    }
+
+    @Test
+    public void testSwitchesOff() throws Exception {
+        MemoizedExpression memoized = new MemoizedExpression(new Expression("x * y"), 1000);
+        for (int i = 0; i < 2 * MemoizedExpression.WARM_UP; i++) {
+            // Every input is new
+            assertEquals(memoized.evaluate(bindings(i, 3)), 3.0 * i, EPS);
+        }
+        assertFalse(memoized.isEnabled());
+        assertEquals(memoized.size(), 0);
+        assertEquals(memoized.getMisses(), MemoizedExpression.WARM_UP);
+    }
+
+    @Test
+    public void testErrorsAreNotRemembered() throws Exception {
+        MemoizedExpression memoized = new MemoizedExpression(new Expression("sqrt(x) + y"), 10);
+        for (int i = 0; i < 2; i++) {
+            try {
+                memoized.evaluate(bindings(-1, 0));
+                fail("The square root of -1 must fail");
+            } catch (EvaluationException e) {
+                assertEquals(memoized.size(), 0);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testAssignmentsCannotBeMemoized() throws Exception {
+        new MemoizedExpression(new Expression("memo_a = x + 1"), 10);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testSeriesCannotBeMemoized() throws Exception {
+        // A cached average would not advance over 1, 10, 1
+        new MemoizedExpression(new Expression("movavg(x, 3)"), 10);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testRandomDrawsCannotBeMemoized() throws Exception {
+        new MemoizedExpression(new Expression("rand()"), 10);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.ExpressionParser.ConversionException;
+import com.github.subh0m0y.parser.token.VariableMap;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import org.testng.annotations.Test;
+
+import static com.github.subh0m0y.parser.SnapshotTestHelper.bindings;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.23
+ */
+public class ScriptTest {
+    private static final double EPS = 1e-12;
+
+    @Test
+    public void testRun() throws Exception {
+        Script script = new Script("script_a = x*2; script_b = script_a + y; script_c = sqrt(script_a*script_b)");
+        double a = 3 * 2;
+        double b = a + 4;
+        assertEquals(script.run(bindings(3, 4)), Math.sqrt(a * b), EPS);
+        assertEquals(script.getSlotCount(), 3);
+        // Locals never reach the global variables
+        assertNull(VariableMap.INSTANCE.get(new Variable("script_a")));
+    }
+
+    @Test
+    public void testReassignedLocalsAreReadAgain() throws Exception {
+        // script_a*2 reads a different script_a in the second and third
+        // statement; every assignment forgets the saved subterms, so even
+        // x*2 is computed again in the second
+        Script script = new Script("script_a = x*2; script_a = script_a*2 + x*2; script_a*2");
+        assertEquals(script.run(bindings(3, 0)), 36, EPS);
+    }
+
+    @Test
+    public void testDeadAssignmentsAreEliminated() throws Exception {
+        Script script = new Script("unused = x^2\nt = x + 1\nx * 5\nt = t * y\nt");
+        assertEquals(script.getStatementCount(), 5);
+        assertEquals(script.getEliminatedCount(), 2);
+        assertEquals(script.run(bindings(2, 3)), 9, EPS);
+    }
+
+    @Test
+    public void testLocalShadowsGlobalAfterAssignment() throws Exception {
+        // The first x is the global one, later reads see the local
+        Script script = new Script("x = x + 1; x = x * 10; x + y");
+        assertEquals(script.run(bindings(1, 0.5)), 20.5, EPS);
+    }
+
+    @Test
+    public void testLineBreaksInsideParentheses() throws Exception {
+        Script script = new Script("s = (x +\n y)\n s * 2");
+        assertEquals(script.run(bindings(1, 2)), 6, EPS);
+    }
+
+    @Test(expectedExceptions = ConversionException.class)
+    public void testNestedAssignmentIsRejected() throws Exception {
+        new Script("a = b = 3");
+    }
+
+    @Test(expectedExceptions = ConversionException.class)
+    public void testAssignmentToExpressionIsRejected() throws Exception {
+        new Script("x + a = 3");
+    }
+}
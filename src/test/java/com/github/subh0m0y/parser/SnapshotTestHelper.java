@@ -0,0 +1,33 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.VariableStore;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.23
+ */
+class SnapshotTestHelper {
+
+    /**
+     * @return A snapshot that binds x, and nothing else.
+     */
+    static VariableSnapshot bindings(final double x) {
+        return new VariableStore().bind(new Variable("x"), new Real(x));
+    }
+
+    /**
+     * @return A snapshot that binds x and y, and nothing else.
+     */
+    static VariableSnapshot bindings(final double x, final double y) {
+        Map<Variable, Real> values = new HashMap<>();
+        values.put(new Variable("x"), new Real(x));
+        values.put(new Variable("y"), new Real(y));
+        return new VariableStore().bindAll(values);
+    }
+}
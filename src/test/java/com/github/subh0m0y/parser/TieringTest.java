@@ -0,0 +1,109 @@
+package com.github.subh0m0y.parser;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static com.github.subh0m0y.parser.SnapshotTestHelper.bindings;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.25
+ */
+public class TieringTest {
+    private static final int THRESHOLD = 50;
+
+    private long previousThreshold;
+
+    @BeforeClass
+    public void lowerThreshold() {
+        previousThreshold = Tiering.getThreshold();
+        Tiering.setThreshold(THRESHOLD);
+    }
+
+    @AfterClass
+    public void restoreThreshold() {
+        Tiering.setThreshold(previousThreshold);
+    }
+
+    private static void awaitTier(final Expression expression) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (expression.getTier() == Expression.Tier.INTERPRETED
+                || expression.getTier() == Expression.Tier.COMPILING) {
+            assertTrue(System.currentTimeMillis() < deadline, "Promotion timed out.");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testPromotion() throws Exception {
+        Expression expression = new Expression("x^2 + if(x > 1, sqrt(x), -x)");
+        assertEquals(expression.getTier(), Expression.Tier.INTERPRETED);
+        double[] interpreted = new double[THRESHOLD];
+        for (int i = 0; i < THRESHOLD; i++) {
+            interpreted[i] = expression.evaluate(bindings(i * 0.25)).getValue();
+        }
+        awaitTier(expression);
+        assertEquals(expression.getTier(), Expression.Tier.COMPILED);
+
+        long compiledBefore = Tiering.getMetrics().getCompiledEvaluations();
+        for (int i = 0; i < THRESHOLD; i++) {
+            assertEquals(expression.evaluate(bindings(i * 0.25)).getValue(), interpreted[i]);
+        }
+        assertEquals(Tiering.getMetrics().getCompiledEvaluations() - compiledBefore, THRESHOLD);
+    }
+
+    @Test
+    public void testDomainErrorsAfterPromotion() throws Exception {
+        Expression expression = new Expression("sqrt(x)");
+        for (int i = 0; i < THRESHOLD; i++) {
+            expression.evaluate(bindings(i));
+        }
+        awaitTier(expression);
+        assertEquals(expression.getTier(), Expression.Tier.COMPILED);
+        long fallbacks = Tiering.getMetrics().getFallbacks();
+        try {
+            expression.evaluate(bindings(-1));
+            fail("The interpreter rejects the square root of a negative number.");
+        } catch (EvaluationException e) {
+            assertEquals(Tiering.getMetrics().getFallbacks(), fallbacks + 1);
+        }
+    }
+
+    @Test
+    public void testImpureExpressionsStayInterpreted() throws Exception {
+        Expression assignment = new Expression("tiering_y = 2 * 3");
+        Expression single = new Expression("42");
+        assertEquals(assignment.getTier(), Expression.Tier.INTERPRETED_ONLY);
+        assertEquals(single.getTier(), Expression.Tier.INTERPRETED_ONLY);
+        for (int i = 0; i < 2 * THRESHOLD; i++) {
+            assertEquals(assignment.evaluate().getValue(), 6.0);
+            assertEquals(single.evaluate().getValue(), 42.0);
+        }
+        assertEquals(assignment.getTier(), Expression.Tier.INTERPRETED_ONLY);
+        assertEquals(single.getTier(), Expression.Tier.INTERPRETED_ONLY);
+    }
+
+    @Test
+    public void testDeepExpressionLeavesCompiling() throws Exception {
+        final int depth = 50_000;
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            source.append("x+(");
+        }
+        source.append('x');
+        for (int i = 0; i < depth; i++) {
+            source.append(')');
+        }
+        Expression expression = new Expression(source.toString());
+        for (int i = 0; i < THRESHOLD; i++) {
+            assertEquals(expression.evaluate(bindings(1)).getValue(), depth + 1, 1e-9);
+        }
+        awaitTier(expression);
+        // Whether it compiles or not, the Expression is not stuck
+        assertNotEquals(expression.getTier(), Expression.Tier.COMPILING);
+        assertEquals(expression.evaluate(bindings(2)).getValue(), 2 * (depth + 1), 1e-9);
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.subh0m0y.parser.format;
+
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.30
+ */
+public class DoubleFormatterTest {
+    private static final int COUNT = 200_000;
+    private static final double[] EDGES = {
+            0.0, -0.0, 1.0, -1.0, 0.1, 0.3, 2.0 / 3, 100, 1e7, 9999999.999, 1e-3, 9.99e-4,
+            1e23, 8.41e21, 5e-324, 1e-323, 2.2250738585072014E-308, 2.225073858507201E-308,
+            Double.MAX_VALUE, Double.MIN_NORMAL, Math.PI, Math.E, 9007199254740993.0, 1L << 62,
+            4.35, 2.675, 1.005, 0.125, 0.005, -0.004, 123456789.125,
+    };
+    private final Random random = new Random(42);
+
+    private static void checkShortest(final double value) {
+        String text = DoubleFormatter.SHORTEST.format(value);
+        assertEquals(Double.parseDouble(text), value, text);
+        if (value == 0 || Double.isInfinite(value)) {
+            return;
+        }
+        String digits = new BigDecimal(text).unscaledValue().abs().toString().replaceAll("0+$", "");
+        if (digits.length() > 2) {
+            // No decimal with one digit less reads back as the same double
+            // (like Double.toString, two digits are always allowed)
+            MathContext context = new MathContext(digits.length() - 1, RoundingMode.FLOOR);
+            BigDecimal lower = new BigDecimal(value).round(context);
+            BigDecimal upper = lower.add(lower.ulp());
+            assertNotEquals(lower.doubleValue(), value, text);
+            assertNotEquals(upper.doubleValue(), value, text);
+        }
+    }
+
+    @Test
+    public void testShortestRoundTrips() throws Exception {
+        for (double value : EDGES) {
+            checkShortest(value);
+            checkShortest(Math.nextUp(value));
+            checkShortest(Math.nextDown(value));
+        }
+        for (int i = 0; i < COUNT; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(value)) {
+                checkShortest(value);
+            }
+            checkShortest(random.nextDouble() * 1000);
+        }
+    }
+
+    @Test
+    public void testShortestLayout() throws Exception {
+        DoubleFormatter formatter = DoubleFormatter.SHORTEST;
+        assertEquals(formatter.format(0.0), "0.0");
+        assertEquals(formatter.format(-0.0), "-0.0");
+        assertEquals(formatter.format(1), "1.0");
+        assertEquals(formatter.format(0.1), "0.1");
+        assertEquals(formatter.format(2e-3), "0.002");
+        assertEquals(formatter.format(1234567), "1234567.0");
+        assertEquals(formatter.format(1e7), "1.0E7");
+        assertEquals(formatter.format(-1.25e-4), "-1.25E-4");
+        assertEquals(formatter.format(2e23), "2.0E23");
+        assertEquals(formatter.format(Double.MIN_VALUE), "4.9E-324");
+        assertEquals(formatter.format(Double.MAX_VALUE), "1.7976931348623157E308");
+        assertEquals(formatter.format(Double.NaN), "NaN");
+        assertEquals(DoubleFormatter.fixed(2).format(1e23), "100000000000000000000000.00");
+        assertEquals(formatter.format(Double.NEGATIVE_INFINITY), "-Infinity");
+    }
+
+    private static void checkFixed(final DoubleFormatter formatter, final String pattern, final double value) {
+        // Before Java 19 the formatter rounds digits that are not always
+        // the shortest (1e23 is "9.999999999999999E22"), so compare only
+        // where they agree
+        if (Double.toString(value).equals(DoubleFormatter.SHORTEST.format(value))) {
+            assertEquals(formatter.format(value), String.format(Locale.ROOT, pattern, value));
+        }
+    }
+
+    @Test
+    public void testFixedMatchesFormatter() throws Exception {
+        for (int digits : new int[]{0, 2, 5}) {
+            DoubleFormatter formatter = DoubleFormatter.fixed(digits);
+            String pattern = "%." + digits + "f";
+            for (double value : EDGES) {
+                checkFixed(formatter, pattern, value);
+            }
+            for (int i = 0; i < COUNT / 10; i++) {
+                double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(24) - 8);
+                checkFixed(formatter, pattern, value);
+            }
+        }
+    }
+
+    @Test
+    public void testScientific() throws Exception {
+        DoubleFormatter formatter = DoubleFormatter.scientific(3);
+        assertEquals(formatter.format(0), "0.000E0");
+        assertEquals(formatter.format(123456), "1.235E5");
+        assertEquals(formatter.format(-9.9996e-10), "-1.000E-9");
+        assertEquals(formatter.format(5e-324), "4.900E-324");
+        assertEquals(DoubleFormatter.scientific(0).format(25), "3E1");
+    }
+
+    @Test
+    public void testBuffersAndAppendables() throws Exception {
+        DoubleFormatter formatter = DoubleFormatter.fixed(2);
+        char[] buffer = new char[4 + 2 * formatter.getMaximumLength()];
+        int end = formatter.format(Math.PI, buffer, 4);
+        end = formatter.format(-Double.MAX_VALUE, buffer, end);
+        String expected = "3.14" + String.format(Locale.ROOT, "%.2f", -Double.MAX_VALUE);
+        assertEquals(new String(buffer, 4, end - 4), expected);
+
+        StringBuilder builder = formatter.formatTo(1.5, new StringBuilder("x = "));
+        assertEquals(builder.toString(), "x = 1.50");
+        StringBuffer appendable = DoubleFormatter.SHORTEST.formatTo(0.3, new StringBuffer());
+        assertEquals(appendable.toString(), "0.3");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeDigits() throws Exception {
+        DoubleFormatter.fixed(-1);
+    }
+}
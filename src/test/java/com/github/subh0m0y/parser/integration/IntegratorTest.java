@@ -0,0 +1,94 @@
+package com.github.subh0m0y.parser.integration;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.12
+ */
+public class IntegratorTest {
+
+    @Test
+    public void testAdaptive() throws Exception {
+        Integral sine = new AdaptiveIntegrator(new Expression("sin(x)"), "x")
+                .integrate(0, Math.PI, 1e-12, 0, 100000);
+        assertEquals(sine.getValue(), 2, 1e-12);
+        assertTrue(sine.getErrorEstimate() <= 1e-12);
+        // A smooth integrand needs little refinement
+        assertTrue(sine.getEvaluations() < 1000, sine.toString());
+
+        // A kink and a steep peak need more
+        Integral peak = new AdaptiveIntegrator(new Expression("abs(x - 0.3) + 1 / (0.0001 + (x - 0.7) ^ 2)"), "x")
+                .integrate(0, 1, 1e-9, 0, 1000000);
+        double expected = (0.3 * 0.3 + 0.7 * 0.7) / 2
+                + 100 * (Math.atan(0.3 / 0.01) + Math.atan(0.7 / 0.01));
+        assertEquals(peak.getValue(), expected, 1e-8);
+        assertTrue(peak.getEvaluations() > sine.getEvaluations());
+
+        Integral reversed = new AdaptiveIntegrator(new Expression("x * a"), "x",
+                Collections.singletonMap("a", 3d), ForkJoinPool.commonPool())
+                .integrate(2, 0, 1e-12, 1e-12, 1000);
+        assertEquals(reversed.getValue(), -6, 1e-12);
+    }
+
+    @Test
+    public void testAdaptiveBudget() throws Exception {
+        Integral integral = new AdaptiveIntegrator(new Expression("sin(1 / x)"), "x")
+                .integrate(1e-6, 1, 1e-15, 0, 2000);
+        assertTrue(integral.getEvaluations() <= 2000);
+        // The tolerance was not met, and the estimate says so
+        assertTrue(integral.getErrorEstimate() > 1e-15);
+    }
+
+    @Test
+    public void testIndependentOfThreads() throws Exception {
+        Expression expression = new Expression("exp(-x ^ 2) * cos(8 * x)");
+        Integral single = new AdaptiveIntegrator(expression, "x", Collections.emptyMap(), new ForkJoinPool(1))
+                .integrate(-3, 3, 1e-12, 0, 100000);
+        Integral many = new AdaptiveIntegrator(expression, "x", Collections.emptyMap(), new ForkJoinPool(4))
+                .integrate(-3, 3, 1e-12, 0, 100000);
+        assertEquals(many.getValue(), single.getValue());
+        assertEquals(many.getEvaluations(), single.getEvaluations());
+
+        Expression surface = new Expression("x * y + sin(z)");
+        Integral qmcSingle = new QuasiMonteCarloIntegrator(surface, new ForkJoinPool(1))
+                .integrate(new double[]{0, 0, 0}, new double[]{1, 2, 3}, 5000, 4, 42);
+        Integral qmcMany = new QuasiMonteCarloIntegrator(surface, new ForkJoinPool(4))
+                .integrate(new double[]{0, 0, 0}, new double[]{1, 2, 3}, 5000, 4, 42);
+        assertEquals(qmcMany.getValue(), qmcSingle.getValue());
+        assertEquals(qmcMany.getErrorEstimate(), qmcSingle.getErrorEstimate());
+    }
+
+    @Test
+    public void testQuasiMonteCarlo() throws Exception {
+        QuasiMonteCarloIntegrator integrator = new QuasiMonteCarloIntegrator(
+                new Expression("exp(-(x ^ 2 + y ^ 2))"));
+        assertEquals(integrator.getVariables(), Arrays.asList("x", "y"));
+        Integral integral = integrator.integrate(new double[]{-4, -4}, new double[]{4, 4}, 1 << 14, 8, 7);
+        assertEquals(integral.getValue(), Math.PI, 1e-3);
+        assertTrue(integral.getErrorEstimate() > 0 && integral.getErrorEstimate() < 1e-3, integral.toString());
+        assertEquals(integral.getEvaluations(), 8L << 14);
+
+        Integral constant = new QuasiMonteCarloIntegrator(new Expression("2 + 3"))
+                .integrate(new double[0], new double[0], 10, 2, 1);
+        assertEquals(constant.getValue(), 5.0);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testUnfixedVariable() throws Exception {
+        new AdaptiveIntegrator(new Expression("x * y"), "x");
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testStatefulIntegrand() throws Exception {
+        new QuasiMonteCarloIntegrator(new Expression("lag(x, 1)"));
+    }
+}
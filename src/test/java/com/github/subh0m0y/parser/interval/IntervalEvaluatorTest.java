@@ -0,0 +1,130 @@
+package com.github.subh0m0y.parser.interval;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.10
+ */
+public class IntervalEvaluatorTest {
+    private static final String[] FORMULAS = {
+            "x * y - 3 / (x + 2.5)",
+            "x ^ 2 + y ^ 3 - x ^ -2",
+            "sqrt(x) + log(y) * exp(x / 4)",
+            "sin(3 * x) * cos(y) + tan(x / 3)",
+            "abs(x - y) / (1 + x ^ 2)",
+            "if(x > y, x ^ 0.5, y ^ 1.5) + (x <= 0) + (x == y) + (x != 1)",
+            "!(x < 0) && y > 0 || x >= 2",
+            "x ^ y",
+    };
+
+    private static Map<String, Interval> ranges(final Interval x, final Interval y) {
+        Map<String, Interval> ranges = new HashMap<>();
+        ranges.put("x", x);
+        ranges.put("y", y);
+        return ranges;
+    }
+
+    private static Interval bound(final String formula, final Interval x, final Interval y) {
+        return new IntervalEvaluator(new Expression(formula)).evaluate(ranges(x, y));
+    }
+
+    @Test
+    public void testBoundsContainSamples() throws Exception {
+        Random random = new Random(11);
+        for (String formula : FORMULAS) {
+            Expression expression = new Expression(formula);
+            IntervalEvaluator evaluator = new IntervalEvaluator(expression);
+            for (int box = 0; box < 50; box++) {
+                double a = random.nextGaussian() * 3;
+                double b = random.nextGaussian() * 3;
+                Interval x = Interval.of(a, a + random.nextDouble() * 4);
+                Interval y = Interval.of(b, b + random.nextDouble() * 4);
+                Interval direct = evaluator.evaluate(ranges(x, y));
+                Interval split = evaluator.evaluate(ranges(x, y), 16);
+                assertTrue(split.getLower() >= direct.getLower() && split.getUpper() <= direct.getUpper(),
+                        formula + ": " + split + " is looser than " + direct);
+
+                int rows = 200;
+                Map<String, double[]> columns = new HashMap<>();
+                double[] xs = new double[rows];
+                double[] ys = new double[rows];
+                for (int row = 0; row < rows; row++) {
+                    // Include the corners
+                    xs[row] = row < 2 ? (row == 0 ? x.getLower() : x.getUpper())
+                            : x.getLower() + random.nextDouble() * (x.getUpper() - x.getLower());
+                    ys[row] = row < 2 ? y.getUpper()
+                            : y.getLower() + random.nextDouble() * (y.getUpper() - y.getLower());
+                }
+                columns.put("x", xs);
+                columns.put("y", ys);
+                double[] values = expression.evaluate(columns, rows);
+                for (int row = 0; row < rows; row++) {
+                    String message = formula + " at x = " + xs[row] + ", y = " + ys[row] + ": ";
+                    if (Double.isNaN(values[row])) {
+                        assertTrue(split.mayBeNaN(), message + "NaN is not allowed by " + split);
+                    } else {
+                        assertTrue(split.contains(values[row]), message + values[row] + " is not in " + split);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testKnownBounds() throws Exception {
+        Interval unit = Interval.of(0, 1);
+        Interval square = bound("x ^ 2", Interval.of(-1, 2), unit);
+        assertEquals(square.getLower(), 0.0);
+        assertEquals(square.getUpper(), 4, 1e-12);
+
+        Interval sine = bound("sin(x)", Interval.of(0, Math.PI), unit);
+        assertEquals(sine.getUpper(), 1.0);
+        assertTrue(sine.getLower() <= 0 && sine.getLower() > -1e-12);
+
+        Interval root = bound("sqrt(x)", Interval.of(-1, 4), unit);
+        assertTrue(root.mayBeNaN());
+        assertEquals(root.getLower(), 0.0);
+        assertEquals(root.getUpper(), 2, 1e-12);
+
+        Interval quotient = bound("1 / x", Interval.of(0, 2), unit);
+        assertEquals(quotient.getUpper(), Double.POSITIVE_INFINITY);
+        assertEquals(quotient.getLower(), 0.5, 1e-12);
+        assertFalse(quotient.mayBeNaN());
+        assertTrue(bound("x / x", Interval.of(0, 2), unit).mayBeNaN());
+
+        assertEquals(bound("x < y + 5", unit, unit), Interval.valueOf(true));
+        assertEquals(bound("if(x >= 0, 1, 0 / 0)", unit, unit), Interval.point(1));
+    }
+
+    @Test
+    public void testSubdivisionTightens() throws Exception {
+        IntervalEvaluator evaluator = new IntervalEvaluator(new Expression("x * (1 - x)"));
+        Map<String, Interval> ranges = new HashMap<>();
+        ranges.put("x", Interval.of(0, 1));
+        Interval loose = evaluator.evaluate(ranges);
+        Interval tight = evaluator.evaluate(ranges, 1024);
+        assertTrue(loose.getUpper() >= 1);
+        // The true range is [0, 0.25]
+        assertTrue(tight.getUpper() >= 0.25 && tight.getUpper() < 0.26, tight.toString());
+        assertTrue(tight.getLower() <= 0 && tight.getLower() > -0.01, tight.toString());
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testMissingRange() throws Exception {
+        new IntervalEvaluator(new Expression("x + y")).evaluate(new HashMap<>());
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testStatefulFunctionsAreRejected() throws Exception {
+        new IntervalEvaluator(new Expression("movavg(x, 3)"));
+    }
+}
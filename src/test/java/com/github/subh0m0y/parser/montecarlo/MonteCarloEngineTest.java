@@ -0,0 +1,89 @@
+package com.github.subh0m0y.parser.montecarlo;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.13
+ */
+public class MonteCarloEngineTest {
+
+    @Test
+    public void testStatistics() throws Exception {
+        Accumulator normal = new MonteCarloEngine(new Expression("3 + 2 * randn()")).run(200000, 1);
+        assertEquals(normal.getCount(), 200000);
+        assertEquals(normal.getMean(), 3, 0.02);
+        assertEquals(normal.getVariance(), 4, 0.05);
+        assertEquals(normal.getQuantile(0.5), 3, 0.05);
+        // The 97.5th percentile of a normal distribution is 1.96 deviations up
+        assertEquals(normal.getQuantile(0.975), 3 + 2 * 1.96, 0.1);
+
+        Accumulator root = new MonteCarloEngine(new Expression("sqrt(uniform(a, 1))"),
+                Collections.singletonMap("a", -1d), ForkJoinPool.commonPool()).run(10000, 5);
+        // The negative half of the draws has no square root
+        assertEquals(root.getCount() + root.getNaNCount(), 10000);
+        assertEquals(root.getNaNCount(), 5000, 200);
+        assertTrue(root.getMinimum() >= 0 && root.getMaximum() < 1);
+    }
+
+    @Test
+    public void testIndependentOfThreads() throws Exception {
+        Expression expression = new Expression("exp(randn()) * (rand() < 0.3) - uniform(0, 1)");
+        Accumulator single = new MonteCarloEngine(expression, Collections.emptyMap(), new ForkJoinPool(1))
+                .run(100003, 99);
+        Accumulator many = new MonteCarloEngine(expression, Collections.emptyMap(), new ForkJoinPool(4))
+                .run(100003, 99);
+        assertEquals(many.getCount(), single.getCount());
+        assertEquals(many.getMean(), single.getMean());
+        assertEquals(many.getVariance(), single.getVariance());
+        assertEquals(many.getQuantile(0.1), single.getQuantile(0.1));
+        assertEquals(many.getQuantile(0.9), single.getQuantile(0.9));
+        assertNotEquals(new MonteCarloEngine(expression).run(100003, 100).getMean(), single.getMean());
+    }
+
+    @Test
+    public void testMergedAccumulators() throws Exception {
+        Random random = new Random(3);
+        double[] values = new double[10001];
+        Accumulator whole = new Accumulator(0.01);
+        Accumulator[] parts = {new Accumulator(0.01), new Accumulator(0.01), new Accumulator(0.01)};
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 50 + (i % 7 == 0 ? 0 : 10);
+            whole.add(values[i]);
+            parts[i % 3].add(values[i]);
+        }
+        parts[0].merge(parts[1]);
+        parts[0].merge(parts[2]);
+        parts[0].merge(new Accumulator(0.01));
+        Arrays.sort(values);
+        assertEquals(parts[0].getCount(), whole.getCount());
+        assertEquals(parts[0].getMean(), whole.getMean(), 1e-9);
+        assertEquals(parts[0].getVariance(), whole.getVariance(), 1e-6);
+        assertEquals(parts[0].getMinimum(), values[0]);
+        assertEquals(parts[0].getMaximum(), values[values.length - 1]);
+        for (double q = 0; q <= 1; q += 0.05) {
+            double exact = values[(int) Math.floor(q * (values.length - 1))];
+            assertEquals(parts[0].getQuantile(q), whole.getQuantile(q));
+            assertEquals(parts[0].getQuantile(q), exact, Math.abs(exact) * 0.01 + 1e-12, "q = " + q);
+        }
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testUnfixedVariable() throws Exception {
+        new MonteCarloEngine(new Expression("x * rand()"));
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testStatefulFunctions() throws Exception {
+        new MonteCarloEngine(new Expression("movavg(rand(), 3)"));
+    }
+}
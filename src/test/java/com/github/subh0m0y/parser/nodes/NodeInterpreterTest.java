@@ -0,0 +1,97 @@
+package com.github.subh0m0y.parser.nodes;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.VariableStore;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.06
+ */
+public class NodeInterpreterTest {
+    private static final String[] EXPRESSIONS = {
+            "x * 2 + 1 - 3 * y",
+            "3 / (x + y) - y ^ 2",
+            "sqrt(x^2 + y^2) * exp(-x) + log(abs(y) + 1)",
+            "sin(x) * cos(y) - tan(x / 4)",
+            "if(x > y, x - y, y - x) + (x <= 1) + (y >= 2) + (x == y) + (x != 1)",
+            "!(x < 0) && y > 0 || x == 0",
+            "y ^ 3 ^ x",
+    };
+
+    @Test
+    public void testAgreesWithExpression() throws Exception {
+        for (String text : EXPRESSIONS) {
+            Expression expression = new Expression(text);
+            NodeInterpreter interpreter = new NodeInterpreter(expression);
+            assertEquals(interpreter.getVariables(), Arrays.asList("x", "y"), text);
+            for (double x = -1.5; x <= 2; x += 0.5) {
+                for (double y = 0.25; y <= 3; y += 0.75) {
+                    VariableStore store = new VariableStore();
+                    store.bind(new Variable("x"), new Real(x));
+                    VariableSnapshot snapshot = store.bind(new Variable("y"), new Real(y));
+                    double expected = expression.evaluate(snapshot).getValue();
+                    assertEquals(interpreter.execute(x, y), expected, 1e-12, text);
+                    assertEquals(interpreter.evaluate(snapshot), expected, 1e-12, text);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testShortCircuit() throws Exception {
+        // The skipped operands would produce NaN
+        NodeInterpreter conditional = new NodeInterpreter(new Expression("if(x > 0, sqrt(x), 0 / 0)"));
+        assertEquals(conditional.execute(4), 2.0);
+        assertTrue(Double.isNaN(conditional.execute(-4)));
+        NodeInterpreter and = new NodeInterpreter(new Expression("x > 0 && sqrt(x) > 1"));
+        assertEquals(and.execute(-1), 0.0);
+        assertEquals(and.execute(4), 1.0);
+    }
+
+    @Test
+    public void testConstantsAndDomainErrors() throws Exception {
+        NodeInterpreter constant = new NodeInterpreter(new Expression("1 + 2"));
+        assertEquals(constant.getVariables().size(), 0);
+        assertEquals(constant.execute(), 3.0);
+        assertTrue(Double.isNaN(new NodeInterpreter(new Expression("sqrt(x)")).execute(-1)));
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testAssignmentIsRejected() throws Exception {
+        new NodeInterpreter(new Expression("y = x + 1"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMissingValues() throws Exception {
+        new NodeInterpreter(new Expression("x + y")).execute(1);
+    }
+
+    @Test
+    public void testHeight() throws Exception {
+        Node tree = new Reference("x");
+        for (int i = 1; i < NodeInterpreter.MAXIMUM_HEIGHT; i++) {
+            tree = new Application(Addition.INSTANCE, tree, new Constant(1));
+        }
+        assertEquals(new NodeInterpreter(tree).execute(1), NodeInterpreter.MAXIMUM_HEIGHT, 0);
+        try {
+            new NodeInterpreter(new Application(Addition.INSTANCE, tree, new Constant(1)));
+            fail("The tree is too high");
+        } catch (EvaluationException e) {
+            // Expected
+        }
+    }
+}
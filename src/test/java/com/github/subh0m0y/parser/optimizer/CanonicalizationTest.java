@@ -0,0 +1,96 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.token.operations.Multiplication;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.github.subh0m0y.parser.optimizer.OptimizerTestHelper.*;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.09
+ */
+public class CanonicalizationTest {
+
+    private static Node canonical(final String expression, final boolean reassociate) {
+        return new Canonicalization(reassociate).apply(tree(expression), new PassContext());
+    }
+
+    @Test
+    public void testOperandOrder() throws Exception {
+        assertEquals(canonical("y + x", false), tree("x + y"));
+        assertEquals(canonical("2 * x", false).toString(), "(x * 2)");
+        assertEquals(canonical("(3 + b * a) * sin(z)", false), canonical("sin(z) * (a * b + 3)", false));
+        // Without reassociation, the grouping is kept
+        assertEquals(canonical("(b + a) + c", false).toString(), "(c + (a + b))");
+        assertEquals(canonical("a + (c + b)", false).toString(), "(a + (b + c))");
+        assertEquals(canonical("x / y", false), tree("x / y"));
+    }
+
+    @Test
+    public void testReassociation() throws Exception {
+        Node expected = canonical("(b + a) + c", true);
+        assertEquals(expected.toString(), "((a + b) + c)");
+        assertEquals(canonical("a + (c + b)", true), expected);
+        assertEquals(canonical("c + b + a", true), expected);
+        assertEquals(canonical("2 * y * (x * 3) + 1", true).toString(), "((((x * y) * 2) * 3) + 1)");
+    }
+
+    @Test
+    public void testNegationPairs() throws Exception {
+        Node x = new Reference("x");
+        Node negated = new Application(Multiplication.INSTANCE, new Constant(-1), x);
+        Node twice = new Application(Multiplication.INSTANCE, negated, new Constant(-1));
+        assertEquals(new Canonicalization().apply(twice, new PassContext()), x);
+        assertEquals(new Canonicalization(true).apply(twice, new PassContext()), x);
+        assertEquals(new Canonicalization().apply(negated, new PassContext()).toString(), "(x * -1)");
+        Node thrice = new Application(Multiplication.INSTANCE, new Constant(-1), twice);
+        assertEquals(new Canonicalization(true).apply(thrice, new PassContext()).toString(), "(x * -1)");
+    }
+
+    @Test
+    public void testImpureOperandsStay() throws Exception {
+        Node assignment = tree("y + (y = 2)");
+        assertEquals(new Canonicalization().apply(assignment, new PassContext()), assignment);
+        assertEquals(new Canonicalization(true).apply(assignment, new PassContext()), assignment);
+    }
+
+    @Test
+    public void testResultsAreExact() throws Exception {
+        Random random = newRandom();
+        String formula = "(0.1 * a + b * 0.3) * (c + 0.7 * -(-a)) + sin(b) * a";
+        Expression original = unoptimized(formula);
+        Expression canonical = withPass(formula, new Canonicalization());
+        assertNotEquals(canonical.toTree(), original.toTree());
+        for (int i = 0; i < 1000; i++) {
+            Map<String, double[]> columns = new HashMap<>();
+            columns.put("a", new double[]{random.nextGaussian() * 1e3});
+            columns.put("b", new double[]{random.nextGaussian()});
+            columns.put("c", new double[]{random.nextGaussian() * 1e-3});
+            assertEquals(Double.doubleToRawLongBits(canonical.evaluate(columns, 1)[0]),
+                    Double.doubleToRawLongBits(original.evaluate(columns, 1)[0]));
+        }
+    }
+
+    @Test
+    public void testDeepChain() throws Exception {
+        Node chain = new Reference("x0");
+        for (int i = 1; i < 100_000; i++) {
+            chain = new Application(Addition.INSTANCE, new Reference("x" + (i % 100)), chain);
+        }
+        Node flattened = new Canonicalization(true).apply(chain, new PassContext());
+        assertEquals(flattened.size(), chain.size());
+        Node ordered = new Canonicalization().apply(chain, new PassContext());
+        assertEquals(ordered.size(), chain.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.VariableStore;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.tree.Node;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.github.subh0m0y.parser.optimizer.OptimizerTestHelper.*;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.03
+ */
+public class OperandOrderingTest {
+
+    private static Expression ordered(final String expression) {
+        return withPass(expression, new OperandOrdering());
+    }
+
+    @Test
+    public void testHeavierOperandFirst() throws Exception {
+        assertEquals(ordered("x + y * z").toTree(), unoptimized("y * z + x").toTree());
+        assertEquals(ordered("x * (y + z) * 2").toTree(), unoptimized("(y + z) * x * 2").toTree());
+        // Equal needs, and operators that do not commute, keep their order
+        assertEquals(ordered("x * y + z * x").toTree(), unoptimized("x * y + z * x").toTree());
+        assertEquals(ordered("x / (y + z)").toTree(), unoptimized("x / (y + z)").toTree());
+    }
+
+    @Test
+    public void testDepth() throws Exception {
+        // x + (x + (x + ... (x + 1)))
+        final int terms = 100;
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            builder.append("x + (");
+        }
+        builder.append('1');
+        for (int i = 0; i < terms; i++) {
+            builder.append(')');
+        }
+        Expression before = unoptimized(builder.toString());
+        Expression after = ordered(builder.toString());
+        assertEquals(before.getMaximumStackDepth(), terms + 1);
+        assertEquals(after.getMaximumStackDepth(), 2);
+
+        VariableSnapshot x = new VariableStore().bind(new Variable("x"), new Real(0.5));
+        assertEquals(after.evaluate(x).getValue(), before.evaluate(x).getValue());
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("x", new double[]{1, 2});
+        assertEquals(after.evaluate(columns, 2), new double[]{terms + 1, 2 * terms + 1});
+    }
+
+    @Test
+    public void testAssignmentsKeepTheirPlace() throws Exception {
+        Node tree = unoptimized("ordering_a + (ordering_a = 2) * 3").toTree();
+        assertEquals(ordered("ordering_a + (ordering_a = 2) * 3").toTree(), tree);
+    }
+}
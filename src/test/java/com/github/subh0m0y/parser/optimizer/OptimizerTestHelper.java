@@ -0,0 +1,48 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.token.VariableSnapshot;
+import com.github.subh0m0y.parser.token.VariableStore;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import com.github.subh0m0y.parser.tree.Node;
+
+import java.util.Random;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.01
+ */
+class OptimizerTestHelper {
+    private static final long SEED = 7;
+
+    static final double UNIT_ROUNDOFF = Math.ulp(1.0) / 2;
+
+    static Random newRandom() {
+        return new Random(SEED);
+    }
+
+    /**
+     * @return The tree of the expression, with no passes run.
+     */
+    static Node tree(final String expression) {
+        return unoptimized(expression).toTree();
+    }
+
+    static Expression unoptimized(final String expression) {
+        return new Expression(expression, new PassManager(OptimizationLevel.O0));
+    }
+
+    /**
+     * @return The expression with only the given pass run.
+     */
+    static Expression withPass(final String expression, final Pass pass) {
+        PassManager passes = new PassManager(OptimizationLevel.O0).register(pass, OptimizationLevel.O0);
+        return new Expression(expression, passes);
+    }
+
+    static double evaluate(final Expression expression, final double x) {
+        VariableSnapshot snapshot = new VariableStore().bind(new Variable("x"), new Real(x));
+        return expression.evaluate(snapshot).getValue();
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.operations.Addition;
+import com.github.subh0m0y.parser.tree.Application;
+import com.github.subh0m0y.parser.tree.Constant;
+import com.github.subh0m0y.parser.tree.Node;
+import com.github.subh0m0y.parser.tree.Reference;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.github.subh0m0y.parser.optimizer.OptimizerTestHelper.*;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.29
+ */
+public class PassManagerTest {
+
+    @Test
+    public void testLevels() throws Exception {
+        assertEquals(PassManager.withDefaults(OptimizationLevel.O0).getEnabledPasses(), Collections.emptyList());
+        assertEquals(PassManager.withDefaults(OptimizationLevel.O1).getEnabledPasses(),
+                Arrays.asList("constant-folding", "operand-ordering"));
+        assertEquals(PassManager.withDefaults(OptimizationLevel.O2).getEnabledPasses(),
+                Arrays.asList("constant-folding", "operand-ordering", "algebraic-simplification",
+                        "polynomial-rewriting", "strength-reduction", "constant-folding"));
+    }
+
+    @Test
+    public void testReports() throws Exception {
+        PassManager passes = PassManager.withDefaults(OptimizationLevel.O2);
+        // 2 * 3 and 3 - 2 fold; x * 1 and the resulting y ^ 1 simplify
+        PassManager.Result result = passes.optimize(tree("x * (2 * 3) * 1 + y ^ (3 - 2)"));
+        assertEquals(result.getTree(), tree("x * 6 + y"));
+
+        List<PassReport> reports = result.getReports();
+        assertEquals(reports.size(), 6);
+        assertEquals(reports.get(0).getRewritten(), 2);
+        assertEquals(reports.get(1).getRewritten(), 0);
+        assertEquals(reports.get(2).getRewritten(), 2);
+        for (int i = 3; i < reports.size(); i++) {
+            assertEquals(reports.get(i).getRewritten(), 0);
+        }
+        long removed = 0;
+        for (PassReport report : reports) {
+            removed += report.getRemoved();
+            assertTrue(report.getNanos() >= 0);
+        }
+        assertEquals(removed, tree("x * (2 * 3) * 1 + y ^ (3 - 2)").size() - result.getTree().size());
+
+        passes.optimize(tree("1 + 1"));
+        assertEquals(passes.getStatistics().get(0).getRuns(), 2);
+        assertEquals(passes.getStatistics().get(0).getRewritten(), 3);
+    }
+
+    @Test
+    public void testRegisterBefore() throws Exception {
+        Pass renaming = new BottomUpPass() {
+            @Override
+            public String getName() {
+                return "renaming";
+            }
+
+            @Override
+            protected Node rewriteLeaf(final Node leaf, final PassContext context) {
+                if (leaf instanceof Reference) {
+                    context.rewrote();
+                    return new Constant(10);
+                }
+                return leaf;
+            }
+
+            @Override
+            protected Node rewrite(final Application application, final PassContext context) {
+                return application;
+            }
+        };
+        PassManager passes = PassManager.withDefaults(OptimizationLevel.O1)
+                .registerBefore("constant-folding", renaming, OptimizationLevel.O1);
+        assertEquals(passes.getEnabledPasses(), Arrays.asList("renaming", "constant-folding", "operand-ordering"));
+        assertEquals(passes.optimize(tree("x + 1")).getTree(), new Constant(11));
+    }
+
+    @Test
+    public void testUnsafeIdentitiesAreKept() throws Exception {
+        PassManager passes = PassManager.withDefaults(OptimizationLevel.O2);
+        Node sum = tree("x + 0");
+        assertEquals(passes.optimize(sum).getTree(), sum);
+        Node product = tree("x * 0");
+        assertEquals(passes.optimize(product).getTree(), product);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testFoldingKeepsErrors() throws Exception {
+        Expression expression = new Expression("1 + sqrt(-1)", PassManager.withDefaults(OptimizationLevel.O2));
+        expression.evaluate();
+    }
+
+    @Test
+    public void testDeepTree() throws Exception {
+        Node tree = new Reference("x");
+        for (int i = 0; i < 100_000; i++) {
+            tree = new Application(Addition.INSTANCE, tree, new Application(Addition.INSTANCE,
+                    new Constant(1), new Constant(-0.0)));
+        }
+        Node optimized = PassManager.withDefaults(OptimizationLevel.O2).optimize(tree).getTree();
+        assertEquals(optimized.size(), 200_001);
+    }
+}
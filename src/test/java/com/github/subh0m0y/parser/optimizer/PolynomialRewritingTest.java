@@ -0,0 +1,106 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.tree.Node;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static com.github.subh0m0y.parser.optimizer.OptimizerTestHelper.*;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.02
+ */
+public class PolynomialRewritingTest {
+    private static final int COUNT = 2_000;
+    private final Random random = newRandom();
+
+    private static Expression rewritten(final String expression) {
+        return withPass(expression, new PolynomialRewriting());
+    }
+
+    /**
+     * Checks that the rewritten polynomial agrees with the original to
+     * a few roundings per term, relative to the sum of the magnitudes of
+     * the terms.
+     */
+    private void checkEquivalent(final double[] coefficients) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < coefficients.length; i++) {
+            builder.append(i == 0 ? "" : " + ").append(coefficients[i]).append(" * x ^ ").append(i);
+        }
+        Expression original = unoptimized(builder.toString());
+        Expression polynomial = rewritten(builder.toString());
+        assertFalse(polynomial.toTree().toString().contains("^"), polynomial.toTree().toString());
+        for (int i = 0; i < COUNT; i++) {
+            double x = (random.nextDouble() - 0.5) * 4;
+            double magnitude = 0;
+            for (int j = 0; j < coefficients.length; j++) {
+                magnitude += Math.abs(coefficients[j] * Math.pow(x, j));
+            }
+            double bound = 4 * coefficients.length * UNIT_ROUNDOFF * magnitude;
+            assertEquals(evaluate(polynomial, x), evaluate(original, x), bound, "x = " + x);
+        }
+    }
+
+    @Test
+    public void testHorner() throws Exception {
+        assertEquals(rewritten("1 + 2*x + 3*x^2 + 4*x^3").toTree(),
+                tree("((4 * x + 3) * x + 2) * x + 1"));
+        // Like terms are collected, and zero terms skipped
+        assertEquals(rewritten("x^3 - 2*x^2 + x^2 + 5").toTree(),
+                tree("((x + (-1)) * x) * x + 5"));
+        // Factored forms need no more multiplications than Horner's
+        assertEquals(rewritten("(x + 1) * (x - 1)").toTree(), tree("(x + 1) * (x - 1)"));
+        checkEquivalent(new double[]{1.5, -2.25, 0.125, 3, -0.5});
+    }
+
+    @Test
+    public void testEstrin() throws Exception {
+        // 1 + x + ... + x^8: (1 + x) + (1 + x) x^2 + ... + x^8
+        Node tree = rewritten("1 + x + x^2 + x^3 + x^4 + x^5 + x^6 + x^7 + x^8").toTree();
+        assertEquals(tree, tree("((x + 1) + (x + 1) * (x * x))"
+                + " + ((x + 1) + (x + 1) * (x * x)) * ((x * x) * (x * x))"
+                + " + ((x * x) * (x * x)) * ((x * x) * (x * x))"));
+        double[] coefficients = new double[13];
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] = random.nextGaussian();
+        }
+        checkEquivalent(coefficients);
+    }
+
+    @Test
+    public void testLeftAlone() throws Exception {
+        String[] unchanged = {
+                "1 + 2*x",
+                "((4 * x + 3) * x + 2) * x + 1",
+                "x^2.5 + x",
+                "x^y + x",
+                "sin(x) + x^0",
+        };
+        for (String expression : unchanged) {
+            assertEquals(rewritten(expression).toTree(), tree(expression), expression);
+        }
+        // Only the polynomial part of a larger expression is rewritten
+        assertEquals(rewritten("x^2 + y").toTree(), tree("x * x + y"));
+        assertEquals(rewritten("sin(x^3 + x)").toTree(), tree("sin((x * x + 1) * x)"));
+    }
+
+    @Test(timeOut = 10_000)
+    public void testHugeExponentsOfConstantBases() throws Exception {
+        // The base has degree 0, so only the exponent itself bounds the work
+        String[] unchanged = {
+                "(x^0)^1000000000000",
+                "(x^0)^(1/0)",
+                "(x^0)^(0/0)",
+                "2^1000000000000 + x",
+        };
+        for (String expression : unchanged) {
+            assertTrue(rewritten(expression).toTree().toString().contains("^"), expression);
+        }
+        assertEquals(evaluate(new Expression("(x^0)^1000000000000",
+                PassManager.withDefaults(OptimizationLevel.O2)), 3), 1.0);
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.subh0m0y.parser.optimizer;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.random.RandomSource;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static com.github.subh0m0y.parser.optimizer.OptimizerTestHelper.*;
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.01
+ */
+public class StrengthReductionTest {
+    private static final int COUNT = 10_000;
+    private final Random random = newRandom();
+
+    private static Expression reduced(final String expression, final StrengthReduction pass) {
+        return withPass(expression, pass);
+    }
+
+    private double randomValue() {
+        // Magnitudes from about 1e-15 to 1e15, of either sign
+        double value = Math.pow(10, random.nextDouble() * 30 - 15);
+        return random.nextBoolean() ? value : -value;
+    }
+
+    @Test
+    public void testIntegerPowers() throws Exception {
+        StrengthReduction pass = new StrengthReduction();
+        assertEquals(reduced("x ^ 2", pass).toTree(), tree("x * x"));
+        assertEquals(reduced("x ^ 5", pass).toTree(), tree("x * ((x * x) * (x * x))"));
+        // Left alone: fractions, large exponents and powers of compound terms
+        assertEquals(reduced("x ^ 2.5", pass).toTree(), tree("x ^ 2.5"));
+        assertEquals(reduced("x ^ 17", pass).toTree(), tree("x ^ 17"));
+        assertEquals(reduced("(x + 1) ^ 3", pass).toTree(), tree("(x + 1) ^ 3"));
+        assertEquals(reduced("sin(x) ^ 2", pass).toTree(), tree("sin(x) ^ 2"));
+
+        for (int n = 2; n <= StrengthReduction.MAXIMUM_EXPONENT; n++) {
+            Expression power = reduced("x ^ " + n, pass);
+            // (n - 1) roundings in the chain, and half an ulp in pow
+            double bound = n == 2 ? 0 : (n - 1) * UNIT_ROUNDOFF + Math.ulp(1.0);
+            for (int i = 0; i < COUNT / 10; i++) {
+                double x = randomValue();
+                double expected = Math.pow(x, n);
+                if (Math.abs(expected) < Double.MIN_NORMAL || Double.isInfinite(expected)) {
+                    continue;
+                }
+                double actual = evaluate(power, x);
+                assertTrue(Math.abs(actual - expected) <= bound * Math.abs(expected),
+                        "x = " + x + ", n = " + n + ": " + actual + " != " + expected);
+            }
+        }
+    }
+
+    @Test
+    public void testReciprocal() throws Exception {
+        Expression reciprocal = reduced("x ^ -1", new StrengthReduction());
+        assertEquals(reciprocal.toTree(), tree("1 / x"));
+        double[] specials = {0.0, -0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN};
+        for (double x : specials) {
+            assertEquals(evaluate(reciprocal, x), Math.pow(x, -1));
+        }
+        for (int i = 0; i < COUNT; i++) {
+            double x = randomValue();
+            double expected = Math.pow(x, -1);
+            assertEquals(evaluate(reciprocal, x), expected, Math.ulp(expected));
+        }
+    }
+
+    @Test
+    public void testDivisionByConstant() throws Exception {
+        StrengthReduction pass = new StrengthReduction();
+        Expression quarter = reduced("x / 4", pass);
+        assertEquals(quarter.toTree(), tree("x * 0.25"));
+        assertEquals(reduced("x / -0.5", pass).toTree(), tree("x * (-2)"));
+        // Inexact or special reciprocals are left alone
+        assertEquals(reduced("x / 3", pass).toTree(), tree("x / 3"));
+        assertEquals(reduced("x / 0", pass).toTree(), tree("x / 0"));
+        assertEquals(reduced("x / " + Double.MAX_VALUE, pass).toTree(), tree("x / " + Double.MAX_VALUE));
+
+        double[] specials = {0.0, -0.0, Double.MIN_VALUE, Double.MAX_VALUE, Double.NEGATIVE_INFINITY, Double.NaN};
+        for (double x : specials) {
+            assertEquals(evaluate(quarter, x), x / 4);
+        }
+        for (int i = 0; i < COUNT; i++) {
+            double x = Double.longBitsToDouble(random.nextLong());
+            // Exactly equal, bit for bit
+            assertEquals(Double.doubleToLongBits(evaluate(quarter, x)), Double.doubleToLongBits(x / 4));
+        }
+    }
+
+    @Test
+    public void testSquareRoots() throws Exception {
+        assertEquals(reduced("x ^ 0.5", new StrengthReduction()).toTree(), tree("x ^ 0.5"));
+        Expression root = reduced("x ^ 0.5", new StrengthReduction(true));
+        assertEquals(root.toTree(), tree("sqrt(x)"));
+        for (int i = 0; i < COUNT; i++) {
+            double x = Math.abs(randomValue());
+            double expected = Math.pow(x, 0.5);
+            assertEquals(evaluate(root, x), expected, Math.ulp(expected));
+        }
+    }
+
+    @Test
+    public void testImpureBasesAreNotRepeated() throws Exception {
+        PassManager passes = PassManager.withDefaults(OptimizationLevel.O2);
+        // The square of one draw, not the product of two
+        Expression square = new Expression("rand() ^ 2", passes);
+        assertEquals(square.toTree(), tree("rand() ^ 2"));
+        SplittableRandom previous = RandomSource.install(new SplittableRandom(7));
+        double[] samples;
+        try {
+            samples = square.evaluate(Collections.emptyMap(), COUNT * 10);
+        } finally {
+            RandomSource.install(previous);
+        }
+        double sum = 0;
+        for (double sample : samples) {
+            sum += sample;
+        }
+        assertEquals(sum / samples.length, 1 / 3.0, 0.01);
+
+        // One lag that advances once per evaluation
+        Expression lagged = new Expression("lag(x, 1) ^ 2", passes);
+        assertTrue(Double.isNaN(evaluate(lagged, 1)));
+        assertEquals(evaluate(lagged, 2), 1.0);
+        assertEquals(evaluate(lagged, 3), 4.0);
+        assertEquals(evaluate(lagged, 4), 9.0);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testSquareRootOfNegative() throws Exception {
+        // The documented difference: a domain error rather than NaN
+        evaluate(reduced("x ^ 0.5", new StrengthReduction(true)), -4);
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.subh0m0y.parser.solver;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import org.apache.commons.math3.analysis.differentiation.DerivativeStructure;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.11
+ */
+public class SolverTest {
+    private final RootFinder finder = new RootFinder(1e-12, 200);
+    private final Minimizer minimizer = new Minimizer(1e-10, 1e-12, 2000);
+
+    @Test
+    public void testFunctionsMatchExpressions() throws Exception {
+        Expression expression = new Expression("sin(x) * y ^ 2 - log(abs(x) + 1) / y + if(x > y, x, -y)");
+        MultivariateExpressionFunction function = new MultivariateExpressionFunction(expression);
+        assertEquals(function.getVariables(), new ArrayList<>(expression.getVariables()));
+        Random random = new Random(5);
+        for (int i = 0; i < 100; i++) {
+            double x = random.nextGaussian() * 3;
+            double y = random.nextGaussian() * 3;
+            Map<String, double[]> columns = new HashMap<>();
+            columns.put("x", new double[]{x});
+            columns.put("y", new double[]{y});
+            double expected = expression.evaluate(columns, 1)[0];
+            assertEquals(function.value(new double[]{x, y}), expected, 1e-12);
+            UnivariateExpressionFunction section = new UnivariateExpressionFunction(
+                    expression, "x", Collections.singletonMap("y", y));
+            assertEquals(section.value(x), expected, 1e-12);
+        }
+    }
+
+    @Test
+    public void testDerivatives() throws Exception {
+        UnivariateExpressionFunction function = new UnivariateExpressionFunction(
+                new Expression("x ^ 3 - 2 * x + exp(x) * sin(x) + sqrt(x) / x"), "x");
+        assertTrue(function.isDifferentiable());
+        for (double x = 0.5; x < 4; x += 0.25) {
+            DerivativeStructure result = function.value(new DerivativeStructure(1, 2, 0, x));
+            double first = 3 * x * x - 2 + Math.exp(x) * (Math.sin(x) + Math.cos(x)) - 0.5 * Math.pow(x, -1.5);
+            double second = 6 * x + 2 * Math.exp(x) * Math.cos(x) + 0.75 * Math.pow(x, -2.5);
+            assertEquals(result.getValue(), function.value(x), 1e-12);
+            assertEquals(result.getPartialDerivative(1), first, 1e-9);
+            assertEquals(result.getPartialDerivative(2), second, 1e-9);
+        }
+        // A negative base with an integer exponent
+        UnivariateExpressionFunction cube = new UnivariateExpressionFunction(new Expression("x ^ 3"), "x");
+        assertEquals(cube.value(new DerivativeStructure(1, 1, 0, -2)).getPartialDerivative(1), 12, 1e-12);
+
+        MultivariateExpressionFunction product = new MultivariateExpressionFunction(
+                new Expression("x * y ^ 2 + (x < y)"));
+        double[] gradient = product.gradient().value(new double[]{3, 2});
+        assertEquals(gradient[0], 4, 1e-12);
+        assertEquals(gradient[1], 12, 1e-12);
+    }
+
+    @Test
+    public void testRoots() throws Exception {
+        UnivariateExpressionFunction function = new UnivariateExpressionFunction(
+                new Expression("x ^ 2 - a"), "x", Collections.singletonMap("a", 2d));
+        Solution brent = finder.brent(function, 0, 2);
+        assertEquals(brent.getArgument(), Math.sqrt(2), 1e-11);
+        assertTrue(brent.getEvaluations() > 0);
+
+        Solution newton = finder.newton(function, 1);
+        assertEquals(newton.getArgument(), Math.sqrt(2), 1e-11);
+        assertTrue(newton.getEvaluations() < brent.getEvaluations() + 10);
+        assertEquals(newton.getValue(), 0, 1e-10);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testNoBracket() throws Exception {
+        finder.brent(new UnivariateExpressionFunction(new Expression("x ^ 2 + 1"), "x"), -1, 1);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testUnfixedVariable() throws Exception {
+        new UnivariateExpressionFunction(new Expression("x + y"), "x");
+    }
+
+    @Test
+    public void testMinima() throws Exception {
+        UnivariateExpressionFunction parabola = new UnivariateExpressionFunction(
+                new Expression("(x - 1.5) ^ 2 + 3"), "x");
+        Solution minimum = minimizer.brent(parabola, -10, 10);
+        assertEquals(minimum.getArgument(), 1.5, 1e-6);
+        assertEquals(minimum.getValue(), 3, 1e-10);
+        assertTrue(minimum.getIterations() > 0);
+
+        MultivariateExpressionFunction rosenbrock = new MultivariateExpressionFunction(
+                new Expression("(1 - x) ^ 2 + 100 * (y - x ^ 2) ^ 2"));
+        Solution valley = minimizer.nelderMead(rosenbrock, new double[]{-1.2, 1}, new double[]{0.5, 0.5});
+        assertEquals(valley.getPoint()[0], 1, 1e-3);
+        assertEquals(valley.getPoint()[1], 1, 1e-3);
+        assertTrue(valley.getIterations() > 0 && valley.getEvaluations() >= valley.getIterations());
+    }
+
+    @Test
+    public void testSharedBetweenThreads() throws Exception {
+        UnivariateExpressionFunction function = new UnivariateExpressionFunction(
+                new Expression("x * x + 1"), "x");
+        AtomicInteger mismatches = new AtomicInteger();
+        Runnable task = () -> {
+            for (int i = 0; i < 10000; i++) {
+                double x = ThreadLocalRandom.current().nextDouble();
+                if (function.value(x) != x * x + 1) {
+                    mismatches.incrementAndGet();
+                }
+            }
+        };
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(task);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(mismatches.get(), 0);
+    }
+}
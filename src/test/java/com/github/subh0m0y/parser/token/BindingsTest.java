@@ -0,0 +1,99 @@
+package com.github.subh0m0y.parser.token;
+
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.22
+ */
+public class BindingsTest {
+
+    // The same spreading of hash codes as Bindings uses
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    @Test
+    public void testMatchesHashMap() throws Exception {
+        Random random = new Random(3);
+        Map<Variable, Operand> expected = new HashMap<>();
+        Bindings bindings = Bindings.EMPTY;
+        for (int i = 0; i < 20_000; i++) {
+            Variable variable = new Variable("v" + random.nextInt(5_000));
+            Operand operand = new Real(i);
+            expected.put(variable, operand);
+            bindings = bindings.with(variable, operand);
+        }
+        assertEquals(bindings.size(), expected.size());
+        assertEquals(bindings.asMap(), expected);
+        assertNull(bindings.get(new Variable("missing")));
+    }
+
+    @Test
+    public void testCollidingHashes() throws Exception {
+        // "Aa" and "BB" have the same hash, so do all strings made of them
+        List<Variable> colliding = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            StringBuilder symbol = new StringBuilder();
+            for (int bit = 0; bit < 6; bit++) {
+                symbol.append((i >> bit & 1) == 0 ? "Aa" : "BB");
+            }
+            colliding.add(new Variable(symbol.toString()));
+        }
+        Bindings bindings = Bindings.EMPTY.with(new Variable("x"), new Real(-1));
+        for (int i = 0; i < colliding.size(); i++) {
+            bindings = bindings.with(colliding.get(i), new Real(i));
+        }
+        // A key with another hash that lands in the same slot of the root,
+        // so that it reaches the node of the colliding keys
+        int collision = spread(colliding.get(0).hashCode());
+        String other = null;
+        for (int i = 0; other == null; i++) {
+            int hash = spread(("y" + i).hashCode());
+            if ((hash & 31) == (collision & 31) && hash != collision) {
+                other = "y" + i;
+            }
+        }
+        bindings = bindings.with(new Variable(other), new Real(-2));
+        assertEquals(bindings.size(), colliding.size() + 2);
+        for (int i = 0; i < colliding.size(); i++) {
+            assertEquals(bindings.get(colliding.get(i)).getValue(), (double) i);
+        }
+        assertEquals(bindings.get(new Variable("x")).getValue(), -1.0);
+        assertEquals(bindings.get(new Variable(other)).getValue(), -2.0);
+        assertEquals(bindings.asMap().size(), colliding.size() + 2);
+    }
+
+    @Test
+    public void testVersionsAreIndependent() throws Exception {
+        Variable x = new Variable("x");
+        Bindings first = Bindings.EMPTY;
+        for (int i = 0; i < 1_000; i++) {
+            first = first.with(new Variable("v" + i), new Real(i));
+        }
+        Bindings second = first.with(x, new Real(1)).with(new Variable("v7"), new Real(-7));
+        assertNull(first.get(x));
+        assertEquals(first.get(new Variable("v7")).getValue(), 7.0);
+        assertEquals(second.get(new Variable("v7")).getValue(), -7.0);
+        assertEquals(first.size(), 1_000);
+        assertEquals(second.size(), 1_001);
+        // Binding the same operand again changes nothing
+        Operand same = second.get(x);
+        assertSame(second.with(x, same), second);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testViewIsUnmodifiable() throws Exception {
+        Bindings.EMPTY.with(new Variable("x"), new Real(1)).asMap().clear();
+    }
+}
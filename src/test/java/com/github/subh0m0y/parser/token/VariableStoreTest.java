@@ -0,0 +1,109 @@
+package com.github.subh0m0y.parser.token;
+
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.05.22
+ */
+public class VariableStoreTest {
+    private static final double EPS = 1e-15;
+
+    @Test
+    public void testSnapshotsAreImmutable() throws Exception {
+        VariableStore store = new VariableStore();
+        Variable x = new Variable("x");
+        VariableSnapshot first = store.bind(x, new Real(1));
+        store.bind(x, new Real(2));
+        VariableSnapshot second = store.snapshot();
+
+        assertEquals(first.getValue(x), 1, EPS);
+        assertEquals(second.getValue(x), 2, EPS);
+        assertTrue(second.getVersion() > first.getVersion());
+    }
+
+    @Test
+    public void testAliasesResolveWithinSnapshot() throws Exception {
+        VariableStore store = new VariableStore();
+        Variable x = new Variable("x");
+        Variable y = new Variable("y");
+        store.bind(y, new Real(3));
+        store.bind(x, y);
+        VariableSnapshot snapshot = store.snapshot();
+        store.bind(y, new Real(4));
+        assertEquals(snapshot.getValue(x), 3, EPS);
+        assertEquals(store.snapshot().getValue(x), 4, EPS);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testCircularBindings() throws Exception {
+        VariableStore store = new VariableStore();
+        Variable x = new Variable("x");
+        Variable y = new Variable("y");
+        store.bind(x, y);
+        store.bind(y, x);
+        store.snapshot().getValue(x);
+    }
+
+    @Test
+    public void testBatchesArePublishedAtomically() throws Exception {
+        final VariableStore store = new VariableStore();
+        final Variable x = new Variable("x");
+        final Variable y = new Variable("y");
+        store.bind(x, new Real(0));
+        store.bind(y, new Real(0));
+
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    Map<Variable, Operand> batch = new HashMap<>();
+                    batch.put(x, new Real(i));
+                    batch.put(y, new Real(-i));
+                    store.bindAll(batch);
+                }
+            });
+            writers[w].start();
+        }
+        long lastVersion = -1;
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread writer : writers) {
+                running |= writer.isAlive();
+            }
+            VariableSnapshot snapshot = store.snapshot();
+            assertEquals(snapshot.getValue(x) + snapshot.getValue(y), 0, EPS);
+            assertTrue(snapshot.getVersion() >= lastVersion);
+            lastVersion = snapshot.getVersion();
+        }
+        // Two initial binds plus every batch, none of them lost
+        assertEquals(store.snapshot().getVersion(), 2 + writers.length * 10_000);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testWritesToLargeStores() throws Exception {
+        // Copying 100 000 bindings on each of 20 000 writes would take
+        // minutes; only the path to each binding is copied
+        Map<Variable, Operand> initial = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            initial.put(new Variable("large_" + i), new Real(i));
+        }
+        VariableStore store = new VariableStore(initial);
+        VariableSnapshot first = store.snapshot();
+        for (int i = 0; i < 20_000; i++) {
+            store.bind(new Variable("large_" + i), new Real(-i));
+        }
+        assertEquals(store.snapshot().asMap().size(), 100_000);
+        assertEquals(store.snapshot().getValue(new Variable("large_19999")), -19999, EPS);
+        assertEquals(first.getValue(new Variable("large_19999")), 19999, EPS);
+    }
+}
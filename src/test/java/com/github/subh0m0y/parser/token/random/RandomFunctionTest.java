@@ -0,0 +1,60 @@
+package com.github.subh0m0y.parser.token.random;
+
+import com.github.subh0m0y.parser.Expression;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.13
+ */
+public class RandomFunctionTest {
+
+    private static double[] draw(final String formula, final int rows, final long seed) {
+        RandomSource.setSeed(seed);
+        return new Expression(formula).evaluate(Collections.emptyMap(), rows);
+    }
+
+    @Test
+    public void testNotFolded() throws Exception {
+        Expression difference = new Expression("rand() - rand()");
+        assertEquals(difference.toTree().toString(), "(rand() + (-1 * rand()))");
+        assertNotEquals(difference.evaluate().getValue(), 0.0);
+    }
+
+    @Test
+    public void testDistributions() throws Exception {
+        int rows = 100000;
+        double[] uniform = draw("rand()", rows, 1);
+        double[] range = draw("uniform(2, 5)", rows, 2);
+        double[] normal = draw("randn()", rows, 3);
+        double sum = 0;
+        double rangeSum = 0;
+        double normalSum = 0;
+        double normalSquares = 0;
+        for (int i = 0; i < rows; i++) {
+            assertTrue(uniform[i] >= 0 && uniform[i] < 1);
+            assertTrue(range[i] >= 2 && range[i] < 5);
+            sum += uniform[i];
+            rangeSum += range[i];
+            normalSum += normal[i];
+            normalSquares += normal[i] * normal[i];
+        }
+        assertEquals(sum / rows, 0.5, 0.01);
+        assertEquals(rangeSum / rows, 3.5, 0.03);
+        assertEquals(normalSum / rows, 0, 0.02);
+        assertEquals(normalSquares / rows, 1, 0.02);
+    }
+
+    @Test
+    public void testSeededDrawsRepeat() throws Exception {
+        assertEquals(draw("rand() + randn()", 1000, 42), draw("rand() + randn()", 1000, 42));
+        RandomSource.setSeed(7);
+        double first = new Expression("uniform(0, 10)").evaluate().getValue();
+        RandomSource.setSeed(7);
+        assertEquals(new Expression("uniform(0, 10)").evaluate().getValue(), first);
+    }
+}
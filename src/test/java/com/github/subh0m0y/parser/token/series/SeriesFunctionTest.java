@@ -0,0 +1,134 @@
+package com.github.subh0m0y.parser.token.series;
+
+import com.github.subh0m0y.parser.Expression;
+import com.github.subh0m0y.parser.exceptions.EvaluationException;
+import com.github.subh0m0y.parser.token.VariableStore;
+import com.github.subh0m0y.parser.token.operands.Real;
+import com.github.subh0m0y.parser.token.operands.Variable;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Subhomoy Haldar
+ * @version 2017.06.08
+ */
+public class SeriesFunctionTest {
+    private static final double EPS = 1e-9;
+
+    private static double push(final Expression expression, final double x) {
+        VariableStore store = new VariableStore();
+        return expression.evaluate(store.bind(new Variable("x"), new Real(x))).getValue();
+    }
+
+    @Test
+    public void testLagAndDelta() throws Exception {
+        Expression lag = new Expression("lag(x, 2)");
+        Expression delta = new Expression("delta(x)");
+        double[] ticks = {1, 4, 9, 16, 25};
+        for (int i = 0; i < ticks.length; i++) {
+            double lagged = push(lag, ticks[i]);
+            double change = push(delta, ticks[i]);
+            if (i < 2) {
+                assertTrue(Double.isNaN(lagged));
+            } else {
+                assertEquals(lagged, ticks[i - 2]);
+            }
+            if (i < 1) {
+                assertTrue(Double.isNaN(change));
+            } else {
+                assertEquals(change, ticks[i] - ticks[i - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void testWindows() throws Exception {
+        final int width = 20;
+        Expression average = new Expression("movavg(x, 20)");
+        Expression maximum = new Expression("movmax(x, 20)");
+        Expression minimum = new Expression("movmin(x, 20)");
+        Random random = new Random(42);
+        double[] ticks = new double[1000];
+        for (int i = 0; i < ticks.length; i++) {
+            ticks[i] = random.nextGaussian() * 100 + (i % 7 == 0 ? 1e6 : 0);
+            double sum = 0;
+            double max = Double.NEGATIVE_INFINITY;
+            double min = Double.POSITIVE_INFINITY;
+            int from = Math.max(0, i - width + 1);
+            for (int j = from; j <= i; j++) {
+                sum += ticks[j];
+                max = Math.max(max, ticks[j]);
+                min = Math.min(min, ticks[j]);
+            }
+            assertEquals(push(average, ticks[i]), sum / (i - from + 1), EPS * 1e6);
+            assertEquals(push(maximum, ticks[i]), max);
+            assertEquals(push(minimum, ticks[i]), min);
+        }
+    }
+
+    @Test
+    public void testExponentialMovingAverage() throws Exception {
+        Expression ema = new Expression("ema(x, 0.5)");
+        assertEquals(push(ema, 10), 10.0);
+        assertEquals(push(ema, 20), 15.0);
+        assertEquals(push(ema, 0), 7.5);
+    }
+
+    @Test
+    public void testEveryOccurrenceHasItsOwnState() throws Exception {
+        // The two lags see the same stream, but neither advances the other
+        Expression difference = new Expression("lag(x, 1) - lag(x, 1) + delta(x) + delta(2 * x)");
+        push(difference, 1);
+        assertEquals(push(difference, 3), 6.0);
+        assertEquals(push(difference, 4), 3.0);
+
+        // Constant operands are not folded away
+        Expression count = new Expression("movavg(1, 3) + lag(2, 1)");
+        assertTrue(Double.isNaN(push(count, 0)));
+        assertEquals(push(count, 0), 3.0);
+        assertEquals(count.getTier(), Expression.Tier.INTERPRETED_ONLY);
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        Expression lag = new Expression("lag(x, 1) + movmax(x, 3)");
+        push(lag, 5);
+        assertEquals(push(lag, 1), 10.0);
+        lag.reset();
+        assertTrue(Double.isNaN(push(lag, 1)));
+        assertEquals(push(lag, 2), 3.0);
+    }
+
+    @Test
+    public void testBatchOnlyAdvancesTakenBranches() throws Exception {
+        // delta only sees the rows where x > 0: 1, then 3
+        Expression guarded = new Expression("if(x > 0, delta(x), 0)");
+        double[] values = guarded.evaluate(Collections.singletonMap("x", new double[]{1, -5, 3}), 3);
+        assertTrue(Double.isNaN(values[0]));
+        assertEquals(values[1], 0.0);
+        assertEquals(values[2], 2.0);
+
+        // Without conditionals every row reaches the lag, in order
+        Expression lag = new Expression("lag(x, 1) + 1");
+        values = lag.evaluate(Collections.singletonMap("x", new double[]{1, -5, 3}), 3);
+        assertTrue(Double.isNaN(values[0]));
+        assertEquals(values[1], 2.0);
+        assertEquals(values[2], -4.0);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testWindowMustBeWhole() throws Exception {
+        push(new Expression("movavg(x, 2.5)"), 1);
+    }
+
+    @Test(expectedExceptions = EvaluationException.class)
+    public void testWindowMayNotChange() throws Exception {
+        Expression changing = new Expression("movmax(x, x)");
+        push(changing, 1);
+        push(changing, 2);
+    }
+}